@@ -0,0 +1,101 @@
+package com.linkedlogics.bio.sql;
+
+/**
+ * Aggregate function over a tag used by aggregate() of {@link BioSql}.
+ * Result is put into row under its name which is function_tag by default
+ * @author rajab
+ *
+ */
+public class Aggregation {
+	private final String function ;
+	private final String tag ;
+	private final boolean isDistinct ;
+	private String name ;
+
+	private Aggregation(String function, String tag, boolean isDistinct) {
+		this.function = function ;
+		this.tag = tag ;
+		this.isDistinct = isDistinct ;
+		this.name = tag != null ? function + "_" + tag : function ;
+	}
+	/**
+	 * count(*)
+	 * @return
+	 */
+	public static Aggregation count() {
+		return new Aggregation("count", null, false) ;
+	}
+	/**
+	 * count of non null values of tag
+	 * @param tag
+	 * @return
+	 */
+	public static Aggregation count(String tag) {
+		return new Aggregation("count", tag, false) ;
+	}
+	/**
+	 * count of distinct values of tag
+	 * @param tag
+	 * @return
+	 */
+	public static Aggregation countDistinct(String tag) {
+		return new Aggregation("count", tag, true) ;
+	}
+	/**
+	 * sum of tag
+	 * @param tag
+	 * @return
+	 */
+	public static Aggregation sum(String tag) {
+		return new Aggregation("sum", tag, false) ;
+	}
+	/**
+	 * minimum of tag
+	 * @param tag
+	 * @return
+	 */
+	public static Aggregation min(String tag) {
+		return new Aggregation("min", tag, false) ;
+	}
+	/**
+	 * maximum of tag
+	 * @param tag
+	 * @return
+	 */
+	public static Aggregation max(String tag) {
+		return new Aggregation("max", tag, false) ;
+	}
+	/**
+	 * average of tag
+	 * @param tag
+	 * @return
+	 */
+	public static Aggregation avg(String tag) {
+		return new Aggregation("avg", tag, false) ;
+	}
+	/**
+	 * Sets name of result in row
+	 * @param name
+	 * @return
+	 */
+	public Aggregation as(String name) {
+		this.name = name ;
+		return this ;
+	}
+
+	public String getFunction() {
+		return function;
+	}
+
+	public String getTag() {
+		return tag;
+	}
+
+	public boolean isDistinct() {
+		return isDistinct;
+	}
+
+	public String getName() {
+		return name;
+	}
+}
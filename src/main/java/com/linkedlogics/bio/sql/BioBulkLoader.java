@@ -0,0 +1,395 @@
+package com.linkedlogics.bio.sql;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+
+import com.linkedlogics.bio.BioObject;
+import com.linkedlogics.bio.sql.dialect.SqlDialect;
+import com.linkedlogics.bio.sql.exception.SqlException;
+import com.linkedlogics.bio.sql.object.BioColumn;
+import com.linkedlogics.bio.sql.object.BioTable;
+import com.linkedlogics.bio.sql.utility.SqlUtility;
+
+/**
+ * BioBulkLoader streams bio objects into a temporary delimited file and hands it over
+ * to native bulk import of database. Values are encoded the same way as they are
+ * set by regular inserts. File path must be accessible by database server.
+ * @author rajab
+ *
+ */
+public class BioBulkLoader implements AutoCloseable {
+	/**
+	 * BioSql instance for value extraction and parsers
+	 */
+	protected BioSql<BioObject> bioSql ;
+	/**
+	 * Columns written into file
+	 */
+	protected BioColumn[] columns ;
+	/**
+	 * Imports file into table
+	 */
+	protected Importer importer = new H2Importer() ;
+	/**
+	 * Optional staging table, if it is set file is imported into staging table and then merged into target
+	 */
+	protected String stagingTable ;
+	/**
+	 * Field delimiter
+	 */
+	protected char delimiter = ',' ;
+	/**
+	 * Text written for NULL values
+	 */
+	protected String nullValue = "" ;
+	/**
+	 * Temporary file
+	 */
+	protected File file ;
+	/**
+	 * Temporary file writer
+	 */
+	protected BufferedWriter writer ;
+	/**
+	 * Number of rows written into file
+	 */
+	protected int count ;
+
+	public BioBulkLoader(int code) {
+		this(0, code) ;
+	}
+
+	public BioBulkLoader(int dictionary, int code) {
+		bioSql = new BioSql<BioObject>(dictionary, code) ;
+		columns = getColumns(bioSql.getTable()) ;
+	}
+
+	public BioBulkLoader(Class bioClass) {
+		bioSql = new BioSql<BioObject>(bioClass) ;
+		columns = getColumns(bioSql.getTable()) ;
+	}
+	/**
+	 * Returns columns to be written, auto columns generated by database are skipped
+	 * @param table
+	 * @return
+	 */
+	private static BioColumn[] getColumns(BioTable table) {
+		if (table.isGeneratedKeys()) {
+			return table.getInsertAutoColumns() ;
+		}
+		return table.getColumns() ;
+	}
+	/**
+	 * Sets database connection
+	 * @param connection
+	 */
+	public void setConnection(Connection connection) {
+		bioSql.setConnection(connection);
+	}
+	/**
+	 * Returns database connection
+	 * @return
+	 */
+	public Connection getConnection() {
+		return bioSql.getConnection() ;
+	}
+	/**
+	 * Returns bio table
+	 * @return
+	 */
+	public BioTable getTable() {
+		return bioSql.getTable() ;
+	}
+	/**
+	 * Returns columns written into file in order
+	 * @return
+	 */
+	public BioColumn[] getColumns() {
+		return columns ;
+	}
+	/**
+	 * Sets database specific importer
+	 * @param importer
+	 */
+	public void setImporter(Importer importer) {
+		this.importer = importer;
+	}
+	/**
+	 * Sets importer and NULL text of dialect
+	 * @param dialect
+	 */
+	public void setDialect(SqlDialect dialect) {
+		if (dialect.getImporter() == null) {
+			throw new SqlException("bulk import is not supported by " + dialect.getName() + " please provide importer") ;
+		}
+		this.importer = dialect.getImporter() ;
+		this.nullValue = dialect.getBulkNullValue() ;
+	}
+	/**
+	 * Returns staging table
+	 * @return
+	 */
+	public String getStagingTable() {
+		return stagingTable;
+	}
+	/**
+	 * Sets staging table which has same columns as target table
+	 * @param stagingTable
+	 */
+	public void setStagingTable(String stagingTable) {
+		this.stagingTable = stagingTable;
+	}
+	/**
+	 * Returns field delimiter
+	 * @return
+	 */
+	public char getDelimiter() {
+		return delimiter;
+	}
+	/**
+	 * Sets field delimiter
+	 * @param delimiter
+	 */
+	public void setDelimiter(char delimiter) {
+		this.delimiter = delimiter;
+	}
+	/**
+	 * Returns text written for NULL values
+	 * @return
+	 */
+	public String getNullValue() {
+		return nullValue;
+	}
+	/**
+	 * Sets text written for NULL values, for example \N for MySQL
+	 * @param nullValue
+	 */
+	public void setNullValue(String nullValue) {
+		this.nullValue = nullValue;
+	}
+	/**
+	 * Returns temporary file
+	 * @return
+	 */
+	public File getFile() {
+		return file ;
+	}
+	/**
+	 * Returns number of rows written into file
+	 * @return
+	 */
+	public int getCount() {
+		return count ;
+	}
+	/**
+	 * Writes object into temporary file
+	 * @param object
+	 */
+	public void add(BioObject object) {
+		try {
+			if (writer == null) {
+				open() ;
+			}
+			for (int i = 0; i < columns.length; i++) {
+				if (i > 0) {
+					writer.write(delimiter);
+				}
+				Object value = bioSql.getValue(object, columns[i]) ;
+				if (value == null) {
+					writer.write(nullValue);
+				} else {
+					int sqlType = SqlUtility.getParameterType(value, columns[i]) ;
+					Object encoded = SqlUtility.encodeParameter(value, columns[i], bioSql.getBinaryParser()) ;
+					String text = SqlUtility.formatParameter(sqlType, encoded) ;
+					if (sqlType == Types.BLOB) {
+						text = importer.formatHex(text) ;
+					}
+					writer.write(quote(text));
+				}
+			}
+			writer.newLine();
+			count++ ;
+			// keys are added before import, a key of row which fails to load only causes a false positive
+			if (!getTable().isGeneratedKeys()) {
+				bioSql.addKey(object) ;
+			}
+		} catch (IOException e) {
+			throw new SqlException(e) ;
+		}
+	}
+	/**
+	 * Imports written file into table and merges staging table if it is set.
+	 * Transaction is controlled by caller. Loaded rows are not known one by one so all cached rows of table are removed.
+	 * Keys generated by database are not known either, so key filter of such table is not consulted until it is loaded again
+	 * @return number of imported rows
+	 * @throws SQLException
+	 */
+	public int load() throws SQLException {
+		if (writer == null) {
+			return 0 ;
+		}
+		try {
+			writer.close();
+		} catch (IOException e) {
+			throw new SqlException(e) ;
+		}
+		writer = null ;
+
+		int result ;
+		if (stagingTable != null) {
+			importer.load(getConnection(), stagingTable, columns, file, delimiter) ;
+			result = importer.merge(getConnection(), getTable(), stagingTable, columns) ;
+			try (Statement s = getConnection().createStatement()) {
+				s.executeUpdate("delete from " + stagingTable) ;
+			}
+		} else {
+			result = importer.load(getConnection(), getTableName(getTable()), columns, file, delimiter) ;
+		}
+		bioSql.invalidate(null, null) ;
+		if (getTable().isGeneratedKeys() && getTable().getKeyFilter() != null) {
+			getTable().getKeyFilter().setReady(false);
+		}
+
+		deleteFile() ;
+		count = 0 ;
+		return result ;
+	}
+	/**
+	 * Creates temporary file
+	 * @throws IOException
+	 */
+	protected void open() throws IOException {
+		file = File.createTempFile("bio-" + getTable().getTable() + "-", ".csv") ;
+		writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) ;
+		for (int i = 0; i < columns.length; i++) {
+			if (i > 0) {
+				writer.write(delimiter);
+			}
+			writer.write(columns[i].getColumn());
+		}
+		writer.newLine();
+	}
+	/**
+	 * Quotes value if it contains delimiter, quotes or line breaks, empty strings are quoted to differ from NULL
+	 * @param value
+	 * @return
+	 */
+	protected String quote(String value) {
+		if (value.isEmpty()) {
+			return "\"\"" ;
+		}
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i) ;
+			if (c == delimiter || c == '"' || c == '\n' || c == '\r') {
+				return "\"" + value.replace("\"", "\"\"") + "\"" ;
+			}
+		}
+		return value ;
+	}
+	/**
+	 * Deletes temporary file
+	 */
+	private void deleteFile() {
+		if (file != null) {
+			file.delete() ;
+			file = null ;
+		}
+	}
+
+	@Override
+	public void close() {
+		if (writer != null) {
+			try {
+				writer.close();
+			} catch (IOException e) {
+
+			}
+			writer = null ;
+		}
+		deleteFile() ;
+	}
+	/**
+	 * Returns table name with schema
+	 * @param table
+	 * @return
+	 */
+	static String getTableName(BioTable table) {
+		return SqlUtility.getTableName(table) ;
+	}
+	/**
+	 * Returns comma separated column names
+	 * @param columns
+	 * @return
+	 */
+	static String getColumnNames(BioColumn[] columns) {
+		return SqlUtility.getColumnNames(columns) ;
+	}
+
+	/**
+	 * Database specific bulk import, for example COPY for PostgreSQL or LOAD DATA for MySQL which are provided by dialects
+	 */
+	public interface Importer {
+		/**
+		 * Imports file with header line into table
+		 * @param connection
+		 * @param table
+		 * @param columns
+		 * @param file
+		 * @param delimiter
+		 * @return number of imported rows
+		 * @throws SQLException
+		 */
+		int load(Connection connection, String table, BioColumn[] columns, File file, char delimiter) throws SQLException ;
+		/**
+		 * Merges staging table into target table
+		 * @param connection
+		 * @param table
+		 * @param stagingTable
+		 * @param columns
+		 * @return number of merged rows
+		 * @throws SQLException
+		 */
+		int merge(Connection connection, BioTable table, String stagingTable, BioColumn[] columns) throws SQLException ;
+		/**
+		 * Returns text of binary value written into file, by default hex is written as it is
+		 * @param hex binary value as hex
+		 * @return
+		 */
+		default String formatHex(String hex) {
+			return hex ;
+		}
+	}
+
+	/**
+	 * H2 importer using CSVREAD and MERGE ... KEY
+	 */
+	public static class H2Importer implements Importer {
+		@Override
+		public int load(Connection connection, String table, BioColumn[] columns, File file, char delimiter) throws SQLException {
+			String names = getColumnNames(columns) ;
+			String sql = "insert into " + table + " (" + names + ") select " + names + " from csvread('"
+					+ file.getAbsolutePath().replace("'", "''") + "', null, 'charset=UTF-8 fieldSeparator=" + delimiter + "')" ;
+			try (Statement s = connection.createStatement()) {
+				return s.executeUpdate(sql) ;
+			}
+		}
+
+		@Override
+		public int merge(Connection connection, BioTable table, String stagingTable, BioColumn[] columns) throws SQLException {
+			String names = getColumnNames(columns) ;
+			String sql = "merge into " + getTableName(table) + " (" + names + ") key (" + getColumnNames(table.getKeys()) + ") select "
+					+ names + " from " + stagingTable ;
+			try (Statement s = connection.createStatement()) {
+				return s.executeUpdate(sql) ;
+			}
+		}
+	}
+}
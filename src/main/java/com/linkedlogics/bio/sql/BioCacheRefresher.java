@@ -0,0 +1,129 @@
+package com.linkedlogics.bio.sql;
+
+import java.sql.Connection;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import com.linkedlogics.bio.BioDictionary;
+import com.linkedlogics.bio.BioObject;
+import com.linkedlogics.bio.dictionary.BioObj;
+import com.linkedlogics.bio.sql.cache.BioObjectCache;
+import com.linkedlogics.bio.sql.exception.SqlException;
+import com.linkedlogics.bio.sql.object.BioColumn;
+import com.linkedlogics.bio.sql.object.BioTable;
+
+/**
+ * Refresh ahead loader of primary key cache of a table. Rows are reloaded on a background executor
+ * with connections taken from data source. If table has a version column only version is selected first
+ * and row is not selected again if version is not changed
+ * <pre>
+ * BioCacheRefresher refresher = new BioCacheRefresher(dataSource, Vehicle.class) ;
+ * refresher.enable(0.8) ;
+ * ...
+ * refresher.close() ;
+ * </pre>
+ * @author rajab
+ *
+ */
+public class BioCacheRefresher implements BioObjectCache.Loader, AutoCloseable {
+	private static final AtomicInteger THREAD_COUNTER = new AtomicInteger() ;
+	
+	private final DataSource dataSource ;
+	private final int dictionary ;
+	private final int code ;
+	private final BioTable table ;
+	private ExecutorService executor ;
+	
+	public BioCacheRefresher(DataSource dataSource, int code) {
+		this(dataSource, 0, code) ;
+	}
+	
+	public BioCacheRefresher(DataSource dataSource, int dictionary, int code) {
+		this.dataSource = dataSource ;
+		this.dictionary = dictionary ;
+		this.code = code ;
+		this.table = BioSqlDictionary.getDictionary(dictionary).getTableByCode(code) ;
+	}
+	
+	public BioCacheRefresher(DataSource dataSource, Class bioClass) {
+		this(dataSource, getObj(bioClass).getDictionary(), getObj(bioClass).getCode()) ;
+	}
+	
+	private static BioObj getObj(Class bioClass) {
+		BioObj obj = BioDictionary.findObj(bioClass) ;
+		if (obj == null) {
+			throw new SqlException(bioClass + " bio obj is not found in dictionary") ;
+		}
+		return obj ;
+	}
+	/**
+	 * Enables refresh ahead on primary key cache of table using its own daemon threads
+	 * @param refreshAhead fraction of time to live after which read entries are reloaded
+	 * @param threads
+	 */
+	public void enable(double refreshAhead, int threads) {
+		if (table.getCache() == null) {
+			throw new SqlException(table.getTable() + " has no cache") ;
+		}
+		if (executor == null) {
+			executor = Executors.newFixedThreadPool(threads, r -> {
+				Thread t = new Thread(r, "bio-cache-refresher-" + THREAD_COUNTER.incrementAndGet()) ;
+				t.setDaemon(true);
+				return t ;
+			}) ;
+		}
+		table.getCache().setRefreshAhead(refreshAhead, this, executor);
+	}
+	/**
+	 * Enables refresh ahead with single thread
+	 * @param refreshAhead
+	 */
+	public void enable(double refreshAhead) {
+		enable(refreshAhead, 1) ;
+	}
+	
+	@Override
+	public Object[] load(Object key, Object[] current) throws Exception {
+		try (Connection connection = dataSource.getConnection()) {
+			BioSql<BioObject> sql = new BioSql<BioObject>(dictionary, code) ;
+			sql.setConnection(connection);
+			
+			BioColumn version = table.getVersionColumn() ;
+			if (version != null && current != null) {
+				int index = getIndex(version) ;
+				Object loaded = sql.loadVersion(key) ;
+				if (loaded != null && Objects.equals(loaded, current[index])) {
+					return current ;
+				}
+			}
+			return sql.load(key) ;
+		}
+	}
+	
+	private int getIndex(BioColumn column) {
+		BioColumn[] columns = table.getColumns() ;
+		for (int i = 0; i < columns.length; i++) {
+			if (columns[i] == column) {
+				return i ;
+			}
+		}
+		return -1 ;
+	}
+	/**
+	 * Disables refresh ahead and stops threads
+	 */
+	@Override
+	public void close() {
+		if (table.getCache() != null) {
+			table.getCache().disableRefreshAhead();
+		}
+		if (executor != null) {
+			executor.shutdown();
+			executor = null ;
+		}
+	}
+}
@@ -0,0 +1,326 @@
+package com.linkedlogics.bio.sql;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.sql.DataSource;
+
+import com.linkedlogics.bio.BioObject;
+import com.linkedlogics.bio.sql.exception.SqlException;
+import com.linkedlogics.bio.sql.object.BioColumn;
+import com.linkedlogics.bio.sql.object.BioTable;
+import com.linkedlogics.bio.sql.utility.SqlUtility;
+
+/**
+ * Preloads primary key caches of tables marked with warm up at startup. Tables having a single numeric
+ * primary key are split into key ranges which are scanned in parallel, others are scanned by a single thread.
+ * Each scan uses its own connection from data source and total throughput can be limited.
+ * <pre>
+ * BioCacheWarmer warmer = new BioCacheWarmer(dataSource) ;
+ * warmer.setMaxRowsPerSecond(50000) ;
+ * warmer.start() ;
+ * ...
+ * warmer.awaitReady(5, TimeUnit.MINUTES) ;
+ * </pre>
+ * @author rajab
+ *
+ */
+public class BioCacheWarmer implements AutoCloseable {
+	private static final AtomicInteger THREAD_COUNTER = new AtomicInteger() ;
+
+	private final DataSource dataSource ;
+	private final int dictionary ;
+	private int threads = 4 ;
+	private int fetchSize = 1000 ;
+	private long maxRowsPerSecond ;
+	private long progressInterval = 10000 ;
+	private ProgressListener listener ;
+
+	private ExecutorService executor ;
+	private CountDownLatch latch ;
+	private final AtomicLong loaded = new AtomicLong() ;
+	private final AtomicLong total = new AtomicLong() ;
+	private final AtomicReference<Throwable> error = new AtomicReference<Throwable>() ;
+	/**
+	 * Start time of throughput limit window in nanoseconds
+	 */
+	private volatile long started ;
+
+	public BioCacheWarmer(DataSource dataSource) {
+		this(dataSource, 0) ;
+	}
+
+	public BioCacheWarmer(DataSource dataSource, int dictionary) {
+		this.dataSource = dataSource ;
+		this.dictionary = dictionary ;
+	}
+	/**
+	 * Returns number of parallel scans
+	 * @return
+	 */
+	public int getThreads() {
+		return threads;
+	}
+
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	public int getFetchSize() {
+		return fetchSize;
+	}
+
+	public void setFetchSize(int fetchSize) {
+		this.fetchSize = fetchSize;
+	}
+
+	public long getMaxRowsPerSecond() {
+		return maxRowsPerSecond;
+	}
+	/**
+	 * Limits number of rows loaded per second by all scans, 0 means no limit
+	 * @param maxRowsPerSecond
+	 */
+	public void setMaxRowsPerSecond(long maxRowsPerSecond) {
+		this.maxRowsPerSecond = maxRowsPerSecond;
+	}
+
+	public long getProgressInterval() {
+		return progressInterval;
+	}
+	/**
+	 * Sets number of rows after which progress is reported
+	 * @param progressInterval
+	 */
+	public void setProgressInterval(long progressInterval) {
+		this.progressInterval = progressInterval;
+	}
+
+	public ProgressListener getListener() {
+		return listener;
+	}
+
+	public void setListener(ProgressListener listener) {
+		this.listener = listener;
+	}
+	/**
+	 * Starts preloading all tables of dictionary marked with warm up
+	 */
+	public void start() {
+		List<BioTable> tables = new ArrayList<BioTable>() ;
+		for (BioTable table : BioSqlDictionary.getDictionary(dictionary).getCodeMap().values()) {
+			if (table.isWarmUp()) {
+				tables.add(table) ;
+			}
+		}
+		start(tables) ;
+	}
+	/**
+	 * Starts preloading provided tables
+	 * @param tables
+	 */
+	public synchronized void start(List<BioTable> tables) {
+		if (executor != null) {
+			throw new SqlException("warm up is already started") ;
+		}
+		List<Scan> scans = new ArrayList<Scan>() ;
+		try (Connection connection = dataSource.getConnection()) {
+			for (BioTable table : tables) {
+				if (table.getCache() == null && table.getOffHeapCache() == null) {
+					throw new SqlException(table.getTable() + " has no cache to warm up") ;
+				}
+				if (table.getKeys() == null || table.getKeys().length == 0) {
+					throw new SqlException(table.getTable() + " has no primary key columns") ;
+				}
+				split(connection, table, scans) ;
+			}
+		} catch (SQLException e) {
+			throw new SqlException(e) ;
+		}
+
+		executor = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+			Thread t = new Thread(r, "bio-cache-warmer-" + THREAD_COUNTER.incrementAndGet()) ;
+			t.setDaemon(true);
+			return t ;
+		}) ;
+		latch = new CountDownLatch(scans.size()) ;
+		started = System.nanoTime() ;
+		for (Scan scan : scans) {
+			executor.execute(() -> {
+				try {
+					scan(scan) ;
+				} catch (Throwable e) {
+					error.compareAndSet(null, e) ;
+				} finally {
+					latch.countDown();
+				}
+			});
+		}
+		executor.shutdown();
+	}
+	/**
+	 * Counts rows of table and splits it into key ranges if it has single numeric key
+	 * @param connection
+	 * @param table
+	 * @param scans
+	 * @throws SQLException
+	 */
+	private void split(Connection connection, BioTable table, List<Scan> scans) throws SQLException {
+		String from = " from " + SqlUtility.getTableName(table) + (table.getWarmUpWhere() != null ? " where " + table.getWarmUpWhere() : "") ;
+		BioColumn key = table.getKeys()[0] ;
+		// long tags are mapped to numeric columns
+		boolean isNumeric = table.getKeys().length == 1 && (key.getSqlType() == Types.INTEGER || key.getSqlType() == Types.BIGINT
+				|| key.getSqlType() == Types.NUMERIC || key.getSqlType() == Types.SMALLINT || key.getSqlType() == Types.TINYINT) ;
+		String sql = "select count(*)" + (isNumeric ? ", min(" + key.getColumn() + "), max(" + key.getColumn() + ")" : "") + from ;
+		try (PreparedStatement ps = connection.prepareStatement(sql); ResultSet rs = ps.executeQuery()) {
+			rs.next() ;
+			long count = rs.getLong(1) ;
+			total.addAndGet(count) ;
+			if (count == 0) {
+				return ;
+			}
+			if (!isNumeric || threads <= 1) {
+				scans.add(new Scan(table, table.getWarmUpWhere() != null ? new Where(table.getWarmUpWhere()) : null)) ;
+				return ;
+			}
+			long min = rs.getLong(2) ;
+			long max = rs.getLong(3) ;
+			long step = Math.max(1, (max - min) / threads + 1) ;
+			for (long low = min; low <= max; low += step) {
+				Where range = new Where(key.getColumn() + " >= ? and " + key.getColumn() + " < ?").setLong(1, low).setLong(2, low + step) ;
+				if (table.getWarmUpWhere() != null) {
+					range = new Where("(" + table.getWarmUpWhere() + ")").merge(range) ;
+				}
+				scans.add(new Scan(table, range)) ;
+				if (low + step < low) {
+					// overflow at end of long range
+					break ;
+				}
+			}
+		}
+	}
+	/**
+	 * Loads rows of a scan into caches
+	 * @param scan
+	 * @throws SQLException
+	 */
+	private void scan(Scan scan) throws SQLException {
+		try (Connection connection = dataSource.getConnection()) {
+			BioSql<BioObject> sql = new BioSql<BioObject>(scan.table.getDictionary(), scan.table.getCode()) ;
+			sql.setConnection(connection);
+			sql.preload(scan.where, fetchSize, () -> {
+				long count = loaded.incrementAndGet() ;
+				throttle(count) ;
+				if (listener != null && count % progressInterval == 0) {
+					listener.onProgress(count, total.get());
+				}
+			}) ;
+		}
+	}
+	/**
+	 * Waits until loaded rows are within throughput limit
+	 * @param count
+	 */
+	private void throttle(long count) {
+		if (maxRowsPerSecond <= 0) {
+			return ;
+		}
+		long due = started + count * 1000000000L / maxRowsPerSecond ;
+		long wait = due - System.nanoTime() ;
+		if (wait > 0) {
+			try {
+				TimeUnit.NANOSECONDS.sleep(wait);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new SqlException(e) ;
+			}
+		}
+	}
+	/**
+	 * Indicates whether all scans are finished
+	 * @return
+	 */
+	public boolean isReady() {
+		return latch != null && latch.getCount() == 0 ;
+	}
+	/**
+	 * Waits until all scans are finished, throws exception if any scan failed
+	 * @param timeout
+	 * @param unit
+	 * @return false if timeout is elapsed
+	 * @throws InterruptedException
+	 */
+	public boolean awaitReady(long timeout, TimeUnit unit) throws InterruptedException {
+		if (latch == null) {
+			throw new SqlException("warm up is not started") ;
+		}
+		boolean isReady = latch.await(timeout, unit) ;
+		if (error.get() != null) {
+			throw new SqlException(error.get()) ;
+		}
+		if (isReady && listener != null) {
+			listener.onProgress(loaded.get(), total.get());
+		}
+		return isReady ;
+	}
+	/**
+	 * Returns number of loaded rows
+	 * @return
+	 */
+	public long getLoadedCount() {
+		return loaded.get() ;
+	}
+	/**
+	 * Returns number of rows counted at start
+	 * @return
+	 */
+	public long getTotalCount() {
+		return total.get() ;
+	}
+	/**
+	 * Returns error of first failed scan
+	 * @return
+	 */
+	public Throwable getError() {
+		return error.get() ;
+	}
+	/**
+	 * Stops scans
+	 */
+	@Override
+	public synchronized void close() {
+		if (executor != null) {
+			executor.shutdownNow();
+		}
+	}
+	/**
+	 * Receives warm up progress
+	 * @author rajab
+	 *
+	 */
+	public interface ProgressListener {
+		void onProgress(long loaded, long total) ;
+	}
+
+	private static class Scan {
+		private final BioTable table ;
+		private final Where where ;
+
+		Scan(BioTable table, Where where) {
+			this.table = table ;
+			this.where = where ;
+		}
+	}
+}
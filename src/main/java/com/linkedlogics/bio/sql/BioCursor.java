@@ -59,6 +59,7 @@ public class BioCursor<T extends BioObject> implements Iterator<T> {
 					newObject.put(sql.getTable().getColumns()[i].getTagName(), value) ;
 				}
 			}
+			sql.track(newObject);
 			
 			if (!sql.isLazy()) {
 				sql.selectRelations(newObject);
@@ -5,12 +5,16 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map.Entry;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
 
 import com.linkedlogics.bio.dictionary.builder.DictionaryReader;
 import com.linkedlogics.bio.exception.DictionaryException;
-import com.linkedlogics.bio.sql.dictionary.builder.AnnotationReader;
+import com.linkedlogics.bio.sql.dictionary.builder.PreparingReader;
+import com.linkedlogics.bio.sql.dictionary.builder.RegistryReader;
 import com.linkedlogics.bio.sql.dictionary.builder.XmlReader;
 import com.linkedlogics.bio.sql.object.BioTable;
 
@@ -21,10 +25,15 @@ import com.linkedlogics.bio.sql.object.BioTable;
  */
 public class BioDictionaryBuilder extends com.linkedlogics.bio.BioDictionaryBuilder {
 	protected List<DictionaryReader> readers = new ArrayList<DictionaryReader>();
+	private int parallelism = Runtime.getRuntime().availableProcessors() ;
+	private boolean scanning = true ;
 	
+	/**
+	 * Adding package of tables, registries generated at compile time are used and classes not covered by them are scanned
+	 */
 	@Override
 	public BioDictionaryBuilder addPackage(String packageName) {
-		readers.add(new AnnotationReader(packageName)) ;
+		readers.add(createRegistryReader(packageName)) ;
 		super.addPackage(packageName);
 		return this ;
 	}
@@ -60,32 +69,109 @@ public class BioDictionaryBuilder extends com.linkedlogics.bio.BioDictionaryBuil
 		return this ;
 	}
 	
+	public boolean isScanning() {
+		return scanning;
+	}
+	/**
+	 * Sets whether packages are scanned for classes which are not covered by compile time registries
+	 * @param scanning
+	 * @return
+	 */
+	public BioDictionaryBuilder setScanning(boolean scanning) {
+		this.scanning = scanning;
+		for (DictionaryReader reader : readers) {
+			if (reader instanceof RegistryReader) {
+				((RegistryReader) reader).setScanning(scanning);
+			}
+		}
+		return this ;
+	}
+	
+	private RegistryReader createRegistryReader(String packageName) {
+		RegistryReader reader = packageName != null ? new RegistryReader(packageName) : new RegistryReader() ;
+		reader.setScanning(scanning);
+		return reader ;
+	}
+	
+	public int getParallelism() {
+		return parallelism;
+	}
+	/**
+	 * Sets number of threads used for reading sources and generating tables, 1 means building in caller thread
+	 * @param parallelism
+	 * @return
+	 */
+	public BioDictionaryBuilder setParallelism(int parallelism) {
+		this.parallelism = parallelism;
+		return this ;
+	}
+	
 	/**
 	 * Must be called at first because it constructs all dictionary can be found in class path, URL path etc.
+	 * Readers scan and parse in parallel but register tables one by one in their order so that result doesn't depend on timing,
+	 * then sql of tables and relations are generated in parallel
 	 */
 	@Override
 	public void build() {
 		super.build(); 
 		
 		if (readers.size() == 0) {
-			readers.add(new AnnotationReader()) ;
+			readers.add(createRegistryReader(null)) ;
 		}
 		
-		for (DictionaryReader reader : readers) {
-			reader.read(this); 
-		}
-		
-		
-		for (Entry<Integer, BioSqlDictionary> e : BioSqlDictionary.getDictionaryMap().entrySet()) {
-			for (Entry<Integer, BioTable> t : e.getValue().getCodeMap().entrySet()) {
-				t.getValue().generate(); 
+		ForkJoinPool pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null ;
+		try {
+			run(pool, readers, r -> {
+				if (r instanceof PreparingReader) {
+					((PreparingReader) r).prepare(this);
+				}
+			}) ;
+			
+			for (DictionaryReader reader : readers) {
+				reader.read(this); 
 			}
-		}
-		
-		for (Entry<Integer, BioSqlDictionary> e : BioSqlDictionary.getDictionaryMap().entrySet()) {
-			for (Entry<Integer, BioTable> t : e.getValue().getCodeMap().entrySet()) {
-				t.getValue().generateRelations(); 
+			
+			List<BioTable> tables = getTables() ;
+			run(pool, tables, t -> t.generate()) ;
+			// relations use columns of related tables so they are generated after all tables
+			run(pool, tables, t -> t.generateRelations()) ;
+		} finally {
+			if (pool != null) {
+				pool.shutdown();
 			}
 		}
 	}
+	
+	/**
+	 * Returns tables of all dictionaries ordered by dictionary and code
+	 * @return
+	 */
+	private static List<BioTable> getTables() {
+		List<BioTable> tables = new ArrayList<BioTable>() ;
+		for (BioSqlDictionary dictionary : BioSqlDictionary.getDictionaryMap().values()) {
+			tables.addAll(dictionary.getCodeMap().values()) ;
+		}
+		tables.sort(Comparator.comparingInt(BioTable::getDictionary).thenComparingInt(BioTable::getCode));
+		return tables ;
+	}
+	
+	/**
+	 * Runs task for each item in pool and waits all of them, first failure is thrown
+	 * @param pool null means running in caller thread
+	 * @param items
+	 * @param task
+	 */
+	private static <T> void run(ForkJoinPool pool, List<T> items, Consumer<T> task) {
+		if (pool == null || items.size() <= 1) {
+			items.forEach(task);
+			return ;
+		}
+		List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>() ;
+		for (T item : items) {
+			tasks.add(pool.submit(() -> task.accept(item))) ;
+		}
+		for (ForkJoinTask<?> t : tasks) {
+			t.join() ;
+		}
+	}
 }
@@ -0,0 +1,128 @@
+package com.linkedlogics.bio.sql;
+
+import java.sql.Connection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import com.linkedlogics.bio.sql.object.BioTable;
+
+/**
+ * Cached rows and query results changed by connections inside transactions which are not committed yet. Changed rows are removed
+ * from caches when statement is executed and once more when transaction is completed, since other connections
+ * can cache old rows meanwhile. Connection having pending changes of a table doesn't use caches of that table,
+ * so that its uncommitted rows are never cached
+ * @author rajab
+ *
+ */
+class BioPendingChanges {
+	/**
+	 * Maximum number of keys kept per table, whole table is invalidated above it
+	 */
+	private static final int MAX_KEYS = 10000 ;
+	/**
+	 * Pending changes per connection
+	 */
+	private static final Map<Connection, BioPendingChanges> changes = Collections.synchronizedMap(new IdentityHashMap<Connection, BioPendingChanges>()) ;
+	/**
+	 * Changed keys per table, null means whole table is changed
+	 */
+	private final HashMap<BioTable, HashSet<Object>> tables = new HashMap<BioTable, HashSet<Object>>() ;
+	/**
+	 * Registers changed key of table
+	 * @param connection
+	 * @param table
+	 * @param key null if rows are not identified by primary keys
+	 */
+	static void add(Connection connection, BioTable table, Object key) {
+		BioPendingChanges pending = changes.computeIfAbsent(connection, c -> new BioPendingChanges()) ;
+		synchronized (pending) {
+			if (key == null) {
+				pending.tables.put(table, null) ;
+			} else if (!pending.tables.containsKey(table)) {
+				HashSet<Object> keys = new HashSet<Object>() ;
+				keys.add(key) ;
+				pending.tables.put(table, keys) ;
+			} else {
+				HashSet<Object> keys = pending.tables.get(table) ;
+				if (keys != null) {
+					keys.add(key) ;
+					if (keys.size() > MAX_KEYS) {
+						pending.tables.put(table, null) ;
+					}
+				}
+			}
+		}
+	}
+	/**
+	 * Registers change of table whose rows are not tracked, its query results and replica are invalidated
+	 * @param connection
+	 * @param table
+	 */
+	static void add(Connection connection, BioTable table) {
+		BioPendingChanges pending = changes.computeIfAbsent(connection, c -> new BioPendingChanges()) ;
+		synchronized (pending) {
+			if (!pending.tables.containsKey(table)) {
+				pending.tables.put(table, new HashSet<Object>()) ;
+			}
+		}
+	}
+	/**
+	 * Checks whether connection has uncommitted changes of table
+	 * @param connection
+	 * @param table
+	 * @return
+	 */
+	static boolean isChanged(Connection connection, BioTable table) {
+		if (connection == null || changes.isEmpty()) {
+			return false ;
+		}
+		BioPendingChanges pending = changes.get(connection) ;
+		if (pending == null) {
+			return false ;
+		}
+		synchronized (pending) {
+			return pending.tables.containsKey(table) ;
+		}
+	}
+	/**
+	 * Removes changed rows of connection from caches once more after commit or rollback
+	 * @param connection
+	 */
+	static void complete(Connection connection) {
+		BioPendingChanges pending = changes.remove(connection) ;
+		if (pending == null) {
+			return ;
+		}
+		synchronized (pending) {
+			for (Map.Entry<BioTable, HashSet<Object>> e : pending.tables.entrySet()) {
+				BioTable table = e.getKey() ;
+				if (table.getQueryCache() != null) {
+					table.getQueryCache().invalidate();
+				}
+				if (table.isReplicated()) {
+					table.invalidateReplica();
+				}
+				if (e.getValue() == null) {
+					if (table.getCache() != null) {
+						table.getCache().clear();
+					}
+					if (table.getOffHeapCache() != null) {
+						table.getOffHeapCache().clear();
+					}
+				} else {
+					for (Object key : e.getValue()) {
+						if (table.getCache() != null) {
+							table.getCache().invalidate(key);
+						}
+						if (table.getOffHeapCache() != null) {
+							table.getOffHeapCache().invalidate(key);
+						}
+					}
+				}
+			}
+		}
+	}
+}
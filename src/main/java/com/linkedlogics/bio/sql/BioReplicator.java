@@ -0,0 +1,247 @@
+package com.linkedlogics.bio.sql;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import com.linkedlogics.bio.BioDictionary;
+import com.linkedlogics.bio.BioObject;
+import com.linkedlogics.bio.dictionary.BioObj;
+import com.linkedlogics.bio.sql.cache.BioReplica;
+import com.linkedlogics.bio.sql.exception.SqlException;
+import com.linkedlogics.bio.sql.object.BioColumn;
+import com.linkedlogics.bio.sql.object.BioTable;
+
+/**
+ * Keeps a whole reference table replicated in memory. Table is loaded fully at start and then periodically, 
+ * if delta tag is set only rows whose delta column is greater than last seen maximum are selected and applied to a new snapshot
+ * which replaces the old one atomically. While table has a replica selects by key, by bio object values and
+ * of full table are answered from memory.
+ * There is no delta column by default, it must be filled from a table wide increasing value (sequence, timestamp) 
+ * for deltas to see all changes, a per row version is not enough. Deleted rows are only seen at full reloads.
+ * Writes of this application through BioSql remove snapshot, so selects go to database until next refresh loads it again
+ * <pre>
+ * BioReplicator replicator = new BioReplicator(dataSource, Tariff.class) ;
+ * replicator.setIndexTags("currency") ;
+ * replicator.start() ;
+ * ...
+ * replicator.close() ;
+ * </pre>
+ * @author rajab
+ *
+ */
+public class BioReplicator implements AutoCloseable {
+	private static final AtomicInteger THREAD_COUNTER = new AtomicInteger() ;
+
+	private final DataSource dataSource ;
+	private final int dictionary ;
+	private final int code ;
+	private final BioTable table ;
+	private String[] indexTags = new String[0] ;
+	private BioColumn deltaColumn ;
+	private long refreshInterval = 60000 ;
+	private long fullRefreshInterval = 3600000 ;
+
+	private ScheduledExecutorService executor ;
+	private volatile long lastFullRefresh ;
+	private final AtomicLong refreshes = new AtomicLong() ;
+	private final AtomicLong fullRefreshes = new AtomicLong() ;
+	private final AtomicLong changedRows = new AtomicLong() ;
+	private final AtomicLong failures = new AtomicLong() ;
+
+	public BioReplicator(DataSource dataSource, int code) {
+		this(dataSource, 0, code) ;
+	}
+
+	public BioReplicator(DataSource dataSource, int dictionary, int code) {
+		this.dataSource = dataSource ;
+		this.dictionary = dictionary ;
+		this.code = code ;
+		this.table = BioSqlDictionary.getDictionary(dictionary).getTableByCode(code) ;
+	}
+
+	public BioReplicator(DataSource dataSource, Class bioClass) {
+		this(dataSource, getObj(bioClass).getDictionary(), getObj(bioClass).getCode()) ;
+	}
+
+	private static BioObj getObj(Class bioClass) {
+		BioObj obj = BioDictionary.findObj(bioClass) ;
+		if (obj == null) {
+			throw new SqlException(bioClass + " bio obj is not found in dictionary") ;
+		}
+		return obj ;
+	}
+
+	public String[] getIndexTags() {
+		return indexTags;
+	}
+	/**
+	 * Sets tags which are indexed in addition to primary key
+	 * @param indexTags
+	 */
+	public void setIndexTags(String... indexTags) {
+		this.indexTags = indexTags;
+	}
+
+	public String getDeltaTag() {
+		return deltaColumn != null ? deltaColumn.getTagName() : null ;
+	}
+	/**
+	 * Sets tag of column whose table wide increasing values are used to select changed rows, null (default) means full reload at each refresh
+	 * @param tag
+	 */
+	public void setDeltaTag(String tag) {
+		if (tag == null) {
+			this.deltaColumn = null ;
+			return ;
+		}
+		BioColumn column = table.getColumnByTag(tag) ;
+		if (column == null) {
+			throw new SqlException(table.getTable() + " has no column for tag " + tag) ;
+		}
+		this.deltaColumn = column ;
+	}
+
+	public long getRefreshInterval() {
+		return refreshInterval;
+	}
+	/**
+	 * Sets milliseconds between delta refreshes
+	 * @param refreshInterval
+	 */
+	public void setRefreshInterval(long refreshInterval) {
+		this.refreshInterval = refreshInterval;
+	}
+
+	public long getFullRefreshInterval() {
+		return fullRefreshInterval;
+	}
+	/**
+	 * Sets milliseconds between full reloads which also remove deleted rows, 0 means never
+	 * @param fullRefreshInterval
+	 */
+	public void setFullRefreshInterval(long fullRefreshInterval) {
+		this.fullRefreshInterval = fullRefreshInterval;
+	}
+	/**
+	 * Loads table fully and starts periodic refresh on a daemon thread
+	 */
+	public synchronized void start() {
+		if (executor != null) {
+			throw new SqlException("replication is already started") ;
+		}
+		if (table.getKeys() == null || table.getKeys().length == 0) {
+			throw new SqlException(table.getTable() + " has no primary key columns") ;
+		}
+		table.setReplicated(true);
+		reload() ;
+		executor = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "bio-replicator-" + THREAD_COUNTER.incrementAndGet()) ;
+			t.setDaemon(true);
+			return t ;
+		}) ;
+		executor.scheduleWithFixedDelay(() -> {
+			try {
+				refresh() ;
+			} catch (Throwable e) {
+				failures.incrementAndGet() ;
+			}
+		}, refreshInterval, refreshInterval, TimeUnit.MILLISECONDS) ;
+	}
+	/**
+	 * Applies changed rows to replica, table is reloaded fully if there is no delta column, full refresh is due
+	 * or replica is removed by a write
+	 */
+	public synchronized void refresh() {
+		long changes = table.getReplicaChanges() ;
+		BioReplica replica = table.getReplica() ;
+		if (replica == null || deltaColumn == null || replica.getMaxVersion() == null
+				|| (fullRefreshInterval > 0 && System.currentTimeMillis() - lastFullRefresh >= fullRefreshInterval)) {
+			reload() ;
+			return ;
+		}
+		Where where = new Where(deltaColumn.getColumn() + " > ?").setObject(1, replica.getMaxVersion(), deltaColumn.getSqlType()) ;
+		List<Object[]> rows = query(where) ;
+		if (!table.setReplica(replica.apply(rows), changes)) {
+			// table is written meanwhile so it is reloaded at next refresh
+			return ;
+		}
+		changedRows.addAndGet(rows.size()) ;
+		refreshes.incrementAndGet() ;
+	}
+	/**
+	 * Loads table fully and replaces replica
+	 */
+	public synchronized void reload() {
+		long changes = table.getReplicaChanges() ;
+		if (!table.setReplica(new BioReplica(table, query(null), getIndexColumns(), deltaColumn), changes)) {
+			// table is written meanwhile so it is reloaded at next refresh
+			return ;
+		}
+		lastFullRefresh = System.currentTimeMillis() ;
+		fullRefreshes.incrementAndGet() ;
+	}
+
+	private List<Object[]> query(Where where) {
+		try (Connection connection = dataSource.getConnection()) {
+			BioSql<BioObject> sql = new BioSql<BioObject>(dictionary, code) ;
+			sql.setConnection(connection);
+			return sql.query(sql.getSql(table.getSelect(), where, null), null, where) ;
+		} catch (SQLException e) {
+			throw new SqlException(e) ;
+		}
+	}
+
+	private int[] getIndexColumns() {
+		int[] columns = new int[indexTags.length] ;
+		for (int i = 0; i < indexTags.length; i++) {
+			BioColumn column = table.getColumnByTag(indexTags[i]) ;
+			if (column == null) {
+				throw new SqlException(table.getTable() + " has no column for tag " + indexTags[i]) ;
+			}
+			columns[i] = BioReplica.indexOf(table, column) ;
+		}
+		return columns ;
+	}
+	/**
+	 * Returns number of delta refreshes
+	 * @return
+	 */
+	public long getRefreshCount() {
+		return refreshes.get() ;
+	}
+
+	public long getFullRefreshCount() {
+		return fullRefreshes.get() ;
+	}
+	/**
+	 * Returns number of rows applied by delta refreshes
+	 * @return
+	 */
+	public long getChangedRowCount() {
+		return changedRows.get() ;
+	}
+
+	public long getFailureCount() {
+		return failures.get() ;
+	}
+	/**
+	 * Stops refresh and removes replica so that selects go to database again
+	 */
+	@Override
+	public synchronized void close() {
+		if (executor != null) {
+			executor.shutdownNow();
+			executor = null ;
+		}
+		table.setReplicated(false);
+		table.setReplica(null);
+	}
+}
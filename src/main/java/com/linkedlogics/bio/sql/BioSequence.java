@@ -0,0 +1,78 @@
+package com.linkedlogics.bio.sql;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import com.linkedlogics.bio.sql.exception.SqlException;
+
+/**
+ * Client side pooled key allocator. Each database round trip reserves a range of 
+ * values so that inserts can get their keys before they are sent to database.
+ * Database sequence must be incremented by allocation size, and every value 
+ * returned from sequence is the beginning of a range [value, value + allocationSize)
+ * @author rajab
+ *
+ */
+public class BioSequence {
+	/**
+	 * sql returning next value of database sequence, for example select nextval('vehicle_seq')
+	 */
+	private String sql ;
+	/**
+	 * number of values reserved per database round trip
+	 */
+	private int allocationSize ;
+	/**
+	 * next value to be returned
+	 */
+	private long next ;
+	/**
+	 * end of current range (exclusive)
+	 */
+	private long limit ;
+	
+	public BioSequence(String sql, int allocationSize) {
+		if (allocationSize <= 0) {
+			throw new SqlException("allocation size must be positive") ;
+		}
+		this.sql = sql ;
+		this.allocationSize = allocationSize ;
+	}
+	
+	/**
+	 * Returns sequence sql
+	 * @return
+	 */
+	public String getSql() {
+		return sql;
+	}
+	/**
+	 * Returns allocation size
+	 * @return
+	 */
+	public int getAllocationSize() {
+		return allocationSize;
+	}
+	
+	/**
+	 * Returns next value and fetches a new range from database when current one is exhausted
+	 * @param connection
+	 * @return
+	 * @throws SQLException
+	 */
+	public synchronized long next(Connection connection) throws SQLException {
+		if (next >= limit) {
+			try (PreparedStatement ps = connection.prepareStatement(sql) ;
+					ResultSet rs = ps.executeQuery()) {
+				if (!rs.next()) {
+					throw new SqlException("sequence returned no value for " + sql) ;
+				}
+				next = rs.getLong(1) ;
+				limit = next + allocationSize ;
+			}
+		}
+		return next++ ;
+	}
+}
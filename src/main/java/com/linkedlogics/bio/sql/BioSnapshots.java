@@ -0,0 +1,166 @@
+package com.linkedlogics.bio.sql;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Date;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.linkedlogics.bio.BioEnum;
+import com.linkedlogics.bio.BioObject;
+import com.linkedlogics.bio.parser.BioObjectBinaryParser;
+import com.linkedlogics.bio.sql.object.BioColumn;
+import com.linkedlogics.bio.sql.utility.SqlUtility;
+
+/**
+ * Keeps column snapshots of bio objects loaded from database so that only changed columns are written.
+ * Immutable values (strings, numbers, enums) are kept as they are, other values are kept as
+ * fingerprint of their encoded database representation. Objects are weakly referenced by identity
+ * @author rajab
+ *
+ */
+final class BioSnapshots {
+	private static final ReferenceQueue<BioObject> queue = new ReferenceQueue<BioObject>() ;
+	private static final ConcurrentHashMap<Key, Object[]> snapshots = new ConcurrentHashMap<Key, Object[]>() ;
+
+	private BioSnapshots() {
+
+	}
+	/**
+	 * Returns snapshot of object or null if object is not tracked
+	 * @param object
+	 * @return
+	 */
+	static Object[] get(BioObject object) {
+		expunge() ;
+		return snapshots.get(new Key(object, null)) ;
+	}
+	/**
+	 * Stores snapshot of object
+	 * @param object
+	 * @param snapshot
+	 */
+	static void put(BioObject object, Object[] snapshot) {
+		expunge() ;
+		snapshots.put(new Key(object, queue), snapshot) ;
+	}
+	/**
+	 * Stops tracking of object
+	 * @param object
+	 */
+	static void remove(BioObject object) {
+		snapshots.remove(new Key(object, null)) ;
+	}
+	/**
+	 * Captures value of column
+	 * @param column
+	 * @param value
+	 * @param binaryParser
+	 * @return
+	 */
+	static Object capture(BioColumn column, Object value, BioObjectBinaryParser binaryParser) {
+		if (value == null || value instanceof String || value instanceof Number
+				|| value instanceof Boolean || value instanceof Character || value instanceof BioEnum) {
+			return value ;
+		} else if (value instanceof Date) {
+			return new Date(((Date) value).getTime()) ;
+		}
+		return new Fingerprint(fingerprint(SqlUtility.encodeParameter(value, column, binaryParser))) ;
+	}
+	/**
+	 * Checks whether current value differs from captured one
+	 * @param captured
+	 * @param column
+	 * @param value
+	 * @param binaryParser
+	 * @return
+	 */
+	static boolean isChanged(Object captured, BioColumn column, Object value, BioObjectBinaryParser binaryParser) {
+		return !Objects.equals(captured, capture(column, value, binaryParser)) ;
+	}
+	/**
+	 * Returns 64 bit fingerprint of encoded value
+	 * @param encoded
+	 * @return
+	 */
+	private static long fingerprint(Object encoded) {
+		long hash = 1125899906842597L ;
+		if (encoded instanceof byte[]) {
+			byte[] bytes = (byte[]) encoded ;
+			for (int i = 0; i < bytes.length; i++) {
+				hash = 31 * hash + bytes[i] ;
+			}
+		} else if (encoded instanceof Byte[]) {
+			Byte[] bytes = (Byte[]) encoded ;
+			for (int i = 0; i < bytes.length; i++) {
+				hash = 31 * hash + bytes[i] ;
+			}
+		} else {
+			String string = encoded.toString() ;
+			for (int i = 0; i < string.length(); i++) {
+				hash = 31 * hash + string.charAt(i) ;
+			}
+		}
+		return hash ;
+	}
+	/**
+	 * Removes entries of garbage collected objects
+	 */
+	private static void expunge() {
+		Reference<? extends BioObject> ref ;
+		while ((ref = queue.poll()) != null) {
+			snapshots.remove(ref) ;
+		}
+	}
+
+	/**
+	 * Fingerprint of mutable value
+	 */
+	private static class Fingerprint {
+		private final long hash ;
+
+		Fingerprint(long hash) {
+			this.hash = hash ;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof Fingerprint && ((Fingerprint) o).hash == hash ;
+		}
+
+		@Override
+		public int hashCode() {
+			return Long.hashCode(hash) ;
+		}
+	}
+
+	/**
+	 * Weak identity key
+	 */
+	private static class Key extends WeakReference<BioObject> {
+		private final int hash ;
+
+		Key(BioObject object, ReferenceQueue<BioObject> queue) {
+			super(object, queue) ;
+			this.hash = System.identityHashCode(object) ;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true ;
+			}
+			if (o instanceof Key) {
+				BioObject object = get() ;
+				return object != null && object == ((Key) o).get() ;
+			}
+			return false ;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash ;
+		}
+	}
+}
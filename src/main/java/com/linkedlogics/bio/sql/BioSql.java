@@ -5,6 +5,11 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -14,6 +19,11 @@ import com.linkedlogics.bio.BioObject;
 import com.linkedlogics.bio.dictionary.BioObj;
 import com.linkedlogics.bio.parser.BioObjectBinaryParser;
 import com.linkedlogics.bio.parser.BioObjectXmlParser;
+import com.linkedlogics.bio.sql.cache.BioKeyFilter;
+import com.linkedlogics.bio.sql.cache.BioObjectCache;
+import com.linkedlogics.bio.sql.cache.BioQueryCache;
+import com.linkedlogics.bio.sql.cache.BioReplica;
+import com.linkedlogics.bio.sql.dialect.SqlDialect;
 import com.linkedlogics.bio.sql.exception.SqlException;
 import com.linkedlogics.bio.sql.object.BioColumn;
 import com.linkedlogics.bio.sql.object.BioRelation;
@@ -27,6 +37,10 @@ import com.linkedlogics.bio.sql.utility.SqlUtility;
  * @param <T>
  */
 public class BioSql<T extends BioObject> implements AutoCloseable {
+	/**
+	 * Result of save() when no column is changed and no statement is executed
+	 */
+	public static final int UNCHANGED = -1 ;
 	/**
 	 * database connection
 	 */
@@ -39,6 +53,10 @@ public class BioSql<T extends BioObject> implements AutoCloseable {
 	 * if lazy doesn't consider relations
 	 */
 	protected boolean isLazy ;
+	/**
+	 * if tracking then loaded objects keep snapshot of column values for save()
+	 */
+	protected boolean isTracking ;
 	/**
 	 * connection auto commit flag
 	 */
@@ -51,6 +69,14 @@ public class BioSql<T extends BioObject> implements AutoCloseable {
 	 * parser for parsin XML values
 	 */
 	protected BioObjectXmlParser xmlParser ;
+	/**
+	 * Maximum number of rows deleted by single statement in deleteAll
+	 */
+	protected int deleteChunkSize = 1000 ;
+	/**
+	 * SQL dialect, if it is not set for dictionary it is detected from connection
+	 */
+	protected SqlDialect dialect ;
 
 	/**
 	 * Creates sql object with table according bio code
@@ -93,6 +119,7 @@ public class BioSql<T extends BioObject> implements AutoCloseable {
 	 */
 	public void setConnection(Connection connection) {
 		this.connection = connection;
+		this.dialect = null ;
 		try {
 			isAutoCommit = connection.getAutoCommit() ;
 		} catch (SQLException e) {
@@ -103,7 +130,37 @@ public class BioSql<T extends BioObject> implements AutoCloseable {
 	@Override
 	public void close() throws Exception {
 		if (connection != null) {
+			// cached statements must be closed before their connection
+			BioStatementCache.unregister(connection);
 			connection.close(); 
+			BioPendingChanges.complete(connection);
+		}
+	}
+	/**
+	 * Commits connection and removes rows changed in transaction from caches once more, since other connections
+	 * could cache old rows before commit. It must be used instead of connection.commit() if transaction is controlled by caller
+	 * and changed tables have caches
+	 * @param connection
+	 * @throws SQLException
+	 */
+	public static void commit(Connection connection) throws SQLException {
+		try {
+			connection.commit();
+		} finally {
+			BioPendingChanges.complete(connection);
+		}
+	}
+	/**
+	 * Rolls back connection and removes rows changed in transaction from caches once more.
+	 * It must be used instead of connection.rollback() if transaction is controlled by caller and changed tables have caches
+	 * @param connection
+	 * @throws SQLException
+	 */
+	public static void rollback(Connection connection) throws SQLException {
+		try {
+			connection.rollback();
+		} finally {
+			BioPendingChanges.complete(connection);
 		}
 	}
 
@@ -129,9 +186,9 @@ public class BioSql<T extends BioObject> implements AutoCloseable {
 		if (isAutoCommit && !isLazy) {
 			try {
 				if (isCommit) {
-					connection.commit();
+					commit(connection);
 				} else {
-					connection.rollback();
+					rollback(connection);
 				}
 				connection.setAutoCommit(true);
 			} catch (SQLException e) {
@@ -153,6 +210,51 @@ public class BioSql<T extends BioObject> implements AutoCloseable {
 	public void setLazy(boolean isLazy) {
 		this.isLazy = isLazy;
 	}
+	/**
+	 * Indicates whether loaded objects are tracked for changes
+	 * @return
+	 */
+	public boolean isTracking() {
+		return isTracking;
+	}
+	/**
+	 * Sets tracking, if true loaded objects keep snapshot of their column values and save() writes only changed columns
+	 * @param isTracking
+	 */
+	public void setTracking(boolean isTracking) {
+		this.isTracking = isTracking;
+	}
+	/**
+	 * Returns maximum number of rows deleted by single statement in deleteAll
+	 * @return
+	 */
+	public int getDeleteChunkSize() {
+		return deleteChunkSize;
+	}
+	/**
+	 * Sets maximum number of rows deleted by single statement in deleteAll
+	 * @param deleteChunkSize
+	 */
+	public void setDeleteChunkSize(int deleteChunkSize) {
+		this.deleteChunkSize = deleteChunkSize;
+	}
+	/**
+	 * Returns SQL dialect of table or detects it from connection metadata
+	 * @return
+	 */
+	public SqlDialect getDialect() {
+		if (dialect == null) {
+			dialect = table.getDialect() != null ? table.getDialect() : SqlDialect.getDialect(connection) ;
+		}
+		return dialect;
+	}
+	/**
+	 * Sets SQL dialect overriding dictionary one
+	 * @param dialect
+	 */
+	public void setDialect(SqlDialect dialect) {
+		this.dialect = dialect;
+	}
 	/**
 	 * Returns bio table
 	 * @return
@@ -190,24 +292,37 @@ public class BioSql<T extends BioObject> implements AutoCloseable {
 
 		T object = null ;
 		
-		String sql = getSql(table.getSelect(), table.getWhere(), null) ;
-		try (PreparedStatement ps = connection.prepareStatement(sql)) {
-			SqlUtility.setParameter(ps, 1, table.getWhere().getType(1), key);
-			try (ResultSet rs = ps.executeQuery()) {
-				if (rs.next()) {
-					object = (T) create() ;
-					int index = 0;
-					for (int i = 0; i < table.getColumns().length; i++) {
-						index = index + 1;
-						Object value = SqlUtility.getParameter(rs, index, table.getColumns()[i], binaryParser, xmlParser);
-						if (value != null) {
-							object.put(table.getColumns()[i].getTagName(), value);
-						}
-					}
+		// uncommitted changes of this connection are neither read from caches nor cached
+		boolean isCached = !BioPendingChanges.isChanged(connection, table) ;
+		BioReplica replica = isCached ? table.getReplica() : null ;
+		Object[] values = replica != null ? replica.get(key) : isCached ? getCached(key) : null ;
+		if (values != null) {
+			object = (T) create(values) ;
+			track(object) ;
+		} else if (replica != null) {
+			// replica contains all rows of table
+			return null ;
+		} else if (table.getKeyFilter() != null && !table.getKeyFilter().mightContain(key)) {
+			return null ;
+		} else {
+			// generations are taken before load, so that rows changed meanwhile are not cached
+			long generation = table.getCache() != null ? table.getCache().getGeneration() : 0 ;
+			long offHeapGeneration = table.getOffHeapCache() != null ? table.getOffHeapCache().getGeneration() : 0 ;
+			values = load(key) ;
+			if (values == null) {
+				if (table.getKeyFilter() != null && table.getKeyFilter().isReady()) {
+					table.getKeyFilter().falsePositive();
+				}
+			} else {
+				object = (T) create(values) ;
+				if (isCached && table.getCache() != null) {
+					table.getCache().put(key, values, generation) ;
+				}
+				if (isCached && table.getOffHeapCache() != null) {
+					table.getOffHeapCache().put(key, object, binaryParser, offHeapGeneration) ;
 				}
+				track(object) ;
 			}
-		} catch (Throwable e) {
-			throw new SqlException(e) ;
 		}
 		
 		// if it is NOT lazy then we try to load related bio objects also
@@ -217,12 +332,128 @@ public class BioSql<T extends BioObject> implements AutoCloseable {
 		
 		return object ;
 	}
+	/**
+	 * Selects column values of row by single primary key from database without using caches
+	 * @param key
+	 * @return null if row doesn't exist
+	 * @throws SQLException
+	 */
+	protected Object[] load(Object key) throws SQLException {
+		String sql = getSql(table.getSelect(), table.getWhere(), null) ;
+		PreparedStatement ps = null ;
+		try {
+			ps = prepare(sql) ;
+			SqlUtility.setParameter(ps, 1, table.getWhere().getType(1), key);
+			try (ResultSet rs = ps.executeQuery()) {
+				if (!rs.next()) {
+					return null ;
+				}
+				Object[] values = new Object[table.getColumns().length] ;
+				for (int i = 0; i < values.length; i++) {
+					values[i] = SqlUtility.getParameter(rs, i + 1, table.getColumns()[i], binaryParser, xmlParser);
+				}
+				return values ;
+			}
+		} catch (Throwable e) {
+			throw new SqlException(e) ;
+		} finally {
+			release(ps) ;
+		}
+	}
+	/**
+	 * Streams rows matching where into primary key caches of table without creating bio objects for heap cache.
+	 * A cache is not filled anymore once any of its rows is invalidated during scan, since scanned rows can be older,
+	 * and scan is stopped when none of caches is filled
+	 * @param where
+	 * @param fetchSize
+	 * @param listener is called after each row, it can block to limit throughput
+	 * @return number of cached rows
+	 * @throws SQLException
+	 */
+	protected long preload(Where where, int fetchSize, Runnable listener) throws SQLException {
+		BioColumn[] columns = table.getColumns() ;
+		int[] keyIndexes = new int[table.getKeys().length] ;
+		for (int i = 0; i < keyIndexes.length; i++) {
+			for (int j = 0; j < columns.length; j++) {
+				if (columns[j] == table.getKeys()[i]) {
+					keyIndexes[i] = j ;
+				}
+			}
+		}
+		long count = 0 ;
+		// generations are taken before scan, so that rows changed meanwhile are not cached
+		boolean isCaching = table.getCache() != null ;
+		boolean isOffHeapCaching = table.getOffHeapCache() != null ;
+		long generation = isCaching ? table.getCache().getGeneration() : 0 ;
+		long offHeapGeneration = isOffHeapCaching ? table.getOffHeapCache().getGeneration() : 0 ;
+		// statement is not taken from cache since fetch size is changed
+		try (PreparedStatement ps = connection.prepareStatement(getSql(table.getSelect(), where, null))) {
+			ps.setFetchSize(fetchSize);
+			SqlUtility.setWhereParameters(null, where, ps, 0) ;
+			try (ResultSet rs = ps.executeQuery()) {
+				while (rs.next()) {
+					Object[] values = new Object[columns.length] ;
+					for (int i = 0; i < values.length; i++) {
+						values[i] = SqlUtility.getParameter(rs, i + 1, columns[i], binaryParser, xmlParser);
+					}
+					Object[] keyValues = new Object[keyIndexes.length] ;
+					for (int i = 0; i < keyIndexes.length; i++) {
+						keyValues[i] = values[keyIndexes[i]] ;
+					}
+					Object key = BioObjectCache.key(keyValues) ;
+					if (isCaching) {
+						isCaching = table.getCache().put(key, values, generation) ;
+					}
+					if (isOffHeapCaching) {
+						isOffHeapCaching = table.getOffHeapCache().put(key, create(values), binaryParser, offHeapGeneration) ;
+					}
+					if (!isCaching && !isOffHeapCaching) {
+						break ;
+					}
+					count++ ;
+					if (listener != null) {
+						listener.run();
+					}
+				}
+			}
+		}
+		return count ;
+	}
+	/**
+	 * Selects version of row by single primary key
+	 * @param key
+	 * @return null if row doesn't exist
+	 * @throws SQLException
+	 */
+	protected Object loadVersion(Object key) throws SQLException {
+		BioColumn version = table.getVersionColumn() ;
+		String sql = getSql("select " + version.getColumn() + " from " + SqlUtility.getTableName(table), table.getWhere(), null) ;
+		PreparedStatement ps = null ;
+		try {
+			ps = prepare(sql) ;
+			SqlUtility.setParameter(ps, 1, table.getWhere().getType(1), key);
+			try (ResultSet rs = ps.executeQuery()) {
+				if (!rs.next()) {
+					return null ;
+				}
+				return SqlUtility.getParameter(rs, 1, version, binaryParser, xmlParser) ;
+			}
+		} catch (Throwable e) {
+			throw new SqlException(e) ;
+		} finally {
+			release(ps) ;
+		}
+	}
 	/**
 	 * Selects full table
 	 * @return
 	 * @throws SQLException
 	 */
 	public List<T> select() throws SQLException {
+		BioReplica replica = getReplica() ;
+		if (replica != null) {
+			return toObjects(replica.getRows()) ;
+		}
 		return select(null, null);
 	}
 	/**
@@ -232,6 +463,10 @@ public class BioSql<T extends BioObject> implements AutoCloseable {
 	 * @throws SQLException
 	 */
 	public List<T> select(BioObject object) throws SQLException {
+		BioReplica replica = getReplica() ;
+		if (replica != null) {
+			return toObjects(replica.find(object)) ;
+		}
 		return select(null, new Where(object, table), null);
 	}
 	/**
@@ -253,29 +488,111 @@ public class BioSql<T extends BioObject> implements AutoCloseable {
 	 * @throws SQLException
 	 */
 	public List<T> select(BioObject object, Where where, Order order) throws SQLException {
-		String sql = getSql(table.getSelect(), where, order);
-
-		List<T> list = new LinkedList<T>();
+		return selectCached(getSql(table.getSelect(), where, order), object, where) ;
+	}
+	/**
+	 * Selects at most limit objects based on condition where and orders
+	 * @param object
+	 * @param where
+	 * @param order
+	 * @param limit
+	 * @return
+	 * @throws SQLException
+	 */
+	public List<T> select(BioObject object, Where where, Order order, int limit) throws SQLException {
+		return selectCached(getDialect().limit(getSql(table.getSelect(), where, order), limit), object, where) ;
+	}
+	/**
+	 * Selects and locks at most limit objects (0 means no limit) until end of transaction, 
+	 * if skipLocked is true rows locked by other transactions are skipped so that many consumers can share a table.
+	 * Transaction is controlled by caller
+	 * @param object
+	 * @param where
+	 * @param limit
+	 * @param skipLocked
+	 * @return
+	 * @throws SQLException
+	 */
+	public List<T> selectForUpdate(BioObject object, Where where, int limit, boolean skipLocked) throws SQLException {
+		return select(getDialect().forUpdate(getSql(table.getSelect(), where, null), limit, skipLocked), object, where) ;
+	}
+	/**
+	 * Selects objects with provided sql
+	 * @param sql
+	 * @param object
+	 * @param where
+	 * @return
+	 * @throws SQLException
+	 */
+	protected List<T> select(String sql, BioObject object, Where where) throws SQLException {
+		return toObjects(query(sql, object, where)) ;
+	}
+	/**
+	 * Selects objects with provided sql using query cache of table if it has one
+	 * @param sql
+	 * @param object
+	 * @param where
+	 * @return
+	 * @throws SQLException
+	 */
+	protected List<T> selectCached(String sql, BioObject object, Where where) throws SQLException {
+		BioQueryCache cache = table.getQueryCache() ;
+		// uncommitted changes of this connection are neither read from cache nor cached
+		if (cache == null || BioPendingChanges.isChanged(connection, table)) {
+			return select(sql, object, where) ;
+		}
+		Object key = BioQueryCache.key(sql, where != null ? where.getParameters(object) : new Object[0]) ;
+		List<Object[]> rows = cache.get(key) ;
+		if (rows == null) {
+			long generation = cache.getGeneration() ;
+			rows = query(sql, object, where) ;
+			cache.put(key, rows, generation) ;
+		}
+		return toObjects(rows) ;
+	}
+	/**
+	 * Executes select and returns column values of rows in table column order
+	 * @param sql
+	 * @param object
+	 * @param where
+	 * @return
+	 * @throws SQLException
+	 */
+	protected List<Object[]> query(String sql, BioObject object, Where where) throws SQLException {
+		List<Object[]> rows = new ArrayList<Object[]>();
 
-		try (PreparedStatement ps = connection.prepareStatement(sql)) {
+		PreparedStatement ps = null ;
+		try {
+			ps = prepare(sql) ;
 			SqlUtility.setWhereParameters(object, where, ps, 0) ;
 
 			try (ResultSet rs = ps.executeQuery()) {
 				while (rs.next()) {
-					T newObject = (T) create() ;
-					int index = 0;
-					for (int i = 0; i < table.getColumns().length; i++) {
-						index = index + 1;
-						Object value = SqlUtility.getParameter(rs, index, table.getColumns()[i], binaryParser, xmlParser);
-						if (value != null) {
-							newObject.put(table.getColumns()[i].getTagName(), value);
-						}
+					Object[] values = new Object[table.getColumns().length] ;
+					for (int i = 0; i < values.length; i++) {
+						values[i] = SqlUtility.getParameter(rs, i + 1, table.getColumns()[i], binaryParser, xmlParser);
 					}
-					list.add(newObject);
+					rows.add(values);
 				}
 			}
 		} catch (Throwable e) {
 			throw new SqlException(e) ;
+		} finally {
+			release(ps) ;
+		}
+		return rows ;
+	}
+	/**
+	 * Creates objects from column values of rows and loads their relations if it is not lazy
+	 * @param rows
+	 * @return
+	 */
+	private List<T> toObjects(List<Object[]> rows) {
+		List<T> list = new LinkedList<T>();
+		for (Object[] values : rows) {
+			T newObject = (T) create(values) ;
+			track(newObject) ;
+			list.add(newObject);
 		}
 		
 		// if it is NOT lazy then we try to load related bio objects also
@@ -310,7 +627,9 @@ public class BioSql<T extends BioObject> implements AutoCloseable {
 	 */
 	public int count(BioObject object, Where where) throws SQLException {
 		String sql = getSql(table.getCount(), where, null) ;
-		try (PreparedStatement ps = connection.prepareStatement(sql)) {
+		PreparedStatement ps = null ;
+		try {
+			ps = prepare(sql) ;
 			SqlUtility.setWhereParameters(object, where, ps, 0) ;
 			try (ResultSet rs = ps.executeQuery()) {
 	            if (rs.next()) {
@@ -319,12 +638,147 @@ public class BioSql<T extends BioObject> implements AutoCloseable {
 			}
 		} catch (Throwable e) {
 			throw new SqlException(e) ;
+		} finally {
+			release(ps) ;
 		}
 		return 0 ;
 	}
 	
 	
 	
+	/**
+	 * Aggregates whole table by group tags
+	 * @param groupBy
+	 * @param aggregations
+	 * @return
+	 * @throws SQLException
+	 */
+	public List<BioObject> aggregate(String[] groupBy, Aggregation[] aggregations) throws SQLException {
+		return aggregate(groupBy, aggregations, null, null) ;
+	}
+	/**
+	 * Aggregates rows matching where by group tags inside database. Each group is returned as a row
+	 * containing group tag values and aggregation results under aggregation names. 
+	 * Counts are returned as long, averages as double, sums as long for integer columns and double for others
+	 * @param groupBy
+	 * @param aggregations
+	 * @param object
+	 * @param where
+	 * @return
+	 * @throws SQLException
+	 */
+	public List<BioObject> aggregate(String[] groupBy, Aggregation[] aggregations, BioObject object, Where where) throws SQLException {
+		int groups = groupBy != null ? groupBy.length : 0 ;
+		List<Object[]> rows = aggregateRows(groupBy, aggregations, object, where) ;
+		List<BioObject> list = new ArrayList<BioObject>(rows.size()) ;
+		for (Object[] values : rows) {
+			BioObject row = new BioObject(0) ;
+			for (int i = 0; i < values.length; i++) {
+				if (values[i] != null) {
+					row.put(i < groups ? groupBy[i] : aggregations[i - groups].getName(), values[i]) ;
+				}
+			}
+			list.add(row) ;
+		}
+		return list ;
+	}
+	/**
+	 * Same as aggregate but returns each group as array of group values followed by aggregation results
+	 * in provided order, useful when large number of groups is read and bio objects are not needed
+	 * @param groupBy
+	 * @param aggregations
+	 * @param object
+	 * @param where
+	 * @return
+	 * @throws SQLException
+	 */
+	public List<Object[]> aggregateRows(String[] groupBy, Aggregation[] aggregations, BioObject object, Where where) throws SQLException {
+		if (groupBy == null) {
+			groupBy = new String[0] ;
+		}
+		BioColumn[] groupColumns = new BioColumn[groupBy.length] ;
+		for (int i = 0; i < groupBy.length; i++) {
+			groupColumns[i] = getColumn(groupBy[i]) ;
+		}
+		BioColumn[] aggregateColumns = new BioColumn[aggregations.length] ;
+		for (int i = 0; i < aggregations.length; i++) {
+			aggregateColumns[i] = aggregations[i].getTag() != null ? getColumn(aggregations[i].getTag()) : null ;
+		}
+		
+		String sql = SqlUtility.generateAggregate(table, groupColumns, aggregations, aggregateColumns) ;
+		sql = getSql(sql, where, null) ;
+		if (groupColumns.length > 0) {
+			sql = sql + " group by " + SqlUtility.getColumnNames(groupColumns) ;
+		}
+		
+		List<Object[]> list = new ArrayList<Object[]>() ;
+		PreparedStatement ps = null ;
+		try {
+			ps = prepare(sql) ;
+			SqlUtility.setWhereParameters(object, where, ps, 0) ;
+			try (ResultSet rs = ps.executeQuery()) {
+				while (rs.next()) {
+					Object[] row = new Object[groupColumns.length + aggregations.length] ;
+					int index = 0 ;
+					for (int i = 0; i < groupColumns.length; i++, index++) {
+						row[index] = SqlUtility.getParameter(rs, index + 1, groupColumns[i], binaryParser, xmlParser) ;
+					}
+					for (int i = 0; i < aggregations.length; i++, index++) {
+						row[index] = getAggregate(rs, index + 1, aggregations[i], aggregateColumns[i]) ;
+					}
+					list.add(row) ;
+				}
+			}
+		} catch (Throwable e) {
+			throw new SqlException(e) ;
+		} finally {
+			release(ps) ;
+		}
+		return list ;
+	}
+	/**
+	 * Returns column of tag
+	 * @param tag
+	 * @return
+	 */
+	private BioColumn getColumn(String tag) {
+		BioColumn column = table.getColumnByTag(tag) ;
+		if (column == null) {
+			throw new SqlException(tag + " is not a column of " + table.getTable()) ;
+		}
+		return column ;
+	}
+	/**
+	 * Reads aggregation result
+	 * @param rs
+	 * @param index
+	 * @param aggregation
+	 * @param column
+	 * @return
+	 * @throws SQLException
+	 */
+	private Object getAggregate(ResultSet rs, int index, Aggregation aggregation, BioColumn column) throws SQLException {
+		switch (aggregation.getFunction()) {
+		case "count":
+			return rs.getLong(index) ;
+		case "min":
+		case "max":
+			// min and max are same type as column
+			return SqlUtility.getParameter(rs, index, column, binaryParser, xmlParser) ;
+		default:
+			Object value = rs.getObject(index) ;
+			if (value instanceof Number) {
+				// long tags are mapped to numeric columns
+				if (aggregation.getFunction().equals("sum") && (column.getSqlType() == Types.INTEGER || column.getSqlType() == Types.BIGINT 
+						|| column.getSqlType() == Types.NUMERIC || column.getSqlType() == Types.SMALLINT || column.getSqlType() == Types.TINYINT)) {
+					return ((Number) value).longValue() ;
+				}
+				return ((Number) value).doubleValue() ;
+			}
+			return value ;
+		}
+	}
+	
 	/**
 	 * Iterates all objects
 	 * @return
@@ -380,13 +834,34 @@ public class BioSql<T extends BioObject> implements AutoCloseable {
 	 */
 	public int insert(T object) throws SQLException {
 		setAutoCommitOff();
-		try (PreparedStatement ps = connection.prepareStatement(table.getInsert())) {
-            for (int i = 0; i < table.getColumns().length; i++) {
-            	BioColumn column = table.getColumns()[i] ;
+		if (table.getSequence() != null && table.getAutoColumns().length > 0) {
+			allocateKeys(object) ;
+		}
+		boolean isGeneratedKeys = table.isGeneratedKeys() ;
+		BioColumn[] columns = isGeneratedKeys ? table.getInsertAutoColumns() : table.getColumns() ;
+		PreparedStatement ps = null ;
+		try {
+			ps = isGeneratedKeys ? prepare(table.getInsertAuto(), table.getAutoColumnNames()) : prepare(table.getInsert()) ;
+            for (int i = 0; i < columns.length; i++) {
+            	BioColumn column = columns[i] ;
             	SqlUtility.setParameters(ps, i + 1, getValue(object, column), column, binaryParser, xmlParser) ;
             }
             int result = ps.executeUpdate();
             
+            // database generated values are put back into object
+            if (result > 0 && isGeneratedKeys) {
+            	try (ResultSet rs = ps.getGeneratedKeys()) {
+            		if (rs.next()) {
+            			setGeneratedKeys(rs, object);
+            		}
+            	}
+            }
+            if (result > 0) {
+            	track(object) ;
+            	invalidate(object, table.getWhere()) ;
+            	addKey(object) ;
+            }
+            
             // if it is NOT lazy then we try to insert related bio objects also
             if (result > 0 && !isLazy && table.getRelations().size() > 0) {
 				insertRelations((T) object) ;
@@ -400,71 +875,276 @@ public class BioSql<T extends BioObject> implements AutoCloseable {
         } catch (Throwable e) {
         	setAutoCommitOn(false);
             throw new SqlException(e);
-        } 
+        } finally {
+			release(ps) ;
+		} 
 	}
 	
 	/**
-	 * Updates bio object using PKs and version (if table contains)
-	 * @param object
-	 * @return
-	 * @throws SQLException
-	 */
-	public int update(T object) throws SQLException {
-		return update(object, table.getWhereWithVersion()) ;
-	}
-	/**
-	 * Updates bio objects with provided values and provided condition
+	 * Inserts bio object or updates it if its primary keys already exist using single dialect specific statement.
+	 * Version is not checked and related objects are not processed
 	 * @param object
-	 * @param where
 	 * @return
 	 * @throws SQLException
 	 */
-	public int update(BioObject object, Where where) throws SQLException {
+	public int upsert(T object) throws SQLException {
+		if (table.getKeys() == null || table.getKeys().length == 0) {
+			throw new SqlException(table.getTable() + " has no primary key columns use insert() method") ;
+		}
 		setAutoCommitOff();
-		String sql = getSql(table.getUpdate(), where, null);
-		try (PreparedStatement ps = connection.prepareStatement(sql) ;) {
+		if (table.getSequence() != null && table.getAutoColumns().length > 0) {
+			allocateKeys(object) ;
+		}
+		PreparedStatement ps = null ;
+		try {
+			ps = prepare(table.getUpsert(getDialect())) ;
 			for (int i = 0; i < table.getColumns().length; i++) {
 				BioColumn column = table.getColumns()[i] ;
 				SqlUtility.setParameters(ps, i + 1, getValue(object, column), column, binaryParser, xmlParser) ;
 			}
-			SqlUtility.setWhereParameters(object, where, ps, table.getColumns().length) ;
 			int result = ps.executeUpdate();
-			
-            // if it is NOT lazy then we try to update related bio objects also
-			if (result > 0 && !isLazy && table.getRelations().size() > 0) {
-				updateRelations((T) object) ;
+			if (result > 0) {
+				track(object) ;
+				invalidate(object, table.getWhere()) ;
+				addKey(object) ;
 			}
-			
-            setAutoCommitOn(true);
-            return result ;
+			setAutoCommitOn(true);
+			return result ;
 		} catch (SQLException e) {
         	setAutoCommitOn(false);
             throw e;
         } catch (Throwable e) {
         	setAutoCommitOn(false);
             throw new SqlException(e);
-        } 
+        } finally {
+			release(ps) ;
+		}
 	}
 	/**
-	 * Merges bio object
-	 * @param object
+	 * Inserts bio objects using multi row inserts, number of rows per statement is limited by bind parameters of dialect.
+	 * Values generated by database are put back into objects only if dialect supports returning clause.
+	 * Related objects are not processed
+	 * @param objects
 	 * @return
 	 * @throws SQLException
 	 */
-	public int merge(T object) throws SQLException {
-		return merge(object, table.getWhereWithVersion()) ;
-	}
-	/**
-	 * Merges bio objects based on condition
-	 * @param object
-	 * @param where
-	 * @return
-	 * @throws SQLException
+	public int insertAll(Collection<T> objects) throws SQLException {
+		if (objects.isEmpty()) {
+			return 0 ;
+		}
+		setAutoCommitOff();
+		BioColumn[] columns = table.isGeneratedKeys() ? table.getInsertAutoColumns() : table.getColumns() ;
+		// generated values are returned in order of inserted rows
+		boolean isReturning = table.isGeneratedKeys() && getDialect().isReturning() ;
+		int rows = getDialect().getMaxRows(columns.length, 1000) ;
+		ArrayList<T> list = new ArrayList<T>(objects) ;
+		int result = 0 ;
+		try {
+			for (int from = 0; from < list.size(); from += rows) {
+				int to = Math.min(from + rows, list.size()) ;
+				PreparedStatement ps = null ;
+				try {
+					String sql = getDialect().insertRows(table, columns, to - from) ;
+					ps = prepare(isReturning ? getDialect().returning(sql, table.getAutoColumnNames()) : sql) ;
+					int index = 0 ;
+					for (int i = from; i < to; i++) {
+						T object = list.get(i) ;
+						if (table.getSequence() != null && table.getAutoColumns().length > 0) {
+							allocateKeys(object) ;
+						}
+						for (int j = 0; j < columns.length; j++) {
+							index++ ;
+							SqlUtility.setParameters(ps, index, getValue(object, columns[j]), columns[j], binaryParser, xmlParser) ;
+						}
+					}
+					if (isReturning) {
+						try (ResultSet rs = ps.executeQuery()) {
+							for (int i = from; i < to && rs.next(); i++) {
+								setGeneratedKeys(rs, list.get(i));
+								result++ ;
+							}
+						}
+					} else {
+						result += ps.executeUpdate() ;
+					}
+				} finally {
+					release(ps) ;
+				}
+				for (int i = from; i < to; i++) {
+					invalidate(list.get(i), table.getWhere()) ;
+					addKey(list.get(i)) ;
+				}
+			}
+			setAutoCommitOn(true);
+			return result ;
+		} catch (SQLException e) {
+        	setAutoCommitOn(false);
+            throw e;
+        } catch (Throwable e) {
+        	setAutoCommitOn(false);
+            throw new SqlException(e);
+        }
+	}
+	
+	/**
+	 * Allocates values of missing auto columns from table sequence
+	 * @param object
+	 * @throws SQLException
+	 */
+	protected void allocateKeys(BioObject object) throws SQLException {
+		BioColumn[] autos = table.getAutoColumns() ;
+		for (int i = 0; i < autos.length; i++) {
+			if (!object.has(autos[i].getTagName())) {
+				long value = table.getSequence().next(connection) ;
+				if (autos[i].getSqlType() == Types.INTEGER) {
+					object.put(autos[i].getTagName(), (int) value) ;
+				} else {
+					object.put(autos[i].getTagName(), value) ;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Puts generated values of auto columns from current row of generated keys into object
+	 * @param rs
+	 * @param object
+	 * @throws SQLException
+	 */
+	protected void setGeneratedKeys(ResultSet rs, BioObject object) throws SQLException {
+		BioColumn[] autos = table.getAutoColumns() ;
+		for (int i = 0; i < autos.length; i++) {
+			Object value = SqlUtility.getParameter(rs, i + 1, autos[i], binaryParser, xmlParser) ;
+			if (value != null) {
+				object.put(autos[i].getTagName(), value) ;
+			}
+		}
+	}
+	
+	/**
+	 * Updates bio object using PKs and version (if table contains)
+	 * @param object
+	 * @return
+	 * @throws SQLException
+	 */
+	public int update(T object) throws SQLException {
+		return update(object, table.getWhereWithVersion()) ;
+	}
+	/**
+	 * Updates bio objects with provided values and provided condition
+	 * @param object
+	 * @param where
+	 * @return
+	 * @throws SQLException
+	 */
+	public int update(BioObject object, Where where) throws SQLException {
+		setAutoCommitOff();
+		String sql = getSql(table.getUpdate(), where, null);
+		PreparedStatement ps = null ;
+		try {
+			ps = prepare(sql) ;
+			for (int i = 0; i < table.getColumns().length; i++) {
+				BioColumn column = table.getColumns()[i] ;
+				SqlUtility.setParameters(ps, i + 1, getValue(object, column), column, binaryParser, xmlParser) ;
+			}
+			SqlUtility.setWhereParameters(object, where, ps, table.getColumns().length) ;
+			int result = ps.executeUpdate();
+			if (result > 0) {
+				track(object) ;
+				invalidate(object, where) ;
+			}
+			
+            // if it is NOT lazy then we try to update related bio objects also
+			if (result > 0 && !isLazy && table.getRelations().size() > 0) {
+				updateRelations((T) object) ;
+			}
+			
+            setAutoCommitOn(true);
+            return result ;
+		} catch (SQLException e) {
+        	setAutoCommitOn(false);
+            throw e;
+        } catch (Throwable e) {
+        	setAutoCommitOn(false);
+            throw new SqlException(e);
+        } finally {
+			release(ps) ;
+		} 
+	}
+	/**
+	 * Updates all rows matching where with assignments of update in single statement without loading them.
+	 * Expressions in update and where are evaluated against provided object which can be null.
+	 * Related objects are not processed
+	 * @param update
+	 * @param object
+	 * @param where
+	 * @return number of updated rows
+	 * @throws SQLException
+	 */
+	public int updateAll(Update update, BioObject object, Where where) throws SQLException {
+		return updateAll(update.compile(table), object, where) ;
+	}
+	/**
+	 * Updates all rows matching where with compiled update
+	 * @param update
+	 * @param object
+	 * @param where
+	 * @return
+	 * @throws SQLException
+	 */
+	public int updateAll(Update.CompiledUpdate update, BioObject object, Where where) throws SQLException {
+		setAutoCommitOff();
+		String sql = getSql(update.getSql(), where, null);
+		PreparedStatement ps = null ;
+		try {
+			ps = prepare(sql) ;
+			BioColumn[] columns = update.getColumns() ;
+			for (int i = 0; i < columns.length; i++) {
+				Object value = update.getValues()[i] ;
+				if (value instanceof BioExpression) {
+					value = ((BioExpression) value).getValue(object) ;
+				}
+				SqlUtility.setParameters(ps, i + 1, value, columns[i], binaryParser, xmlParser) ;
+			}
+			SqlUtility.setWhereParameters(object, where, ps, columns.length) ;
+			int result = ps.executeUpdate();
+			if (result > 0) {
+				invalidate(null, where) ;
+			}
+            setAutoCommitOn(true);
+            return result ;
+		} catch (SQLException e) {
+        	setAutoCommitOn(false);
+            throw e;
+        } catch (Throwable e) {
+        	setAutoCommitOn(false);
+            throw new SqlException(e);
+        } finally {
+			release(ps) ;
+		} 
+	}
+	/**
+	 * Merges bio object
+	 * @param object
+	 * @return
+	 * @throws SQLException
+	 */
+	public int merge(T object) throws SQLException {
+		return merge(object, table.getWhereWithVersion()) ;
+	}
+	/**
+	 * Merges bio objects based on condition
+	 * @param object
+	 * @param where
+	 * @return
+	 * @throws SQLException
 	 */
 	public int merge(BioObject object, Where where) throws SQLException {
 		setAutoCommitOff();
-		String sql = getSql(SqlUtility.generateUpdate(table, object) , where, null);
-		try (PreparedStatement ps = connection.prepareStatement(sql) ;) {
+		String sql = getSql(table.getUpdate(getShape(object)) , where, null);
+		PreparedStatement ps = null ;
+		try {
+			ps = prepare(sql) ;
 			int index = 0 ;
 			for (int i = 0; i < table.getColumns().length; i++) {
 				BioColumn column = table.getColumns()[i] ;
@@ -475,6 +1155,19 @@ public class BioSql<T extends BioObject> implements AutoCloseable {
 			}
 			SqlUtility.setWhereParameters(object, where, ps, index) ;
 			int result = ps.executeUpdate();
+			if (result > 0) {
+				invalidate(object, where) ;
+			}
+			// merged columns are now same as in database
+			Object[] snapshot = BioSnapshots.get(object) ;
+			if (result > 0 && snapshot != null) {
+				for (int i = 0; i < table.getColumns().length; i++) {
+					BioColumn column = table.getColumns()[i] ;
+					if (object.has(column.getTagName())) {
+						snapshot[i] = BioSnapshots.capture(column, getValue(object, column), binaryParser) ;
+					}
+				}
+			}
             // if it is NOT lazy then we try to merge related bio objects also
 			if (result > 0 && !isLazy && table.getRelations().size() > 0) {
 				mergeRelations((T) object) ;
@@ -488,7 +1181,135 @@ public class BioSql<T extends BioObject> implements AutoCloseable {
         } catch (Throwable e) {
         	setAutoCommitOn(false);
             throw new SqlException(e);
-        } 
+        } finally {
+			release(ps) ;
+		} 
+	}
+	/**
+	 * Saves only changed columns of object loaded with tracking enabled, 
+	 * statement is skipped if nothing is changed. Objects without snapshot are merged.
+	 * If it is not lazy related objects are merged as it is done by merge()
+	 * @param object
+	 * @return {@link #UNCHANGED} if no column is changed
+	 * @throws SQLException
+	 */
+	public int save(T object) throws SQLException {
+		Object[] snapshot = BioSnapshots.get(object) ;
+		if (snapshot == null) {
+			return merge(object) ;
+		}
+		
+		BioColumn[] columns = table.getColumns() ;
+		BitSet changed = getChanges(object, snapshot) ;
+		boolean isRelations = !isLazy && table.getRelations().size() > 0 ;
+		if (changed == null && !isRelations) {
+			return UNCHANGED ;
+		}
+		
+		setAutoCommitOff();
+		PreparedStatement ps = null ;
+		try {
+			int result = UNCHANGED ;
+			if (changed != null) {
+				ps = prepare(getSql(table.getUpdate(changed), table.getWhereWithVersion(), null)) ;
+				int index = 0 ;
+				for (int i = changed.nextSetBit(0); i >= 0; i = changed.nextSetBit(i + 1)) {
+					index++ ;
+					SqlUtility.setParameters(ps, index, getValue(object, columns[i]), columns[i], binaryParser, xmlParser) ;
+				}
+				SqlUtility.setWhereParameters(object, table.getWhereWithVersion(), ps, index) ;
+				result = ps.executeUpdate();
+				if (result > 0) {
+					invalidate(object, table.getWhereWithVersion()) ;
+					capture(object, snapshot, changed) ;
+				}
+			}
+			// related objects can be changed even if object itself is not
+			if (result != 0 && isRelations) {
+				mergeRelations(object) ;
+			}
+			
+            setAutoCommitOn(true);
+            return result ;
+		} catch (SQLException e) {
+        	setAutoCommitOn(false);
+            throw e;
+        } catch (Throwable e) {
+        	setAutoCommitOn(false);
+            throw new SqlException(e);
+        } finally {
+			release(ps) ;
+		} 
+	}
+	/**
+	 * Returns indexes of columns changed since snapshot, columns without tags are expressions 
+	 * and they are included with any other change. Returns null if nothing is changed
+	 * @param object
+	 * @param snapshot
+	 * @return
+	 */
+	protected BitSet getChanges(BioObject object, Object[] snapshot) {
+		BioColumn[] columns = table.getColumns() ;
+		BitSet changed = new BitSet(columns.length) ;
+		boolean isChanged = false ;
+		for (int i = 0; i < columns.length; i++) {
+			BioColumn column = columns[i] ;
+			if (column.getTag() == null) {
+				changed.set(i);
+			} else if (!column.isKey() && BioSnapshots.isChanged(snapshot[i], column, getValue(object, column), binaryParser)) {
+				changed.set(i);
+				isChanged = true ;
+			}
+		}
+		return isChanged ? changed : null ;
+	}
+	/**
+	 * Captures written columns into snapshot so that they are not written again
+	 * @param object
+	 * @param snapshot
+	 * @param columns
+	 */
+	protected void capture(BioObject object, Object[] snapshot, BitSet columns) {
+		for (int i = columns.nextSetBit(0); i >= 0; i = columns.nextSetBit(i + 1)) {
+			BioColumn column = table.getColumns()[i] ;
+			snapshot[i] = BioSnapshots.capture(column, getValue(object, column), binaryParser) ;
+		}
+	}
+	/**
+	 * Returns indexes of table columns present in object
+	 * @param object
+	 * @return
+	 */
+	protected BitSet getShape(BioObject object) {
+		BioColumn[] columns = table.getColumns() ;
+		BitSet shape = new BitSet(columns.length) ;
+		for (int i = 0; i < columns.length; i++) {
+			if (object.has(columns[i].getTagName())) {
+				shape.set(i);
+			}
+		}
+		return shape ;
+	}
+	/**
+	 * Stops tracking changes of object
+	 * @param object
+	 */
+	public void detach(T object) {
+		BioSnapshots.remove(object);
+	}
+	/**
+	 * Keeps snapshot of object column values if tracking is enabled
+	 * @param object
+	 */
+	protected void track(BioObject object) {
+		if (isTracking) {
+			Object[] snapshot = new Object[table.getColumns().length] ;
+			for (int i = 0; i < snapshot.length; i++) {
+				BioColumn column = table.getColumns()[i] ;
+				snapshot[i] = BioSnapshots.capture(column, getValue(object, column), binaryParser) ;
+			}
+			BioSnapshots.put(object, snapshot);
+		}
 	}
 	/**
 	 * Deletes bio object
@@ -518,9 +1339,15 @@ public class BioSql<T extends BioObject> implements AutoCloseable {
 	public int delete(BioObject object, Where where) throws SQLException {
 		setAutoCommitOff();
 		String sql = getSql(table.getDelete(), where, null);
-		try (PreparedStatement ps = connection.prepareStatement(sql) ;) {
+		PreparedStatement ps = null ;
+		try {
+			ps = prepare(sql) ;
 			SqlUtility.setWhereParameters(object, where, ps, 0) ;
 			int result = ps.executeUpdate();
+			if (result > 0) {
+				// deleted key stays in key filter until it is loaded again, row may not be added by us and removing it would hide other keys
+				invalidate(object, where) ;
+			}
             setAutoCommitOn(true);
             // if it is NOT lazy then we try to delete related bio objects also
             if (result > 0 && !isLazy && table.getRelations().size() > 0) {
@@ -534,8 +1361,228 @@ public class BioSql<T extends BioObject> implements AutoCloseable {
         } catch (Throwable e) {
         	setAutoCommitOn(false);
             throw new SqlException(e);
+        } finally {
+			release(ps) ;
+		} 
+	}
+	
+	/**
+	 * Deletes bio objects by their primary keys using chunked IN statements instead of one statement per key.
+	 * Keys can be single values for single PK tables, object arrays in PK order or bio objects containing PKs
+	 * @param keys
+	 * @return
+	 * @throws SQLException
+	 */
+	public int deleteAll(Collection<?> keys) throws SQLException {
+		if (table.getKeys() == null || table.getKeys().length == 0) {
+			throw new SqlException(table.getTable() + " has no primary key columns use delete() method") ;
+		}
+		if (keys.isEmpty()) {
+			return 0 ;
+		}
+		
+		BioColumn[] columns = table.getKeys() ;
+		int[] types = new int[columns.length] ;
+		for (int i = 0; i < columns.length; i++) {
+			types[i] = table.getWhere().getType(i + 1) ;
+		}
+		ArrayList<Object[]> values = new ArrayList<Object[]>(keys.size()) ;
+		for (Object key : keys) {
+			values.add(getKeyValues(key)) ;
+		}
+		
+		setAutoCommitOff();
+		try {
+			// relations using columns which are not primary keys need parents to be loaded before they are deleted
+			List<Object[]> parents = null ;
+			if (!isLazy && table.getRelations().size() > 0 && !isRelatedByKeys()) {
+				parents = selectIn(columns, types, values) ;
+			}
+			int result = deleteIn(columns, types, values) ;
+			// if it is NOT lazy then we try to delete related bio objects also
+			if (result > 0 && !isLazy && table.getRelations().size() > 0) {
+				ArrayList<BioObject> objects = new ArrayList<BioObject>(values.size()) ;
+				if (parents != null) {
+					for (Object[] v : parents) {
+						objects.add(create(v)) ;
+					}
+				} else {
+					for (Object[] v : values) {
+						BioObject object = new BioObject(0) ;
+						for (int i = 0; i < columns.length; i++) {
+							if (v[i] != null) {
+								object.put(columns[i].getTagName(), v[i]) ;
+							}
+						}
+						objects.add(object) ;
+					}
+				}
+				deleteRelations(objects) ;
+			}
+			setAutoCommitOn(true);
+			return result ;
+		} catch (SQLException e) {
+        	setAutoCommitOn(false);
+            throw e;
+        } catch (Throwable e) {
+        	setAutoCommitOn(false);
+            throw new SqlException(e);
         } 
 	}
+	/**
+	 * Checks whether all relations of table relate by primary key columns only
+	 * @return
+	 */
+	private boolean isRelatedByKeys() {
+		for (BioRelation r : table.getRelations()) {
+			for (String relateKey : r.getRelateKeys()) {
+				boolean isKey = false ;
+				for (BioColumn key : table.getKeys()) {
+					if (key.getTagName().equals(relateKey)) {
+						isKey = true ;
+						break ;
+					}
+				}
+				if (!isKey) {
+					return false ;
+				}
+			}
+		}
+		return true ;
+	}
+	/**
+	 * Returns primary key values of key in PK order
+	 * @param key
+	 * @return
+	 */
+	private Object[] getKeyValues(Object key) {
+		BioColumn[] columns = table.getKeys() ;
+		if (key instanceof BioObject) {
+			Object[] values = new Object[columns.length] ;
+			for (int i = 0; i < columns.length; i++) {
+				values[i] = ((BioObject) key).get(columns[i].getTagName()) ;
+			}
+			return values ;
+		} else if (key instanceof Object[]) {
+			if (((Object[]) key).length != columns.length) {
+				throw new SqlException(table.getTable() + " has " + columns.length + " primary key columns but " + ((Object[]) key).length + " values are provided") ;
+			}
+			return (Object[]) key ;
+		} else if (columns.length > 1) {
+			throw new SqlException(table.getTable() + " has more than one primary key columns use object arrays or bio objects as keys") ;
+		}
+		return new Object[] {key} ;
+	}
+	/**
+	 * Deletes rows matching any of value rows using chunked IN statements, chunks are also limited by dialect
+	 * @param columns
+	 * @param types
+	 * @param values
+	 * @return
+	 * @throws SQLException
+	 */
+	protected int deleteIn(BioColumn[] columns, int[] types, List<Object[]> values) throws SQLException {
+		int chunk = getDialect().getMaxRows(columns.length, Math.min(deleteChunkSize, getDialect().getMaxInListSize())) ;
+		int result = 0 ;
+		for (int from = 0; from < values.size(); from += chunk) {
+			int to = Math.min(from + chunk, values.size()) ;
+			PreparedStatement ps = null ;
+			try {
+				ps = prepare(table.getDelete() + " where " + SqlUtility.generateIn(columns, to - from)) ;
+				result += deleteIn(ps, types, values, from, to) ;
+			} finally {
+				release(ps) ;
+			}
+		}
+		if (result > 0) {
+			invalidateQueries() ;
+			invalidateReplica() ;
+		}
+		if (result > 0) {
+			// keys are not removed from key filter since result doesn't tell which of keys existed
+			if (columns == table.getKeys()) {
+				for (Object[] row : values) {
+					invalidateKey(BioObjectCache.key(row)) ;
+				}
+			} else {
+				invalidateKeys();
+			}
+		}
+		return result ;
+	}
+	/**
+	 * Selects column values of rows matching any of value rows using chunked IN statements
+	 * @param columns
+	 * @param types
+	 * @param values
+	 * @return
+	 * @throws SQLException
+	 */
+	protected List<Object[]> selectIn(BioColumn[] columns, int[] types, List<Object[]> values) throws SQLException {
+		int chunk = getDialect().getMaxRows(columns.length, Math.min(deleteChunkSize, getDialect().getMaxInListSize())) ;
+		List<Object[]> rows = new ArrayList<Object[]>(values.size()) ;
+		for (int from = 0; from < values.size(); from += chunk) {
+			int to = Math.min(from + chunk, values.size()) ;
+			PreparedStatement ps = null ;
+			try {
+				ps = prepare(table.getSelect() + " where " + SqlUtility.generateIn(columns, to - from)) ;
+				setInParameters(ps, types, values, from, to) ;
+				try (ResultSet rs = ps.executeQuery()) {
+					while (rs.next()) {
+						Object[] row = new Object[table.getColumns().length] ;
+						for (int i = 0; i < row.length; i++) {
+							row[i] = SqlUtility.getParameter(rs, i + 1, table.getColumns()[i], binaryParser, xmlParser);
+						}
+						rows.add(row) ;
+					}
+				}
+			} catch (SQLException e) {
+				throw e ;
+			} catch (Throwable e) {
+				throw new SqlException(e) ;
+			} finally {
+				release(ps) ;
+			}
+		}
+		return rows ;
+	}
+	/**
+	 * Binds value rows in range [from, to) and executes statement
+	 * @param ps
+	 * @param types
+	 * @param values
+	 * @param from
+	 * @param to
+	 * @return
+	 * @throws SQLException
+	 */
+	private int deleteIn(PreparedStatement ps, int[] types, List<Object[]> values, int from, int to) throws SQLException {
+		setInParameters(ps, types, values, from, to) ;
+		return ps.executeUpdate() ;
+	}
+	/**
+	 * Binds value rows in range [from, to) as IN parameters
+	 * @param ps
+	 * @param types
+	 * @param values
+	 * @param from
+	 * @param to
+	 * @throws SQLException
+	 */
+	private void setInParameters(PreparedStatement ps, int[] types, List<Object[]> values, int from, int to) throws SQLException {
+		int index = 0 ;
+		for (int i = from; i < to; i++) {
+			Object[] row = values.get(i) ;
+			for (int j = 0; j < types.length; j++) {
+				index++ ;
+				if (row[j] != null) {
+					SqlUtility.setParameter(ps, index, types[j], row[j]);
+				} else {
+					SqlUtility.setNull(ps, index, types[j]);
+				}
+			}
+		}
+	}
 	
 	/**
 	 * Selects related bio objects
@@ -584,20 +1631,37 @@ public class BioSql<T extends BioObject> implements AutoCloseable {
 					if (r.getTag().isArray()) {
 						BioObject[] array = (BioObject[]) object.get(r.getTag().getName()) ;
 						for (int j = 0; j < array.length; j++) {
+							relate(r, object, array[j]) ;
 							sql.insert(array[j]) ;
 						}
 					} else {
 						List<BioObject> list = (List<BioObject>) object.get(r.getTag().getName()) ;
 						for (BioObject o : list) {
+							relate(r, object, o) ;
 							sql.insert(o) ;
 						}
 					}
 				} else {
+					relate(r, object, object.getBioObject(r.getTag().getName())) ;
 					sql.insert(object.getBioObject(r.getTag().getName())) ;
 				}
 			}
 		}
 	}
+	/**
+	 * Copies relation keys of parent into related object if they are missing, 
+	 * so that auto generated keys of parent reach related objects
+	 * @param relation
+	 * @param parent
+	 * @param related
+	 */
+	protected void relate(BioRelation relation, BioObject parent, BioObject related) {
+		for (int i = 0; i < relation.getToKeys().length; i++) {
+			if (!related.has(relation.getToKeys()[i]) && parent.has(relation.getRelateKeys()[i])) {
+				related.put(relation.getToKeys()[i], parent.get(relation.getRelateKeys()[i])) ;
+			}
+		}
+	}
 	/**
 	 * Updates related bio objects
 	 * @param object
@@ -617,15 +1681,18 @@ public class BioSql<T extends BioObject> implements AutoCloseable {
 					if (r.getTag().isArray()) {
 						BioObject[] array = (BioObject[]) object.get(r.getTag().getName()) ;
 						for (int j = 0; j < array.length; j++) {
+							relate(r, object, array[j]) ;
 							sql.insert(array[j]) ;
 						}
 					} else {
 						List<BioObject> list = (List<BioObject>) object.get(r.getTag().getName()) ;
 						for (BioObject o : list) {
+							relate(r, object, o) ;
 							sql.insert(o) ;
 						}
 					}
 				} else {
+					relate(r, object, object.getBioObject(r.getTag().getName())) ;
 					sql.insert(object.getBioObject(r.getTag().getName())) ;
 				}
 			}
@@ -692,7 +1759,86 @@ public class BioSql<T extends BioObject> implements AutoCloseable {
 			sql.delete(object, r.getWhere()) ;
 		}
 	}
+	/**
+	 * Deletes related bio objects of many parents by their relation keys using chunked IN statements.
+	 * Parents must contain relation keys, parents having null relation keys have no related objects and are skipped
+	 * @param objects
+	 * @throws SQLException
+	 */
+	public void deleteRelations(Collection<? extends BioObject> objects) throws SQLException {
+		for (int i = 0; i < table.getRelations().size(); i++) {
+			BioRelation r = table.getRelations().get(i) ;
+			BioSql sql = new BioSql(r.getTag().getObj().getCode()) ;
+			sql.setConnection(connection);
+			sql.setLazy(isLazy);
+			sql.setDeleteChunkSize(deleteChunkSize);
+			
+			BioColumn[] columns = new BioColumn[r.getToKeys().length] ;
+			int[] types = new int[columns.length] ;
+			for (int j = 0; j < columns.length; j++) {
+				columns[j] = sql.getTable().getColumnByTag(r.getToKeys()[j]) ;
+				types[j] = columns[j].getSqlType() ;
+			}
+			ArrayList<Object[]> values = new ArrayList<Object[]>(objects.size()) ;
+			for (BioObject object : objects) {
+				Object[] v = new Object[columns.length] ;
+				boolean isNull = false ;
+				for (int j = 0; j < v.length; j++) {
+					v[j] = object.get(r.getRelateKeys()[j]) ;
+					isNull = isNull || v[j] == null ;
+				}
+				// null never matches so single delete wouldn't delete anything either
+				if (!isNull) {
+					values.add(v) ;
+				}
+			}
+			
+			if (!values.isEmpty() && sql.deleteIn(columns, types, values) > 0 && !isLazy && sql.getTable().getRelations().size() > 0) {
+				// related tables are evaluated against parents as it is done by single delete
+				sql.deleteRelations(objects) ;
+			}
+		}
+	}
 
+	/**
+	 * Returns statement for sql, it is taken from statement cache if connection has one
+	 * @param sql
+	 * @return
+	 * @throws SQLException
+	 */
+	protected PreparedStatement prepare(String sql) throws SQLException {
+		return prepare(sql, null) ;
+	}
+	/**
+	 * Returns statement for sql returning generated keys, it is taken from statement cache if connection has one
+	 * @param sql
+	 * @param columnNames
+	 * @return
+	 * @throws SQLException
+	 */
+	protected PreparedStatement prepare(String sql, String[] columnNames) throws SQLException {
+		BioStatementCache cache = BioStatementCache.getCache(connection) ;
+		if (cache != null) {
+			return cache.prepare(sql, columnNames) ;
+		}
+		return columnNames != null ? connection.prepareStatement(sql, columnNames) : connection.prepareStatement(sql) ;
+	}
+	/**
+	 * Returns statement back to statement cache or closes it
+	 * @param ps
+	 * @throws SQLException
+	 */
+	protected void release(PreparedStatement ps) throws SQLException {
+		if (ps == null) {
+			return ;
+		}
+		BioStatementCache cache = BioStatementCache.getCache(connection) ;
+		if (cache != null) {
+			cache.release(ps);
+		} else {
+			ps.close();
+		}
+	}
 	/**
 	 * Finalizes sql by adding where and order
 	 * @param sql
@@ -701,13 +1847,7 @@ public class BioSql<T extends BioObject> implements AutoCloseable {
 	 * @return
 	 */
 	protected String getSql(String sql, Where where, Order order) {
-		if (where != null && where.getWhere().length() > 0) {
-			sql = sql + " where " + where ;
-		}
-		if (order != null) {
-			sql = sql + " order by " + order.getOrder(table) ;
-		}
-		return sql;
+		return table.getSql(sql, where != null ? where.getWhere() : null, order != null ? order.getOrder(table) : null) ;
 	}
 	
 	/**
@@ -741,6 +1881,206 @@ public class BioSql<T extends BioObject> implements AutoCloseable {
 		}
 	}
 	
+	/**
+	 * Creates bio object from column values in table column order. Mutable values are copied 
+	 * since column values can be shared by caches
+	 * @param values
+	 * @return
+	 */
+	protected BioObject create(Object[] values) {
+		BioObject object = create() ;
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] != null) {
+				object.put(table.getColumns()[i].getTagName(), copy(values[i]));
+			}
+		}
+		return object ;
+	}
+	/**
+	 * Returns copy of mutable value such as nested bio object, array, list or date, other values are returned as they are
+	 * @param value
+	 * @return
+	 */
+	protected Object copy(Object value) {
+		if (value instanceof BioObject) {
+			return binaryParser.decode(binaryParser.encode(value, true)) ;
+		} else if (value instanceof List) {
+			ArrayList<Object> list = new ArrayList<Object>(((List<?>) value).size()) ;
+			for (Object o : (List<?>) value) {
+				list.add(copy(o)) ;
+			}
+			return list ;
+		} else if (value instanceof Date) {
+			return ((Date) value).clone() ;
+		} else if (value != null && value.getClass().isArray()) {
+			int length = Array.getLength(value) ;
+			Object array = Array.newInstance(value.getClass().getComponentType(), length) ;
+			if (value.getClass().getComponentType().isPrimitive()) {
+				System.arraycopy(value, 0, array, 0, length);
+			} else {
+				for (int i = 0; i < length; i++) {
+					Array.set(array, i, copy(Array.get(value, i)));
+				}
+			}
+			return array ;
+		}
+		return value ;
+	}
+	/**
+	 * Removes cached rows changed by statement. If rows are identified by primary keys of object only its row is removed
+	 * otherwise whole table cache is cleared
+	 * @param object
+	 * @param where
+	 */
+	protected void invalidate(BioObject object, Where where) {
+		invalidateQueries() ;
+		invalidateReplica() ;
+		if (table.getCache() == null && table.getOffHeapCache() == null) {
+			return ;
+		}
+		if (object != null && (where == table.getWhere() || where == table.getWhereWithVersion()) 
+				&& table.getKeys() != null && table.getKeys().length > 0) {
+			invalidateKey(BioObjectCache.key(getKeyValues(object))) ;
+		} else {
+			invalidateKeys();
+		}
+	}
+	/**
+	 * Adds primary key of inserted object into key filter
+	 * @param object
+	 */
+	protected void addKey(BioObject object) {
+		if (table.getKeyFilter() != null && table.getKeys() != null && table.getKeys().length > 0) {
+			table.getKeyFilter().add(getKeyValues(object)) ;
+		}
+	}
+	/**
+	 * Loads primary key filter of table by scanning all keys, filter is consulted by select with key after it is loaded
+	 * @return
+	 * @throws SQLException
+	 */
+	public BioKeyFilter loadKeyFilter() throws SQLException {
+		BioKeyFilter filter = table.getKeyFilter() ;
+		if (filter == null) {
+			throw new SqlException(table.getTable() + " has no key filter") ;
+		}
+		if (table.getKeys() == null || table.getKeys().length == 0) {
+			throw new SqlException(table.getTable() + " has no primary key columns") ;
+		}
+		filter.clear();
+		BioColumn[] keys = table.getKeys() ;
+		String sql = "select " + SqlUtility.getColumnNames(keys) + " from " + SqlUtility.getTableName(table) ;
+		PreparedStatement ps = null ;
+		try {
+			ps = prepare(sql) ;
+			try (ResultSet rs = ps.executeQuery()) {
+				while (rs.next()) {
+					Object[] values = new Object[keys.length] ;
+					for (int i = 0; i < keys.length; i++) {
+						values[i] = SqlUtility.getParameter(rs, i + 1, keys[i], binaryParser, xmlParser) ;
+					}
+					filter.add(values) ;
+				}
+			}
+		} catch (Throwable e) {
+			throw new SqlException(e) ;
+		} finally {
+			release(ps) ;
+		}
+		filter.setReady(true);
+		return filter ;
+	}
+	/**
+	 * Removes key from primary key caches
+	 * @param key
+	 */
+	private void invalidateKey(Object key) {
+		if (table.getCache() != null) {
+			table.getCache().invalidate(key) ;
+		}
+		if (table.getOffHeapCache() != null) {
+			table.getOffHeapCache().invalidate(key) ;
+		}
+		if (isTransaction() && (table.getCache() != null || table.getOffHeapCache() != null)) {
+			BioPendingChanges.add(connection, table, key);
+		}
+	}
+	/**
+	 * Clears primary key caches
+	 */
+	private void invalidateKeys() {
+		if (table.getCache() != null) {
+			table.getCache().clear() ;
+		}
+		if (table.getOffHeapCache() != null) {
+			table.getOffHeapCache().clear() ;
+		}
+		if (isTransaction() && (table.getCache() != null || table.getOffHeapCache() != null)) {
+			BioPendingChanges.add(connection, table, null);
+		}
+	}
+	/**
+	 * Removes cached query results of table, they are removed once more at commit if it is inside transaction
+	 */
+	private void invalidateQueries() {
+		if (table.getQueryCache() != null) {
+			table.getQueryCache().invalidate();
+			if (isTransaction()) {
+				BioPendingChanges.add(connection, table);
+			}
+		}
+	}
+	/**
+	 * Removes snapshot of replicated table, it is removed once more at commit if it is inside transaction
+	 */
+	private void invalidateReplica() {
+		if (table.isReplicated()) {
+			table.invalidateReplica();
+			if (isTransaction()) {
+				BioPendingChanges.add(connection, table);
+			}
+		}
+	}
+	/**
+	 * Returns snapshot of table unless this connection has uncommitted changes of it
+	 * @return
+	 */
+	private BioReplica getReplica() {
+		BioReplica replica = table.getReplica() ;
+		return replica != null && !BioPendingChanges.isChanged(connection, table) ? replica : null ;
+	}
+	/**
+	 * Checks whether statements are executed inside transaction which is committed later,
+	 * otherwise connection commits each statement
+	 * @return
+	 */
+	private boolean isTransaction() {
+		return !isAutoCommit || !isLazy ;
+	}
+	/**
+	 * Returns cached column values of key, off heap cache is checked after heap cache and its hits are promoted
+	 * @param key
+	 * @return
+	 */
+	private Object[] getCached(Object key) {
+		BioObjectCache cache = table.getCache() ;
+		Object[] values = cache != null ? cache.get(key) : null ;
+		if (values == null && table.getOffHeapCache() != null) {
+			long generation = cache != null ? cache.getGeneration() : 0 ;
+			BioObject object = table.getOffHeapCache().get(key, binaryParser) ;
+			if (object != null) {
+				values = new Object[table.getColumns().length] ;
+				for (int i = 0; i < values.length; i++) {
+					values[i] = object.get(table.getColumns()[i].getTagName()) ;
+				}
+				if (cache != null) {
+					cache.put(key, values, generation) ;
+				}
+			}
+		}
+		return values ;
+	}
+	
 	/**
 	 * Each column has a value it is dynamic by default which gets a tag value from bio object
 	 * but it also can be a constant value or another expression not related to bio object for example systime
@@ -3,8 +3,15 @@ package com.linkedlogics.bio.sql;
 import java.sql.BatchUpdateException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.sql.SQLTransientException;
+import java.sql.Savepoint;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
 
 import com.linkedlogics.bio.BioExpression;
 import com.linkedlogics.bio.BioObject;
@@ -26,6 +33,10 @@ public class BioSqlBatch implements AutoCloseable {
 	 * Stores objects to be updated
 	 */
 	private ArrayList<BioObject> update = new ArrayList<BioObject>() ;
+	/**
+	 * Stores objects to be merged grouped by their present columns
+	 */
+	private LinkedHashMap<BitSet, ArrayList<BioObject>> merge = new LinkedHashMap<BitSet, ArrayList<BioObject>>() ;
 	/**
 	 * Stores objects to be deleted
 	 */
@@ -42,6 +53,46 @@ public class BioSqlBatch implements AutoCloseable {
 	 * Stores objects failed with exception
 	 */
 	private ArrayList<BioObject> error = new ArrayList<BioObject>() ;
+	/**
+	 * Stores exceptions of error objects in same order
+	 */
+	private ArrayList<Throwable> errorCauses = new ArrayList<Throwable>() ;
+	/**
+	 * Number of objects successfully processed
+	 */
+	private long successCount ;
+	/**
+	 * Number of objects failed by where condition
+	 */
+	private long failedCount ;
+	/**
+	 * Number of objects failed with exception
+	 */
+	private long errorCount ;
+	/**
+	 * If false processed objects are not kept in result lists, only counters and listener are used
+	 */
+	protected boolean isRetainResults = true ;
+	/**
+	 * Listener receiving outcome of each batch execution
+	 */
+	protected BioSqlBatchListener listener ;
+	/**
+	 * If true failed batches are rolled back to savepoint and split in halves until failing rows are isolated
+	 */
+	protected boolean isBisect ;
+	/**
+	 * Number of retries for transient errors such as deadlocks
+	 */
+	protected int maxRetries ;
+	/**
+	 * Initial delay before retry in milliseconds, doubled after each retry
+	 */
+	protected long retryDelay = 100 ;
+	/**
+	 * Maximum delay before retry in milliseconds
+	 */
+	protected long maxRetryDelay = 10000 ;
 	/**
 	 * bath size 
 	 */
@@ -50,6 +101,10 @@ public class BioSqlBatch implements AutoCloseable {
 	 * commit interval
 	 */
 	protected int commitSize ;
+	/**
+	 * If false batch never commits and transaction is controlled by caller
+	 */
+	protected boolean isCommit = true ;
 	/**
 	 * BioSql instance for SQL generation
 	 */
@@ -66,6 +121,22 @@ public class BioSqlBatch implements AutoCloseable {
 	 * Delete where clause
 	 */
 	protected Where deleteWhere ;
+	/**
+	 * Insert statement kept open during batch lifetime
+	 */
+	protected PreparedStatement insertStatement ;
+	/**
+	 * Update statement kept open during batch lifetime
+	 */
+	protected PreparedStatement updateStatement ;
+	/**
+	 * Delete statement kept open during batch lifetime
+	 */
+	protected PreparedStatement deleteStatement ;
+	/**
+	 * Merge statements per present columns kept open during batch lifetime
+	 */
+	protected LinkedHashMap<BitSet, PreparedStatement> mergeStatements = new LinkedHashMap<BitSet, PreparedStatement>() ;
 	
 	public BioSqlBatch(int code) {
 		this(0, code) ;
@@ -87,12 +158,15 @@ public class BioSqlBatch implements AutoCloseable {
 	 * @param connection
 	 */
 	public void setConnection(Connection connection) {
-		bioSql.setConnection(connection);
+		// statements belong to previous connection
+		closeStatements() ;
 		try {
 			connection.setAutoCommit(false);
 		} catch (SQLException e) {
 			throw new SqlException(e) ;
 		}
+		// auto commit is set first so that changed rows are invalidated once more at commit
+		bioSql.setConnection(connection);
 	}
 	/**
 	 * Returns database connection
@@ -129,6 +203,106 @@ public class BioSqlBatch implements AutoCloseable {
 	public void setCommitSize(int commitSize) {
 		this.commitSize = commitSize;
 	}
+	/**
+	 * Indicates whether processed objects are kept in success, failed and error lists
+	 * @return
+	 */
+	public boolean isRetainResults() {
+		return isRetainResults;
+	}
+	/**
+	 * Sets whether processed objects are kept in result lists, 
+	 * if false only counters and listener are used so memory stays constant
+	 * @param isRetainResults
+	 */
+	public void setRetainResults(boolean isRetainResults) {
+		this.isRetainResults = isRetainResults;
+	}
+	/**
+	 * Returns batch listener
+	 * @return
+	 */
+	public BioSqlBatchListener getListener() {
+		return listener;
+	}
+	/**
+	 * Sets listener receiving outcome of each batch execution
+	 * @param listener
+	 */
+	public void setListener(BioSqlBatchListener listener) {
+		this.listener = listener;
+	}
+	/**
+	 * Indicates whether batch commits after commit interval and flush
+	 * @return
+	 */
+	public boolean isCommit() {
+		return isCommit;
+	}
+	/**
+	 * Sets whether batch commits, if false transaction is controlled by caller
+	 * @param isCommit
+	 */
+	public void setCommit(boolean isCommit) {
+		this.isCommit = isCommit;
+	}
+	/**
+	 * Indicates whether failed batches are split to isolate failing rows
+	 * @return
+	 */
+	public boolean isBisect() {
+		return isBisect;
+	}
+	/**
+	 * Sets bisecting of failed batches, if true failed batch is rolled back to savepoint 
+	 * and retried in halves down to single rows so that only failing rows are reported as errors
+	 * @param isBisect
+	 */
+	public void setBisect(boolean isBisect) {
+		this.isBisect = isBisect;
+	}
+	/**
+	 * Returns number of retries for transient errors
+	 * @return
+	 */
+	public int getMaxRetries() {
+		return maxRetries;
+	}
+	/**
+	 * Sets number of retries for transient errors such as deadlocks, only used together with bisect
+	 * @param maxRetries
+	 */
+	public void setMaxRetries(int maxRetries) {
+		this.maxRetries = maxRetries;
+	}
+	/**
+	 * Returns initial retry delay in milliseconds
+	 * @return
+	 */
+	public long getRetryDelay() {
+		return retryDelay;
+	}
+	/**
+	 * Sets initial retry delay in milliseconds, it is doubled after each retry
+	 * @param retryDelay
+	 */
+	public void setRetryDelay(long retryDelay) {
+		this.retryDelay = retryDelay;
+	}
+	/**
+	 * Returns maximum retry delay in milliseconds
+	 * @return
+	 */
+	public long getMaxRetryDelay() {
+		return maxRetryDelay;
+	}
+	/**
+	 * Sets maximum retry delay in milliseconds
+	 * @param maxRetryDelay
+	 */
+	public void setMaxRetryDelay(long maxRetryDelay) {
+		this.maxRetryDelay = maxRetryDelay;
+	}
 	/**
 	 * Returns update where clause
 	 * @return
@@ -142,6 +316,9 @@ public class BioSqlBatch implements AutoCloseable {
 	 */
 	public void setUpdateWhere(Where updateWhere) {
 		this.updateWhere = updateWhere.merge(bioSql.getTable().getWhereWithVersion());
+		// sql is changed so statement must be prepared again
+		updateStatement = closeStatement(updateStatement) ;
+		closeMergeStatements() ;
 	}
 	/**
 	 * Returns delete where clause
@@ -156,6 +333,8 @@ public class BioSqlBatch implements AutoCloseable {
 	 */
 	public void setDeleteWhere(Where deleteWhere) {
 		this.deleteWhere = deleteWhere.merge(bioSql.getTable().getWhere());
+		// sql is changed so statement must be prepared again
+		deleteStatement = closeStatement(deleteStatement) ;
 	}
 	/**
 	 * Adds an insert batch
@@ -163,9 +342,12 @@ public class BioSqlBatch implements AutoCloseable {
 	 * @throws SQLException
 	 */
 	public void insert(BioObject object) throws SQLException {
+		if (bioSql.getTable().getSequence() != null && bioSql.getTable().getAutoColumns().length > 0) {
+			bioSql.allocateKeys(object);
+		}
 		if (insert.add(object)) {
 			if (insert.size() >= batchSize) {
-				execute(bioSql.getTable().getInsert(), insert, null); 
+				execute(getInsertStatement(), insert, getInsertColumns(), null); 
 			}
 		}
 	}
@@ -177,7 +359,34 @@ public class BioSqlBatch implements AutoCloseable {
 	public void update(BioObject object) throws SQLException {
 		if (update.add(object)) {
 			if (update.size() >= batchSize) {
-				execute(bioSql.getSql(bioSql.getTable().getUpdate(), updateWhere), update, updateWhere); 
+				execute(getUpdateStatement(), update, bioSql.getTable().getColumns(), updateWhere); 
+			}
+		}
+	}
+	/**
+	 * Adds a merge batch, only columns present in object are updated.
+	 * Objects with same present columns share same statement
+	 * @param object
+	 * @throws SQLException
+	 */
+	public void merge(BioObject object) throws SQLException {
+		merge(object, getShape(object)) ;
+	}
+	/**
+	 * Adds a merge batch of provided columns (column indexes)
+	 * @param object
+	 * @param shape
+	 * @throws SQLException
+	 */
+	public void merge(BioObject object, BitSet shape) throws SQLException {
+		ArrayList<BioObject> list = merge.get(shape) ;
+		if (list == null) {
+			list = new ArrayList<BioObject>() ;
+			merge.put(shape, list) ;
+		}
+		if (list.add(object)) {
+			if (list.size() >= batchSize) {
+				execute(getMergeStatement(shape), list, getMergeColumns(shape), updateWhere); 
 			}
 		}
 	}
@@ -189,75 +398,367 @@ public class BioSqlBatch implements AutoCloseable {
 	public void delete(BioObject object) throws SQLException {
 		if (delete.add(object)) {
 			if (delete.size() >= batchSize) {
-				execute(bioSql.getSql(bioSql.getTable().getDelete(), deleteWhere), delete, deleteWhere); 
+				execute(getDeleteStatement(), delete, null, deleteWhere); 
+			}
+		}
+	}
+	/**
+	 * Returns insert statement, prepares it at first call
+	 * @return
+	 * @throws SQLException
+	 */
+	protected PreparedStatement getInsertStatement() throws SQLException {
+		if (insertStatement == null) {
+			if (bioSql.getTable().isGeneratedKeys()) {
+				insertStatement = bioSql.getConnection().prepareStatement(bioSql.getTable().getInsertAuto(), bioSql.getTable().getAutoColumnNames()) ;
+			} else {
+				insertStatement = bioSql.getConnection().prepareStatement(bioSql.getTable().getInsert()) ;
 			}
 		}
+		return insertStatement ;
 	}
 	/**
-	 * Executes batch
-	 * @param sql
+	 * Returns columns set by insert statement, auto columns are skipped if they are generated by database
+	 * @return
+	 */
+	protected BioColumn[] getInsertColumns() {
+		if (bioSql.getTable().isGeneratedKeys()) {
+			return bioSql.getTable().getInsertAutoColumns() ;
+		}
+		return bioSql.getTable().getColumns() ;
+	}
+	/**
+	 * Returns update statement, prepares it at first call
+	 * @return
+	 * @throws SQLException
+	 */
+	protected PreparedStatement getUpdateStatement() throws SQLException {
+		if (updateStatement == null) {
+			updateStatement = bioSql.getConnection().prepareStatement(bioSql.getSql(bioSql.getTable().getUpdate(), updateWhere)) ;
+		}
+		return updateStatement ;
+	}
+	/**
+	 * Returns merge statement of present columns, prepares it at first call
+	 * @param shape
+	 * @return
+	 * @throws SQLException
+	 */
+	protected PreparedStatement getMergeStatement(BitSet shape) throws SQLException {
+		PreparedStatement ps = mergeStatements.get(shape) ;
+		if (ps == null) {
+			ps = bioSql.getConnection().prepareStatement(bioSql.getSql(bioSql.getTable().getUpdate(shape), updateWhere)) ;
+			mergeStatements.put(shape, ps) ;
+		}
+		return ps ;
+	}
+	/**
+	 * Returns indexes of table columns present in object
+	 * @param object
+	 * @return
+	 */
+	protected BitSet getShape(BioObject object) {
+		return bioSql.getShape(object) ;
+	}
+	/**
+	 * Returns columns of shape in table order
+	 * @param shape
+	 * @return
+	 */
+	protected BioColumn[] getMergeColumns(BitSet shape) {
+		BioColumn[] columns = new BioColumn[shape.cardinality()] ;
+		int index = 0 ;
+		for (int i = shape.nextSetBit(0); i >= 0; i = shape.nextSetBit(i + 1)) {
+			columns[index++] = bioSql.getTable().getColumns()[i] ;
+		}
+		return columns ;
+	}
+	/**
+	 * Returns delete statement, prepares it at first call
+	 * @return
+	 * @throws SQLException
+	 */
+	protected PreparedStatement getDeleteStatement() throws SQLException {
+		if (deleteStatement == null) {
+			deleteStatement = bioSql.getConnection().prepareStatement(bioSql.getSql(bioSql.getTable().getDelete(), deleteWhere)) ;
+		}
+		return deleteStatement ;
+	}
+	/**
+	 * Executes batch, statement is not closed and is reused for next batches
+	 * @param ps
 	 * @param list
+	 * @param columns
 	 * @param where
 	 * @throws SQLException
 	 */
-	protected void execute(String sql, ArrayList<BioObject> list, Where where) throws SQLException {
-		try(PreparedStatement ps = bioSql.getConnection().prepareStatement(sql)) {
-			for (int i = 0; i < list.size(); i++) {
-				setBatchParameters(list.get(i), ps, where);
-			}
+	protected void execute(PreparedStatement ps, ArrayList<BioObject> list, BioColumn[] columns, Where where) throws SQLException {
+		try {
+			execute(ps, list, 0, list.size(), columns, where);
+		} finally {
+			ps.clearBatch();
+			ps.clearParameters();
+		}
+		commitCounter += list.size() ;
+		if (isCommit && commitCounter >= commitSize) {
+			BioSql.commit(bioSql.getConnection());
+			commitCounter = 0 ;
+		}
+		
+		list.clear();
+	}
+	/**
+	 * Executes objects of list in range [from, to) as a single batch. If bisect is enabled and batch fails
+	 * it is rolled back to savepoint, retried if error is transient, otherwise split in halves recursively
+	 * @param ps
+	 * @param list
+	 * @param from
+	 * @param to
+	 * @param columns
+	 * @param where
+	 * @throws SQLException
+	 */
+	protected void execute(PreparedStatement ps, ArrayList<BioObject> list, int from, int to, BioColumn[] columns, Where where) throws SQLException {
+		int attempt = 0 ;
+		while (true) {
+			Savepoint savepoint = isBisect ? bioSql.getConnection().setSavepoint() : null ;
 			int[] result = null ;
+			BatchUpdateException exception = null ;
 			try {
+				for (int i = from; i < to; i++) {
+					setBatchParameters(list.get(i), ps, columns, where);
+				}
 				result = ps.executeBatch() ;
 			} catch (BatchUpdateException e) {
-				result = e.getUpdateCounts() ;
+				ps.clearBatch();
+				exception = e ;
+				if (savepoint != null) {
+					// whole transaction is already rolled back by database so savepoint is gone
+					if (isTransactionRollback(e)) {
+						throw e ;
+					}
+					bioSql.getConnection().rollback(savepoint);
+					// retries and halves set their own savepoints
+					bioSql.getConnection().releaseSavepoint(savepoint);
+					if (attempt < maxRetries && isTransient(e)) {
+						sleep(attempt++) ;
+						continue ;
+					}
+					if (to - from > 1) {
+						int middle = (from + to) >>> 1 ;
+						execute(ps, list, from, middle, columns, where) ;
+						execute(ps, list, middle, to, columns, where) ;
+						return ;
+					}
+					// single row is left so it is truly failing
+					result = new int[] {Statement.EXECUTE_FAILED} ;
+				} else {
+					result = e.getUpdateCounts() ;
+				}
+			} catch (SQLException | RuntimeException e) {
+				ps.clearBatch();
+				if (savepoint != null) {
+					try {
+						bioSql.getConnection().rollback(savepoint);
+						bioSql.getConnection().releaseSavepoint(savepoint);
+					} catch (SQLException ex) {
+						e.addSuppressed(ex);
+					}
+				}
+				throw e ;
 			}
-
-			for (int i = 0; i < result.length; i++) {
-				if (result[i] > 0) {
-					success.add(list.get(i)) ;
+			if (savepoint != null && exception == null) {
+				bioSql.getConnection().releaseSavepoint(savepoint);
+			}
+			
+			// cached rows are removed whatever result is since failed statements may be partially applied
+			for (int i = from; i < to; i++) {
+				bioSql.invalidate(list.get(i), where != null ? where : bioSql.getTable().getWhere()) ;
+			}
+			// generated keys are returned in order of inserted rows, they are set before listener is notified
+			if (exception == null && ps == insertStatement && bioSql.getTable().isGeneratedKeys()) {
+				try (ResultSet rs = ps.getGeneratedKeys()) {
+					for (int i = 0; i < result.length; i++) {
+						if (result[i] > 0 || result[i] == Statement.SUCCESS_NO_INFO) {
+							if (!rs.next()) {
+								break ;
+							}
+							bioSql.setGeneratedKeys(rs, list.get(from + i));
+						}
+					}
+				}
+			}
+			for (int i = 0; i < result.length && from + i < to; i++) {
+				BioObject object = list.get(from + i) ;
+				if (result[i] > 0 || result[i] == Statement.SUCCESS_NO_INFO) {
+					addSuccess(object) ;
 				} else if (result[i] == 0){
-					failed.add(list.get(i)) ;
+					addFailed(object) ;
 				} else {
-					error.add(list.get(i)) ;
+					addError(object, exception) ;
+				}
+			}
+			// rows after failing one are not executed by some drivers
+			for (int i = from + result.length; i < to; i++) {
+				addError(list.get(i), exception) ;
+			}
+			
+			// keys are added after generated keys are set
+			if (ps == insertStatement) {
+				for (int i = 0; i < result.length && from + i < to; i++) {
+					if (result[i] > 0 || result[i] == Statement.SUCCESS_NO_INFO) {
+						bioSql.addKey(list.get(from + i)) ;
+					}
 				}
 			}
+			if (listener != null) {
+				listener.onExecute(list.subList(from, to), result);
+			}
+			return ;
 		}
-		commitCounter += list.size() ;
-		if (commitCounter >= commitSize) {
-			bioSql.getConnection().commit();
-			commitCounter = 0 ;
+	}
+	/**
+	 * Checks whether exception is transient and only failed statement is rolled back so that it can be retried from savepoint,
+	 * such as lock wait timeout or Oracle deadlock
+	 * @param e
+	 * @return
+	 */
+	protected boolean isTransient(SQLException e) {
+		if (isTransactionRollback(e)) {
+			return false ;
+		}
+		while (e != null) {
+			if (e instanceof SQLTransientException) {
+				return true ;
+			}
+			// MySQL lock wait timeout, Oracle deadlock
+			if (e.getErrorCode() == 1205 || e.getErrorCode() == 60) {
+				return true ;
+			}
+			e = e.getNextException() ;
+		}
+		return false ;
+	}
+	/**
+	 * Checks whether database rolled back whole transaction such as MySQL deadlock or serialization failure. 
+	 * Such batch can not be retried from savepoint, whole transaction must be retried by caller
+	 * @param e
+	 * @return
+	 */
+	protected boolean isTransactionRollback(SQLException e) {
+		while (e != null) {
+			if (e instanceof SQLTransactionRollbackException) {
+				return true ;
+			}
+			// SQL standard transaction rollback class, MySQL deadlock
+			if ((e.getSQLState() != null && e.getSQLState().startsWith("40")) || e.getErrorCode() == 1213) {
+				return true ;
+			}
+			e = e.getNextException() ;
+		}
+		return false ;
+	}
+	/**
+	 * Waits before retry with exponential backoff
+	 * @param attempt
+	 */
+	private void sleep(int attempt) {
+		long delay = retryDelay << Math.min(attempt, 30) ;
+		try {
+			Thread.sleep(Math.min(delay, maxRetryDelay)) ;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SqlException(e) ;
+		}
+	}
+	/**
+	 * Registers successful object
+	 * @param object
+	 */
+	protected void addSuccess(BioObject object) {
+		successCount++ ;
+		if (isRetainResults) {
+			success.add(object) ;
+		}
+		if (listener != null) {
+			listener.onSuccess(object);
+		}
+	}
+	/**
+	 * Registers failed object
+	 * @param object
+	 */
+	protected void addFailed(BioObject object) {
+		failedCount++ ;
+		if (isRetainResults) {
+			failed.add(object) ;
+		}
+		if (listener != null) {
+			listener.onFailed(object);
+		}
+	}
+	/**
+	 * Registers error object
+	 * @param object
+	 * @param exception
+	 */
+	protected void addError(BioObject object, Throwable exception) {
+		errorCount++ ;
+		if (isRetainResults) {
+			error.add(object) ;
+			errorCauses.add(exception) ;
+		}
+		if (listener != null) {
+			listener.onError(object, exception);
 		}
-		
-		list.clear();
 	}
 	/**
 	 * Flushes remaining objects
 	 * @throws SQLException
 	 */
 	public void flush() throws SQLException {
-		execute(bioSql.getTable().getInsert(), insert, null); 
-		execute(bioSql.getTable().getUpdate(), update, updateWhere); 
-		execute(bioSql.getTable().getDelete(), delete, deleteWhere); 
-		bioSql.getConnection().commit();
+		if (insert.size() > 0) {
+			execute(getInsertStatement(), insert, getInsertColumns(), null); 
+		}
+		if (update.size() > 0) {
+			execute(getUpdateStatement(), update, bioSql.getTable().getColumns(), updateWhere); 
+		}
+		for (BitSet shape : merge.keySet()) {
+			ArrayList<BioObject> list = merge.get(shape) ;
+			if (list.size() > 0) {
+				execute(getMergeStatement(shape), list, getMergeColumns(shape), updateWhere); 
+			}
+		}
+		if (delete.size() > 0) {
+			execute(getDeleteStatement(), delete, null, deleteWhere); 
+		}
+		if (isCommit) {
+			BioSql.commit(bioSql.getConnection());
+		}
 	}
 	/**
 	 * Sets batch parameters
 	 * @param object
 	 * @param ps
+	 * @param columns
 	 * @param where
 	 * @throws SQLException
 	 */
-	private void setBatchParameters(BioObject object, PreparedStatement ps, Where where) throws SQLException {
-		for (int i = 0; i < bioSql.getTable().getColumns().length; i++) {
-			BioColumn column = bioSql.getTable().getColumns()[i] ;
-			Object value = object.get(column.getTagName()) ;
-			if (value instanceof BioExpression) {
-				value = ((BioExpression) value).getValue(object) ;
+	private void setBatchParameters(BioObject object, PreparedStatement ps, BioColumn[] columns, Where where) throws SQLException {
+		int index = 0 ;
+		if (columns != null) {
+			for (int i = 0; i < columns.length; i++) {
+				BioColumn column = columns[i] ;
+				Object value = object.get(column.getTagName()) ;
+				if (value instanceof BioExpression) {
+					value = ((BioExpression) value).getValue(object) ;
+				}
+				
+				SqlUtility.setParameters(ps, i + 1, value, column, bioSql.getBinaryParser(), bioSql.getXmlParser()) ;
 			}
-			
-			SqlUtility.setParameters(ps, i + 1, value, column, bioSql.getBinaryParser(), bioSql.getXmlParser()) ;
+			index = columns.length ;
 		}
-		SqlUtility.setWhereParameters(object, where, ps, bioSql.getTable().getColumns().length) ;
+		SqlUtility.setWhereParameters(object, where, ps, index) ;
 		ps.addBatch();
 	}
 	/**
@@ -282,21 +783,91 @@ public class BioSqlBatch implements AutoCloseable {
 		return error;
 	}
 	/**
-	 * Clears all result lists such as success, failed, error
+	 * Returns exceptions of error objects in same order as getError(), exception can be null if driver doesn't provide it
+	 * @return
+	 */
+	public ArrayList<Throwable> getErrorCauses() {
+		return errorCauses;
+	}
+	/**
+	 * Returns number of objects successfully processed
+	 * @return
+	 */
+	public long getSuccessCount() {
+		return successCount;
+	}
+	/**
+	 * Returns number of objects failed by where condition
+	 * @return
+	 */
+	public long getFailedCount() {
+		return failedCount;
+	}
+	/**
+	 * Returns number of objects failed with exception
+	 * @return
+	 */
+	public long getErrorCount() {
+		return errorCount;
+	}
+	/**
+	 * Clears all result lists such as success, failed, error and resets counters
 	 */
 	public void clear() {
 		success.clear(); 
 		failed.clear(); 
 		error.clear();
+		errorCauses.clear();
+		successCount = 0 ;
+		failedCount = 0 ;
+		errorCount = 0 ;
+	}
+
+	/**
+	 * Closes statement quietly
+	 * @param ps
+	 * @return
+	 */
+	private PreparedStatement closeStatement(PreparedStatement ps) {
+		if (ps != null) {
+			try {
+				ps.close();
+			} catch (SQLException e) {
+				
+			}
+		}
+		return null ;
+	}
+	/**
+	 * Closes all open statements
+	 */
+	protected void closeStatements() {
+		insertStatement = closeStatement(insertStatement) ;
+		updateStatement = closeStatement(updateStatement) ;
+		deleteStatement = closeStatement(deleteStatement) ;
+		closeMergeStatements() ;
+	}
+	/**
+	 * Closes merge statements
+	 */
+	private void closeMergeStatements() {
+		for (PreparedStatement ps : mergeStatements.values()) {
+			closeStatement(ps) ;
+		}
+		mergeStatements.clear();
 	}
 
 	@Override
 	public void close() {
+		closeStatements() ;
 		if (bioSql.getConnection() != null) {
 			try {
 				bioSql.getConnection().setAutoCommit(true);
 			} catch (SQLException e) {
 				
+			} finally {
+				// auto commit commits pending transaction
+				BioPendingChanges.complete(bioSql.getConnection());
 			}
 		}
 	}
@@ -0,0 +1,44 @@
+package com.linkedlogics.bio.sql;
+
+import java.util.List;
+
+import com.linkedlogics.bio.BioObject;
+
+/**
+ * Receives outcome of batch executions as soon as each batch is executed
+ * @author rajab
+ *
+ */
+public interface BioSqlBatchListener {
+	/**
+	 * Called for each object successfully processed or returned > 0
+	 * @param object
+	 */
+	default void onSuccess(BioObject object) {
+		
+	}
+	/**
+	 * Called for each object failed by where condition or returned 0
+	 * @param object
+	 */
+	default void onFailed(BioObject object) {
+		
+	}
+	/**
+	 * Called for each object failed with exception
+	 * @param object
+	 * @param exception can be null if driver doesn't provide it
+	 */
+	default void onError(BioObject object, Throwable exception) {
+		
+	}
+	/**
+	 * Called once per executed batch with objects and their update counts, 
+	 * list is reused by batch so it must not be kept
+	 * @param objects
+	 * @param results
+	 */
+	default void onExecute(List<BioObject> objects, int[] results) {
+		
+	}
+}
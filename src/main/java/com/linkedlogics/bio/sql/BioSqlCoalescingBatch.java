@@ -0,0 +1,358 @@
+package com.linkedlogics.bio.sql;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.linkedlogics.bio.BioObject;
+import com.linkedlogics.bio.sql.exception.SqlException;
+import com.linkedlogics.bio.sql.object.BioColumn;
+import com.linkedlogics.bio.sql.object.BioTable;
+
+/**
+ * BioSqlCoalescingBatch keeps pending operations per primary key in front of {@link BioSqlBatch}
+ * so that repeated writes on same row are folded and only net result is written.
+ * Updates replace pending object, merges are folded tag by tag into pending object
+ * and delete cancels pending insert. Pending operations are written when their number reaches
+ * batch size, when linger time passes or at flush. Objects without primary key values are not coalesced.
+ * @author rajab
+ *
+ */
+public class BioSqlCoalescingBatch implements AutoCloseable {
+	/**
+	 * Underlying batch
+	 */
+	protected BioSqlBatch batch ;
+	/**
+	 * Table object to work on
+	 */
+	protected BioTable table ;
+	/**
+	 * Pending operations per primary key values in arrival order
+	 */
+	private LinkedHashMap<List<Object>, Pending> pending = new LinkedHashMap<List<Object>, Pending>() ;
+	/**
+	 * Number of pending keys after which they are written
+	 */
+	protected int batchSize = 1000 ;
+	/**
+	 * Maximum time in milliseconds pending operations wait before they are written, 0 means no linger flush
+	 */
+	protected long lingerTime ;
+	/**
+	 * Number of operations folded into pending ones
+	 */
+	private long coalescedCount ;
+	/**
+	 * Scheduler of linger flushes
+	 */
+	private ScheduledExecutorService scheduler ;
+	/**
+	 * Exception thrown by linger flush
+	 */
+	private AtomicReference<Throwable> exception = new AtomicReference<Throwable>() ;
+
+	public BioSqlCoalescingBatch(int code) {
+		this(0, code) ;
+	}
+
+	public BioSqlCoalescingBatch(int dictionary, int code) {
+		this(new BioSqlBatch(dictionary, code)) ;
+	}
+
+	public BioSqlCoalescingBatch(Class bioClass) {
+		this(new BioSqlBatch(bioClass)) ;
+	}
+
+	public BioSqlCoalescingBatch(BioSqlBatch batch) {
+		this.batch = batch ;
+		this.table = batch.bioSql.getTable() ;
+		// underlying batch is executed by flushes of pending keys, not by each written operation
+		batch.setBatchSize(batchSize);
+	}
+	/**
+	 * Sets database connection
+	 * @param connection
+	 */
+	public synchronized void setConnection(Connection connection) {
+		batch.setConnection(connection);
+	}
+	/**
+	 * Returns underlying batch for its settings and results
+	 * @return
+	 */
+	public BioSqlBatch getBatch() {
+		return batch ;
+	}
+	/**
+	 * Returns number of pending keys after which they are written
+	 * @return
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+	/**
+	 * Sets number of pending keys after which they are written, it is also batch size of underlying batch
+	 * @param batchSize
+	 */
+	public synchronized void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+		batch.setBatchSize(batchSize);
+	}
+	/**
+	 * Returns linger time in milliseconds
+	 * @return
+	 */
+	public long getLingerTime() {
+		return lingerTime;
+	}
+	/**
+	 * Sets maximum time in milliseconds pending operations wait before they are written,
+	 * linger flushes are executed by background thread so listener of batch must be thread safe
+	 * @param lingerTime
+	 */
+	public synchronized void setLingerTime(long lingerTime) {
+		this.lingerTime = lingerTime;
+		if (scheduler != null) {
+			scheduler.shutdown();
+			scheduler = null ;
+		}
+		if (lingerTime > 0) {
+			scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread thread = new Thread(r, "bio-sql-linger-" + table.getTable()) ;
+				thread.setDaemon(true);
+				return thread ;
+			}) ;
+			scheduler.scheduleWithFixedDelay(() -> {
+				try {
+					flush();
+				} catch (Throwable e) {
+					exception.compareAndSet(null, e) ;
+				}
+			}, lingerTime, lingerTime, TimeUnit.MILLISECONDS) ;
+		}
+	}
+	/**
+	 * Returns number of pending keys
+	 * @return
+	 */
+	public synchronized int getPendingCount() {
+		return pending.size() ;
+	}
+	/**
+	 * Returns number of operations folded into pending ones and never written separately
+	 * @return
+	 */
+	public synchronized long getCoalescedCount() {
+		return coalescedCount;
+	}
+	/**
+	 * Adds an insert
+	 * @param object
+	 * @throws SQLException
+	 */
+	public synchronized void insert(BioObject object) throws SQLException {
+		add(object, Operation.INSERT) ;
+	}
+	/**
+	 * Adds an update, pending update or insert of same key is replaced by object
+	 * @param object
+	 * @throws SQLException
+	 */
+	public synchronized void update(BioObject object) throws SQLException {
+		add(object, Operation.UPDATE) ;
+	}
+	/**
+	 * Adds a merge, present tags of object overwrite tags of pending object of same key.
+	 * Note that first object of key is used as pending object so it is modified
+	 * @param object
+	 * @throws SQLException
+	 */
+	public synchronized void merge(BioObject object) throws SQLException {
+		add(object, Operation.MERGE) ;
+	}
+	/**
+	 * Adds a delete, pending insert of same key is cancelled
+	 * @param object
+	 * @throws SQLException
+	 */
+	public synchronized void delete(BioObject object) throws SQLException {
+		add(object, Operation.DELETE) ;
+	}
+	/**
+	 * Writes pending operations into batch and flushes it
+	 * @throws SQLException
+	 */
+	public synchronized void flush() throws SQLException {
+		checkException() ;
+		write() ;
+		batch.flush();
+	}
+	/**
+	 * Folds operation into pending one of same key
+	 * @param object
+	 * @param operation
+	 * @throws SQLException
+	 */
+	private void add(BioObject object, Operation operation) throws SQLException {
+		checkException() ;
+		List<Object> key = getKey(object) ;
+		if (key == null) {
+			write(object, operation) ;
+			return ;
+		}
+		Pending p = pending.get(key) ;
+		if (p == null) {
+			pending.put(key, new Pending(object, operation)) ;
+		} else if (!fold(key, p, object, operation)) {
+			// operations can't be folded so everything pending is written to keep order
+			write() ;
+			batch.flush();
+			pending.put(key, new Pending(object, operation)) ;
+		} else {
+			coalescedCount++ ;
+		}
+		if (pending.size() >= batchSize) {
+			flush() ;
+		}
+	}
+	/**
+	 * Folds operation into pending one
+	 * @param key
+	 * @param p
+	 * @param object
+	 * @param operation
+	 * @return false if operations can't be folded
+	 */
+	private boolean fold(List<Object> key, Pending p, BioObject object, Operation operation) {
+		if (operation == Operation.INSERT || p.operation == Operation.DELETE) {
+			// insert of existing key or anything after delete must reach database in order
+			return operation == Operation.DELETE && p.operation == Operation.DELETE ;
+		}
+		switch (operation) {
+		case UPDATE:
+			// insert stays insert but with latest values
+			p.object = object ;
+			if (p.operation == Operation.MERGE) {
+				p.operation = Operation.UPDATE ;
+			}
+			return true ;
+		case MERGE:
+			if (p.object != object) {
+				p.object.putAll(object);
+			}
+			return true ;
+		case DELETE:
+			if (p.operation == Operation.INSERT) {
+				// row never reached database
+				pending.remove(key) ;
+			} else {
+				p.object = object ;
+				p.operation = Operation.DELETE ;
+			}
+			return true ;
+		default:
+			return false ;
+		}
+	}
+	/**
+	 * Writes all pending operations into batch
+	 * @throws SQLException
+	 */
+	private void write() throws SQLException {
+		for (Pending p : pending.values()) {
+			write(p.object, p.operation) ;
+		}
+		pending.clear();
+	}
+	/**
+	 * Writes operation into batch
+	 * @param object
+	 * @param operation
+	 * @throws SQLException
+	 */
+	private void write(BioObject object, Operation operation) throws SQLException {
+		switch (operation) {
+		case INSERT:
+			batch.insert(object);
+			break ;
+		case UPDATE:
+			batch.update(object);
+			break ;
+		case MERGE:
+			batch.merge(object);
+			break ;
+		case DELETE:
+			batch.delete(object);
+			break ;
+		}
+	}
+	/**
+	 * Returns primary key values of object or null if table has no primary keys or they are not assigned yet
+	 * @param object
+	 * @return
+	 */
+	protected List<Object> getKey(BioObject object) {
+		BioColumn[] keys = table.getKeys() ;
+		if (keys == null || keys.length == 0) {
+			return null ;
+		}
+		Object[] values = new Object[keys.length] ;
+		for (int i = 0; i < keys.length; i++) {
+			values[i] = object.get(keys[i].getTagName()) ;
+			if (values[i] == null) {
+				return null ;
+			}
+		}
+		return Arrays.asList(values) ;
+	}
+	/**
+	 * Rethrows exception occured during linger flush
+	 * @throws SQLException
+	 */
+	private void checkException() throws SQLException {
+		Throwable e = exception.getAndSet(null) ;
+		if (e != null) {
+			if (e instanceof SQLException) {
+				throw (SQLException) e ;
+			} else if (e instanceof SqlException) {
+				throw (SqlException) e ;
+			}
+			throw new SqlException(e) ;
+		}
+	}
+
+	@Override
+	public void close() {
+		synchronized (this) {
+			if (scheduler != null) {
+				scheduler.shutdown();
+				scheduler = null ;
+			}
+		}
+		batch.close();
+	}
+
+	/**
+	 * Pending operation of a key
+	 */
+	private static class Pending {
+		private BioObject object ;
+		private Operation operation ;
+
+		Pending(BioObject object, Operation operation) {
+			this.object = object ;
+			this.operation = operation ;
+		}
+	}
+
+	private enum Operation {
+		INSERT, UPDATE, MERGE, DELETE
+	}
+}
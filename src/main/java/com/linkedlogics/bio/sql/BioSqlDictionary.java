@@ -1,8 +1,10 @@
 package com.linkedlogics.bio.sql;
 
 import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.linkedlogics.bio.exception.DictionaryException;
+import com.linkedlogics.bio.sql.dialect.SqlDialect;
 import com.linkedlogics.bio.sql.object.BioTable;
 import com.linkedlogics.bio.sql.utility.DictionaryUtility;
 
@@ -26,6 +28,10 @@ public class BioSqlDictionary {
      * Map for retrieving BioTable based on object name
      */
     private HashMap<String, BioTable> nameMap = new HashMap<String, BioTable>();
+    /**
+     * SQL dialect of tables, if it is null dialect is detected from connection
+     */
+    private SqlDialect dialect ;
     
     BioSqlDictionary() {
 
@@ -55,7 +61,34 @@ public class BioSqlDictionary {
 		return nameMap;
 	}
 
-	public void addTable(BioTable table) {
+	/**
+	 * Returns SQL dialect of tables
+	 * @return
+	 */
+	public SqlDialect getDialect() {
+		return dialect;
+	}
+	
+	/**
+	 * Sets SQL dialect of all tables, dialect specific statements are generated once per table
+	 * @param dialect
+	 */
+	public synchronized void setDialect(SqlDialect dialect) {
+		this.dialect = dialect;
+		for (BioTable table : codeMap.values()) {
+			table.setDialect(dialect);
+		}
+	}
+
+	/**
+	 * Adds table, it is synchronized since readers may add tables from different threads. Tables are added one by one
+	 * before they are generated in parallel, so generating threads only read maps
+	 * @param table
+	 */
+	public synchronized void addTable(BioTable table) {
+		if (dialect != null) {
+			table.setDialect(dialect);
+		}
     	BioTable tableByCode = codeMap.get(table.getObj().getCode());
     	BioTable tableByName = typeMap.get(table.getObj().getType());
 
@@ -92,15 +125,15 @@ public class BioSqlDictionary {
         return codeMap.get(code);
     }
     
-	private static HashMap<Integer, BioSqlDictionary> dictionaryMap = new HashMap<Integer, BioSqlDictionary>() ;
+	private static ConcurrentHashMap<Integer, BioSqlDictionary> dictionaryMap = new ConcurrentHashMap<Integer, BioSqlDictionary>() ;
 	
-    private static BioSqlDictionary dictionary ;
+    private static volatile BioSqlDictionary dictionary ;
  
     /**
      * Returns all dictionaries as map
      * @return
      */
-    static HashMap<Integer, BioSqlDictionary> getDictionaryMap() {
+    static ConcurrentHashMap<Integer, BioSqlDictionary> getDictionaryMap() {
 		return dictionaryMap;
 	}
 
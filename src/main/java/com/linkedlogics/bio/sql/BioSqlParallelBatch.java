@@ -0,0 +1,422 @@
+package com.linkedlogics.bio.sql;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.linkedlogics.bio.BioObject;
+import com.linkedlogics.bio.sql.exception.SqlException;
+import com.linkedlogics.bio.sql.object.BioColumn;
+import com.linkedlogics.bio.sql.object.BioTable;
+
+/**
+ * BioSqlParallelBatch is batch SQL processor which spreads objects over several partitions.
+ * Each partition has its own connection, batch and worker thread. Objects are assigned
+ * to partitions by hash of their primary key values so that all operations on same key
+ * are executed in order by the same partition. Sequence keys are allocated before partitioning
+ * and objects without key values are spread by round robin.
+ * @author rajab
+ *
+ */
+public class BioSqlParallelBatch implements AutoCloseable {
+	/**
+	 * Maximum number of pending operations per partition before callers are blocked
+	 */
+	protected static final int QUEUE_SIZE = 10000 ;
+	/**
+	 * Batches per partition
+	 */
+	protected BioSqlBatch[] batches ;
+	/**
+	 * Worker per partition, each has single thread so order is kept
+	 */
+	protected ThreadPoolExecutor[] workers ;
+	/**
+	 * Table object to work on
+	 */
+	protected BioTable table ;
+	/**
+	 * Round robin counter for tables without primary keys and objects without key values
+	 */
+	protected AtomicInteger counter = new AtomicInteger() ;
+	/**
+	 * First exception thrown by any of workers
+	 */
+	protected AtomicReference<Throwable> exception = new AtomicReference<Throwable>() ;
+
+	public BioSqlParallelBatch(int code, int partitions) {
+		this(0, code, partitions) ;
+	}
+
+	public BioSqlParallelBatch(int dictionary, int code, int partitions) {
+		batches = new BioSqlBatch[partitions] ;
+		for (int i = 0; i < partitions; i++) {
+			batches[i] = new BioSqlBatch(dictionary, code) ;
+		}
+		table = batches[0].bioSql.getTable() ;
+		createWorkers() ;
+	}
+
+	public BioSqlParallelBatch(Class bioClass, int partitions) {
+		batches = new BioSqlBatch[partitions] ;
+		for (int i = 0; i < partitions; i++) {
+			batches[i] = new BioSqlBatch(bioClass) ;
+		}
+		table = batches[0].bioSql.getTable() ;
+		createWorkers() ;
+	}
+	/**
+	 * Creates single threaded worker for each partition
+	 */
+	private void createWorkers() {
+		workers = new ThreadPoolExecutor[batches.length] ;
+		for (int i = 0; i < batches.length; i++) {
+			String name = "bio-sql-batch-" + table.getTable() + "-" + i ;
+			workers[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(QUEUE_SIZE), r -> {
+				Thread thread = new Thread(r, name) ;
+				thread.setDaemon(true);
+				return thread ;
+			}, (r, executor) -> {
+				// queue is full so we block caller until worker catches up
+				try {
+					executor.getQueue().put(r);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new RejectedExecutionException(e) ;
+				}
+			}) ;
+		}
+	}
+	/**
+	 * Sets database connections, one connection per partition
+	 * @param connections
+	 */
+	public void setConnections(Connection... connections) {
+		if (connections.length != batches.length) {
+			throw new SqlException(batches.length + " connections are required but " + connections.length + " is provided") ;
+		}
+		for (int i = 0; i < batches.length; i++) {
+			batches[i].setConnection(connections[i]);
+		}
+	}
+	/**
+	 * Returns number of partitions
+	 * @return
+	 */
+	public int getPartitions() {
+		return batches.length ;
+	}
+	/**
+	 * Returns batch size
+	 * @return
+	 */
+	public int getBatchSize() {
+		return batches[0].getBatchSize() ;
+	}
+	/**
+	 * Sets batch size for each partition
+	 * @param batchSize
+	 */
+	public void setBatchSize(int batchSize) {
+		for (int i = 0; i < batches.length; i++) {
+			batches[i].setBatchSize(batchSize);
+		}
+	}
+	/**
+	 * Returns commit interval
+	 * @return
+	 */
+	public int getCommitSize() {
+		return batches[0].getCommitSize() ;
+	}
+	/**
+	 * Sets commit interval for each partition
+	 * @param commitSize
+	 */
+	public void setCommitSize(int commitSize) {
+		for (int i = 0; i < batches.length; i++) {
+			batches[i].setCommitSize(commitSize);
+		}
+	}
+	/**
+	 * Sets whether processed objects are kept in result lists of each partition
+	 * @param isRetainResults
+	 */
+	public void setRetainResults(boolean isRetainResults) {
+		for (int i = 0; i < batches.length; i++) {
+			batches[i].setRetainResults(isRetainResults);
+		}
+	}
+	/**
+	 * Sets listener for each partition, listener is called from worker threads so it must be thread safe
+	 * @param listener
+	 */
+	public void setListener(BioSqlBatchListener listener) {
+		for (int i = 0; i < batches.length; i++) {
+			batches[i].setListener(listener);
+		}
+	}
+	/**
+	 * Sets bisecting of failed batches for each partition
+	 * @param isBisect
+	 */
+	public void setBisect(boolean isBisect) {
+		for (int i = 0; i < batches.length; i++) {
+			batches[i].setBisect(isBisect);
+		}
+	}
+	/**
+	 * Sets number of retries for transient errors for each partition
+	 * @param maxRetries
+	 */
+	public void setMaxRetries(int maxRetries) {
+		for (int i = 0; i < batches.length; i++) {
+			batches[i].setMaxRetries(maxRetries);
+		}
+	}
+	/**
+	 * Sets where clause merged with version check for each partition
+	 * @param updateWhere
+	 */
+	public void setUpdateWhere(Where updateWhere) {
+		for (int i = 0; i < batches.length; i++) {
+			batches[i].setUpdateWhere(updateWhere);
+		}
+	}
+	/**
+	 * Sets where clause merged with PK check for each partition
+	 * @param deleteWhere
+	 */
+	public void setDeleteWhere(Where deleteWhere) {
+		for (int i = 0; i < batches.length; i++) {
+			batches[i].setDeleteWhere(deleteWhere);
+		}
+	}
+	/**
+	 * Adds an insert batch to object's partition
+	 * @param object
+	 * @throws SQLException
+	 */
+	public void insert(BioObject object) throws SQLException {
+		// keys must be allocated before hashing, otherwise all new objects would hash null keys
+		if (table.getSequence() != null && table.getAutoColumns().length > 0) {
+			batches[0].bioSql.allocateKeys(object);
+		}
+		int partition = getPartition(object) ;
+		submit(partition, () -> batches[partition].insert(object)) ;
+	}
+	/**
+	 * Adds an update batch to object's partition
+	 * @param object
+	 * @throws SQLException
+	 */
+	public void update(BioObject object) throws SQLException {
+		int partition = getPartition(object) ;
+		submit(partition, () -> batches[partition].update(object)) ;
+	}
+	/**
+	 * Adds a merge batch to object's partition
+	 * @param object
+	 * @throws SQLException
+	 */
+	public void merge(BioObject object) throws SQLException {
+		int partition = getPartition(object) ;
+		submit(partition, () -> batches[partition].merge(object)) ;
+	}
+	/**
+	 * Adds a delete batch to object's partition
+	 * @param object
+	 * @throws SQLException
+	 */
+	public void delete(BioObject object) throws SQLException {
+		int partition = getPartition(object) ;
+		submit(partition, () -> batches[partition].delete(object)) ;
+	}
+	/**
+	 * Flushes remaining objects of all partitions and waits for completion
+	 * @throws SQLException
+	 */
+	public void flush() throws SQLException {
+		ArrayList<Future<?>> futures = new ArrayList<Future<?>>() ;
+		for (int i = 0; i < batches.length; i++) {
+			BioSqlBatch batch = batches[i] ;
+			futures.add(workers[i].submit(() -> {
+				try {
+					batch.flush();
+				} catch (Throwable e) {
+					exception.compareAndSet(null, e) ;
+				}
+			})) ;
+		}
+		for (Future<?> f : futures) {
+			try {
+				f.get() ;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new SqlException(e) ;
+			} catch (ExecutionException e) {
+				throw new SqlException(e.getCause()) ;
+			}
+		}
+		checkException() ;
+	}
+	/**
+	 * Returns partition of object based on its primary key values,
+	 * objects with missing key values are spread by round robin
+	 * @param object
+	 * @return
+	 */
+	protected int getPartition(BioObject object) {
+		BioColumn[] keys = table.getKeys() ;
+		if (keys == null || keys.length == 0) {
+			return Math.floorMod(counter.getAndIncrement(), batches.length) ;
+		}
+		int hash = 1 ;
+		for (int i = 0; i < keys.length; i++) {
+			Object value = object.get(keys[i].getTagName()) ;
+			if (value == null) {
+				return Math.floorMod(counter.getAndIncrement(), batches.length) ;
+			}
+			hash = 31 * hash + value.hashCode() ;
+		}
+		// spreading hash bits as it is done in hash map
+		hash = hash ^ (hash >>> 16) ;
+		return Math.floorMod(hash, batches.length) ;
+	}
+	/**
+	 * Submits operation to partition worker
+	 * @param partition
+	 * @param operation
+	 * @throws SQLException
+	 */
+	private void submit(int partition, BatchOperation operation) throws SQLException {
+		checkException() ;
+		workers[partition].execute(() -> {
+			try {
+				operation.execute();
+			} catch (Throwable e) {
+				exception.compareAndSet(null, e) ;
+			}
+		});
+	}
+	/**
+	 * Rethrows exception occured inside workers
+	 * @throws SQLException
+	 */
+	private void checkException() throws SQLException {
+		Throwable e = exception.get() ;
+		if (e != null) {
+			if (e instanceof SQLException) {
+				throw (SQLException) e ;
+			} else if (e instanceof SqlException) {
+				throw (SqlException) e ;
+			}
+			throw new SqlException(e) ;
+		}
+	}
+	/**
+	 * Returns success bio objects of all partitions, must be called after flush
+	 * @return
+	 */
+	public ArrayList<BioObject> getSuccess() {
+		ArrayList<BioObject> list = new ArrayList<BioObject>() ;
+		for (int i = 0; i < batches.length; i++) {
+			list.addAll(batches[i].getSuccess()) ;
+		}
+		return list ;
+	}
+	/**
+	 * Returns failed bio objects of all partitions, must be called after flush
+	 * @return
+	 */
+	public ArrayList<BioObject> getFailed() {
+		ArrayList<BioObject> list = new ArrayList<BioObject>() ;
+		for (int i = 0; i < batches.length; i++) {
+			list.addAll(batches[i].getFailed()) ;
+		}
+		return list ;
+	}
+	/**
+	 * Returns error bio objects of all partitions, must be called after flush
+	 * @return
+	 */
+	public ArrayList<BioObject> getError() {
+		ArrayList<BioObject> list = new ArrayList<BioObject>() ;
+		for (int i = 0; i < batches.length; i++) {
+			list.addAll(batches[i].getError()) ;
+		}
+		return list ;
+	}
+	/**
+	 * Returns number of successful objects of all partitions, must be called after flush
+	 * @return
+	 */
+	public long getSuccessCount() {
+		long count = 0 ;
+		for (int i = 0; i < batches.length; i++) {
+			count += batches[i].getSuccessCount() ;
+		}
+		return count ;
+	}
+	/**
+	 * Returns number of failed objects of all partitions, must be called after flush
+	 * @return
+	 */
+	public long getFailedCount() {
+		long count = 0 ;
+		for (int i = 0; i < batches.length; i++) {
+			count += batches[i].getFailedCount() ;
+		}
+		return count ;
+	}
+	/**
+	 * Returns number of error objects of all partitions, must be called after flush
+	 * @return
+	 */
+	public long getErrorCount() {
+		long count = 0 ;
+		for (int i = 0; i < batches.length; i++) {
+			count += batches[i].getErrorCount() ;
+		}
+		return count ;
+	}
+	/**
+	 * Clears all result lists of all partitions and resets exception
+	 */
+	public void clear() {
+		for (int i = 0; i < batches.length; i++) {
+			batches[i].clear();
+		}
+		exception.set(null);
+	}
+
+	@Override
+	public void close() {
+		for (int i = 0; i < workers.length; i++) {
+			workers[i].shutdown();
+		}
+		for (int i = 0; i < workers.length; i++) {
+			try {
+				workers[i].awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS) ;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			batches[i].close();
+		}
+	}
+
+	/**
+	 * Operation on partition batch
+	 */
+	private interface BatchOperation {
+		void execute() throws SQLException ;
+	}
+}
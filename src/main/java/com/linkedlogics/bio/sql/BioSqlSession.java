@@ -0,0 +1,362 @@
+package com.linkedlogics.bio.sql;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import com.linkedlogics.bio.BioDictionary;
+import com.linkedlogics.bio.BioObject;
+import com.linkedlogics.bio.dictionary.BioObj;
+import com.linkedlogics.bio.sql.exception.SqlException;
+import com.linkedlogics.bio.sql.object.BioRelation;
+import com.linkedlogics.bio.sql.object.BioTable;
+
+/**
+ * Unit of work collecting inserted, updated and deleted bio objects across many tables.
+ * At commit tables are ordered by their relations (parents before related tables),
+ * same table operations are executed as JDBC batches and everything is committed once.
+ * Related objects are not cascaded, each object must be added to session, but keys of inserted parents
+ * are copied into related objects they contain. Tracked objects are updated by their changed columns only.
+ * @author rajab
+ *
+ */
+public class BioSqlSession implements AutoCloseable {
+	/**
+	 * database connection
+	 */
+	protected Connection connection ;
+	/**
+	 * batch size used for each table
+	 */
+	protected int batchSize = 1000 ;
+	/**
+	 * objects to be inserted per table
+	 */
+	private LinkedHashMap<BioTable, ArrayList<BioObject>> inserts = new LinkedHashMap<BioTable, ArrayList<BioObject>>() ;
+	/**
+	 * objects to be updated per table
+	 */
+	private LinkedHashMap<BioTable, ArrayList<BioObject>> updates = new LinkedHashMap<BioTable, ArrayList<BioObject>>() ;
+	/**
+	 * objects to be deleted per table
+	 */
+	private LinkedHashMap<BioTable, ArrayList<BioObject>> deletes = new LinkedHashMap<BioTable, ArrayList<BioObject>>() ;
+	/**
+	 * batches per table reused between commits
+	 */
+	private LinkedHashMap<BioTable, BioSqlBatch> batches = new LinkedHashMap<BioTable, BioSqlBatch>() ;
+	/**
+	 * changed columns of tracked objects which are captured into their snapshots after commit
+	 */
+	private ArrayList<Change> changes = new ArrayList<Change>() ;
+
+	public BioSqlSession(Connection connection) {
+		this.connection = connection ;
+		try {
+			connection.setAutoCommit(false);
+		} catch (SQLException e) {
+			throw new SqlException(e) ;
+		}
+	}
+	/**
+	 * Returns database connection
+	 * @return
+	 */
+	public Connection getConnection() {
+		return connection;
+	}
+	/**
+	 * Returns batch size
+	 * @return
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+	/**
+	 * Sets batch size used for each table
+	 * @param batchSize
+	 */
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+	/**
+	 * Adds new object to be inserted
+	 * @param object
+	 */
+	public void insert(BioObject object) {
+		add(inserts, object) ;
+	}
+	/**
+	 * Adds changed object to be updated
+	 * @param object
+	 */
+	public void update(BioObject object) {
+		add(updates, object) ;
+	}
+	/**
+	 * Adds removed object to be deleted
+	 * @param object
+	 */
+	public void delete(BioObject object) {
+		add(deletes, object) ;
+	}
+	/**
+	 * Executes all collected objects in dependency order and commits.
+	 * If any of objects fails or doesn't affect any row everything is rolled back
+	 * @throws SQLException
+	 */
+	public void commit() throws SQLException {
+		LinkedHashSet<BioTable> tables = new LinkedHashSet<BioTable>() ;
+		tables.addAll(inserts.keySet()) ;
+		tables.addAll(updates.keySet()) ;
+		tables.addAll(deletes.keySet()) ;
+		List<BioTable> order = getOrder(tables) ;
+
+		try {
+			// parents are inserted and updated before related tables
+			for (BioTable table : order) {
+				execute(table, inserts.get(table), Operation.INSERT) ;
+			}
+			for (BioTable table : order) {
+				execute(table, updates.get(table), Operation.UPDATE) ;
+			}
+			// related tables are deleted before parents
+			for (int i = order.size() - 1; i >= 0; i--) {
+				execute(order.get(i), deletes.get(order.get(i)), Operation.DELETE) ;
+			}
+			BioSql.commit(connection);
+			for (Change change : changes) {
+				change.sql.capture(change.object, change.snapshot, change.columns) ;
+			}
+		} catch (Throwable e) {
+			BioSql.rollback(connection);
+			if (e instanceof SQLException) {
+				throw (SQLException) e ;
+			} else if (e instanceof SqlException) {
+				throw (SqlException) e ;
+			}
+			throw new SqlException(e) ;
+		} finally {
+			clear() ;
+		}
+	}
+	/**
+	 * Discards collected objects and rolls back connection
+	 * @throws SQLException
+	 */
+	public void rollback() throws SQLException {
+		clear() ;
+		BioSql.rollback(connection);
+	}
+	/**
+	 * Discards collected objects
+	 */
+	public void clear() {
+		inserts.clear();
+		updates.clear();
+		deletes.clear();
+		changes.clear();
+	}
+
+	@Override
+	public void close() {
+		clear() ;
+		for (BioSqlBatch batch : batches.values()) {
+			batch.closeStatements();
+		}
+		batches.clear();
+	}
+	/**
+	 * Executes objects of table as a batch
+	 * @param table
+	 * @param list
+	 * @param operation
+	 * @throws SQLException
+	 */
+	private void execute(BioTable table, ArrayList<BioObject> list, Operation operation) throws SQLException {
+		if (list == null || list.size() == 0) {
+			return ;
+		}
+		BioSqlBatch batch = getBatch(table) ;
+		batch.clear();
+		for (BioObject object : list) {
+			switch (operation) {
+			case INSERT:
+				batch.insert(object);
+				break ;
+			case UPDATE:
+				update(batch, object) ;
+				break ;
+			case DELETE:
+				batch.delete(object);
+				break ;
+			}
+		}
+		batch.flush();
+		if (batch.getErrorCount() > 0) {
+			Throwable cause = batch.getErrorCauses().size() > 0 ? batch.getErrorCauses().get(0) : null ;
+			throw new SqlException(batch.getErrorCount() + " objects are failed during " + operation.name().toLowerCase() + " of " + table.getTable(), cause) ;
+		}
+		if (batch.getFailedCount() > 0) {
+			throw new SqlException(batch.getFailedCount() + " objects didn't affect any row during " + operation.name().toLowerCase() + " of " + table.getTable()) ;
+		}
+		// generated keys of parents are known now so they are copied before related tables are inserted
+		if (operation == Operation.INSERT && table.getRelations().size() > 0) {
+			for (BioObject object : list) {
+				relate(batch.bioSql, table, object) ;
+			}
+		}
+	}
+	/**
+	 * Adds object to update batch, tracked objects are merged by their changed columns 
+	 * and skipped if nothing is changed
+	 * @param batch
+	 * @param object
+	 * @throws SQLException
+	 */
+	private void update(BioSqlBatch batch, BioObject object) throws SQLException {
+		Object[] snapshot = BioSnapshots.get(object) ;
+		if (snapshot == null) {
+			batch.update(object);
+			return ;
+		}
+		BitSet columns = batch.bioSql.getChanges(object, snapshot) ;
+		if (columns != null) {
+			batch.merge(object, columns);
+			changes.add(new Change(batch.bioSql, object, snapshot, columns)) ;
+		}
+	}
+	/**
+	 * Copies relation keys of parent into related objects it contains
+	 * @param sql
+	 * @param table
+	 * @param parent
+	 */
+	private void relate(BioSql<BioObject> sql, BioTable table, BioObject parent) {
+		for (BioRelation r : table.getRelations()) {
+			Object related = parent.get(r.getTag().getName()) ;
+			if (related instanceof BioObject[]) {
+				for (BioObject o : (BioObject[]) related) {
+					sql.relate(r, parent, o) ;
+				}
+			} else if (related instanceof List) {
+				for (Object o : (List<?>) related) {
+					sql.relate(r, parent, (BioObject) o) ;
+				}
+			} else if (related instanceof BioObject) {
+				sql.relate(r, parent, (BioObject) related) ;
+			}
+		}
+	}
+	/**
+	 * Returns batch of table which doesn't commit
+	 * @param table
+	 * @return
+	 */
+	private BioSqlBatch getBatch(BioTable table) {
+		BioSqlBatch batch = batches.get(table) ;
+		if (batch == null) {
+			batch = new BioSqlBatch(table.getDictionary(), table.getCode()) ;
+			batch.setConnection(connection);
+			batch.setCommit(false);
+			batches.put(table, batch) ;
+		}
+		batch.setBatchSize(batchSize);
+		return batch ;
+	}
+	/**
+	 * Adds object to table list
+	 * @param map
+	 * @param object
+	 */
+	private void add(LinkedHashMap<BioTable, ArrayList<BioObject>> map, BioObject object) {
+		BioTable table = getTable(object) ;
+		ArrayList<BioObject> list = map.get(table) ;
+		if (list == null) {
+			list = new ArrayList<BioObject>() ;
+			map.put(table, list) ;
+		}
+		list.add(object) ;
+	}
+	/**
+	 * Returns table of object
+	 * @param object
+	 * @return
+	 */
+	protected BioTable getTable(BioObject object) {
+		BioObj obj = BioDictionary.findObj(object.getClass()) ;
+		if (obj == null) {
+			throw new SqlException(object.getClass().getName() + " bio obj is not found in dictionary") ;
+		}
+		BioTable table = BioSqlDictionary.getDictionary(obj.getDictionary()).getTableByCode(obj.getCode()) ;
+		if (table == null) {
+			throw new SqlException(obj.getName() + " has no sql table") ;
+		}
+		return table ;
+	}
+	/**
+	 * Orders tables so that parent tables come before their related tables,
+	 * relations through tables outside of session are also considered. Cycles keep encounter order
+	 * @param tables
+	 * @return
+	 */
+	protected List<BioTable> getOrder(LinkedHashSet<BioTable> tables) {
+		ArrayList<BioTable> order = new ArrayList<BioTable>() ;
+		HashSet<BioTable> visited = new HashSet<BioTable>() ;
+		for (BioTable table : tables) {
+			visit(table, visited, order) ;
+		}
+		// post order puts related tables first so we reverse it
+		ArrayList<BioTable> result = new ArrayList<BioTable>() ;
+		for (int i = order.size() - 1; i >= 0; i--) {
+			if (tables.contains(order.get(i))) {
+				result.add(order.get(i)) ;
+			}
+		}
+		return result ;
+	}
+	/**
+	 * Depth first traversal of relation graph
+	 * @param table
+	 * @param visited
+	 * @param order
+	 */
+	private void visit(BioTable table, HashSet<BioTable> visited, ArrayList<BioTable> order) {
+		if (!visited.add(table)) {
+			return ;
+		}
+		for (BioRelation r : table.getRelations()) {
+			BioObj obj = r.getTag().getObj() ;
+			BioTable related = BioSqlDictionary.getDictionary(obj.getDictionary()).getTableByCode(obj.getCode()) ;
+			if (related != null) {
+				visit(related, visited, order) ;
+			}
+		}
+		order.add(table) ;
+	}
+
+	private enum Operation {
+		INSERT, UPDATE, DELETE
+	}
+	/**
+	 * Columns of tracked object written by session
+	 */
+	private static class Change {
+		private final BioSql<BioObject> sql ;
+		private final BioObject object ;
+		private final Object[] snapshot ;
+		private final BitSet columns ;
+		
+		public Change(BioSql<BioObject> sql, BioObject object, Object[] snapshot, BitSet columns) {
+			this.sql = sql ;
+			this.object = object ;
+			this.snapshot = snapshot ;
+			this.columns = columns ;
+		}
+	}
+}
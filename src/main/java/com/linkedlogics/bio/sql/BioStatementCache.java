@@ -0,0 +1,237 @@
+package com.linkedlogics.bio.sql;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * LRU cache of prepared statements of a connection keyed by SQL string. Once a cache is registered
+ * for a connection all BioSql instances using that connection reuse its statements instead of
+ * preparing and closing them at each call. Statement which is already in use (for example by
+ * recursive relation) is not shared, a temporary one is prepared instead. Evicted statements are closed.
+ * Cached statements reference their connection, so cache is kept until it is unregistered or closed
+ * @author rajab
+ *
+ */
+public class BioStatementCache implements AutoCloseable {
+	/**
+	 * Default maximum number of statements per connection
+	 */
+	public static final int DEFAULT_SIZE = 100 ;
+	/**
+	 * Caches per connection, they are removed only by unregister. Map is copied on each change 
+	 * so that lookups done by every statement don't lock
+	 */
+	private static volatile IdentityHashMap<Connection, BioStatementCache> caches = new IdentityHashMap<Connection, BioStatementCache>() ;
+	/**
+	 * Cached statements in access order
+	 */
+	private final LinkedHashMap<String, PreparedStatement> statements ;
+	/**
+	 * Statements currently in use
+	 */
+	private final IdentityHashMap<PreparedStatement, String> used = new IdentityHashMap<PreparedStatement, String>() ;
+	/**
+	 * Connection of cache
+	 */
+	private final Connection connection ;
+	/**
+	 * Maximum number of cached statements
+	 */
+	private final int maxSize ;
+	private long hitCount ;
+	private long missCount ;
+	private long evictionCount ;
+
+	private BioStatementCache(Connection connection, int maxSize) {
+		this.connection = connection ;
+		this.maxSize = maxSize ;
+		this.statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) ;
+	}
+	/**
+	 * Registers statement cache of default size for connection
+	 * @param connection
+	 * @return
+	 */
+	public static BioStatementCache register(Connection connection) {
+		return register(connection, DEFAULT_SIZE) ;
+	}
+	/**
+	 * Registers statement cache for connection, existing cache is returned if it is already registered
+	 * @param connection
+	 * @param maxSize
+	 * @return
+	 */
+	public static synchronized BioStatementCache register(Connection connection, int maxSize) {
+		BioStatementCache cache = caches.get(connection) ;
+		if (cache == null) {
+			cache = new BioStatementCache(connection, maxSize) ;
+			IdentityHashMap<Connection, BioStatementCache> copy = new IdentityHashMap<Connection, BioStatementCache>(caches) ;
+			copy.put(connection, cache) ;
+			caches = copy ;
+		}
+		return cache ;
+	}
+	/**
+	 * Removes cache of connection and closes its statements, must be called before connection is closed or returned to a pool
+	 * otherwise cache and connection are never released
+	 * @param connection
+	 */
+	public static void unregister(Connection connection) {
+		BioStatementCache cache = null ;
+		synchronized (BioStatementCache.class) {
+			if (caches.containsKey(connection)) {
+				IdentityHashMap<Connection, BioStatementCache> copy = new IdentityHashMap<Connection, BioStatementCache>(caches) ;
+				cache = copy.remove(connection) ;
+				caches = copy ;
+			}
+		}
+		if (cache != null) {
+			cache.clear();
+		}
+	}
+	/**
+	 * Returns cache of connection or null if it is not registered
+	 * @param connection
+	 * @return
+	 */
+	public static BioStatementCache getCache(Connection connection) {
+		IdentityHashMap<Connection, BioStatementCache> current = caches ;
+		if (connection == null || current.isEmpty()) {
+			return null ;
+		}
+		return current.get(connection) ;
+	}
+	/**
+	 * Returns statement for sql, prepares it if it is not cached
+	 * @param sql
+	 * @return
+	 * @throws SQLException
+	 */
+	public PreparedStatement prepare(String sql) throws SQLException {
+		return prepare(sql, null) ;
+	}
+	/**
+	 * Returns statement for sql returning generated keys of provided columns, prepares it if it is not cached
+	 * @param sql
+	 * @param columnNames
+	 * @return
+	 * @throws SQLException
+	 */
+	public synchronized PreparedStatement prepare(String sql, String[] columnNames) throws SQLException {
+		String key = columnNames != null ? sql + "\n" + String.join(",", columnNames) : sql ;
+		PreparedStatement ps = statements.get(key) ;
+		if (ps != null && !used.containsKey(ps)) {
+			hitCount++ ;
+			used.put(ps, key) ;
+			return ps ;
+		}
+		missCount++ ;
+		ps = columnNames != null ? connection.prepareStatement(sql, columnNames) : connection.prepareStatement(sql) ;
+		if (!statements.containsKey(key)) {
+			statements.put(key, ps) ;
+			evict() ;
+		}
+		used.put(ps, key) ;
+		return ps ;
+	}
+	/**
+	 * Returns statement back to cache, parameters are cleared. Statements which are not cached are closed
+	 * @param ps
+	 */
+	public synchronized void release(PreparedStatement ps) {
+		String key = used.remove(ps) ;
+		try {
+			if (key != null && statements.get(key) == ps) {
+				ps.clearParameters();
+			} else {
+				ps.close();
+			}
+		} catch (SQLException e) {
+			// broken statement must not be reused
+			statements.remove(key) ;
+			close(ps) ;
+		}
+	}
+	/**
+	 * Closes least recently used statements above maximum size, statements in use are closed when released
+	 */
+	private void evict() {
+		Iterator<PreparedStatement> i = statements.values().iterator() ;
+		while (statements.size() > maxSize && i.hasNext()) {
+			PreparedStatement ps = i.next() ;
+			i.remove();
+			evictionCount++ ;
+			if (!used.containsKey(ps)) {
+				close(ps) ;
+			}
+		}
+	}
+	/**
+	 * Unregisters cache of its connection and closes its statements
+	 */
+	@Override
+	public void close() {
+		unregister(connection) ;
+	}
+	/**
+	 * Closes all cached statements
+	 */
+	public synchronized void clear() {
+		for (PreparedStatement ps : statements.values()) {
+			if (!used.containsKey(ps)) {
+				close(ps) ;
+			}
+		}
+		statements.clear();
+	}
+	/**
+	 * Closes statement quietly
+	 * @param ps
+	 */
+	private void close(PreparedStatement ps) {
+		try {
+			ps.close();
+		} catch (SQLException e) {
+
+		}
+	}
+	/**
+	 * Returns number of cached statements
+	 * @return
+	 */
+	public synchronized int size() {
+		return statements.size() ;
+	}
+	/**
+	 * Returns maximum number of cached statements
+	 * @return
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+	/**
+	 * Returns number of calls served by cached statement
+	 * @return
+	 */
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+	/**
+	 * Returns number of calls which prepared new statement
+	 * @return
+	 */
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+	/**
+	 * Returns number of statements closed because of size limit
+	 * @return
+	 */
+	public synchronized long getEvictionCount() {
+		return evictionCount;
+	}
+}
@@ -0,0 +1,175 @@
+package com.linkedlogics.bio.sql;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+
+import com.linkedlogics.bio.BioExpression;
+import com.linkedlogics.bio.BioObject;
+import com.linkedlogics.bio.sql.exception.SqlException;
+import com.linkedlogics.bio.sql.utility.SqlUtility;
+
+/**
+ * Where compiled from {@link Condition} keeping its types and values in flat arrays.
+ * It is a template, {@link #bind(Object...)} returns same where with fresh values
+ * without regenerating sql or allocating maps
+ * @author rajab
+ *
+ */
+public class CompiledWhere extends Where {
+	private final int[] types ;
+	private final Object[] values ;
+
+	CompiledWhere(String where, int[] types, Object[] values) {
+		super(where, null, null) ;
+		this.types = types ;
+		this.values = values ;
+	}
+	/**
+	 * Returns where with same sql and types but new values in placeholder order
+	 * @param values
+	 * @return
+	 */
+	public CompiledWhere bind(Object... values) {
+		if (values.length != types.length) {
+			throw new SqlException(types.length + " values are required but " + values.length + " is provided") ;
+		}
+		return new CompiledWhere(where, types, values.clone()) ;
+	}
+
+	@Override
+	public int setParameters(BioObject object, PreparedStatement ps, int index) throws SQLException {
+		for (int i = 0; i < types.length; i++) {
+			index = index + 1;
+			Object value = values[i] ;
+			if (value instanceof BioExpression) {
+				value = ((BioExpression) value).getValue(object) ;
+			}
+
+			if (value != null) {
+				SqlUtility.setParameter(ps, index, types[i], value);
+			} else {
+				SqlUtility.setNull(ps, index, types[i]);
+			}
+		}
+		return index ;
+	}
+
+	@Override
+	public Where merge(Where where) {
+		if (where instanceof CompiledWhere) {
+			CompiledWhere other = (CompiledWhere) where ;
+			int[] mergedTypes = new int[types.length + other.types.length] ;
+			Object[] mergedValues = new Object[mergedTypes.length] ;
+			System.arraycopy(types, 0, mergedTypes, 0, types.length);
+			System.arraycopy(other.types, 0, mergedTypes, types.length, other.types.length);
+			System.arraycopy(values, 0, mergedValues, 0, values.length);
+			System.arraycopy(other.values, 0, mergedValues, values.length, other.values.length);
+			return new CompiledWhere(getWhere() + " and " + other.getWhere(), mergedTypes, mergedValues) ;
+		}
+		return super.merge(where) ;
+	}
+
+	@Override
+	public int getType(int index) {
+		return types[index - 1] ;
+	}
+
+	@Override
+	public Object getValue(int index) {
+		return values[index - 1] ;
+	}
+	/**
+	 * Returns values as map, it is created at each call and only kept for compatibility
+	 */
+	@Override
+	public HashMap<Integer, Object> getValueMap() {
+		HashMap<Integer, Object> map = new HashMap<Integer, Object>() ;
+		for (int i = 0; i < values.length; i++) {
+			map.put(i + 1, values[i]) ;
+		}
+		return map ;
+	}
+	/**
+	 * Returns types as map, it is created at each call and only kept for compatibility
+	 */
+	@Override
+	public HashMap<Integer, Integer> getTypeMap() {
+		HashMap<Integer, Integer> map = new HashMap<Integer, Integer>() ;
+		for (int i = 0; i < types.length; i++) {
+			map.put(i + 1, types[i]) ;
+		}
+		return map ;
+	}
+
+	@Override
+	public int size() {
+		return types.length ;
+	}
+	/**
+	 * Compiled where is shared by its condition, values are changed by {@link #bind(Object...)}
+	 */
+	@Override
+	public Where setInt(int index, Object value) {
+		throw immutable() ;
+	}
+
+	@Override
+	public Where setBoolean(int index, Object value) {
+		throw immutable() ;
+	}
+
+	@Override
+	public Where setLong(int index, Object value) {
+		throw immutable() ;
+	}
+
+	@Override
+	public Where setDouble(int index, Object value) {
+		throw immutable() ;
+	}
+
+	@Override
+	public Where setDate(int index, Object value) {
+		throw immutable() ;
+	}
+
+	@Override
+	public Where setDateTime(int index, Object value) {
+		throw immutable() ;
+	}
+
+	@Override
+	public Where setString(int index, Object value) {
+		throw immutable() ;
+	}
+
+	@Override
+	public Where setObject(int index, Object value, int sqlType) {
+		throw immutable() ;
+	}
+
+	@Override
+	public Where setNull(int index, int sqlType) {
+		throw immutable() ;
+	}
+
+	@Override
+	public void setValueMap(HashMap<Integer, Object> valueMap) {
+		throw immutable() ;
+	}
+
+	@Override
+	public void setTypeMap(HashMap<Integer, Integer> typeMap) {
+		throw immutable() ;
+	}
+
+	@Override
+	public void setWhere(String where) {
+		throw immutable() ;
+	}
+	
+	private SqlException immutable() {
+		return new SqlException("compiled where can not be changed, use bind() to set its values") ;
+	}
+}
@@ -0,0 +1,251 @@
+package com.linkedlogics.bio.sql;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.linkedlogics.bio.sql.exception.SqlException;
+import com.linkedlogics.bio.sql.object.BioColumn;
+import com.linkedlogics.bio.sql.object.BioTable;
+
+/**
+ * Fluent condition on tag names which is compiled into {@link CompiledWhere} for a table.
+ * Values can be constants or bio expressions (for example Dynamic) evaluated against bio object
+ * at binding time. Compiled where is kept per table so same condition compiles only once.
+ * <pre>
+ * Condition c = Condition.eq(Vehicle.PRODUCER, "Toyota").and(Condition.between(Vehicle.YEAR_OF_PRODUCTION, 2010, 2015)) ;
+ * List&lt;Vehicle&gt; list = sql.select(null, c.compile(sql.getTable())) ;
+ * </pre>
+ * @author rajab
+ *
+ */
+public class Condition {
+	private final String operator ;
+	private final String tag ;
+	private final Object[] values ;
+	private final List<Condition> conditions ;
+	/**
+	 * Last compiled where together with its table
+	 */
+	private volatile Compiled compiled ;
+
+	private Condition(String operator, String tag, Object[] values, List<Condition> conditions) {
+		this.operator = operator ;
+		this.tag = tag ;
+		this.values = values ;
+		this.conditions = conditions ;
+	}
+	/**
+	 * tag = value, or tag is null if value is null
+	 * @param tag
+	 * @param value
+	 * @return
+	 */
+	public static Condition eq(String tag, Object value) {
+		if (value == null) {
+			return new Condition("is null", tag, new Object[0], null) ;
+		}
+		return new Condition("=", tag, new Object[] {value}, null) ;
+	}
+	/**
+	 * tag <> value, or tag is not null if value is null
+	 * @param tag
+	 * @param value
+	 * @return
+	 */
+	public static Condition ne(String tag, Object value) {
+		if (value == null) {
+			return new Condition("is not null", tag, new Object[0], null) ;
+		}
+		return new Condition("<>", tag, new Object[] {value}, null) ;
+	}
+	/**
+	 * tag < value
+	 * @param tag
+	 * @param value
+	 * @return
+	 */
+	public static Condition lt(String tag, Object value) {
+		return new Condition("<", tag, new Object[] {value}, null) ;
+	}
+	/**
+	 * tag <= value
+	 * @param tag
+	 * @param value
+	 * @return
+	 */
+	public static Condition le(String tag, Object value) {
+		return new Condition("<=", tag, new Object[] {value}, null) ;
+	}
+	/**
+	 * tag > value
+	 * @param tag
+	 * @param value
+	 * @return
+	 */
+	public static Condition gt(String tag, Object value) {
+		return new Condition(">", tag, new Object[] {value}, null) ;
+	}
+	/**
+	 * tag >= value
+	 * @param tag
+	 * @param value
+	 * @return
+	 */
+	public static Condition ge(String tag, Object value) {
+		return new Condition(">=", tag, new Object[] {value}, null) ;
+	}
+	/**
+	 * tag like pattern
+	 * @param tag
+	 * @param pattern
+	 * @return
+	 */
+	public static Condition like(String tag, Object pattern) {
+		return new Condition("like", tag, new Object[] {pattern}, null) ;
+	}
+	/**
+	 * tag between from and to
+	 * @param tag
+	 * @param from
+	 * @param to
+	 * @return
+	 */
+	public static Condition between(String tag, Object from, Object to) {
+		return new Condition("between", tag, new Object[] {from, to}, null) ;
+	}
+	/**
+	 * tag in (values), number of values is part of compiled sql
+	 * @param tag
+	 * @param values
+	 * @return
+	 */
+	public static Condition in(String tag, Object... values) {
+		if (values.length == 0) {
+			throw new SqlException("in condition on " + tag + " requires at least one value") ;
+		}
+		return new Condition("in", tag, values.clone(), null) ;
+	}
+	/**
+	 * tag in (values), number of values is part of compiled sql
+	 * @param tag
+	 * @param values
+	 * @return
+	 */
+	public static Condition in(String tag, List<?> values) {
+		return in(tag, values.toArray()) ;
+	}
+	/**
+	 * Joins conditions with and
+	 * @param conditions
+	 * @return
+	 */
+	public static Condition all(Condition... conditions) {
+		return new Condition("and", null, null, Arrays.asList(conditions)) ;
+	}
+	/**
+	 * Joins conditions with or
+	 * @param conditions
+	 * @return
+	 */
+	public static Condition any(Condition... conditions) {
+		return new Condition("or", null, null, Arrays.asList(conditions)) ;
+	}
+	/**
+	 * Returns new condition joining this and provided one with and
+	 * @param condition
+	 * @return
+	 */
+	public Condition and(Condition condition) {
+		return all(this, condition) ;
+	}
+	/**
+	 * Returns new condition joining this and provided one with or
+	 * @param condition
+	 * @return
+	 */
+	public Condition or(Condition condition) {
+		return any(this, condition) ;
+	}
+	/**
+	 * Compiles condition into sql and flat types and values resolving tag names to columns of table,
+	 * result is kept so that next compile for same table returns same template
+	 * @param table
+	 * @return
+	 */
+	public CompiledWhere compile(BioTable table) {
+		Compiled c = compiled ;
+		if (c != null && c.table == table) {
+			return c.where ;
+		}
+		StringBuilder sql = new StringBuilder() ;
+		ArrayList<Integer> types = new ArrayList<Integer>() ;
+		ArrayList<Object> values = new ArrayList<Object>() ;
+		compile(table, sql, types, values) ;
+
+		int[] typeArray = new int[types.size()] ;
+		for (int i = 0; i < typeArray.length; i++) {
+			typeArray[i] = types.get(i) ;
+		}
+		CompiledWhere where = new CompiledWhere(sql.toString(), typeArray, values.toArray()) ;
+		compiled = new Compiled(table, where) ;
+		return where ;
+	}
+	/**
+	 * Appends condition sql, types and values
+	 * @param table
+	 * @param sql
+	 * @param types
+	 * @param values
+	 */
+	private void compile(BioTable table, StringBuilder sql, List<Integer> types, List<Object> values) {
+		if (conditions != null) {
+			String delimiter = "" ;
+			sql.append("(") ;
+			for (Condition c : conditions) {
+				sql.append(delimiter) ;
+				c.compile(table, sql, types, values) ;
+				delimiter = " " + operator + " " ;
+			}
+			sql.append(")") ;
+			return ;
+		}
+
+		BioColumn column = table.getColumnByTag(tag) ;
+		if (column == null) {
+			throw new SqlException(tag + " is not a column of " + table.getTable()) ;
+		}
+		sql.append(column.getColumn()).append(" ").append(operator) ;
+		switch (operator) {
+		case "is null":
+		case "is not null":
+			break ;
+		case "between":
+			sql.append(" ? and ?") ;
+			break ;
+		case "in":
+			sql.append(" (") ;
+			for (int i = 0; i < this.values.length; i++) {
+				sql.append(i > 0 ? ",?" : "?") ;
+			}
+			sql.append(")") ;
+			break ;
+		default:
+			sql.append(" ?") ;
+		}
+		for (int i = 0; i < this.values.length; i++) {
+			types.add(column.getSqlType()) ;
+			values.add(this.values[i]) ;
+		}
+	}
+
+	private static class Compiled {
+		private final BioTable table ;
+		private final CompiledWhere where ;
+
+		Compiled(BioTable table, CompiledWhere where) {
+			this.table = table ;
+			this.where = where ;
+		}
+	}
+}
@@ -11,20 +11,36 @@ import com.linkedlogics.bio.sql.object.BioTable;
 public class Order {
 	private List<String> tagList = new ArrayList<String>() ;
 	private List<String> type = new ArrayList<String>() ;
+	/**
+	 * Last generated order string together with its table
+	 */
+	private volatile Generated generated ;
 	
 	public Order orderAsc(String tag) {
 		tagList.add(tag) ;
 		type.add("asc") ;
+		generated = null ;
 		return this ;
 	}
 	
 	public Order orderDesc(String tag) {
 		tagList.add(tag) ;
 		type.add("desc") ;
+		generated = null ;
 		return this ;
 	}
 	
 	String getOrder(BioTable table) {
+		Generated g = generated ;
+		if (g != null && g.table == table) {
+			return g.order ;
+		}
+		String order = generate(table) ;
+		generated = new Generated(table, order) ;
+		return order ;
+	}
+	
+	private String generate(BioTable table) {
 		StringBuilder order = new StringBuilder() ;
 		String delimiter = "" ;
 		for (int i = 0; i < tagList.size(); i++) {
@@ -40,4 +56,14 @@ public class Order {
 		}		
 		return order.toString() ;
 	}
+	
+	private static class Generated {
+		private final BioTable table ;
+		private final String order ;
+		
+		Generated(BioTable table, String order) {
+			this.table = table ;
+			this.order = order ;
+		}
+	}
 }
@@ -0,0 +1,202 @@
+package com.linkedlogics.bio.sql;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.linkedlogics.bio.sql.exception.SqlException;
+import com.linkedlogics.bio.sql.object.BioColumn;
+import com.linkedlogics.bio.sql.object.BioTable;
+import com.linkedlogics.bio.sql.utility.SqlUtility;
+
+/**
+ * Set based update of tags which is executed as single statement without loading objects.
+ * Values can be constants or bio expressions evaluated against bio object at execution time.
+ * If table has a version column and it is not assigned, it is incremented by one so that
+ * versioned updates of loaded objects are not lost.
+ * <pre>
+ * Update u = new Update().add(Vehicle.MILEAGE, 100).set(Vehicle.STATUS, "SERVICED") ;
+ * int count = sql.updateAll(u, null, Condition.eq(Vehicle.PRODUCER, "Toyota").compile(sql.getTable())) ;
+ * </pre>
+ * @author rajab
+ *
+ */
+public class Update {
+	private final List<Assignment> assignments = new ArrayList<Assignment>() ;
+	private boolean isVersioned = true ;
+	/**
+	 * Last compiled update together with its table
+	 */
+	private volatile Compiled compiled ;
+	/**
+	 * tag = value
+	 * @param tag
+	 * @param value
+	 * @return
+	 */
+	public Update set(String tag, Object value) {
+		return assign(tag, null, value) ;
+	}
+	/**
+	 * tag = null
+	 * @param tag
+	 * @return
+	 */
+	public Update setNull(String tag) {
+		return assign(tag, null, null) ;
+	}
+	/**
+	 * tag = tag + value
+	 * @param tag
+	 * @param value
+	 * @return
+	 */
+	public Update add(String tag, Object value) {
+		return assign(tag, "+", value) ;
+	}
+	/**
+	 * tag = tag - value
+	 * @param tag
+	 * @param value
+	 * @return
+	 */
+	public Update subtract(String tag, Object value) {
+		return assign(tag, "-", value) ;
+	}
+	/**
+	 * tag = tag * value
+	 * @param tag
+	 * @param value
+	 * @return
+	 */
+	public Update multiply(String tag, Object value) {
+		return assign(tag, "*", value) ;
+	}
+	/**
+	 * tag = tag / value
+	 * @param tag
+	 * @param value
+	 * @return
+	 */
+	public Update divide(String tag, Object value) {
+		return assign(tag, "/", value) ;
+	}
+	/**
+	 * Disables automatic increment of version column
+	 * @return
+	 */
+	public Update withoutVersion() {
+		this.isVersioned = false ;
+		this.compiled = null ;
+		return this ;
+	}
+
+	private Update assign(String tag, String operator, Object value) {
+		assignments.add(new Assignment(tag, operator, value)) ;
+		this.compiled = null ;
+		return this ;
+	}
+	/**
+	 * Compiles update into sql and flat columns and values resolving tag names to columns of table,
+	 * result is kept so that next compile for same table doesn't generate sql again
+	 * @param table
+	 * @return
+	 */
+	public CompiledUpdate compile(BioTable table) {
+		Compiled c = compiled ;
+		if (c != null && c.table == table) {
+			return c.update ;
+		}
+		if (assignments.size() == 0) {
+			throw new SqlException("update of " + table.getTable() + " has no assignment") ;
+		}
+		StringBuilder sql = new StringBuilder("update ").append(SqlUtility.getTableName(table)).append(" set ") ;
+		BioColumn[] columns = new BioColumn[assignments.size()] ;
+		Object[] values = new Object[assignments.size()] ;
+		boolean isVersionAssigned = false ;
+		for (int i = 0; i < assignments.size(); i++) {
+			Assignment a = assignments.get(i) ;
+			BioColumn column = table.getColumnByTag(a.tag) ;
+			if (column == null) {
+				throw new SqlException(a.tag + " is not a column of " + table.getTable()) ;
+			} else if (column.isKey()) {
+				throw new SqlException(a.tag + " is a primary key of " + table.getTable() + " and can not be updated") ;
+			}
+			sql.append(i > 0 ? "," : "").append(column.getColumn()).append(" = ") ;
+			if (a.operator != null) {
+				sql.append(column.getColumn()).append(" ").append(a.operator).append(" ") ;
+			}
+			sql.append("?") ;
+			columns[i] = column ;
+			values[i] = a.value ;
+			isVersionAssigned = isVersionAssigned || column.isVersion() ;
+		}
+		if (isVersioned && !isVersionAssigned && table.getVersionColumn() != null) {
+			String version = table.getVersionColumn().getColumn() ;
+			sql.append(",").append(version).append(" = ").append(version).append(" + 1") ;
+		}
+		CompiledUpdate update = new CompiledUpdate(sql.toString(), columns, values) ;
+		compiled = new Compiled(table, update) ;
+		return update ;
+	}
+
+	private static class Assignment {
+		private final String tag ;
+		private final String operator ;
+		private final Object value ;
+
+		Assignment(String tag, String operator, Object value) {
+			this.tag = tag ;
+			this.operator = operator ;
+			this.value = value ;
+		}
+	}
+
+	private static class Compiled {
+		private final BioTable table ;
+		private final CompiledUpdate update ;
+
+		Compiled(BioTable table, CompiledUpdate update) {
+			this.table = table ;
+			this.update = update ;
+		}
+	}
+	/**
+	 * Update compiled for a table, it keeps sql and assigned columns and values in flat arrays
+	 * @author rajab
+	 *
+	 */
+	public static class CompiledUpdate {
+		private final String sql ;
+		private final BioColumn[] columns ;
+		private final Object[] values ;
+
+		CompiledUpdate(String sql, BioColumn[] columns, Object[] values) {
+			this.sql = sql ;
+			this.columns = columns ;
+			this.values = values ;
+		}
+		/**
+		 * Returns update with same sql and columns but new values in assignment order
+		 * @param values
+		 * @return
+		 */
+		public CompiledUpdate bind(Object... values) {
+			if (values.length != columns.length) {
+				throw new SqlException(columns.length + " values are required but " + values.length + " is provided") ;
+			}
+			return new CompiledUpdate(sql, columns, values.clone()) ;
+		}
+
+		public String getSql() {
+			return sql;
+		}
+
+		public BioColumn[] getColumns() {
+			return columns;
+		}
+
+		public Object[] getValues() {
+			return values;
+		}
+	}
+}
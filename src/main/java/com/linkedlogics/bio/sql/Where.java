@@ -1,10 +1,10 @@
 package com.linkedlogics.bio.sql;
 
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.sql.Types;
+import java.util.BitSet;
 import java.util.HashMap;
-import java.util.Map.Entry;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
 
 import com.linkedlogics.bio.BioExpression;
 import com.linkedlogics.bio.BioObject;
@@ -46,23 +46,23 @@ public class Where {
 	public Where(BioObject object, BioTable table) {
     	valueMap = new HashMap<Integer, Object>() ;
     	typeMap = new HashMap<Integer, Integer>() ;
-    	AtomicInteger index = new AtomicInteger(1) ;
-    	StringBuilder w = new StringBuilder() ;
-    	String and = " and " ;
-    	for (Entry<String, Object> e : object.entries()) {
-    		BioColumn column = table.getColumnByTag(e.getKey()) ;
-    		if (column != null) {
-    			Object value = e.getValue() ;
-                 if (value instanceof BioExpression) {
+    	BioColumn[] columns = table.getColumns() ;
+    	BitSet present = new BitSet(columns.length) ;
+    	int index = 1 ;
+    	// columns are visited in table order so that same tags always produce same cached where string
+    	for (int i = 0; i < columns.length; i++) {
+    		if (object.has(columns[i].getTagName())) {
+    			Object value = object.get(columns[i].getTagName()) ;
+                if (value instanceof BioExpression) {
                 	throw new SqlException("bio object contains bio expressions please first run fill() to evaluate them"); 
-                 }
-                 typeMap.put(index.get(), SqlUtility.getSqlType(e.getValue())) ;
-    			 valueMap.put(index.get(), value) ;
-                 index.incrementAndGet();
-                 w.append(and).append(column.getColumn()).append(" = ? ") ;
+                }
+                typeMap.put(index, SqlUtility.getSqlType(value)) ;
+    			valueMap.put(index, value) ;
+                index++ ;
+                present.set(i);
     		}
 		}
-    	this.where = w.toString().substring(and.length()) ;
+    	this.where = table.getWhere(present) ;
 	}
 	
 	public Where setInt(int index, Object value) {
@@ -168,6 +168,49 @@ public class Where {
 		return merged ;
 	}
 	
+	/**
+	 * Sets values into statement after provided index, bio expressions are evaluated against object
+	 * @param object
+	 * @param ps
+	 * @param index
+	 * @return last set index
+	 * @throws SQLException
+	 */
+	public int setParameters(BioObject object, PreparedStatement ps, int index) throws SQLException {
+		for (int i = 0; i < valueMap.size(); i++) {
+			index = index + 1;
+			Object value = valueMap.get(i + 1);
+
+			if (value instanceof BioExpression) {
+				value = ((BioExpression) value).getValue(object) ;
+			}
+
+			if (value != null) {
+				SqlUtility.setParameter(ps, index, typeMap.get(i + 1), value);
+			} else {
+				SqlUtility.setNull(ps, index, typeMap.get(i + 1));
+			}
+		}
+		return index ;
+	}
+	
+	/**
+	 * Returns parameter values in order evaluating expressions against object
+	 * @param object
+	 * @return
+	 */
+	public Object[] getParameters(BioObject object) {
+		Object[] values = new Object[size()] ;
+		for (int i = 0; i < values.length; i++) {
+			Object value = getValue(i + 1) ;
+			if (value instanceof BioExpression) {
+				value = ((BioExpression) value).getValue(object) ;
+			}
+			values[i] = value ;
+		}
+		return values ;
+	}
+	
 	public String toString() {
 		return where ;
 	}
@@ -10,4 +10,48 @@ import java.lang.annotation.Target;
 public @interface BioSql {
 	String table() default "" ;
 	String schema() default "" ;
+	/**
+	 * Maximum number of rows kept in primary key cache, cache is disabled if it is 0
+	 */
+	int cacheSize() default 0 ;
+	/**
+	 * Time to live of cached rows in milliseconds, 0 means no expiration
+	 */
+	long cacheTtl() default 0 ;
+	/**
+	 * Maximum estimated size of cached rows in bytes, 0 means no limit
+	 */
+	long cacheBytes() default 0 ;
+	/**
+	 * Maximum number of select results kept in query cache, cache is disabled if it is 0
+	 */
+	int queryCacheSize() default 0 ;
+	/**
+	 * Time to live of cached select results in milliseconds, 0 means no expiration
+	 */
+	long queryCacheTtl() default 0 ;
+	/**
+	 * Maximum estimated size of cached select results in bytes, 0 means no limit
+	 */
+	long queryCacheBytes() default 0 ;
+	/**
+	 * Size of off heap primary key cache in bytes, cache is disabled if it is 0
+	 */
+	long offHeapCacheBytes() default 0 ;
+	/**
+	 * Expected number of keys of primary key filter, filter is disabled if it is 0
+	 */
+	long keyFilterSize() default 0 ;
+	/**
+	 * False positive rate of primary key filter at expected number of keys
+	 */
+	double keyFilterFpp() default 0.01 ;
+	/**
+	 * Preloads caches of table at startup by {@link com.linkedlogics.bio.sql.BioCacheWarmer}
+	 */
+	boolean warmUp() default false ;
+	/**
+	 * Condition of preloaded rows without parameters, all rows are preloaded if it is empty
+	 */
+	String warmUpWhere() default "" ;
 }
@@ -0,0 +1,213 @@
+package com.linkedlogics.bio.sql.cache;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Counting bloom filter of primary keys of a table. If it says key doesn't exist select by key returns
+ * without going to database. Counters allow removing keys of deleted rows so that filter doesn't fill up.
+ * Filter is consulted only after it is loaded by a key scan, keys of rows written by other applications
+ * are not seen until it is loaded again
+ * @author rajab
+ *
+ */
+public class BioKeyFilter {
+	private final byte[] counters ;
+	private final int hashes ;
+	private final long expectedKeys ;
+	private final double falsePositiveRate ;
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock() ;
+	private volatile boolean isReady ;
+	private long count ;
+
+	private final LongAdder negatives = new LongAdder() ;
+	private final LongAdder positives = new LongAdder() ;
+	private final LongAdder falsePositives = new LongAdder() ;
+	/**
+	 * Creates filter sized for expected number of keys and false positive rate
+	 * @param expectedKeys
+	 * @param falsePositiveRate
+	 */
+	public BioKeyFilter(long expectedKeys, double falsePositiveRate) {
+		this.expectedKeys = expectedKeys ;
+		this.falsePositiveRate = falsePositiveRate ;
+		long size = (long) Math.ceil(-expectedKeys * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))) ;
+		this.counters = new byte[(int) Math.max(64, Math.min(Integer.MAX_VALUE - 8, size))] ;
+		this.hashes = (int) Math.max(1, Math.round((double) counters.length / expectedKeys * Math.log(2))) ;
+	}
+	/**
+	 * Adds key
+	 * @param key
+	 */
+	public void add(Object key) {
+		long hash = hash(key) ;
+		lock.writeLock().lock();
+		try {
+			for (int i = 0; i < hashes; i++) {
+				int index = index(hash, i) ;
+				// saturated counters are never decremented
+				if (counters[index] != (byte) 0xFF) {
+					counters[index]++ ;
+				}
+			}
+			count++ ;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+	/**
+	 * Removes key which must be added before. Removing a key which exists but was never added 
+	 * decrements counters of other keys and they are reported as missing
+	 * @param key
+	 */
+	public void remove(Object key) {
+		long hash = hash(key) ;
+		lock.writeLock().lock();
+		try {
+			for (int i = 0; i < hashes; i++) {
+				if (counters[index(hash, i)] == 0) {
+					// key is not in filter
+					return ;
+				}
+			}
+			for (int i = 0; i < hashes; i++) {
+				int index = index(hash, i) ;
+				if (counters[index] != (byte) 0xFF) {
+					counters[index]-- ;
+				}
+			}
+			count-- ;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+	/**
+	 * Returns false if key surely doesn't exist, filter which is not ready returns always true
+	 * @param key
+	 * @return
+	 */
+	public boolean mightContain(Object key) {
+		if (!isReady) {
+			return true ;
+		}
+		long hash = hash(key) ;
+		lock.readLock().lock();
+		try {
+			for (int i = 0; i < hashes; i++) {
+				if (counters[index(hash, i)] == 0) {
+					negatives.increment();
+					return false ;
+				}
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+		positives.increment();
+		return true ;
+	}
+	/**
+	 * Registers that key passed by filter is not found in database
+	 */
+	public void falsePositive() {
+		falsePositives.increment();
+	}
+	/**
+	 * Removes all keys and marks filter as not ready
+	 */
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			isReady = false ;
+			Arrays.fill(counters, (byte) 0) ;
+			count = 0 ;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public boolean isReady() {
+		return isReady;
+	}
+	/**
+	 * Marks filter ready to be consulted after all keys are added
+	 * @param isReady
+	 */
+	public void setReady(boolean isReady) {
+		this.isReady = isReady;
+	}
+	/**
+	 * Returns number of keys in filter
+	 * @return
+	 */
+	public long getCount() {
+		lock.readLock().lock();
+		try {
+			return count ;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public long getExpectedKeys() {
+		return expectedKeys;
+	}
+
+	public double getFalsePositiveRate() {
+		return falsePositiveRate;
+	}
+	/**
+	 * Returns false positive rate expected from current number of keys
+	 * @return
+	 */
+	public double getExpectedFalsePositiveRate() {
+		return Math.pow(1 - Math.exp(-(double) hashes * getCount() / counters.length), hashes) ;
+	}
+	/**
+	 * Returns ratio of missing keys which are passed by filter, measured by selects
+	 * @return
+	 */
+	public double getObservedFalsePositiveRate() {
+		long fp = falsePositives.sum() ;
+		long total = fp + negatives.sum() ;
+		return total == 0 ? 0 : (double) fp / total ;
+	}
+	/**
+	 * Returns number of lookups answered without database
+	 * @return
+	 */
+	public long getNegativeCount() {
+		return negatives.sum() ;
+	}
+
+	public long getPositiveCount() {
+		return positives.sum() ;
+	}
+
+	public long getFalsePositiveCount() {
+		return falsePositives.sum() ;
+	}
+
+	@Override
+	public String toString() {
+		return "keys=" + getCount() + " negatives=" + getNegativeCount() + " positives=" + getPositiveCount()
+			+ " falsePositives=" + getFalsePositiveCount() + " expectedRate=" + getExpectedFalsePositiveRate() ;
+	}
+
+	private int index(long hash, int i) {
+		int h1 = (int) hash ;
+		int h2 = (int) (hash >>> 32) ;
+		int combined = h1 + i * h2 ;
+		return (combined & Integer.MAX_VALUE) % counters.length ;
+	}
+
+	private static long hash(Object key) {
+		Object k = BioObjectCache.key(new Object[] {key}) ;
+		long h = k != null ? k.hashCode() : 0 ;
+		// splitmix64 finalizer spreads 32 bit hash code to 64 bits
+		h += 0x9E3779B97F4A7C15L ;
+		h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L ;
+		h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL ;
+		return h ^ (h >>> 31) ;
+	}
+}
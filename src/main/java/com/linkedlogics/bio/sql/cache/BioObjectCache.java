@@ -0,0 +1,479 @@
+package com.linkedlogics.bio.sql.cache;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.linkedlogics.bio.BioObject;
+import com.linkedlogics.bio.sql.exception.SqlException;
+
+/**
+ * Bounded second level cache of table rows by primary key. Rows are kept as decoded column values
+ * in table column order so that each hit creates a new bio object and cached values are never exposed.
+ * Mutable values such as nested bio objects, arrays and lists are copied by BioSql when bio object is created.
+ * <p>
+ * Cache is split into segments each having its own LRU order, so that concurrent readers of different keys
+ * don't block each other. Entries are evicted when number of entries or estimated size in bytes exceeds limit
+ * and they are expired after time to live.
+ * <p>
+ * If refresh ahead is enabled entries read after given fraction of their time to live are reloaded
+ * asynchronously by loader while old values are still returned, so that hot keys don't expire
+ * @author rajab
+ *
+ */
+public class BioObjectCache {
+	private static final int SEGMENTS = 16 ;
+
+	private final Segment[] segments ;
+	private final int maxSize ;
+	private final long maxBytes ;
+	private final long timeToLive ;
+	/**
+	 * Incremented at each invalidation, so that values loaded before invalidation are not put
+	 */
+	private final AtomicLong generation = new AtomicLong() ;
+
+	private final LongAdder hits = new LongAdder() ;
+	private final LongAdder misses = new LongAdder() ;
+	private final LongAdder evictions = new LongAdder() ;
+	private final LongAdder expirations = new LongAdder() ;
+	private final LongAdder invalidations = new LongAdder() ;
+	private final LongAdder refreshes = new LongAdder() ;
+	private final LongAdder refreshFailures = new LongAdder() ;
+	
+	private volatile Loader loader ;
+	private volatile Executor executor ;
+	private volatile double refreshAhead ;
+	/**
+	 * Keys being refreshed, so that only one reload of a key runs at a time
+	 */
+	private final ConcurrentHashMap<Object, Boolean> refreshing = new ConcurrentHashMap<Object, Boolean>() ;
+	/**
+	 * Creates cache
+	 * @param maxSize maximum number of entries
+	 * @param timeToLive time to live of entries in milliseconds, 0 means no expiration
+	 * @param maxBytes maximum estimated size in bytes, 0 means no limit
+	 */
+	public BioObjectCache(int maxSize, long timeToLive, long maxBytes) {
+		this.maxSize = maxSize ;
+		this.maxBytes = maxBytes ;
+		this.timeToLive = timeToLive ;
+		this.segments = new Segment[SEGMENTS] ;
+		for (int i = 0; i < segments.length; i++) {
+			segments[i] = new Segment(Math.max(1, maxSize / SEGMENTS), maxBytes / SEGMENTS) ;
+		}
+	}
+	/**
+	 * Returns column values of key or null if it is not cached or expired
+	 * @param key
+	 * @return
+	 */
+	public Object[] get(Object key) {
+		key = key(key) ;
+		Segment segment = segment(key) ;
+		CacheEntry entry = null ;
+		synchronized (segment) {
+			entry = segment.entries.get(key) ;
+			if (entry != null && entry.isExpired()) {
+				segment.remove(key) ;
+				expirations.increment();
+				entry = null ;
+			}
+		}
+		if (entry == null) {
+			misses.increment();
+			return null ;
+		}
+		hits.increment();
+		if (entry.refreshAt <= System.currentTimeMillis()) {
+			refresh(key, entry) ;
+		}
+		return entry.values ;
+	}
+	/**
+	 * Enables refresh ahead, entries read after refreshAhead fraction of time to live (for example 0.8) 
+	 * are reloaded by loader on executor. It requires time to live
+	 * @param refreshAhead
+	 * @param loader
+	 * @param executor
+	 */
+	public void setRefreshAhead(double refreshAhead, Loader loader, Executor executor) {
+		if (timeToLive <= 0) {
+			throw new SqlException("refresh ahead requires time to live") ;
+		}
+		if (refreshAhead <= 0 || refreshAhead >= 1) {
+			throw new SqlException("refresh ahead must be between 0 and 1") ;
+		}
+		this.loader = loader ;
+		this.executor = executor ;
+		this.refreshAhead = refreshAhead ;
+	}
+	/**
+	 * Disables refresh ahead
+	 */
+	public void disableRefreshAhead() {
+		this.refreshAhead = 0 ;
+		this.loader = null ;
+		this.executor = null ;
+	}
+	/**
+	 * Starts reload of entry if it is not already being reloaded
+	 * @param key
+	 * @param entry
+	 */
+	private void refresh(Object key, CacheEntry entry) {
+		Loader loader = this.loader ;
+		Executor executor = this.executor ;
+		if (loader == null || executor == null || refreshing.putIfAbsent(key, Boolean.TRUE) != null) {
+			return ;
+		}
+		try {
+			executor.execute(() -> {
+				try {
+					Object[] values = loader.load(key, entry.values) ;
+					Segment segment = segment(key) ;
+					synchronized (segment) {
+						// entry is changed or invalidated meanwhile, so loaded values can be old
+						if (segment.entries.get(key) == entry) {
+							segment.remove(key) ;
+							if (values != null) {
+								CacheEntry refreshed = newEntry(values) ;
+								segment.entries.put(key, refreshed) ;
+								segment.bytes += refreshed.bytes ;
+								segment.evict() ;
+							}
+						}
+					}
+					refreshes.increment();
+				} catch (Throwable e) {
+					refreshFailures.increment();
+				} finally {
+					refreshing.remove(key) ;
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			refreshing.remove(key) ;
+			refreshFailures.increment();
+		}
+	}
+	/**
+	 * Puts column values of key
+	 * @param key
+	 * @param values
+	 */
+	public void put(Object key, Object[] values) {
+		key = key(key) ;
+		CacheEntry entry = newEntry(values) ;
+		Segment segment = segment(key) ;
+		synchronized (segment) {
+			segment.remove(key) ;
+			segment.entries.put(key, entry) ;
+			segment.bytes += entry.bytes ;
+			segment.evict() ;
+		}
+	}
+	/**
+	 * Returns current generation which must be taken before values are loaded from database for put
+	 * @return
+	 */
+	public long getGeneration() {
+		return generation.get() ;
+	}
+	/**
+	 * Puts column values of key if nothing is invalidated since generation is taken, 
+	 * so that a concurrent write can not leave old values in cache
+	 * @param key
+	 * @param values
+	 * @param generation
+	 * @return
+	 */
+	public boolean put(Object key, Object[] values, long generation) {
+		key = key(key) ;
+		CacheEntry entry = newEntry(values) ;
+		Segment segment = segment(key) ;
+		synchronized (segment) {
+			if (generation != this.generation.get()) {
+				return false ;
+			}
+			segment.remove(key) ;
+			segment.entries.put(key, entry) ;
+			segment.bytes += entry.bytes ;
+			segment.evict() ;
+		}
+		return true ;
+	}
+	/**
+	 * Removes key
+	 * @param key
+	 */
+	public void invalidate(Object key) {
+		key = key(key) ;
+		generation.incrementAndGet() ;
+		Segment segment = segment(key) ;
+		synchronized (segment) {
+			if (segment.remove(key) != null) {
+				invalidations.increment();
+			}
+		}
+	}
+	/**
+	 * Removes keys
+	 * @param keys
+	 */
+	public void invalidateAll(Collection<?> keys) {
+		for (Object key : keys) {
+			invalidate(key) ;
+		}
+	}
+	/**
+	 * Removes all entries
+	 */
+	public void clear() {
+		generation.incrementAndGet() ;
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				invalidations.add(segment.entries.size());
+				segment.entries.clear();
+				segment.bytes = 0 ;
+			}
+		}
+	}
+	/**
+	 * Returns number of entries
+	 * @return
+	 */
+	public int size() {
+		int size = 0 ;
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				size += segment.entries.size() ;
+			}
+		}
+		return size ;
+	}
+	/**
+	 * Returns estimated size of entries in bytes
+	 * @return
+	 */
+	public long getBytes() {
+		long bytes = 0 ;
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				bytes += segment.bytes ;
+			}
+		}
+		return bytes ;
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	public long getTimeToLive() {
+		return timeToLive;
+	}
+
+	public long getHitCount() {
+		return hits.sum() ;
+	}
+
+	public long getMissCount() {
+		return misses.sum() ;
+	}
+
+	public long getEvictionCount() {
+		return evictions.sum() ;
+	}
+
+	public long getExpirationCount() {
+		return expirations.sum() ;
+	}
+
+	public long getInvalidationCount() {
+		return invalidations.sum() ;
+	}
+
+	public long getRefreshCount() {
+		return refreshes.sum() ;
+	}
+
+	public long getRefreshFailureCount() {
+		return refreshFailures.sum() ;
+	}
+	/**
+	 * Returns ratio of hits to all lookups
+	 * @return
+	 */
+	public double getHitRatio() {
+		long h = hits.sum() ;
+		long total = h + misses.sum() ;
+		return total == 0 ? 0 : (double) h / total ;
+	}
+
+	@Override
+	public String toString() {
+		return "size=" + size() + " bytes=" + getBytes() + " hits=" + getHitCount() + " misses=" + getMissCount()
+			+ " evictions=" + getEvictionCount() + " expirations=" + getExpirationCount() + " invalidations=" + getInvalidationCount() ;
+	}
+	/**
+	 * Returns cache key of primary key values, single values are used as they are
+	 * and integral numbers are normalized so that Integer and Long keys are same
+	 * @param values
+	 * @return
+	 */
+	public static Object key(Object[] values) {
+		if (values.length == 1) {
+			return key(values[0]) ;
+		}
+		Object[] key = new Object[values.length] ;
+		for (int i = 0; i < values.length; i++) {
+			key[i] = key(values[i]) ;
+		}
+		return Arrays.asList(key) ;
+	}
+
+	private static Object key(Object value) {
+		if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+			return ((Number) value).longValue() ;
+		} else if (value instanceof Object[]) {
+			return key((Object[]) value) ;
+		}
+		return value ;
+	}
+
+	private CacheEntry newEntry(Object[] values) {
+		long now = System.currentTimeMillis() ;
+		long expiresAt = timeToLive > 0 ? now + timeToLive : Long.MAX_VALUE ;
+		long refreshAt = timeToLive > 0 && refreshAhead > 0 ? now + (long) (timeToLive * refreshAhead) : Long.MAX_VALUE ;
+		return new CacheEntry(values, expiresAt, refreshAt, estimate(values)) ;
+	}
+
+	private Segment segment(Object key) {
+		int h = key != null ? key.hashCode() : 0 ;
+		h ^= (h >>> 16) ;
+		return segments[h & (SEGMENTS - 1)] ;
+	}
+	/**
+	 * Returns estimated size of values in bytes
+	 * @param values
+	 * @return
+	 */
+	public static long estimate(Object[] values) {
+		long size = 16 + 8L * values.length ;
+		for (Object value : values) {
+			size += estimate(value) ;
+		}
+		return size ;
+	}
+
+	private static long estimate(Object value) {
+		if (value == null) {
+			return 0 ;
+		} else if (value instanceof String) {
+			return 40 + 2L * ((String) value).length() ;
+		} else if (value instanceof byte[]) {
+			return 16 + ((byte[]) value).length ;
+		} else if (value instanceof BigDecimal || value instanceof BigInteger) {
+			return 64 ;
+		} else if (value instanceof Number || value instanceof Boolean || value instanceof Character) {
+			return 16 ;
+		} else if (value instanceof Object[]) {
+			return estimate((Object[]) value) ;
+		} else if (value instanceof Collection) {
+			long size = 40 ;
+			for (Object o : (Collection<?>) value) {
+				size += 8 + estimate(o) ;
+			}
+			return size ;
+		} else if (value instanceof BioObject) {
+			long size = 64 ;
+			for (Entry<String, Object> e : ((BioObject) value).entries()) {
+				size += 32 + estimate(e.getValue()) ;
+			}
+			return size ;
+		}
+		return 32 ;
+	}
+	/**
+	 * Loads fresh column values of key for refresh ahead
+	 * @author rajab
+	 *
+	 */
+	public interface Loader {
+		/**
+		 * Returns column values of key, current values can be returned if row is not changed
+		 * and null if it doesn't exist anymore
+		 * @param key
+		 * @param current
+		 * @return
+		 * @throws Exception
+		 */
+		Object[] load(Object key, Object[] current) throws Exception ;
+	}
+	/**
+	 * Part of cache with its own lock and LRU order
+	 */
+	private class Segment {
+		private final LinkedHashMap<Object, CacheEntry> entries = new LinkedHashMap<Object, CacheEntry>(16, 0.75f, true) ;
+		private final int maxSize ;
+		private final long maxBytes ;
+		private long bytes ;
+
+		Segment(int maxSize, long maxBytes) {
+			this.maxSize = maxSize ;
+			this.maxBytes = maxBytes ;
+		}
+
+		CacheEntry remove(Object key) {
+			CacheEntry entry = entries.remove(key) ;
+			if (entry != null) {
+				bytes -= entry.bytes ;
+			}
+			return entry ;
+		}
+		/**
+		 * Removes least recently used entries until segment is within limits
+		 */
+		void evict() {
+			Iterator<Map.Entry<Object, CacheEntry>> i = entries.entrySet().iterator() ;
+			while (i.hasNext() && (entries.size() > maxSize || (maxBytes > 0 && bytes > maxBytes))) {
+				CacheEntry entry = i.next().getValue() ;
+				i.remove();
+				bytes -= entry.bytes ;
+				evictions.increment();
+			}
+		}
+	}
+
+	private static class CacheEntry {
+		private final Object[] values ;
+		private final long expiresAt ;
+		private final long refreshAt ;
+		private final long bytes ;
+
+		CacheEntry(Object[] values, long expiresAt, long refreshAt, long bytes) {
+			this.values = values ;
+			this.expiresAt = expiresAt ;
+			this.refreshAt = refreshAt ;
+			this.bytes = bytes ;
+		}
+
+		boolean isExpired() {
+			return System.currentTimeMillis() > expiresAt ;
+		}
+	}
+}
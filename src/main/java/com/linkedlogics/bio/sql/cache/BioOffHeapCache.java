@@ -0,0 +1,260 @@
+package com.linkedlogics.bio.sql.cache;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.linkedlogics.bio.BioObject;
+import com.linkedlogics.bio.parser.BioObjectBinaryParser;
+
+/**
+ * Cache of bio objects by primary key kept outside of heap. Objects are encoded and compressed by binary parser
+ * and appended to direct buffer slabs which are used as a ring. When all slabs are full the oldest slab is evicted
+ * as a whole together with all keys in it, so there is no fragmentation and no per entry free list.
+ * Only index of keys is kept in heap and objects are decoded at each hit
+ * @author rajab
+ *
+ */
+public class BioOffHeapCache {
+	private final ByteBuffer[] slabs ;
+	private final ArrayList<ArrayList<Object>> slabKeys ;
+	private final HashMap<Object, Location> index = new HashMap<Object, Location>() ;
+	private final int slabSize ;
+	private int current ;
+	/**
+	 * Incremented at each invalidation, so that objects loaded before invalidation are not put
+	 */
+	private final AtomicLong generation = new AtomicLong() ;
+
+	private final LongAdder hits = new LongAdder() ;
+	private final LongAdder misses = new LongAdder() ;
+	private final LongAdder evictions = new LongAdder() ;
+	private final LongAdder rejections = new LongAdder() ;
+	/**
+	 * Creates cache of capacity bytes split into slabs
+	 * @param capacity total size of slabs in bytes
+	 * @param slabSize size of single slab in bytes, objects larger than slab are not cached
+	 */
+	public BioOffHeapCache(long capacity, int slabSize) {
+		int count = (int) Math.max(2, capacity / slabSize) ;
+		this.slabSize = slabSize ;
+		this.slabs = new ByteBuffer[count] ;
+		this.slabKeys = new ArrayList<ArrayList<Object>>(count) ;
+		for (int i = 0; i < count; i++) {
+			slabKeys.add(new ArrayList<Object>()) ;
+		}
+	}
+	/**
+	 * Creates cache with 64MB slabs
+	 * @param capacity
+	 */
+	public BioOffHeapCache(long capacity) {
+		this(capacity, (int) Math.min(64 * 1024 * 1024, Math.max(1024 * 1024, capacity / 2))) ;
+	}
+	/**
+	 * Returns decoded object of key or null if it is not cached
+	 * @param key
+	 * @param parser
+	 * @return
+	 */
+	public BioObject get(Object key, BioObjectBinaryParser parser) {
+		byte[] bytes = getBytes(key) ;
+		if (bytes == null) {
+			misses.increment();
+			return null ;
+		}
+		hits.increment();
+		return parser.decode(bytes) ;
+	}
+	/**
+	 * Encodes and stores object of key
+	 * @param key
+	 * @param object
+	 * @param parser
+	 */
+	public void put(Object key, BioObject object, BioObjectBinaryParser parser) {
+		putBytes(key, parser.encode(object, true)) ;
+	}
+	/**
+	 * Encodes and stores object of key if nothing is invalidated since generation is taken
+	 * @param key
+	 * @param object
+	 * @param parser
+	 * @param generation
+	 * @return
+	 */
+	public boolean put(Object key, BioObject object, BioObjectBinaryParser parser, long generation) {
+		byte[] bytes = parser.encode(object, true) ;
+		synchronized (this) {
+			if (generation != this.generation.get()) {
+				return false ;
+			}
+			putBytes(key, bytes) ;
+		}
+		return true ;
+	}
+	/**
+	 * Returns current generation which must be taken before object is loaded from database for put
+	 * @return
+	 */
+	public long getGeneration() {
+		return generation.get() ;
+	}
+	/**
+	 * Returns copy of stored bytes of key
+	 * @param key
+	 * @return
+	 */
+	public synchronized byte[] getBytes(Object key) {
+		Location location = index.get(BioObjectCache.key(new Object[] {key})) ;
+		if (location == null) {
+			return null ;
+		}
+		byte[] bytes = new byte[location.length] ;
+		ByteBuffer slab = slabs[location.slab].duplicate() ;
+		slab.position(location.offset) ;
+		slab.get(bytes) ;
+		return bytes ;
+	}
+	/**
+	 * Stores bytes of key, they are not stored if they are larger than a slab
+	 * @param key
+	 * @param bytes
+	 */
+	public synchronized void putBytes(Object key, byte[] bytes) {
+		key = BioObjectCache.key(new Object[] {key}) ;
+		index.remove(key) ;
+		if (bytes.length > slabSize) {
+			rejections.increment();
+			return ;
+		}
+		ByteBuffer slab = slab(current) ;
+		if (slab.remaining() < bytes.length) {
+			current = (current + 1) % slabs.length ;
+			evict(current) ;
+			slab = slab(current) ;
+		}
+		index.put(key, new Location(current, slab.position(), bytes.length)) ;
+		slabKeys.get(current).add(key) ;
+		slab.put(bytes) ;
+	}
+	/**
+	 * Removes key, its space is reused when its slab is evicted
+	 * @param key
+	 */
+	public synchronized void invalidate(Object key) {
+		generation.incrementAndGet() ;
+		index.remove(BioObjectCache.key(new Object[] {key})) ;
+	}
+	/**
+	 * Removes all keys and resets slabs
+	 */
+	public synchronized void clear() {
+		generation.incrementAndGet() ;
+		index.clear();
+		for (int i = 0; i < slabs.length; i++) {
+			slabKeys.get(i).clear();
+			if (slabs[i] != null) {
+				slabs[i].clear() ;
+			}
+		}
+		current = 0 ;
+	}
+	/**
+	 * Returns slab allocating it at first use
+	 * @param i
+	 * @return
+	 */
+	private ByteBuffer slab(int i) {
+		if (slabs[i] == null) {
+			slabs[i] = ByteBuffer.allocateDirect(slabSize) ;
+		}
+		return slabs[i] ;
+	}
+	/**
+	 * Removes keys which are still stored in slab and resets it
+	 * @param i
+	 */
+	private void evict(int i) {
+		ArrayList<Object> keys = slabKeys.get(i) ;
+		if (keys.size() > 0) {
+			for (Object key : keys) {
+				Location location = index.get(key) ;
+				// key may be written again into another slab
+				if (location != null && location.slab == i) {
+					index.remove(key) ;
+				}
+			}
+			keys.clear();
+			evictions.increment();
+		}
+		if (slabs[i] != null) {
+			slabs[i].clear() ;
+		}
+	}
+
+	public synchronized int size() {
+		return index.size() ;
+	}
+	/**
+	 * Returns allocated off heap bytes
+	 * @return
+	 */
+	public synchronized long getAllocatedBytes() {
+		long bytes = 0 ;
+		for (ByteBuffer slab : slabs) {
+			bytes += slab != null ? slab.capacity() : 0 ;
+		}
+		return bytes ;
+	}
+
+	public long getCapacity() {
+		return (long) slabSize * slabs.length ;
+	}
+
+	public int getSlabSize() {
+		return slabSize;
+	}
+
+	public long getHitCount() {
+		return hits.sum() ;
+	}
+
+	public long getMissCount() {
+		return misses.sum() ;
+	}
+	/**
+	 * Returns number of evicted slabs
+	 * @return
+	 */
+	public long getEvictionCount() {
+		return evictions.sum() ;
+	}
+	/**
+	 * Returns number of objects not stored because they are larger than a slab
+	 * @return
+	 */
+	public long getRejectionCount() {
+		return rejections.sum() ;
+	}
+
+	@Override
+	public String toString() {
+		return "size=" + size() + " allocated=" + getAllocatedBytes() + " hits=" + getHitCount() + " misses=" + getMissCount()
+			+ " evictions=" + getEvictionCount() + " rejections=" + getRejectionCount() ;
+	}
+
+	private static class Location {
+		private final int slab ;
+		private final int offset ;
+		private final int length ;
+
+		Location(int slab, int offset, int length) {
+			this.slab = slab ;
+			this.offset = offset ;
+			this.length = length ;
+		}
+	}
+}
@@ -0,0 +1,217 @@
+package com.linkedlogics.bio.sql.cache;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache of select results of a table keyed by final sql and bound parameter values. Results are kept
+ * as decoded column values of rows so that each hit creates new bio objects. Any write to table invalidates
+ * all results of it, related objects are loaded by their own tables and cached there.
+ * <p>
+ * A result is only stored if table is not changed while it is selected, so that a concurrent write
+ * can not leave an old result in cache
+ * @author rajab
+ *
+ */
+public class BioQueryCache {
+	private final LinkedHashMap<QueryKey, CacheEntry> entries = new LinkedHashMap<QueryKey, CacheEntry>(16, 0.75f, true) ;
+	private final AtomicLong generation = new AtomicLong() ;
+	private final int maxSize ;
+	private final long maxBytes ;
+	private final long timeToLive ;
+	private long bytes ;
+
+	private final LongAdder hits = new LongAdder() ;
+	private final LongAdder misses = new LongAdder() ;
+	private final LongAdder evictions = new LongAdder() ;
+	private final LongAdder invalidations = new LongAdder() ;
+	/**
+	 * Creates cache
+	 * @param maxSize maximum number of results
+	 * @param timeToLive time to live of results in milliseconds, 0 means no expiration
+	 * @param maxBytes maximum estimated size of results in bytes, 0 means no limit
+	 */
+	public BioQueryCache(int maxSize, long timeToLive, long maxBytes) {
+		this.maxSize = maxSize ;
+		this.maxBytes = maxBytes ;
+		this.timeToLive = timeToLive ;
+	}
+	/**
+	 * Returns key of sql and its parameter values
+	 * @param sql
+	 * @param parameters
+	 * @return
+	 */
+	public static Object key(String sql, Object[] parameters) {
+		return new QueryKey(sql, parameters) ;
+	}
+	/**
+	 * Returns current generation of table which must be passed to put
+	 * @return
+	 */
+	public long getGeneration() {
+		return generation.get() ;
+	}
+	/**
+	 * Returns rows of key or null if it is not cached or expired
+	 * @param key
+	 * @return
+	 */
+	public synchronized List<Object[]> get(Object key) {
+		CacheEntry entry = entries.get(key) ;
+		if (entry != null && System.currentTimeMillis() > entry.expiresAt) {
+			remove(key) ;
+			entry = null ;
+		}
+		if (entry == null) {
+			misses.increment();
+			return null ;
+		}
+		hits.increment();
+		return entry.rows ;
+	}
+	/**
+	 * Puts rows of key if table is not changed since generation is taken
+	 * @param key
+	 * @param rows
+	 * @param generation
+	 * @return
+	 */
+	public synchronized boolean put(Object key, List<Object[]> rows, long generation) {
+		if (generation != this.generation.get()) {
+			return false ;
+		}
+		long size = 64 ;
+		for (Object[] row : rows) {
+			size += BioObjectCache.estimate(row) ;
+		}
+		if (maxBytes > 0 && size > maxBytes) {
+			return false ;
+		}
+		remove(key) ;
+		entries.put((QueryKey) key, new CacheEntry(rows, timeToLive > 0 ? System.currentTimeMillis() + timeToLive : Long.MAX_VALUE, size)) ;
+		bytes += size ;
+
+		Iterator<Map.Entry<QueryKey, CacheEntry>> i = entries.entrySet().iterator() ;
+		while (i.hasNext() && (entries.size() > maxSize || (maxBytes > 0 && bytes > maxBytes))) {
+			bytes -= i.next().getValue().bytes ;
+			i.remove();
+			evictions.increment();
+		}
+		return true ;
+	}
+	/**
+	 * Removes all results, it is called at each write to table
+	 */
+	public void invalidate() {
+		generation.incrementAndGet() ;
+		synchronized (this) {
+			if (entries.size() > 0) {
+				invalidations.add(entries.size());
+				entries.clear();
+				bytes = 0 ;
+			}
+		}
+	}
+
+	private void remove(Object key) {
+		CacheEntry entry = entries.remove(key) ;
+		if (entry != null) {
+			bytes -= entry.bytes ;
+		}
+	}
+
+	public synchronized int size() {
+		return entries.size() ;
+	}
+
+	public synchronized long getBytes() {
+		return bytes ;
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	public long getTimeToLive() {
+		return timeToLive;
+	}
+
+	public long getHitCount() {
+		return hits.sum() ;
+	}
+
+	public long getMissCount() {
+		return misses.sum() ;
+	}
+
+	public long getEvictionCount() {
+		return evictions.sum() ;
+	}
+
+	public long getInvalidationCount() {
+		return invalidations.sum() ;
+	}
+	/**
+	 * Returns ratio of hits to all lookups
+	 * @return
+	 */
+	public double getHitRatio() {
+		long h = hits.sum() ;
+		long total = h + misses.sum() ;
+		return total == 0 ? 0 : (double) h / total ;
+	}
+
+	@Override
+	public String toString() {
+		return "size=" + size() + " bytes=" + getBytes() + " hits=" + getHitCount() + " misses=" + getMissCount()
+			+ " evictions=" + getEvictionCount() + " invalidations=" + getInvalidationCount() ;
+	}
+
+	private static class QueryKey {
+		private final String sql ;
+		private final Object[] parameters ;
+		private final int hash ;
+
+		QueryKey(String sql, Object[] parameters) {
+			this.sql = sql ;
+			this.parameters = parameters ;
+			this.hash = 31 * sql.hashCode() + Arrays.deepHashCode(parameters) ;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash ;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof QueryKey)) {
+				return false ;
+			}
+			QueryKey k = (QueryKey) o ;
+			return hash == k.hash && sql.equals(k.sql) && Arrays.deepEquals(parameters, k.parameters) ;
+		}
+	}
+
+	private static class CacheEntry {
+		private final List<Object[]> rows ;
+		private final long expiresAt ;
+		private final long bytes ;
+
+		CacheEntry(List<Object[]> rows, long expiresAt, long bytes) {
+			this.rows = rows ;
+			this.expiresAt = expiresAt ;
+			this.bytes = bytes ;
+		}
+	}
+}
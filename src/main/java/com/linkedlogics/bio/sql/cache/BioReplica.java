@@ -0,0 +1,234 @@
+package com.linkedlogics.bio.sql.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import com.linkedlogics.bio.BioExpression;
+import com.linkedlogics.bio.BioObject;
+import com.linkedlogics.bio.sql.exception.SqlException;
+import com.linkedlogics.bio.sql.object.BioColumn;
+import com.linkedlogics.bio.sql.object.BioTable;
+
+/**
+ * Immutable in memory snapshot of a whole table with primary key index and optional secondary indexes on columns.
+ * Rows are kept as decoded column values in table column order. Changes are applied by creating a new snapshot
+ * so that readers never see a partially refreshed table
+ * @author rajab
+ *
+ */
+public class BioReplica {
+	private final BioTable table ;
+	private final int[] keyIndexes ;
+	private final int[] indexColumns ;
+	private final BioColumn deltaColumn ;
+	private final Map<Object, Object[]> rows ;
+	private final Map<Integer, Map<Object, List<Object[]>>> indexes ;
+	private final Object maxVersion ;
+	private final long loadedAt ;
+	/**
+	 * Creates snapshot of rows
+	 * @param table
+	 * @param rows
+	 * @param indexColumns indexes of columns in table column order which are indexed
+	 * @param deltaColumn column whose maximum value is tracked for delta refresh, can be null
+	 */
+	public BioReplica(BioTable table, List<Object[]> rows, int[] indexColumns, BioColumn deltaColumn) {
+		this(table, indexColumns, deltaColumn, toMap(table, rows)) ;
+	}
+
+	private BioReplica(BioTable table, int[] indexColumns, BioColumn deltaColumn, LinkedHashMap<Object, Object[]> rows) {
+		this.table = table ;
+		this.keyIndexes = getKeyIndexes(table) ;
+		this.indexColumns = indexColumns ;
+		this.deltaColumn = deltaColumn ;
+		this.rows = Collections.unmodifiableMap(rows) ;
+		this.loadedAt = System.currentTimeMillis() ;
+
+		HashMap<Integer, Map<Object, List<Object[]>>> indexes = new HashMap<Integer, Map<Object, List<Object[]>>>() ;
+		for (int column : indexColumns) {
+			HashMap<Object, List<Object[]>> index = new HashMap<Object, List<Object[]>>() ;
+			for (Object[] row : rows.values()) {
+				index.computeIfAbsent(BioObjectCache.key(new Object[] {row[column]}), k -> new ArrayList<Object[]>()).add(row) ;
+			}
+			indexes.put(column, index) ;
+		}
+		this.indexes = indexes ;
+
+		Object max = null ;
+		if (deltaColumn != null) {
+			int v = indexOf(table, deltaColumn) ;
+			for (Object[] row : rows.values()) {
+				if (row[v] != null && (max == null || compare(row[v], max) > 0)) {
+					max = row[v] ;
+				}
+			}
+		}
+		this.maxVersion = max ;
+	}
+	/**
+	 * Returns new snapshot where changed rows replace rows with same primary keys
+	 * @param changed
+	 * @return
+	 */
+	public BioReplica apply(List<Object[]> changed) {
+		if (changed.isEmpty()) {
+			return this ;
+		}
+		LinkedHashMap<Object, Object[]> copy = new LinkedHashMap<Object, Object[]>(rows) ;
+		for (Object[] row : changed) {
+			copy.put(key(row, keyIndexes), row) ;
+		}
+		return new BioReplica(table, indexColumns, deltaColumn, copy) ;
+	}
+	/**
+	 * Returns row of primary key or null
+	 * @param key
+	 * @return
+	 */
+	public Object[] get(Object key) {
+		return rows.get(BioObjectCache.key(new Object[] {key})) ;
+	}
+	/**
+	 * Returns rows having value in column, index is used if column is indexed
+	 * @param column index of column in table column order
+	 * @param value
+	 * @return
+	 */
+	public List<Object[]> find(int column, Object value) {
+		Object key = BioObjectCache.key(new Object[] {value}) ;
+		Map<Object, List<Object[]>> index = indexes.get(column) ;
+		if (index != null) {
+			List<Object[]> list = index.get(key) ;
+			return list != null ? Collections.unmodifiableList(list) : Collections.<Object[]>emptyList() ;
+		}
+		List<Object[]> list = new ArrayList<Object[]>() ;
+		for (Object[] row : rows.values()) {
+			if (Objects.equals(key, BioObjectCache.key(new Object[] {row[column]}))) {
+				list.add(row) ;
+			}
+		}
+		return list ;
+	}
+	/**
+	 * Returns rows having same values as bio object in all its tags which are columns, same as select with where of bio object.
+	 * An indexed column is used to find candidate rows if bio object has one
+	 * @param object
+	 * @return
+	 */
+	public List<Object[]> find(BioObject object) {
+		BioColumn[] columns = table.getColumns() ;
+		ArrayList<Integer> present = new ArrayList<Integer>() ;
+		int first = -1 ;
+		for (int i = 0; i < columns.length; i++) {
+			if (object.has(columns[i].getTagName())) {
+				if (object.get(columns[i].getTagName()) instanceof BioExpression) {
+					throw new SqlException("bio object contains bio expressions please first run fill() to evaluate them"); 
+				}
+				present.add(i) ;
+				if (first < 0 || (isIndexed(i) && !isIndexed(first))) {
+					first = i ;
+				}
+			}
+		}
+		if (first < 0) {
+			return getRows() ;
+		}
+		List<Object[]> list = new ArrayList<Object[]>() ;
+		for (Object[] row : find(first, object.get(columns[first].getTagName()))) {
+			boolean isMatching = true ;
+			for (int i : present) {
+				if (!Objects.equals(BioObjectCache.key(new Object[] {row[i]}), BioObjectCache.key(new Object[] {object.get(columns[i].getTagName())}))) {
+					isMatching = false ;
+					break ;
+				}
+			}
+			if (isMatching) {
+				list.add(row) ;
+			}
+		}
+		return list ;
+	}
+	/**
+	 * Returns whether column is indexed
+	 * @param column
+	 * @return
+	 */
+	public boolean isIndexed(int column) {
+		return indexes.containsKey(column) ;
+	}
+	/**
+	 * Returns all rows
+	 * @return
+	 */
+	public List<Object[]> getRows() {
+		return new ArrayList<Object[]>(rows.values()) ;
+	}
+
+	public int size() {
+		return rows.size() ;
+	}
+	/**
+	 * Returns maximum value of delta column or null if there is no delta column or rows
+	 * @return
+	 */
+	public Object getMaxVersion() {
+		return maxVersion;
+	}
+
+	public long getLoadedAt() {
+		return loadedAt;
+	}
+
+	private static LinkedHashMap<Object, Object[]> toMap(BioTable table, List<Object[]> rows) {
+		int[] keyIndexes = getKeyIndexes(table) ;
+		LinkedHashMap<Object, Object[]> map = new LinkedHashMap<Object, Object[]>() ;
+		for (Object[] row : rows) {
+			map.put(key(row, keyIndexes), row) ;
+		}
+		return map ;
+	}
+
+	private static Object key(Object[] row, int[] keyIndexes) {
+		Object[] values = new Object[keyIndexes.length] ;
+		for (int i = 0; i < keyIndexes.length; i++) {
+			values[i] = row[keyIndexes[i]] ;
+		}
+		return BioObjectCache.key(values) ;
+	}
+
+	private static int[] getKeyIndexes(BioTable table) {
+		int[] indexes = new int[table.getKeys().length] ;
+		for (int i = 0; i < indexes.length; i++) {
+			indexes[i] = indexOf(table, table.getKeys()[i]) ;
+		}
+		return indexes ;
+	}
+	/**
+	 * Returns index of column in table column order
+	 * @param table
+	 * @param column
+	 * @return
+	 */
+	public static int indexOf(BioTable table, BioColumn column) {
+		BioColumn[] columns = table.getColumns() ;
+		for (int i = 0; i < columns.length; i++) {
+			if (columns[i] == column) {
+				return i ;
+			}
+		}
+		return -1 ;
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static int compare(Object a, Object b) {
+		if (a instanceof Number && b instanceof Number) {
+			return Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue()) ;
+		}
+		return ((Comparable) a).compareTo(b) ;
+	}
+}
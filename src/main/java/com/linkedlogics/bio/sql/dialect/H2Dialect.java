@@ -0,0 +1,39 @@
+package com.linkedlogics.bio.sql.dialect;
+
+import com.linkedlogics.bio.sql.BioBulkLoader;
+import com.linkedlogics.bio.sql.object.BioColumn;
+import com.linkedlogics.bio.sql.object.BioTable;
+import com.linkedlogics.bio.sql.utility.SqlUtility;
+
+/**
+ * H2 dialect
+ * @author rajab
+ *
+ */
+public class H2Dialect extends SqlDialect {
+	@Override
+	public String getName() {
+		return "H2" ;
+	}
+
+	@Override
+	public String limit(String sql, int limit) {
+		return sql + " limit " + limit ;
+	}
+
+	@Override
+	public String upsert(BioTable table, BioColumn[] columns, String select) {
+		return "merge into " + SqlUtility.getTableName(table) + " (" + SqlUtility.getColumnNames(columns) + ") key (" 
+				+ SqlUtility.getColumnNames(table.getKeys()) + ") " + select ;
+	}
+
+	@Override
+	public int getMaxInListSize() {
+		return Integer.MAX_VALUE ;
+	}
+
+	@Override
+	public BioBulkLoader.Importer getImporter() {
+		return new BioBulkLoader.H2Importer() ;
+	}
+}
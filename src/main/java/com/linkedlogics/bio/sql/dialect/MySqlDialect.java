@@ -0,0 +1,114 @@
+package com.linkedlogics.bio.sql.dialect;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+
+import com.linkedlogics.bio.sql.BioBulkLoader;
+import com.linkedlogics.bio.sql.object.BioColumn;
+import com.linkedlogics.bio.sql.object.BioTable;
+import com.linkedlogics.bio.sql.utility.SqlUtility;
+
+/**
+ * MySQL and MariaDB dialect
+ * @author rajab
+ *
+ */
+public class MySqlDialect extends SqlDialect {
+	@Override
+	public String getName() {
+		return "MySQL" ;
+	}
+
+	@Override
+	public String limit(String sql, int limit) {
+		return sql + " limit " + limit ;
+	}
+
+	@Override
+	public String upsert(BioTable table, BioColumn[] columns, String select) {
+		StringBuilder sql = new StringBuilder("insert into ").append(SqlUtility.getTableName(table)) ;
+		sql.append(" (").append(SqlUtility.getColumnNames(columns)).append(") ").append(select) ;
+		String update = updates(columns) ;
+		if (update.length() == 0) {
+			// nothing to update so key is assigned to itself
+			String key = table.getKeys()[0].getColumn() ;
+			update = key + " = " + key ;
+		}
+		sql.append(" on duplicate key update ").append(update) ;
+		return sql.toString() ;
+	}
+	/**
+	 * Returns assignments of non key columns from inserted values
+	 * @param columns
+	 * @return
+	 */
+	private String updates(BioColumn[] columns) {
+		StringBuilder sql = new StringBuilder() ;
+		String delimiter = "" ;
+		for (BioColumn column : columns) {
+			if (!column.isKey()) {
+				sql.append(delimiter).append(column.getColumn()).append(" = values(").append(column.getColumn()).append(")") ;
+				delimiter = "," ;
+			}
+		}
+		return sql.toString() ;
+	}
+
+	@Override
+	public int getMaxBindParameters() {
+		return 65535 ;
+	}
+
+	@Override
+	public int getMaxInListSize() {
+		return Integer.MAX_VALUE ;
+	}
+
+	@Override
+	public BioBulkLoader.Importer getImporter() {
+		return new LoadDataImporter() ;
+	}
+
+	@Override
+	public String getBulkNullValue() {
+		return "\\N" ;
+	}
+
+	/**
+	 * Server side LOAD DATA importer, \N is read as NULL and binary columns are read from hex with unhex()
+	 */
+	public class LoadDataImporter implements BioBulkLoader.Importer {
+		@Override
+		public int load(Connection connection, String table, BioColumn[] columns, File file, char delimiter) throws SQLException {
+			String path = file.getAbsolutePath().replace("\\", "\\\\").replace("'", "\\'") ;
+			String separator = delimiter == '\'' || delimiter == '\\' ? "\\" + delimiter : String.valueOf(delimiter) ;
+			StringBuilder names = new StringBuilder() ;
+			StringBuilder set = new StringBuilder() ;
+			for (int i = 0; i < columns.length; i++) {
+				names.append(i > 0 ? ", " : "") ;
+				if (columns[i].getSqlType() == Types.BLOB) {
+					// binary is written as hex and decoded through a user variable
+					names.append("@v").append(i) ;
+					set.append(set.length() > 0 ? ", " : " set ").append(columns[i].getColumn()).append(" = unhex(@v").append(i).append(")") ;
+				} else {
+					names.append(columns[i].getColumn()) ;
+				}
+			}
+			String sql = "load data infile '" + path + "' into table " + table + " character set utf8mb4 fields terminated by '" + separator 
+					+ "' optionally enclosed by '\"' escaped by '' lines terminated by '\\n' ignore 1 lines (" + names + ")" + set ;
+			try (Statement s = connection.createStatement()) {
+				return s.executeUpdate(sql) ;
+			}
+		}
+
+		@Override
+		public int merge(Connection connection, BioTable table, String stagingTable, BioColumn[] columns) throws SQLException {
+			try (Statement s = connection.createStatement()) {
+				return s.executeUpdate(upsert(table, columns, "select " + SqlUtility.getColumnNames(columns) + " from " + stagingTable)) ;
+			}
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package com.linkedlogics.bio.sql.dialect;
+
+import com.linkedlogics.bio.sql.object.BioColumn;
+import com.linkedlogics.bio.sql.object.BioTable;
+import com.linkedlogics.bio.sql.utility.SqlUtility;
+
+/**
+ * Oracle dialect (12c and later for row limits)
+ * @author rajab
+ *
+ */
+public class OracleDialect extends SqlDialect {
+	@Override
+	public String getName() {
+		return "Oracle" ;
+	}
+
+	@Override
+	public String forUpdate(String sql, int limit, boolean skipLocked) {
+		// fetch first can't be used together with for update so rownum is used instead
+		if (limit > 0) {
+			int where = sql.indexOf(" where ") ;
+			if (where >= 0) {
+				sql = sql.substring(0, where) + " where (" + sql.substring(where + 7) + ") and rownum <= " + limit ;
+			} else {
+				sql = sql + " where rownum <= " + limit ;
+			}
+		}
+		return sql + " for update" + (skipLocked ? " skip locked" : "") ;
+	}
+
+	@Override
+	public String rowSelect(BioColumn[] columns) {
+		StringBuilder sql = new StringBuilder("select ") ;
+		for (int i = 0; i < columns.length; i++) {
+			sql.append(i > 0 ? ", " : "").append("? ").append(columns[i].getColumn()) ;
+		}
+		return sql.append(" from dual").toString() ;
+	}
+
+	@Override
+	protected String sourceColumns(BioColumn[] columns) {
+		// source columns are named by select itself
+		return "" ;
+	}
+
+	@Override
+	public String insertRows(BioTable table, BioColumn[] columns, int rows) {
+		String into = " into " + SqlUtility.getTableName(table) + " (" + SqlUtility.getColumnNames(columns) + ") values (" + parameters(columns.length) + ")" ;
+		StringBuilder sql = new StringBuilder("insert all") ;
+		for (int i = 0; i < rows; i++) {
+			sql.append(into) ;
+		}
+		return sql.append(" select 1 from dual").toString() ;
+	}
+
+	@Override
+	public int getMaxBindParameters() {
+		return 65535 ;
+	}
+}
@@ -0,0 +1,90 @@
+package com.linkedlogics.bio.sql.dialect;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import com.linkedlogics.bio.sql.BioBulkLoader;
+import com.linkedlogics.bio.sql.object.BioColumn;
+import com.linkedlogics.bio.sql.object.BioTable;
+import com.linkedlogics.bio.sql.utility.SqlUtility;
+
+/**
+ * PostgreSQL dialect
+ * @author rajab
+ *
+ */
+public class PostgreSqlDialect extends SqlDialect {
+	@Override
+	public String getName() {
+		return "PostgreSQL" ;
+	}
+
+	@Override
+	public String limit(String sql, int limit) {
+		return sql + " limit " + limit ;
+	}
+
+	@Override
+	public String upsert(BioTable table, BioColumn[] columns, String select) {
+		StringBuilder sql = new StringBuilder("insert into ").append(SqlUtility.getTableName(table)) ;
+		sql.append(" (").append(SqlUtility.getColumnNames(columns)).append(") ").append(select) ;
+		sql.append(" on conflict (").append(SqlUtility.getColumnNames(table.getKeys())).append(")") ;
+		String update = updates(columns, "", "excluded.") ;
+		if (update.length() > 0) {
+			sql.append(" do update set ").append(update) ;
+		} else {
+			sql.append(" do nothing") ;
+		}
+		return sql.toString() ;
+	}
+
+	@Override
+	public boolean isReturning() {
+		return true ;
+	}
+
+	@Override
+	public String returning(String insert, String[] columns) {
+		return insert + " returning " + String.join(",", columns) ;
+	}
+
+	@Override
+	public int getMaxInListSize() {
+		return Integer.MAX_VALUE ;
+	}
+
+	@Override
+	public BioBulkLoader.Importer getImporter() {
+		return new CopyImporter() ;
+	}
+
+	/**
+	 * Server side COPY importer, unquoted empty values are read as NULL
+	 */
+	public class CopyImporter implements BioBulkLoader.Importer {
+		@Override
+		public int load(Connection connection, String table, BioColumn[] columns, File file, char delimiter) throws SQLException {
+			String sql = "copy " + table + " (" + SqlUtility.getColumnNames(columns) + ") from '" + file.getAbsolutePath().replace("'", "''") 
+					+ "' with (format csv, header true, encoding 'UTF8', delimiter '" + (delimiter == '\'' ? "''" : String.valueOf(delimiter)) + "')" ;
+			try (Statement s = connection.createStatement()) {
+				return s.executeUpdate(sql) ;
+			}
+		}
+
+		@Override
+		public int merge(Connection connection, BioTable table, String stagingTable, BioColumn[] columns) throws SQLException {
+			try (Statement s = connection.createStatement()) {
+				return s.executeUpdate(upsert(table, columns, "select " + SqlUtility.getColumnNames(columns) + " from " + stagingTable)) ;
+			}
+		}
+		/**
+		 * bytea is read from hex only with \x prefix
+		 */
+		@Override
+		public String formatHex(String hex) {
+			return "\\x" + hex ;
+		}
+	}
+}
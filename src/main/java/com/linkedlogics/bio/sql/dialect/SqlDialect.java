@@ -0,0 +1,235 @@
+package com.linkedlogics.bio.sql.dialect;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import com.linkedlogics.bio.sql.BioBulkLoader;
+import com.linkedlogics.bio.sql.exception.SqlException;
+import com.linkedlogics.bio.sql.object.BioColumn;
+import com.linkedlogics.bio.sql.object.BioTable;
+import com.linkedlogics.bio.sql.utility.SqlUtility;
+
+/**
+ * Database specific SQL generation. Base class produces standard SQL (SQL:2008)
+ * and it is used for databases which have no specific dialect
+ * @author rajab
+ *
+ */
+public class SqlDialect {
+	/**
+	 * Returns dialect name
+	 * @return
+	 */
+	public String getName() {
+		return "ANSI" ;
+	}
+	/**
+	 * Limits number of rows returned by select
+	 * @param sql
+	 * @param limit
+	 * @return
+	 */
+	public String limit(String sql, int limit) {
+		return sql + " fetch first " + limit + " rows only" ;
+	}
+	/**
+	 * Locks rows returned by select, optionally skipping rows locked by others so that
+	 * many consumers can work on same table. Limit is ignored if it is 0
+	 * @param sql
+	 * @param limit
+	 * @param skipLocked
+	 * @return
+	 */
+	public String forUpdate(String sql, int limit, boolean skipLocked) {
+		if (limit > 0) {
+			sql = limit(sql, limit) ;
+		}
+		return sql + " for update" + (skipLocked ? " skip locked" : "") ;
+	}
+	/**
+	 * Returns select producing single row of parameters which can be used as source of upsert
+	 * @param columns
+	 * @return
+	 */
+	public String rowSelect(BioColumn[] columns) {
+		return "values (" + parameters(columns.length) + ")" ;
+	}
+	/**
+	 * Returns statement inserting rows of select or updating them if primary keys already exist.
+	 * Select must return columns in provided order
+	 * @param table
+	 * @param columns
+	 * @param select
+	 * @return
+	 */
+	public String upsert(BioTable table, BioColumn[] columns, String select) {
+		// standard merge with named source columns
+		StringBuilder sql = new StringBuilder("merge into ").append(SqlUtility.getTableName(table)).append(" d using (") ;
+		sql.append(select).append(") s").append(sourceColumns(columns)).append(" on (") ;
+		String delimiter = "" ;
+		for (BioColumn key : table.getKeys()) {
+			sql.append(delimiter).append("d.").append(key.getColumn()).append(" = s.").append(key.getColumn()) ;
+			delimiter = " and " ;
+		}
+		sql.append(")") ;
+		String update = updates(columns, "d.", "s.") ;
+		if (update.length() > 0) {
+			sql.append(" when matched then update set ").append(update) ;
+		}
+		sql.append(" when not matched then insert (").append(SqlUtility.getColumnNames(columns)).append(") values (") ;
+		delimiter = "" ;
+		for (BioColumn column : columns) {
+			sql.append(delimiter).append("s.").append(column.getColumn()) ;
+			delimiter = "," ;
+		}
+		sql.append(")") ;
+		return sql.toString() ;
+	}
+	/**
+	 * Returns insert of many rows in single statement
+	 * @param table
+	 * @param columns
+	 * @param rows
+	 * @return
+	 */
+	public String insertRows(BioTable table, BioColumn[] columns, int rows) {
+		StringBuilder sql = new StringBuilder("insert into ").append(SqlUtility.getTableName(table)) ;
+		sql.append(" (").append(SqlUtility.getColumnNames(columns)).append(") values ") ;
+		String row = "(" + parameters(columns.length) + ")" ;
+		for (int i = 0; i < rows; i++) {
+			sql.append(i > 0 ? "," : "").append(row) ;
+		}
+		return sql.toString() ;
+	}
+	/**
+	 * Indicates whether insert can return generated values with returning clause
+	 * @return
+	 */
+	public boolean isReturning() {
+		return false ;
+	}
+	/**
+	 * Adds returning clause to insert
+	 * @param insert
+	 * @param columns
+	 * @return
+	 */
+	public String returning(String insert, String[] columns) {
+		throw new SqlException("returning is not supported by " + getName()) ;
+	}
+	/**
+	 * Returns maximum number of bind parameters in single statement
+	 * @return
+	 */
+	public int getMaxBindParameters() {
+		return 32767 ;
+	}
+	/**
+	 * Returns maximum number of elements in single IN list
+	 * @return
+	 */
+	public int getMaxInListSize() {
+		return 1000 ;
+	}
+	/**
+	 * Returns maximum number of rows which fit into single statement having provided number of parameters per row
+	 * @param parametersPerRow
+	 * @param maxRows
+	 * @return
+	 */
+	public int getMaxRows(int parametersPerRow, int maxRows) {
+		return Math.max(1, Math.min(maxRows, getMaxBindParameters() / Math.max(1, parametersPerRow))) ;
+	}
+	/**
+	 * Returns native bulk importer or null if it is not supported
+	 * @return
+	 */
+	public BioBulkLoader.Importer getImporter() {
+		return null ;
+	}
+	/**
+	 * Returns text which is read as NULL by bulk importer
+	 * @return
+	 */
+	public String getBulkNullValue() {
+		return "" ;
+	}
+	/**
+	 * Returns comma separated parameters
+	 * @param count
+	 * @return
+	 */
+	protected String parameters(int count) {
+		StringBuilder p = new StringBuilder() ;
+		for (int i = 0; i < count; i++) {
+			p.append(i > 0 ? ",?" : "?") ;
+		}
+		return p.toString() ;
+	}
+	/**
+	 * Returns column list of merge source
+	 * @param columns
+	 * @return
+	 */
+	protected String sourceColumns(BioColumn[] columns) {
+		return " (" + SqlUtility.getColumnNames(columns) + ")" ;
+	}
+	/**
+	 * Returns assignments of non key columns
+	 * @param columns
+	 * @param target
+	 * @param source
+	 * @return
+	 */
+	protected String updates(BioColumn[] columns, String target, String source) {
+		StringBuilder sql = new StringBuilder() ;
+		String delimiter = "" ;
+		for (BioColumn column : columns) {
+			if (!column.isKey()) {
+				sql.append(delimiter).append(target).append(column.getColumn()).append(" = ").append(source).append(column.getColumn()) ;
+				delimiter = "," ;
+			}
+		}
+		return sql.toString() ;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o != null && o.getClass() == getClass() ;
+	}
+
+	@Override
+	public int hashCode() {
+		return getClass().hashCode() ;
+	}
+	/**
+	 * Returns dialect by database product name
+	 * @param product
+	 * @return
+	 */
+	public static SqlDialect getDialect(String product) {
+		String name = product.toLowerCase() ;
+		if (name.contains("h2")) {
+			return new H2Dialect() ;
+		} else if (name.contains("postgres")) {
+			return new PostgreSqlDialect() ;
+		} else if (name.contains("oracle")) {
+			return new OracleDialect() ;
+		} else if (name.contains("mysql") || name.contains("mariadb")) {
+			return new MySqlDialect() ;
+		}
+		return new SqlDialect() ;
+	}
+	/**
+	 * Returns dialect from connection metadata
+	 * @param connection
+	 * @return
+	 */
+	public static SqlDialect getDialect(Connection connection) {
+		try {
+			return getDialect(connection.getMetaData().getDatabaseProductName()) ;
+		} catch (SQLException e) {
+			throw new SqlException(e) ;
+		}
+	}
+}
@@ -2,7 +2,9 @@ package com.linkedlogics.bio.sql.dictionary.builder;
 
 import java.lang.reflect.Field;
 import java.sql.Types;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map.Entry;
 
 import com.linkedlogics.bio.BioDictionary;
@@ -13,7 +15,6 @@ import com.linkedlogics.bio.annotation.BioRemoteObj;
 import com.linkedlogics.bio.annotation.BioRemoteTag;
 import com.linkedlogics.bio.dictionary.BioObj;
 import com.linkedlogics.bio.dictionary.BioTag;
-import com.linkedlogics.bio.dictionary.builder.DictionaryReader;
 import com.linkedlogics.bio.exception.DictionaryException;
 import com.linkedlogics.bio.expression.Dynamic;
 import com.linkedlogics.bio.sql.BioSqlDictionary;
@@ -24,6 +25,10 @@ import com.linkedlogics.bio.sql.annotation.BioRemoteSqlTags;
 import com.linkedlogics.bio.sql.annotation.BioSql;
 import com.linkedlogics.bio.sql.annotation.BioSqlRelationTag;
 import com.linkedlogics.bio.sql.annotation.BioSqlTag;
+import com.linkedlogics.bio.sql.cache.BioKeyFilter;
+import com.linkedlogics.bio.sql.cache.BioObjectCache;
+import com.linkedlogics.bio.sql.cache.BioOffHeapCache;
+import com.linkedlogics.bio.sql.cache.BioQueryCache;
 import com.linkedlogics.bio.sql.object.BioColumn;
 import com.linkedlogics.bio.sql.object.BioRelation;
 import com.linkedlogics.bio.sql.object.BioTable;
@@ -33,8 +38,10 @@ import io.github.classgraph.ClassGraph;
 import io.github.classgraph.ClassInfo;
 import io.github.classgraph.ScanResult;
 
-public class AnnotationReader implements DictionaryReader {
+public class AnnotationReader implements PreparingReader {
 	private String packageName ;
+	private List<BioTable> tables ;
+	private List<Class> remoteClasses ;
 
 	public AnnotationReader() {
 
@@ -44,8 +51,11 @@ public class AnnotationReader implements DictionaryReader {
 		this.packageName = packageName ;
 	}
 	
+	/**
+	 * Scans packages and creates tables without registering them
+	 */
 	@Override
-	public void read(BioDictionaryBuilder builder) {
+	public void prepare(BioDictionaryBuilder builder) {
 		ClassGraph graph = new ClassGraph().enableAnnotationInfo()
 				.enableClassInfo()
 				.enableFieldInfo();
@@ -54,138 +64,153 @@ public class AnnotationReader implements DictionaryReader {
 			graph.whitelistPackages(packageName) ;
 		}
 		
+		List<BioTable> tables = new ArrayList<BioTable>() ;
+		List<Class> remoteClasses = new ArrayList<Class>() ;
 		try (ScanResult scanResult = graph.scan()) {
 			// Finding all bio objects which has @BioSql
 			for (ClassInfo classInfo : scanResult.getClassesWithAnnotation(com.linkedlogics.bio.sql.annotation.BioSql.class.getName())) {
-				if (!checkProfile(classInfo.getName(), builder.getProfiles(), builder.isOnlyProfiles())) {
+				if (isRegistered(classInfo.getName()) || !checkProfile(classInfo.getName(), builder.getProfiles(), builder.isOnlyProfiles())) {
 					continue ;
 				}
 				BioTable table = createTable(classInfo.getName());
 				if (table != null) {
-					BioSqlDictionary.getOrCreateDictionary(table.getObj().getDictionary()).addTable(table);
+					tables.add(table) ;
 				}
 			}
 			
 			// find all remote objs 
 			for (ClassInfo classInfo : scanResult.getClassesWithAnnotation(com.linkedlogics.bio.annotation.BioRemoteObj.class.getName())) {
-				if (!checkProfile(classInfo.getName(), builder.getProfiles(), builder.isOnlyProfiles())) {
+				if (isRegistered(classInfo.getName()) || !checkProfile(classInfo.getName(), builder.getProfiles(), builder.isOnlyProfiles())) {
 					continue ;
 				}
-
-				Class bioRemoteClass = classInfo.loadClass();
-				BioRemoteObj remoteAnnotation = (BioRemoteObj) bioRemoteClass.getAnnotation(BioRemoteObj.class) ;
-				Field[] fields = bioRemoteClass.getDeclaredFields();
-				for (int j = 0; j < fields.length; j++) {
-					// process remote sql tag
-					if (fields[j].isAnnotationPresent(BioRemoteSqlTag.class)) {
-						try {
-							BioRemoteSqlTag annotation = fields[j].getAnnotation(BioRemoteSqlTag.class);
-							BioObj obj = BioDictionary.getOrCreateDictionary(remoteAnnotation.dictionary()).getObjByType(annotation.obj()) ;
-							if (obj != null) {
-								BioColumn column = createRemoteColumn(fields[j], obj);
-								if (column != null) {
-									BioTable table =  BioSqlDictionary.getOrCreateDictionary(obj.getDictionary()).getTableByCode(obj.getCode()) ;
-									if (table != null) {
-										table.addColumn(column);
-									}
-								}
+				remoteClasses.add(classInfo.loadClass()) ;
+			}
+		}
+		this.tables = tables ;
+		this.remoteClasses = remoteClasses ;
+	}
+	
+	/**
+	 * Checks whether class is already registered by another source so that scanning skips it
+	 * @param className
+	 * @return
+	 */
+	protected boolean isRegistered(String className) {
+		return false ;
+	}
+	
+	@Override
+	public void read(BioDictionaryBuilder builder) {
+		if (tables == null) {
+			prepare(builder) ;
+		}
+		try {
+			for (BioTable table : tables) {
+				BioSqlDictionary.getOrCreateDictionary(table.getObj().getDictionary()).addTable(table);
+			}
+			// remote columns are added after all tables are registered
+			for (Class bioRemoteClass : remoteClasses) {
+				readRemote(bioRemoteClass) ;
+			}
+		} finally {
+			tables = null ;
+			remoteClasses = null ;
+		}
+	}
+	
+	private void readRemote(Class bioRemoteClass) {
+		BioRemoteObj remoteAnnotation = (BioRemoteObj) bioRemoteClass.getAnnotation(BioRemoteObj.class) ;
+		Field[] fields = bioRemoteClass.getDeclaredFields();
+		for (int j = 0; j < fields.length; j++) {
+			// process remote sql tag
+			if (fields[j].isAnnotationPresent(BioRemoteSqlTag.class)) {
+				try {
+					BioRemoteSqlTag annotation = fields[j].getAnnotation(BioRemoteSqlTag.class);
+					BioObj obj = BioDictionary.getOrCreateDictionary(remoteAnnotation.dictionary()).getObjByType(annotation.obj()) ;
+					if (obj != null) {
+						BioColumn column = createRemoteColumn(fields[j], obj);
+						if (column != null) {
+							BioTable table =  BioSqlDictionary.getOrCreateDictionary(obj.getDictionary()).getTableByCode(obj.getCode()) ;
+							if (table != null) {
+								table.addColumn(column);
 							}
-							
-						} catch (Throwable e) {
-							throw new DictionaryException(e) ;
 						}
-					// process remote sql tag array
-					} else if (fields[j].isAnnotationPresent(BioRemoteSqlTags.class)) {
-						BioRemoteTag[] array = (BioRemoteTag[]) fields[j].getAnnotationsByType(BioRemoteTag.class) ;
-						for (int k = 0; k < array.length; k++) {
-							try {
-								BioRemoteTag annotation = array[k] ;
-								
-								BioObj obj = BioDictionary.getOrCreateDictionary(remoteAnnotation.dictionary()).getObjByType(annotation.obj()) ;
-								if (obj != null) {
-									BioColumn column = createRemoteColumn(fields[j], obj);
-									if (column != null) {
-										BioTable table =  BioSqlDictionary.getOrCreateDictionary(obj.getDictionary()).getTableByCode(obj.getCode()) ;
-										if (table != null) {
-											table.addColumn(column);
-										}
-									}
+					}
+					
+				} catch (Throwable e) {
+					throw new DictionaryException(e) ;
+				}
+			// process remote sql tag array
+			} else if (fields[j].isAnnotationPresent(BioRemoteSqlTags.class)) {
+				BioRemoteTag[] array = (BioRemoteTag[]) fields[j].getAnnotationsByType(BioRemoteTag.class) ;
+				for (int k = 0; k < array.length; k++) {
+					try {
+						BioRemoteTag annotation = array[k] ;
+						
+						BioObj obj = BioDictionary.getOrCreateDictionary(remoteAnnotation.dictionary()).getObjByType(annotation.obj()) ;
+						if (obj != null) {
+							BioColumn column = createRemoteColumn(fields[j], obj);
+							if (column != null) {
+								BioTable table =  BioSqlDictionary.getOrCreateDictionary(obj.getDictionary()).getTableByCode(obj.getCode()) ;
+								if (table != null) {
+									table.addColumn(column);
 								}
-								
-							} catch (Throwable e) {
-								throw new DictionaryException(e) ;
 							}
 						}
-					// process remote sql relation
-					} else if (fields[j].isAnnotationPresent(BioRemoteSqlRelationTag.class)) {
-						try {
-							BioRemoteSqlRelationTag annotation = fields[j].getAnnotation(BioRemoteSqlRelationTag.class);
-							BioObj obj = BioDictionary.getOrCreateDictionary(remoteAnnotation.dictionary()).getObjByType(annotation.obj()) ;
-							if (obj != null) {
-								BioRelation relation = createRelation(fields[j], obj) ;
-								if (relation != null) {
-									BioTable table =  BioSqlDictionary.getOrCreateDictionary(obj.getDictionary()).getTableByCode(obj.getCode()) ;
-									if (table != null) {
-										table.addRelation(relation);
-									}
-								}
+						
+					} catch (Throwable e) {
+						throw new DictionaryException(e) ;
+					}
+				}
+			// process remote sql relation
+			} else if (fields[j].isAnnotationPresent(BioRemoteSqlRelationTag.class)) {
+				try {
+					BioRemoteSqlRelationTag annotation = fields[j].getAnnotation(BioRemoteSqlRelationTag.class);
+					BioObj obj = BioDictionary.getOrCreateDictionary(remoteAnnotation.dictionary()).getObjByType(annotation.obj()) ;
+					if (obj != null) {
+						BioRelation relation = createRelation(fields[j], obj) ;
+						if (relation != null) {
+							BioTable table =  BioSqlDictionary.getOrCreateDictionary(obj.getDictionary()).getTableByCode(obj.getCode()) ;
+							if (table != null) {
+								table.addRelation(relation);
 							}
-							
-						} catch (Throwable e) {
-							throw new DictionaryException(e) ;
 						}
-					// process remote sql relations
-					} else if (fields[j].isAnnotationPresent(BioRemoteSqlRelationTags.class)) {
-						BioRemoteSqlRelationTag[] array = (BioRemoteSqlRelationTag[]) fields[j].getAnnotationsByType(BioRemoteSqlRelationTag.class) ;
-						for (int k = 0; k < array.length; k++) {
-							try {
-								BioRemoteSqlRelationTag annotation = array[k] ;
-								
-								BioObj obj = BioDictionary.getOrCreateDictionary(remoteAnnotation.dictionary()).getObjByType(annotation.obj()) ;
-								if (obj != null) {
-									BioRelation relation = createRelation(fields[j], obj) ;
-									if (relation != null) {
-										BioTable table =  BioSqlDictionary.getOrCreateDictionary(obj.getDictionary()).getTableByCode(obj.getCode()) ;
-										if (table != null) {
-											table.addRelation(relation);
-										}
-									}
+					}
+					
+				} catch (Throwable e) {
+					throw new DictionaryException(e) ;
+				}
+			// process remote sql relations
+			} else if (fields[j].isAnnotationPresent(BioRemoteSqlRelationTags.class)) {
+				BioRemoteSqlRelationTag[] array = (BioRemoteSqlRelationTag[]) fields[j].getAnnotationsByType(BioRemoteSqlRelationTag.class) ;
+				for (int k = 0; k < array.length; k++) {
+					try {
+						BioRemoteSqlRelationTag annotation = array[k] ;
+						
+						BioObj obj = BioDictionary.getOrCreateDictionary(remoteAnnotation.dictionary()).getObjByType(annotation.obj()) ;
+						if (obj != null) {
+							BioRelation relation = createRelation(fields[j], obj) ;
+							if (relation != null) {
+								BioTable table =  BioSqlDictionary.getOrCreateDictionary(obj.getDictionary()).getTableByCode(obj.getCode()) ;
+								if (table != null) {
+									table.addRelation(relation);
 								}
-								
-							} catch (Throwable e) {
-								throw new DictionaryException(e) ;
 							}
 						}
-					} 
+						
+					} catch (Throwable e) {
+						throw new DictionaryException(e) ;
+					}
 				}
-			}
+			} 
 		}
-
 	}
 
 	private BioTable createTable(String tableClassName) {
 		try {
 			Class bioClass = Class.forName(tableClassName) ;
-			if (bioClass.getAnnotation(com.linkedlogics.bio.annotation.BioObj.class) == null 
-					&& bioClass.getAnnotation(BioPojo.class) == null) {
-				throw new DictionaryException("@BioSql must be used together with @BioObj or @BioPojo in class" + tableClassName) ;
-			}
-			
-			BioObj obj = BioDictionary.findObj(bioClass) ;
-			if (obj == null) {
-				throw new DictionaryException(bioClass + " bio obj is not found in dictionary") ;
-			}
-			
-			BioSql sqlAnnotation = (BioSql) bioClass.getAnnotation(BioSql.class) ;
-			String tableName = sqlAnnotation.table() ;
-			if (tableName == null || tableName.length() == 0) {
-				tableName = obj.getName() ;
-			}
-			String schema = sqlAnnotation.schema();
-			if (schema != null && schema.length() == 0) {
-				schema = null ;
-			}
-			BioTable table = new BioTable(obj, tableName, schema) ;
+			BioTable table = createTable(bioClass) ;
+			BioObj obj = table.getObj() ;
 		
 			HashMap<String, BioColumn> columnMap = new HashMap<String, BioColumn>();
 			HashMap<String, BioRelation> relationMap = new HashMap<String, BioRelation>();
@@ -228,6 +253,52 @@ public class AnnotationReader implements DictionaryReader {
 		}
 	}
 	
+	/**
+	 * Creates table of class having @BioSql without columns and relations
+	 * @param bioClass
+	 * @return
+	 */
+	protected BioTable createTable(Class bioClass) {
+		if (bioClass.getAnnotation(com.linkedlogics.bio.annotation.BioObj.class) == null 
+				&& bioClass.getAnnotation(BioPojo.class) == null) {
+			throw new DictionaryException("@BioSql must be used together with @BioObj or @BioPojo in class" + bioClass.getName()) ;
+		}
+		
+		BioObj obj = BioDictionary.findObj(bioClass) ;
+		if (obj == null) {
+			throw new DictionaryException(bioClass + " bio obj is not found in dictionary") ;
+		}
+		
+		BioSql sqlAnnotation = (BioSql) bioClass.getAnnotation(BioSql.class) ;
+		String tableName = sqlAnnotation.table() ;
+		if (tableName == null || tableName.length() == 0) {
+			tableName = obj.getName() ;
+		}
+		String schema = sqlAnnotation.schema();
+		if (schema != null && schema.length() == 0) {
+			schema = null ;
+		}
+		BioTable table = new BioTable(obj, tableName, schema) ;
+		if (sqlAnnotation.cacheSize() > 0) {
+			table.setCache(new BioObjectCache(sqlAnnotation.cacheSize(), sqlAnnotation.cacheTtl(), sqlAnnotation.cacheBytes()));
+		}
+		if (sqlAnnotation.queryCacheSize() > 0) {
+			table.setQueryCache(new BioQueryCache(sqlAnnotation.queryCacheSize(), sqlAnnotation.queryCacheTtl(), sqlAnnotation.queryCacheBytes()));
+		}
+		if (sqlAnnotation.offHeapCacheBytes() > 0) {
+			table.setOffHeapCache(new BioOffHeapCache(sqlAnnotation.offHeapCacheBytes()));
+		}
+		if (sqlAnnotation.keyFilterSize() > 0) {
+			table.setKeyFilter(new BioKeyFilter(sqlAnnotation.keyFilterSize(), sqlAnnotation.keyFilterFpp()));
+		}
+		table.setWarmUp(sqlAnnotation.warmUp());
+		if (sqlAnnotation.warmUpWhere().length() > 0) {
+			table.setWarmUpWhere(sqlAnnotation.warmUpWhere());
+		}
+		
+		return table ;
+	}
+	
 	protected BioColumn createColumn(Field f, BioObj obj) {
 		BioTag tag ; 
 		try {
@@ -240,7 +311,7 @@ public class AnnotationReader implements DictionaryReader {
 			BioSqlTag tagAnnotation = (BioSqlTag) f.getAnnotation(BioSqlTag.class) ;
 			
 			return createColumn(tagAnnotation.column(), tagAnnotation.isBlob(), tagAnnotation.isClob(), tagAnnotation.isJson(), tagAnnotation.isXml(), 
-					tagAnnotation.isHex(), tagAnnotation.isCompressed(), tagAnnotation.isEncrypted(), tagAnnotation.isKey(), tagAnnotation.isVersion(), tagAnnotation.isEnumAsString(), tag) ;
+					tagAnnotation.isHex(), tagAnnotation.isCompressed(), tagAnnotation.isEncrypted(), tagAnnotation.isKey(), tagAnnotation.isVersion(), tagAnnotation.isAuto(), tagAnnotation.isEnumAsString(), tag) ;
 		} else {
 			throw new DictionaryException("@BioSqlTag at " + f.getName() + " must be used together with @BioTag annotation in class " + obj.getBioClass()) ;
 		}
@@ -275,14 +346,14 @@ public class AnnotationReader implements DictionaryReader {
 			BioRemoteSqlTag tagAnnotation = (BioRemoteSqlTag) f.getAnnotation(BioRemoteSqlTag.class) ;
 			
 			return createColumn(tagAnnotation.column(), tagAnnotation.isBlob(), tagAnnotation.isClob(), tagAnnotation.isJson(), tagAnnotation.isXml(), 
-					tagAnnotation.isHex(), tagAnnotation.isCompressed(), tagAnnotation.isEncrypted(), tagAnnotation.isKey(), tagAnnotation.isVersion(), tagAnnotation.isEnumAsString(), tag) ;
+					tagAnnotation.isHex(), tagAnnotation.isCompressed(), tagAnnotation.isEncrypted(), tagAnnotation.isKey(), tagAnnotation.isVersion(), tagAnnotation.isAuto(), tagAnnotation.isEnumAsString(), tag) ;
 		} else {
 			throw new DictionaryException("@BioSqlTag must be used together with @BioTag annotation in class " + obj.getBioClass()) ;
 		}
 	}
 	
-	private BioColumn createColumn(String columnName, boolean isBlob, boolean isClob, boolean isJson, 
-			boolean isXml, boolean isHex, boolean isCompressed, boolean isEncrypted, boolean isKey, boolean isVersion, boolean isEnumAsString, BioTag tag) {
+	protected BioColumn createColumn(String columnName, boolean isBlob, boolean isClob, boolean isJson, 
+			boolean isXml, boolean isHex, boolean isCompressed, boolean isEncrypted, boolean isKey, boolean isVersion, boolean isAuto, boolean isEnumAsString, BioTag tag) {
 		BioColumn column = new BioColumn(tag) ;
 		column.setBlob(isBlob);
 		column.setClob(isClob);
@@ -293,6 +364,7 @@ public class AnnotationReader implements DictionaryReader {
 		column.setEncrypted(isEncrypted);
 		column.setKey(isKey);
 		column.setVersion(isVersion);
+		column.setAuto(isAuto);
 		column.setEnumAsString(isEnumAsString);
 		column.setValue(new Dynamic(tag.getName()));
 		if (columnName != null && columnName.trim().length() > 0) {
@@ -310,7 +382,7 @@ public class AnnotationReader implements DictionaryReader {
 		return column ;
 	}
 	
-	private BioRelation createRelation(String[] relateColumns, String[] toColumns, BioTag tag) {
+	protected BioRelation createRelation(String[] relateColumns, String[] toColumns, BioTag tag) {
 		BioRelation relation = new BioRelation(tag) ;
 		relation.setRelateKeys(relateColumns);
 		relation.setToKeys(toColumns);
@@ -0,0 +1,18 @@
+package com.linkedlogics.bio.sql.dictionary.builder;
+
+import com.linkedlogics.bio.BioDictionaryBuilder;
+import com.linkedlogics.bio.dictionary.builder.DictionaryReader;
+
+/**
+ * Reader whose scanning or parsing can run in parallel with other readers. Tables are only created in prepare
+ * and they are registered into dictionaries by read which is called for readers one by one in their order
+ * @author rajab
+ *
+ */
+public interface PreparingReader extends DictionaryReader {
+	/**
+	 * Scans or parses definitions without registering tables
+	 * @param builder
+	 */
+	void prepare(BioDictionaryBuilder builder) ;
+}
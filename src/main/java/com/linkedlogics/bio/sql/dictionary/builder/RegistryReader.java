@@ -0,0 +1,231 @@
+package com.linkedlogics.bio.sql.dictionary.builder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.ServiceLoader;
+
+import com.linkedlogics.bio.BioDictionary;
+import com.linkedlogics.bio.BioDictionaryBuilder;
+import com.linkedlogics.bio.dictionary.BioObj;
+import com.linkedlogics.bio.dictionary.BioTag;
+import com.linkedlogics.bio.exception.DictionaryException;
+import com.linkedlogics.bio.sql.BioSqlDictionary;
+import com.linkedlogics.bio.sql.object.BioColumn;
+import com.linkedlogics.bio.sql.object.BioRelation;
+import com.linkedlogics.bio.sql.object.BioTable;
+import com.linkedlogics.bio.sql.processor.BioSqlProcessor;
+import com.linkedlogics.bio.sql.processor.BioSqlRegistry;
+
+/**
+ * Reads tables from registries generated at compile time by {@link com.linkedlogics.bio.sql.processor.BioSqlProcessor}
+ * instead of scanning class path. Annotated classes which are not covered by any registry, such as classes of packages
+ * compiled without processor, are still found by scanning with annotations unless scanning is turned off
+ * @author rajab
+ *
+ */
+public class RegistryReader extends AnnotationReader implements BioSqlRegistry.Registrar {
+	private String packageName ;
+	private BioDictionaryBuilder builder ;
+	private LinkedHashMap<Class, BioTable> tables ;
+	private List<Runnable> remotes ;
+	private HashSet<String> classes ;
+	private HashSet<String> packages ;
+	private boolean scanning = true ;
+
+	public RegistryReader() {
+
+	}
+
+	public RegistryReader(String packageName) {
+		super(packageName) ;
+		this.packageName = packageName ;
+	}
+
+	public boolean isScanning() {
+		return scanning;
+	}
+	/**
+	 * Sets whether package is scanned for classes not covered by registries, it can be turned off if all classes are processed at compile time
+	 * @param scanning
+	 */
+	public void setScanning(boolean scanning) {
+		this.scanning = scanning;
+	}
+
+	/**
+	 * Loads registries and creates their tables, then scans package for classes which are not registered by them
+	 */
+	@Override
+	public void prepare(BioDictionaryBuilder builder) {
+		List<BioSqlRegistry> registries = getRegistries() ;
+		classes = new HashSet<String>() ;
+		packages = new HashSet<String>() ;
+		for (BioSqlRegistry registry : registries) {
+			String[] registered = registry.getClasses() ;
+			if (registered == null) {
+				packages.add(registry.getPackage()) ;
+			} else {
+				classes.addAll(Arrays.asList(registered)) ;
+			}
+		}
+		this.builder = builder ;
+		this.tables = new LinkedHashMap<Class, BioTable>() ;
+		this.remotes = new ArrayList<Runnable>() ;
+		try {
+			for (BioSqlRegistry registry : registries) {
+				registry.register(this);
+			}
+		} finally {
+			this.builder = null ;
+		}
+		if (scanning) {
+			super.prepare(builder);
+		}
+	}
+
+	@Override
+	protected boolean isRegistered(String className) {
+		int i = className.lastIndexOf('.') ;
+		return classes.contains(className) || packages.contains(i > 0 ? className.substring(0, i) : "") ;
+	}
+
+	@Override
+	public void read(BioDictionaryBuilder builder) {
+		if (tables == null) {
+			prepare(builder) ;
+		}
+		try {
+			for (BioTable table : tables.values()) {
+				BioSqlDictionary.getOrCreateDictionary(table.getObj().getDictionary()).addTable(table);
+			}
+			// scanned tables and their remote columns are added after registered tables
+			if (scanning) {
+				super.read(builder);
+			}
+			// remote columns are added after all tables are registered
+			for (Runnable remote : remotes) {
+				remote.run();
+			}
+		} finally {
+			this.tables = null ;
+			this.remotes = null ;
+			this.classes = null ;
+			this.packages = null ;
+		}
+	}
+	/**
+	 * Returns registries of package and its sub packages, or all registries if there is no package.
+	 * Named modules which don't provide registry of package are ignored by service loader so it is loaded by name
+	 * @return
+	 */
+	public List<BioSqlRegistry> getRegistries() {
+		List<BioSqlRegistry> registries = new ArrayList<BioSqlRegistry>() ;
+		boolean found = false ;
+		for (BioSqlRegistry registry : ServiceLoader.load(BioSqlRegistry.class)) {
+			if (packageName == null || registry.getPackage().equals(packageName) || registry.getPackage().startsWith(packageName + ".")) {
+				registries.add(registry) ;
+				found = found || registry.getPackage().equals(packageName) ;
+			}
+		}
+		if (packageName != null && !found) {
+			BioSqlRegistry registry = loadRegistry(packageName + "." + BioSqlProcessor.REGISTRY) ;
+			if (registry != null) {
+				registries.add(registry) ;
+			}
+		}
+		return registries ;
+	}
+	
+	private BioSqlRegistry loadRegistry(String className) {
+		try {
+			return (BioSqlRegistry) Class.forName(className).getDeclaredConstructor().newInstance() ;
+		} catch (ClassNotFoundException e) {
+			return null ;
+		} catch (Throwable e) {
+			throw new DictionaryException(e) ;
+		}
+	}
+
+	@Override
+	public boolean table(Class bioClass) {
+		if (!checkProfile(bioClass.getName(), builder.getProfiles(), builder.isOnlyProfiles())) {
+			return false ;
+		}
+		tables.put(bioClass, createTable(bioClass)) ;
+		return true ;
+	}
+
+	@Override
+	public void column(Class bioClass, String tag, String column, int flags) {
+		BioTable table = getTable(bioClass) ;
+		table.addColumn(createColumn(column, getTag(table.getObj(), tag), flags));
+	}
+
+	@Override
+	public void relation(Class bioClass, String tag, String[] relateColumns, String[] toColumns) {
+		BioTable table = getTable(bioClass) ;
+		table.addRelation(createRelation(relateColumns, toColumns, getTag(table.getObj(), tag)));
+	}
+
+	@Override
+	public void remoteColumn(Class remoteClass, int dictionary, String obj, String tag, String column, int flags) {
+		if (!checkProfile(remoteClass.getName(), builder.getProfiles(), builder.isOnlyProfiles())) {
+			return ;
+		}
+		remotes.add(() -> {
+			BioTable table = getRemoteTable(dictionary, obj) ;
+			if (table != null) {
+				table.addColumn(createColumn(column, getTag(table.getObj(), tag), flags));
+			}
+		}) ;
+	}
+
+	@Override
+	public void remoteRelation(Class remoteClass, int dictionary, String obj, String tag, String[] relateColumns, String[] toColumns) {
+		if (!checkProfile(remoteClass.getName(), builder.getProfiles(), builder.isOnlyProfiles())) {
+			return ;
+		}
+		remotes.add(() -> {
+			BioTable table = getRemoteTable(dictionary, obj) ;
+			if (table != null) {
+				table.addRelation(createRelation(relateColumns, toColumns, getTag(table.getObj(), tag)));
+			}
+		}) ;
+	}
+
+	private BioTable getTable(Class bioClass) {
+		BioTable table = tables.get(bioClass) ;
+		if (table == null) {
+			throw new DictionaryException(bioClass + " table is not registered") ;
+		}
+		return table ;
+	}
+
+	private BioTable getRemoteTable(int dictionary, String type) {
+		BioObj obj = BioDictionary.getOrCreateDictionary(dictionary).getObjByType(type) ;
+		if (obj == null) {
+			return null ;
+		}
+		return BioSqlDictionary.getOrCreateDictionary(obj.getDictionary()).getTableByCode(obj.getCode()) ;
+	}
+
+	private BioTag getTag(BioObj obj, String name) {
+		BioTag tag = obj.getTag(name) ;
+		if (tag == null) {
+			throw new DictionaryException("@BioSqlTag " + name + " must be used together with @BioTag annotation in class " + obj.getBioClass()) ;
+		}
+		return tag ;
+	}
+
+	private BioColumn createColumn(String column, BioTag tag, int flags) {
+		return createColumn(column, is(flags, BLOB), is(flags, CLOB), is(flags, JSON), is(flags, XML), is(flags, HEX), is(flags, COMPRESSED),
+				is(flags, ENCRYPTED), is(flags, KEY), is(flags, VERSION), is(flags, AUTO), is(flags, ENUM_AS_STRING), tag) ;
+	}
+
+	private static boolean is(int flags, int flag) {
+		return (flags & flag) != 0 ;
+	}
+}
@@ -15,25 +15,44 @@ import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 import com.linkedlogics.bio.BioDictionaryBuilder;
-import com.linkedlogics.bio.dictionary.builder.DictionaryReader;
 import com.linkedlogics.bio.exception.ParserException;
 import com.linkedlogics.bio.sql.BioSqlDictionary;
+import com.linkedlogics.bio.sql.cache.BioKeyFilter;
+import com.linkedlogics.bio.sql.cache.BioObjectCache;
+import com.linkedlogics.bio.sql.cache.BioOffHeapCache;
+import com.linkedlogics.bio.sql.cache.BioQueryCache;
 import com.linkedlogics.bio.sql.object.BioColumn;
 import com.linkedlogics.bio.sql.object.BioRelation;
 import com.linkedlogics.bio.sql.object.BioTable;
 import com.linkedlogics.bio.sql.utility.DictionaryUtility;
 import com.linkedlogics.bio.sql.utility.SqlUtility;
 
-public class XmlReader implements DictionaryReader {
+public class XmlReader implements PreparingReader {
 	private InputStream in ;
+	private Document document ;
 	
 	public XmlReader(InputStream in) {
 		this.in = in ;
 	}
 	
+	/**
+	 * Parses xml without registering tables
+	 */
+	@Override
+	public void prepare(BioDictionaryBuilder builder) {
+		document = parseDocument(in) ;
+	}
+	
 	@Override
 	public void read(BioDictionaryBuilder builder) {
-		parse(in) ;
+		if (document == null) {
+			prepare(builder) ;
+		}
+		try {
+			parseDictionary(document.getFirstChild()) ;
+		} finally {
+			document = null ;
+		}
 	}
 
 	/**
@@ -55,12 +74,26 @@ public class XmlReader implements DictionaryReader {
      * @return
      */
     public BioSqlDictionary parse(InputStream in) {
+    	Document doc = parseDocument(in) ;
+    	try {
+			return parseDictionary(doc.getFirstChild()) ;
+		} catch (Throwable e) {
+			throw new ParserException(e) ;
+		}
+    }
+    
+    /**
+     * Parses xml document from input stream
+     * @param in
+     * @return
+     */
+    protected Document parseDocument(InputStream in) {
     	try (in) {
 			DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
 			DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
 			Document doc = dBuilder.parse(in);
 			doc.getDocumentElement().normalize();
-			return parseDictionary(doc.getFirstChild()) ;
+			return doc ;
 		} catch (Throwable e) {
 			throw new ParserException(e) ;
 		}
@@ -100,6 +133,17 @@ public class XmlReader implements DictionaryReader {
     	String name = null ;
     	String type = null ;
     	String schema = null ;
+    	int cacheSize = 0 ;
+    	long cacheTtl = 0 ;
+    	long cacheBytes = 0 ;
+    	int queryCacheSize = 0 ;
+    	long queryCacheTtl = 0 ;
+    	long queryCacheBytes = 0 ;
+    	long offHeapCacheBytes = 0 ;
+    	long keyFilterSize = 0 ;
+    	double keyFilterFpp = 0.01 ;
+    	boolean isWarmUp = false ;
+    	String warmUpWhere = null ;
   
     	for (int i = 0; i < atts.getLength(); i++) {
     		Node node = atts.item(i);
@@ -111,10 +155,46 @@ public class XmlReader implements DictionaryReader {
     			type = node.getNodeValue() ;
     		} else if ("schema".contentEquals(node.getNodeName())) {
     			schema = node.getNodeValue() ;
+    		} else if ("cache-size".contentEquals(node.getNodeName())) {
+    			cacheSize = Integer.parseInt(node.getNodeValue()) ;
+    		} else if ("cache-ttl".contentEquals(node.getNodeName())) {
+    			cacheTtl = Long.parseLong(node.getNodeValue()) ;
+    		} else if ("cache-bytes".contentEquals(node.getNodeName())) {
+    			cacheBytes = Long.parseLong(node.getNodeValue()) ;
+    		} else if ("query-cache-size".contentEquals(node.getNodeName())) {
+    			queryCacheSize = Integer.parseInt(node.getNodeValue()) ;
+    		} else if ("query-cache-ttl".contentEquals(node.getNodeName())) {
+    			queryCacheTtl = Long.parseLong(node.getNodeValue()) ;
+    		} else if ("query-cache-bytes".contentEquals(node.getNodeName())) {
+    			queryCacheBytes = Long.parseLong(node.getNodeValue()) ;
+    		} else if ("off-heap-cache-bytes".contentEquals(node.getNodeName())) {
+    			offHeapCacheBytes = Long.parseLong(node.getNodeValue()) ;
+    		} else if ("key-filter-size".contentEquals(node.getNodeName())) {
+    			keyFilterSize = Long.parseLong(node.getNodeValue()) ;
+    		} else if ("key-filter-fpp".contentEquals(node.getNodeName())) {
+    			keyFilterFpp = Double.parseDouble(node.getNodeValue()) ;
+    		} else if ("warm-up".contentEquals(node.getNodeName())) {
+    			isWarmUp = Boolean.parseBoolean(node.getNodeValue()) ;
+    		} else if ("warm-up-where".contentEquals(node.getNodeName())) {
+    			warmUpWhere = node.getNodeValue() ;
     		}  
     	}
     	
     	BioTable table = new BioTable(dictionary, code, name, schema) ;
+    	if (cacheSize > 0) {
+    		table.setCache(new BioObjectCache(cacheSize, cacheTtl, cacheBytes));
+    	}
+    	if (queryCacheSize > 0) {
+    		table.setQueryCache(new BioQueryCache(queryCacheSize, queryCacheTtl, queryCacheBytes));
+    	}
+    	if (offHeapCacheBytes > 0) {
+    		table.setOffHeapCache(new BioOffHeapCache(offHeapCacheBytes));
+    	}
+    	if (keyFilterSize > 0) {
+    		table.setKeyFilter(new BioKeyFilter(keyFilterSize, keyFilterFpp));
+    	}
+    	table.setWarmUp(isWarmUp);
+    	table.setWarmUpWhere(warmUpWhere);
     	
     	NodeList nodes = e.getChildNodes() ;
         for (int i = 0; i < nodes.getLength(); i++) {
@@ -147,6 +227,7 @@ public class XmlReader implements DictionaryReader {
     	boolean isMandatory = false ;
     	boolean isKey = false ;
     	boolean isVersion = false ;
+    	boolean isAuto = false ;
     	boolean isBlob = false ;
     	boolean isClob = false ;
     	boolean isXml = false ;
@@ -174,6 +255,8 @@ public class XmlReader implements DictionaryReader {
     			isKey = Boolean.parseBoolean(node.getNodeValue()) ;
     		} else if ("is-version".contentEquals(node.getNodeName())) {
     			isVersion = Boolean.parseBoolean(node.getNodeValue()) ;
+    		} else if ("is-auto".contentEquals(node.getNodeName())) {
+    			isAuto = Boolean.parseBoolean(node.getNodeValue()) ;
     		} else if ("is-blob".contentEquals(node.getNodeName())) {
     			isBlob = Boolean.parseBoolean(node.getNodeValue()) ;
     		} else if ("is-clob".contentEquals(node.getNodeName())) {
@@ -220,6 +303,7 @@ public class XmlReader implements DictionaryReader {
     	
     	column.setKey(isKey);
     	column.setVersion(isVersion);
+    	column.setAuto(isAuto);
     	column.setBlob(isBlob);
     	column.setClob(isClob);
     	column.setXml(isXml);
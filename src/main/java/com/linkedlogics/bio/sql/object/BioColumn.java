@@ -178,6 +178,20 @@ public class BioColumn {
 	public void setJson(boolean isJson) {
 		this.isJson = isJson;
 	}
+	/**
+	 * Indicates value is generated by database or sequence
+	 * @return
+	 */
+	public boolean isAuto() {
+		return isAuto;
+	}
+	/**
+	 * Sets column as auto generated
+	 * @param isAuto
+	 */
+	public void setAuto(boolean isAuto) {
+		this.isAuto = isAuto;
+	}
 	/**
 	 * Indicates value will be stored as binary HEX
 	 * @return
@@ -2,14 +2,26 @@ package com.linkedlogics.bio.sql.object;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import com.linkedlogics.bio.BioDictionary;
 import com.linkedlogics.bio.dictionary.BioObj;
+import com.linkedlogics.bio.sql.BioSequence;
 import com.linkedlogics.bio.sql.Where;
+import com.linkedlogics.bio.sql.cache.BioKeyFilter;
+import com.linkedlogics.bio.sql.cache.BioObjectCache;
+import com.linkedlogics.bio.sql.cache.BioOffHeapCache;
+import com.linkedlogics.bio.sql.cache.BioQueryCache;
+import com.linkedlogics.bio.sql.cache.BioReplica;
+import com.linkedlogics.bio.sql.dialect.SqlDialect;
 import com.linkedlogics.bio.sql.utility.SqlUtility;
 
 /**
@@ -18,6 +30,11 @@ import com.linkedlogics.bio.sql.utility.SqlUtility;
  *
  */
 public class BioTable {
+	/**
+	 * Maximum number of generated sql strings kept per cache, cache is reset when it is exceeded
+	 */
+	private static final int MAX_CACHED_SQLS = 1000 ;
+	
 	private BioObj obj ;
 	private String schema ;
 	private String table ;
@@ -27,18 +44,37 @@ public class BioTable {
 	private BioColumn[] keys ;
 	private BioColumn versionColumn ;
 	private BioColumn[] columns ;
+	private BioColumn[] autoColumns ;
+	private BioColumn[] insertAutoColumns ;
+	private String[] autoColumnNames ;
+	private BioSequence sequence ;
 	private HashMap<String, BioColumn> columnByTagMap = new HashMap<String, BioColumn>() ;
 	private HashMap<String, BioColumn> columnByNameMap = new HashMap<String, BioColumn>() ;
 	
 	private String insert ;
+	private String insertAuto ;
 	private String update ;
 	private String delete ;
 	private String select ;
 	private String count ;
 	private Where where ;
 	private Where whereWithVersion ;
+	private SqlDialect dialect ;
+	private BioObjectCache cache ;
+	private BioQueryCache queryCache ;
+	private BioOffHeapCache offHeapCache ;
+	private BioKeyFilter keyFilter ;
+	private boolean isWarmUp ;
+	private String warmUpWhere ;
+	private volatile BioReplica replica ;
+	private volatile boolean isReplicated ;
+	private final AtomicLong replicaChanges = new AtomicLong() ;
+	private String upsert ;
 	private HashMap<String, BioRelation> relationByTagMap = new HashMap<String, BioRelation>() ;
 	private List<BioRelation> relations = new ArrayList<BioRelation>() ;
+	private ConcurrentHashMap<SqlKey, String> sqlCache = new ConcurrentHashMap<SqlKey, String>() ;
+	private ConcurrentHashMap<BitSet, String> updateCache = new ConcurrentHashMap<BitSet, String>() ;
+	private ConcurrentHashMap<BitSet, String> whereCache = new ConcurrentHashMap<BitSet, String>() ;
 	
 	public BioTable(int dictionary, int code) {
 		this(dictionary, code, null, null) ;
@@ -82,6 +118,168 @@ public class BioTable {
 		return columns;
 	}
 	
+	public BioColumn[] getAutoColumns() {
+		return autoColumns;
+	}
+	
+	public String[] getAutoColumnNames() {
+		return autoColumnNames;
+	}
+	
+	public BioColumn[] getInsertAutoColumns() {
+		return insertAutoColumns;
+	}
+	
+	public BioSequence getSequence() {
+		return sequence;
+	}
+	
+	/**
+	 * Sets sequence for allocating values of auto columns on client side, 
+	 * if it is not set auto column values are generated by database
+	 * @param sequence
+	 */
+	public void setSequence(BioSequence sequence) {
+		this.sequence = sequence;
+	}
+	
+	/**
+	 * Returns primary key cache or null if caching is disabled
+	 * @return
+	 */
+	public BioObjectCache getCache() {
+		return cache;
+	}
+	/**
+	 * Sets primary key cache used by select with key
+	 * @param cache
+	 */
+	public void setCache(BioObjectCache cache) {
+		this.cache = cache;
+	}
+	
+	/**
+	 * Returns select result cache or null if it is disabled
+	 * @return
+	 */
+	public BioQueryCache getQueryCache() {
+		return queryCache;
+	}
+	/**
+	 * Sets select result cache
+	 * @param queryCache
+	 */
+	public void setQueryCache(BioQueryCache queryCache) {
+		this.queryCache = queryCache;
+	}
+	
+	/**
+	 * Returns off heap primary key cache or null if it is disabled
+	 * @return
+	 */
+	public BioOffHeapCache getOffHeapCache() {
+		return offHeapCache;
+	}
+	/**
+	 * Sets off heap primary key cache which is used after heap cache
+	 * @param offHeapCache
+	 */
+	public void setOffHeapCache(BioOffHeapCache offHeapCache) {
+		this.offHeapCache = offHeapCache;
+	}
+	
+	/**
+	 * Returns primary key filter or null if it is disabled
+	 * @return
+	 */
+	public BioKeyFilter getKeyFilter() {
+		return keyFilter;
+	}
+	/**
+	 * Sets primary key filter, it is consulted by select with key after it is loaded
+	 * @param keyFilter
+	 */
+	public void setKeyFilter(BioKeyFilter keyFilter) {
+		this.keyFilter = keyFilter;
+	}
+	
+	/**
+	 * Indicates whether caches of table are preloaded at startup
+	 * @return
+	 */
+	public boolean isWarmUp() {
+		return isWarmUp;
+	}
+
+	public void setWarmUp(boolean isWarmUp) {
+		this.isWarmUp = isWarmUp;
+	}
+	/**
+	 * Returns condition of rows which are preloaded, null means all rows
+	 * @return
+	 */
+	public String getWarmUpWhere() {
+		return warmUpWhere;
+	}
+
+	public void setWarmUpWhere(String warmUpWhere) {
+		this.warmUpWhere = warmUpWhere;
+	}
+	
+	/**
+	 * Returns in memory snapshot of table or null if table is not replicated
+	 * @return
+	 */
+	public BioReplica getReplica() {
+		return replica;
+	}
+	/**
+	 * Replaces in memory snapshot of table, selects are answered from it when it is not null
+	 * @param replica
+	 */
+	public synchronized void setReplica(BioReplica replica) {
+		this.replica = replica;
+	}
+	/**
+	 * Replaces in memory snapshot of table if it is not invalidated since changes are taken, 
+	 * so that snapshot loaded before a local write is not used
+	 * @param replica
+	 * @param changes
+	 * @return
+	 */
+	public synchronized boolean setReplica(BioReplica replica, long changes) {
+		if (changes != replicaChanges.get()) {
+			return false ;
+		}
+		this.replica = replica;
+		return true ;
+	}
+	/**
+	 * Removes snapshot because rows are changed by this application, selects go to database until it is loaded again
+	 */
+	public synchronized void invalidateReplica() {
+		replicaChanges.incrementAndGet() ;
+		this.replica = null ;
+	}
+	/**
+	 * Returns number of replica invalidations which must be taken before table is loaded for snapshot
+	 * @return
+	 */
+	public long getReplicaChanges() {
+		return replicaChanges.get() ;
+	}
+	/**
+	 * Indicates whether table is kept in memory by a replicator, then writes invalidate its snapshot
+	 * @return
+	 */
+	public boolean isReplicated() {
+		return isReplicated;
+	}
+
+	public void setReplicated(boolean isReplicated) {
+		this.isReplicated = isReplicated;
+	}
+	
 	public void addColumn(BioColumn column) {
 		// sometimes it can be custom column besides tag
 		// in this case tag will be null
@@ -111,6 +309,8 @@ public class BioTable {
 		this.columns = new BioColumn[this.columnByTagMap.size()] ;
 		int index = 0 ;
 		ArrayList<BioColumn> keyList = new ArrayList<BioColumn>() ;
+		ArrayList<BioColumn> autoList = new ArrayList<BioColumn>() ;
+		ArrayList<BioColumn> insertAutoList = new ArrayList<BioColumn>() ;
 		for (Entry<String, BioColumn> e : this.columnByTagMap.entrySet()) {
 			this.columnByNameMap.put(e.getValue().getColumn(), e.getValue()) ;
 			this.columns[index] = e.getValue() ;
@@ -120,19 +320,53 @@ public class BioTable {
 			if (e.getValue().isVersion()) {
 				this.versionColumn = e.getValue() ;
 			}
+			if (e.getValue().isAuto()) {
+				autoList.add(e.getValue()) ;
+			} else {
+				insertAutoList.add(e.getValue()) ;
+			}
 			index++ ;
 		}
 		
 		this.keys = new BioColumn[keyList.size()] ;
 		keyList.toArray(this.keys) ;
+		this.autoColumns = new BioColumn[autoList.size()] ;
+		autoList.toArray(this.autoColumns) ;
+		this.insertAutoColumns = new BioColumn[insertAutoList.size()] ;
+		insertAutoList.toArray(this.insertAutoColumns) ;
+		this.autoColumnNames = new String[this.autoColumns.length] ;
+		for (int i = 0; i < this.autoColumns.length; i++) {
+			this.autoColumnNames[i] = this.autoColumns[i].getColumn() ;
+		}
 		
 		this.insert = SqlUtility.generateInsert(this) ;
+		this.insertAuto = SqlUtility.generateInsertAuto(this) ;
 		this.update = SqlUtility.generateUpdate(this) ;
 		this.delete = SqlUtility.generateDelete(this) ;
 		this.select = SqlUtility.generateSelect(this) ;
 		this.count = SqlUtility.generateCount(this) ;
 		this.where = SqlUtility.generateWhere(this) ;
 		this.whereWithVersion = SqlUtility.generateWhereWithVersion(this) ;
+		generateDialect() ;
+	}
+	
+	/**
+	 * Generates dialect specific statements
+	 */
+	private void generateDialect() {
+		this.upsert = dialect != null ? generateUpsert(dialect) : null ;
+	}
+	
+	/**
+	 * Generates single row upsert of all columns
+	 * @param dialect
+	 * @return
+	 */
+	private String generateUpsert(SqlDialect dialect) {
+		if (keys.length == 0) {
+			return null ;
+		}
+		return dialect.upsert(this, columns, dialect.rowSelect(columns)) ;
 	}
 	
 	public void generateRelations() {
@@ -145,6 +379,70 @@ public class BioTable {
 		}
 	}
 	
+	/**
+	 * Returns sql finalized with where and order, it is generated once per combination
+	 * @param sql
+	 * @param where
+	 * @param order
+	 * @return
+	 */
+	public String getSql(String sql, String where, String order) {
+		return cache(sqlCache, new SqlKey(sql, where, order), k -> {
+			String result = sql ;
+			if (where != null && where.length() > 0) {
+				result = result + " where " + where ;
+			}
+			if (order != null) {
+				result = result + " order by " + order ;
+			}
+			return result ;
+		}) ;
+	}
+	
+	/**
+	 * Returns update of provided columns (column indexes), it is generated once per column set
+	 * @param columns
+	 * @return
+	 */
+	public String getUpdate(BitSet columns) {
+		return cache(updateCache, columns, k -> SqlUtility.generateUpdate(this, k)) ;
+	}
+	
+	/**
+	 * Returns equality where of provided columns (column indexes), it is generated once per column set
+	 * @param columns
+	 * @return
+	 */
+	public String getWhere(BitSet columns) {
+		return cache(whereCache, columns, k -> {
+			StringBuilder w = new StringBuilder() ;
+			String and = "" ;
+			for (int i = k.nextSetBit(0); i >= 0; i = k.nextSetBit(i + 1)) {
+				w.append(and).append(this.columns[i].getColumn()).append(" = ? ") ;
+				and = " and " ;
+			}
+			return w.toString() ;
+		}) ;
+	}
+	
+	/**
+	 * Returns cached value or generates it, cache is reset if it grows too much because of dynamic sqls
+	 * @param cache
+	 * @param key
+	 * @param generator
+	 * @return
+	 */
+	private static <K> String cache(ConcurrentHashMap<K, String> cache, K key, Function<K, String> generator) {
+		String value = cache.get(key) ;
+		if (value == null) {
+			if (cache.size() >= MAX_CACHED_SQLS) {
+				cache.clear();
+			}
+			value = cache.computeIfAbsent(key, generator) ;
+		}
+		return value ;
+	}
+	
 	public BioColumn getColumnByTag(String tag) {
 		return columnByTagMap.get(tag) ;
 	}
@@ -181,6 +479,54 @@ public class BioTable {
 		return insert;
 	}
 
+	/**
+	 * Returns insert without auto columns which are generated by database
+	 * @return
+	 */
+	public String getInsertAuto() {
+		return insertAuto;
+	}
+	
+	/**
+	 * Indicates that auto column values must be retrieved as generated keys after insert
+	 * @return
+	 */
+	public boolean isGeneratedKeys() {
+		return autoColumns.length > 0 && sequence == null ;
+	}
+
+	/**
+	 * Returns dialect of table, it is null if it is not set for dictionary
+	 * @return
+	 */
+	public SqlDialect getDialect() {
+		return dialect;
+	}
+	
+	/**
+	 * Sets dialect and generates dialect specific statements if table is already generated
+	 * @param dialect
+	 */
+	public void setDialect(SqlDialect dialect) {
+		this.dialect = dialect;
+		if (columns != null) {
+			generateDialect() ;
+		}
+	}
+	
+	/**
+	 * Returns single row upsert of all columns for provided dialect, 
+	 * it is precomputed for table dialect and cached for others
+	 * @param dialect
+	 * @return
+	 */
+	public String getUpsert(SqlDialect dialect) {
+		if (dialect.equals(this.dialect)) {
+			return upsert ;
+		}
+		return cache(sqlCache, new SqlKey(dialect.getName(), "upsert", null), k -> generateUpsert(dialect)) ;
+	}
+	
 	public String getUpdate() {
 		return update;
 	}
@@ -204,4 +550,35 @@ public class BioTable {
 	public Where getWhereWithVersion() {
 		return whereWithVersion;
 	}
+	
+	/**
+	 * Key of finalized sql
+	 */
+	private static class SqlKey {
+		private final String sql ;
+		private final String where ;
+		private final String order ;
+		private final int hash ;
+		
+		SqlKey(String sql, String where, String order) {
+			this.sql = sql ;
+			this.where = where ;
+			this.order = order ;
+			this.hash = Objects.hash(sql, where, order) ;
+		}
+		
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof SqlKey)) {
+				return false ;
+			}
+			SqlKey k = (SqlKey) o ;
+			return hash == k.hash && Objects.equals(sql, k.sql) && Objects.equals(where, k.where) && Objects.equals(order, k.order) ;
+		}
+		
+		@Override
+		public int hashCode() {
+			return hash ;
+		}
+	}
 }
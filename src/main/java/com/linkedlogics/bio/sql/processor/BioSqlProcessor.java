@@ -0,0 +1,423 @@
+package com.linkedlogics.bio.sql.processor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.ModuleElement;
+import javax.lang.model.element.ModuleElement.ProvidesDirective;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+import com.linkedlogics.bio.sql.annotation.BioRemoteSqlRelationTag;
+import com.linkedlogics.bio.sql.annotation.BioRemoteSqlRelationTags;
+import com.linkedlogics.bio.sql.annotation.BioRemoteSqlTag;
+import com.linkedlogics.bio.sql.annotation.BioSql;
+import com.linkedlogics.bio.sql.annotation.BioSqlRelationTag;
+import com.linkedlogics.bio.sql.annotation.BioSqlTag;
+
+/**
+ * Generates a {@link BioSqlRegistry} per package containing tables of classes with @BioSql and remote columns of classes
+ * with @BioRemoteObj. Tag names are taken from constant values of annotated fields and columns of super classes are included
+ * so that registry is equivalent to what {@link com.linkedlogics.bio.sql.dictionary.builder.AnnotationReader} finds at runtime.
+ * Generated registries are listed in META-INF/services. Classes listed by registry of previous compilation are kept if they
+ * still exist so that incremental builds generate complete registries
+ * @author rajab
+ *
+ */
+@SupportedAnnotationTypes({"com.linkedlogics.bio.sql.annotation.BioSql", "com.linkedlogics.bio.annotation.BioRemoteObj"})
+public class BioSqlProcessor extends AbstractProcessor {
+	public static final String REGISTRY = "BioSqlGeneratedRegistry" ;
+	private static final String SERVICE = "META-INF/services/" + BioSqlRegistry.class.getName() ;
+	private static final String BIO_OBJECT = "com.linkedlogics.bio.BioObject" ;
+	private static final String BIO_REMOTE_OBJ = "com.linkedlogics.bio.annotation.BioRemoteObj" ;
+
+	private final TreeSet<String> registries = new TreeSet<String>() ;
+	private final HashSet<String> written = new HashSet<String>() ;
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported() ;
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+		if (round.processingOver()) {
+			if (registries.size() > 0) {
+				writeServices() ;
+			}
+			return false ;
+		}
+
+		TreeMap<String, TreeMap<String, TypeElement>> packages = new TreeMap<String, TreeMap<String, TypeElement>>() ;
+		for (Element e : round.getElementsAnnotatedWith(BioSql.class)) {
+			if (e.getKind() == ElementKind.CLASS) {
+				getTypes(packages, (TypeElement) e).put(getBinaryName((TypeElement) e), (TypeElement) e) ;
+			}
+		}
+
+		TypeElement remoteObj = processingEnv.getElementUtils().getTypeElement(BIO_REMOTE_OBJ) ;
+		if (remoteObj != null) {
+			for (Element e : round.getElementsAnnotatedWith(remoteObj)) {
+				if (e.getKind() == ElementKind.CLASS) {
+					getTypes(packages, (TypeElement) e).put(getBinaryName((TypeElement) e), (TypeElement) e) ;
+				}
+			}
+		}
+
+		for (Entry<String, TreeMap<String, TypeElement>> e : packages.entrySet()) {
+			TreeMap<String, TypeElement> types = e.getValue() ;
+			// a source file can be generated only once, classes of a package found in later rounds are scanned at runtime
+			if (!written.add(e.getKey())) {
+				for (TypeElement type : types.values()) {
+					processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "registry of package " + e.getKey() + " is already generated, "
+							+ type.getQualifiedName() + " is left to runtime scanning", type) ;
+				}
+				continue ;
+			}
+			addPrevious(e.getKey(), types) ;
+
+			StringBuilder body = new StringBuilder() ;
+			TreeSet<String> classes = new TreeSet<String>() ;
+			for (Entry<String, TypeElement> type : types.entrySet()) {
+				if (generate(type.getValue(), body)) {
+					classes.add(type.getKey()) ;
+				}
+			}
+			if (classes.size() > 0) {
+				writeRegistry(e.getKey(), body, classes) ;
+				checkModule(e.getKey(), types.firstEntry().getValue()) ;
+			}
+		}
+		return false ;
+	}
+
+	private TreeMap<String, TypeElement> getTypes(TreeMap<String, TreeMap<String, TypeElement>> packages, TypeElement type) {
+		return packages.computeIfAbsent(getPackage(type), k -> new TreeMap<String, TypeElement>()) ;
+	}
+	/**
+	 * Adds classes listed by registry of previous compilation which still exist and are annotated, so that incremental builds
+	 * compiling only some classes of package don't lose others
+	 * @param packageName
+	 * @param types
+	 */
+	private void addPrevious(String packageName, TreeMap<String, TypeElement> types) {
+		TypeElement previous = processingEnv.getElementUtils().getTypeElement(getRegistryName(packageName)) ;
+		if (previous == null) {
+			return ;
+		}
+		for (VariableElement field : ElementFilter.fieldsIn(previous.getEnclosedElements())) {
+			if (field.getSimpleName().contentEquals("CLASSES") && field.getConstantValue() instanceof String) {
+				for (String name : ((String) field.getConstantValue()).split(",")) {
+					if (name.length() > 0 && !types.containsKey(name)) {
+						TypeElement type = processingEnv.getElementUtils().getTypeElement(name.replace('$', '.')) ;
+						if (type != null && (type.getAnnotation(BioSql.class) != null || isRemote(type))) {
+							types.put(name, type) ;
+						}
+					}
+				}
+			}
+		}
+	}
+	/**
+	 * Appends registration of table and remote columns of class
+	 * @param type
+	 * @param body
+	 * @return false if class is left to runtime scanning
+	 */
+	private boolean generate(TypeElement type, StringBuilder body) {
+		String table = type.getAnnotation(BioSql.class) != null ? generateTable(type) : "" ;
+		String remote = isRemote(type) ? generateRemote(type) : "" ;
+		if (table == null || remote == null) {
+			return false ;
+		}
+		body.append(table).append(remote) ;
+		return true ;
+	}
+	/**
+	 * Warns if registry is generated in a named module which doesn't provide it, since service files are ignored for named modules
+	 * @param packageName
+	 * @param type
+	 */
+	private void checkModule(String packageName, TypeElement type) {
+		ModuleElement module = processingEnv.getElementUtils().getModuleOf(type) ;
+		if (module == null || module.isUnnamed()) {
+			return ;
+		}
+		String registry = getRegistryName(packageName) ;
+		for (ProvidesDirective provides : ElementFilter.providesIn(module.getDirectives())) {
+			if (provides.getService().getQualifiedName().contentEquals(BioSqlRegistry.class.getName())) {
+				for (TypeElement implementation : provides.getImplementations()) {
+					if (implementation.getQualifiedName().contentEquals(registry)) {
+						return ;
+					}
+				}
+			}
+		}
+		processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "module " + module.getQualifiedName() + " should declare: provides "
+				+ BioSqlRegistry.class.getName() + " with " + registry + ";") ;
+	}
+
+	private boolean isRemote(TypeElement type) {
+		for (AnnotationMirror mirror : processingEnv.getElementUtils().getAllAnnotationMirrors(type)) {
+			if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(BIO_REMOTE_OBJ)) {
+				return true ;
+			}
+		}
+		return false ;
+	}
+
+	private static String getRegistryName(String packageName) {
+		return packageName.length() > 0 ? packageName + "." + REGISTRY : REGISTRY ;
+	}
+
+	private String getPackage(TypeElement type) {
+		PackageElement p = processingEnv.getElementUtils().getPackageOf(type) ;
+		return p.getQualifiedName().toString() ;
+	}
+	/**
+	 * Returns runtime name of class, nested classes are separated by $
+	 * @param type
+	 * @return
+	 */
+	private String getBinaryName(TypeElement type) {
+		return processingEnv.getElementUtils().getBinaryName(type).toString() ;
+	}
+	/**
+	 * Generates registration of table with columns and relations of class and its super classes,
+	 * columns of sub classes override columns with same tags of super classes
+	 * @param type
+	 * @return null if class is left to runtime scanning
+	 */
+	private String generateTable(TypeElement type) {
+		String bioClass = type.getQualifiedName() + ".class" ;
+		StringBuilder body = new StringBuilder() ;
+		body.append("\t\tif (registrar.table(").append(bioClass).append(")) {\n") ;
+
+		HashSet<String> columns = new HashSet<String>() ;
+		HashSet<String> relations = new HashSet<String>() ;
+		for (TypeElement current = type; current != null; current = getSuperclass(current)) {
+			for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+				BioSqlTag tag = field.getAnnotation(BioSqlTag.class) ;
+				BioSqlRelationTag relation = field.getAnnotation(BioSqlRelationTag.class) ;
+				String name = tag != null || relation != null ? getTagName(type, field) : null ;
+				if ((tag != null || relation != null) && name == null) {
+					return null ;
+				}
+				if (tag != null) {
+					if (columns.add(name)) {
+						body.append("\t\t\tregistrar.column(").append(bioClass).append(", ").append(literal(name)).append(", ")
+							.append(literal(tag.column())).append(", ").append(flags(tag.isKey(), tag.isVersion(), tag.isBlob(), tag.isClob(), tag.isJson(), tag.isXml(),
+									tag.isHex(), tag.isAuto(), tag.isCompressed(), tag.isEncrypted(), tag.isEnumAsString())).append(") ;\n") ;
+					}
+				} else if (relation != null) {
+					if (relations.add(name)) {
+						body.append("\t\t\tregistrar.relation(").append(bioClass).append(", ").append(literal(name)).append(", ")
+							.append(literal(relation.relateColumns())).append(", ").append(literal(relation.toColumns())).append(") ;\n") ;
+					}
+				}
+			}
+		}
+		body.append("\t\t}\n") ;
+		return body.toString() ;
+	}
+	/**
+	 * Generates registration of remote columns and relations of class having @BioRemoteObj
+	 * @param type
+	 * @return null if class is left to runtime scanning
+	 */
+	private String generateRemote(TypeElement type) {
+		String remoteClass = type.getQualifiedName() + ".class" ;
+		StringBuilder body = new StringBuilder() ;
+		int dictionary = getDictionary(type) ;
+		for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+			BioRemoteSqlTag[] tags = field.getAnnotationsByType(BioRemoteSqlTag.class) ;
+			List<BioRemoteSqlRelationTag> relations = new ArrayList<BioRemoteSqlRelationTag>() ;
+			if (field.getAnnotation(BioRemoteSqlRelationTag.class) != null) {
+				relations.add(field.getAnnotation(BioRemoteSqlRelationTag.class)) ;
+			} else if (field.getAnnotation(BioRemoteSqlRelationTags.class) != null) {
+				relations.addAll(Arrays.asList(field.getAnnotation(BioRemoteSqlRelationTags.class).value())) ;
+			}
+			if (tags.length == 0 && relations.isEmpty()) {
+				continue ;
+			}
+			String name = getTagName(type, field) ;
+			if (name == null) {
+				return null ;
+			}
+			for (BioRemoteSqlTag tag : tags) {
+				body.append("\t\tregistrar.remoteColumn(").append(remoteClass).append(", ").append(dictionary).append(", ").append(literal(tag.obj())).append(", ")
+					.append(literal(name)).append(", ").append(literal(tag.column())).append(", ").append(flags(tag.isKey(), tag.isVersion(), tag.isBlob(), tag.isClob(),
+							tag.isJson(), tag.isXml(), tag.isHex(), tag.isAuto(), tag.isCompressed(), tag.isEncrypted(), tag.isEnumAsString())).append(") ;\n") ;
+			}
+			// relations are processed only if there are no remote columns on field
+			if (tags.length == 0) {
+				for (BioRemoteSqlRelationTag relation : relations) {
+					String[] relateColumns = isEmpty(relation.relateColumns()) ? new String[] {relation.relateColumn()} : relation.relateColumns() ;
+					String[] toColumns = isEmpty(relation.toColumns()) ? new String[] {relation.toColumn()} : relation.toColumns() ;
+					body.append("\t\tregistrar.remoteRelation(").append(remoteClass).append(", ").append(dictionary).append(", ").append(literal(relation.obj())).append(", ")
+						.append(literal(name)).append(", ").append(literal(relateColumns)).append(", ").append(literal(toColumns)).append(") ;\n") ;
+				}
+			}
+		}
+		return body.toString() ;
+	}
+
+	private void writeRegistry(String packageName, StringBuilder body, Set<String> classes) {
+		String className = getRegistryName(packageName) ;
+		StringBuilder source = new StringBuilder() ;
+		if (packageName.length() > 0) {
+			source.append("package ").append(packageName).append(";\n\n") ;
+		}
+		source.append("import com.linkedlogics.bio.sql.processor.BioSqlRegistry;\n\n") ;
+		source.append("/**\n * Generated by ").append(BioSqlProcessor.class.getName()).append(", do not edit\n */\n") ;
+		source.append("public class ").append(REGISTRY).append(" implements BioSqlRegistry {\n") ;
+		source.append("\tpublic static final String CLASSES = ").append(literal(String.join(",", classes))).append(" ;\n\n") ;
+		source.append("\t@Override\n\tpublic String getPackage() {\n\t\treturn ").append(literal(packageName)).append(" ;\n\t}\n\n") ;
+		source.append("\t@Override\n\tpublic String[] getClasses() {\n\t\treturn CLASSES.split(\",\") ;\n\t}\n\n") ;
+		source.append("\t@Override\n\tpublic void register(Registrar registrar) {\n").append(body).append("\t}\n}\n") ;
+		try (Writer writer = processingEnv.getFiler().createSourceFile(className).openWriter()) {
+			writer.write(source.toString());
+			registries.add(className) ;
+		} catch (IOException e) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "failed to generate " + className + ": " + e.getMessage()) ;
+		}
+	}
+	/**
+	 * Writes service file of registries, registries listed by previous compilation are kept for incremental builds
+	 */
+	private void writeServices() {
+		TreeSet<String> all = new TreeSet<String>(registries) ;
+		try {
+			FileObject existing = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", SERVICE) ;
+			try (BufferedReader reader = new BufferedReader(new InputStreamReader(existing.openInputStream(), StandardCharsets.UTF_8))) {
+				String line ;
+				while ((line = reader.readLine()) != null) {
+					if (line.trim().length() > 0) {
+						all.add(line.trim()) ;
+					}
+				}
+			}
+		} catch (IOException e) {
+			// there is no previous service file
+		}
+		try (Writer writer = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", SERVICE).openWriter()) {
+			for (String registry : all) {
+				writer.write(registry + "\n");
+			}
+		} catch (IOException e) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "failed to write " + SERVICE + ": " + e.getMessage()) ;
+		}
+	}
+	/**
+	 * Returns tag name which is constant value of field, class having a tag which is not constant is not registered
+	 * and it is found by scanning at runtime instead
+	 * @param type
+	 * @param field
+	 * @return null if field is not a constant
+	 */
+	private String getTagName(TypeElement type, VariableElement field) {
+		Object value = field.getConstantValue() ;
+		if (value instanceof String) {
+			return (String) value ;
+		}
+		processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "tag field " + field.getSimpleName() + " is not a static final String constant, "
+				+ type.getQualifiedName() + " is left to runtime scanning", field) ;
+		return null ;
+	}
+	/**
+	 * Returns dictionary of @BioRemoteObj
+	 * @param type
+	 * @return
+	 */
+	private int getDictionary(TypeElement type) {
+		for (AnnotationMirror mirror : processingEnv.getElementUtils().getAllAnnotationMirrors(type)) {
+			if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(BIO_REMOTE_OBJ)) {
+				for (Entry<? extends ExecutableElement, ? extends AnnotationValue> e : processingEnv.getElementUtils().getElementValuesWithDefaults(mirror).entrySet()) {
+					if (e.getKey().getSimpleName().contentEquals("dictionary")) {
+						return ((Number) e.getValue().getValue()).intValue() ;
+					}
+				}
+			}
+		}
+		return 0 ;
+	}
+
+	private TypeElement getSuperclass(TypeElement type) {
+		TypeMirror superclass = type.getSuperclass() ;
+		if (superclass.getKind() != TypeKind.DECLARED) {
+			return null ;
+		}
+		TypeElement element = (TypeElement) ((DeclaredType) superclass).asElement() ;
+		if (element.getQualifiedName().contentEquals(BIO_OBJECT) || element.getQualifiedName().contentEquals(Object.class.getName())) {
+			return null ;
+		}
+		return element ;
+	}
+
+	private static String flags(boolean isKey, boolean isVersion, boolean isBlob, boolean isClob, boolean isJson, boolean isXml,
+			boolean isHex, boolean isAuto, boolean isCompressed, boolean isEncrypted, boolean isEnumAsString) {
+		boolean[] values = {isKey, isVersion, isBlob, isClob, isJson, isXml, isHex, isAuto, isCompressed, isEncrypted, isEnumAsString} ;
+		String[] names = {"KEY", "VERSION", "BLOB", "CLOB", "JSON", "XML", "HEX", "AUTO", "COMPRESSED", "ENCRYPTED", "ENUM_AS_STRING"} ;
+		StringBuilder flags = new StringBuilder() ;
+		for (int i = 0; i < values.length; i++) {
+			if (values[i]) {
+				flags.append(flags.length() > 0 ? " | " : "").append("Registrar.").append(names[i]) ;
+			}
+		}
+		return flags.length() > 0 ? flags.toString() : "0" ;
+	}
+
+	private static boolean isEmpty(String[] values) {
+		return values.length == 0 || (values.length == 1 && values[0].length() == 0) ;
+	}
+
+	private static String literal(String value) {
+		StringBuilder s = new StringBuilder("\"") ;
+		for (char c : value.toCharArray()) {
+			if (c == '"' || c == '\\') {
+				s.append('\\').append(c) ;
+			} else if (c == '\n') {
+				s.append("\\n") ;
+			} else {
+				s.append(c) ;
+			}
+		}
+		return s.append('"').toString() ;
+	}
+
+	private static String literal(String[] values) {
+		StringBuilder s = new StringBuilder("new String[] {") ;
+		for (int i = 0; i < values.length; i++) {
+			s.append(i > 0 ? ", " : "").append(literal(values[i])) ;
+		}
+		return s.append("}").toString() ;
+	}
+}
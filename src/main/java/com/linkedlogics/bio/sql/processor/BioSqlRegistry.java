@@ -0,0 +1,87 @@
+package com.linkedlogics.bio.sql.processor;
+
+/**
+ * Table definitions of a package generated at compile time by {@link BioSqlProcessor}. Registries are found by
+ * {@link java.util.ServiceLoader} so that dictionary is built without scanning class path and reflecting fields
+ * @author rajab
+ *
+ */
+public interface BioSqlRegistry {
+	/**
+	 * Returns package of annotated classes
+	 * @return
+	 */
+	String getPackage() ;
+	/**
+	 * Returns names of classes registered by registry, other annotated classes of package are found by scanning
+	 * @return null if registry covers all classes of its package
+	 */
+	default String[] getClasses() {
+		return null ;
+	}
+	/**
+	 * Registers all tables of package
+	 * @param registrar
+	 */
+	void register(Registrar registrar) ;
+	/**
+	 * Receives table definitions from registries
+	 * @author rajab
+	 *
+	 */
+	interface Registrar {
+		int KEY = 1 ;
+		int VERSION = 1 << 1 ;
+		int BLOB = 1 << 2 ;
+		int CLOB = 1 << 3 ;
+		int JSON = 1 << 4 ;
+		int XML = 1 << 5 ;
+		int HEX = 1 << 6 ;
+		int AUTO = 1 << 7 ;
+		int COMPRESSED = 1 << 8 ;
+		int ENCRYPTED = 1 << 9 ;
+		int ENUM_AS_STRING = 1 << 10 ;
+		/**
+		 * Registers table of class having @BioSql
+		 * @param bioClass
+		 * @return false if class is skipped because of profiles
+		 */
+		boolean table(Class bioClass) ;
+		/**
+		 * Adds column of @BioSqlTag
+		 * @param bioClass
+		 * @param tag
+		 * @param column empty if tag name is used as column
+		 * @param flags
+		 */
+		void column(Class bioClass, String tag, String column, int flags) ;
+		/**
+		 * Adds relation of @BioSqlRelationTag
+		 * @param bioClass
+		 * @param tag
+		 * @param relateColumns
+		 * @param toColumns
+		 */
+		void relation(Class bioClass, String tag, String[] relateColumns, String[] toColumns) ;
+		/**
+		 * Adds column of @BioRemoteSqlTag to table of obj type
+		 * @param remoteClass class having @BioRemoteObj
+		 * @param dictionary
+		 * @param obj
+		 * @param tag
+		 * @param column
+		 * @param flags
+		 */
+		void remoteColumn(Class remoteClass, int dictionary, String obj, String tag, String column, int flags) ;
+		/**
+		 * Adds relation of @BioRemoteSqlRelationTag to table of obj type
+		 * @param remoteClass class having @BioRemoteObj
+		 * @param dictionary
+		 * @param obj
+		 * @param tag
+		 * @param relateColumns
+		 * @param toColumns
+		 */
+		void remoteRelation(Class remoteClass, int dictionary, String obj, String tag, String[] relateColumns, String[] toColumns) ;
+	}
+}
@@ -118,6 +118,9 @@ public class DictionaryUtility {
 		if (column.isVersion()) {
 			xml.append(" is-version=\"true\"") ;
 		}
+		if (column.isAuto()) {
+			xml.append(" is-auto=\"true\"") ;
+		}
 		if (column.isBlob()) {
 			xml.append(" is-blob=\"true\"") ;
 		}
@@ -10,6 +10,7 @@ import java.sql.Timestamp;
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -32,6 +33,7 @@ import com.linkedlogics.bio.exception.ParserException;
 import com.linkedlogics.bio.expression.Dynamic;
 import com.linkedlogics.bio.parser.BioObjectBinaryParser;
 import com.linkedlogics.bio.parser.BioObjectXmlParser;
+import com.linkedlogics.bio.sql.Aggregation;
 import com.linkedlogics.bio.sql.BioSqlDictionary;
 import com.linkedlogics.bio.sql.Where;
 import com.linkedlogics.bio.sql.object.BioColumn;
@@ -42,6 +44,29 @@ import com.linkedlogics.bio.utility.ConversionUtility;
 
 
 public class SqlUtility {
+	/**
+	 * Returns table name with schema
+	 * @param table
+	 * @return
+	 */
+	public static String getTableName(BioTable table) {
+		if (table.getSchema() != null && table.getSchema().trim().length() > 0) {
+			return table.getSchema() + "." + table.getTable() ;
+		}
+		return table.getTable() ;
+	}
+	
+	/**
+	 * Returns comma separated column names
+	 * @param columns
+	 * @return
+	 */
+	public static String getColumnNames(BioColumn[] columns) {
+		return Arrays.stream(columns).map(c -> {
+			return c.getColumn() ;
+		}).collect(Collectors.joining(","));
+	}
+	
 	public static String generateInsert(BioTable table) {
 		StringBuilder sql = new StringBuilder("insert into ") ;
 		if (table.getSchema() != null && table.getSchema().trim().length() > 0) {
@@ -61,6 +86,25 @@ public class SqlUtility {
 		return sql.toString() ;
 	}
 	
+	public static String generateInsertAuto(BioTable table) {
+		StringBuilder sql = new StringBuilder("insert into ") ;
+		if (table.getSchema() != null && table.getSchema().trim().length() > 0) {
+			sql.append(table.getSchema()).append(".") ;
+		}
+		sql.append(table.getTable()) ;
+		sql.append(" (");
+		sql.append(Arrays.stream(table.getInsertAutoColumns()).map(c -> {
+			return c.getColumn() ;
+		}).collect(Collectors.joining(",")));
+		sql.append(") values(") ;
+		sql.append(Arrays.stream(table.getInsertAutoColumns()).map(c -> {
+			return "?" ;
+		}).collect(Collectors.joining(",")));
+		sql.append(")") ;
+		
+		return sql.toString() ;
+	}
+	
 	public static String generateUpdate(BioTable table) {
 		StringBuilder sql = new StringBuilder("update ") ;
 		if (table.getSchema() != null && table.getSchema().trim().length() > 0) {
@@ -93,6 +137,22 @@ public class SqlUtility {
 		return sql.toString() ;
 	}
 	
+	public static String generateUpdate(BioTable table, BitSet columns) {
+		StringBuilder sql = new StringBuilder("update ") ;
+		if (table.getSchema() != null && table.getSchema().trim().length() > 0) {
+			sql.append(table.getSchema()).append(".") ;
+		}
+		sql.append(table.getTable()) ;
+		sql.append(" set ");
+		String delimiter = "" ;
+		for (int i = columns.nextSetBit(0); i >= 0; i = columns.nextSetBit(i + 1)) {
+			sql.append(delimiter).append(table.getColumns()[i].getColumn()).append(" = ?") ;
+			delimiter = "," ;
+		}
+		
+		return sql.toString() ;
+	}
+	
 	public static String generateSelect(BioTable table) {
 		StringBuilder sql = new StringBuilder("select ") ;
 		sql.append(Arrays.stream(table.getColumns()).map(c -> {
@@ -107,6 +167,28 @@ public class SqlUtility {
 		return sql.toString() ;
 	}
 	
+	public static String generateAggregate(BioTable table, BioColumn[] groupColumns, Aggregation[] aggregations, BioColumn[] aggregateColumns) {
+		StringBuilder sql = new StringBuilder("select ") ;
+		String delimiter = "" ;
+		for (int i = 0; i < groupColumns.length; i++) {
+			sql.append(delimiter).append(groupColumns[i].getColumn()) ;
+			delimiter = "," ;
+		}
+		for (int i = 0; i < aggregations.length; i++) {
+			sql.append(delimiter).append(aggregations[i].getFunction()).append("(") ;
+			if (aggregateColumns[i] == null) {
+				sql.append("*") ;
+			} else {
+				sql.append(aggregations[i].isDistinct() ? "distinct " : "").append(aggregateColumns[i].getColumn()) ;
+			}
+			sql.append(")") ;
+			delimiter = "," ;
+		}
+		sql.append(" from ").append(getTableName(table)) ;
+		
+		return sql.toString() ;
+	}
+	
 	public static String generateCount(BioTable table) {
 		StringBuilder sql = new StringBuilder("select count(*) from ") ;
 		if (table.getSchema() != null && table.getSchema().trim().length() > 0) {
@@ -127,6 +209,30 @@ public class SqlUtility {
 		return sql.toString() ;
 	}
 	
+	public static String generateIn(BioColumn[] columns, int rows) {
+		StringBuilder sql = new StringBuilder() ;
+		if (columns.length == 1) {
+			sql.append(columns[0].getColumn()).append(" in (") ;
+			for (int i = 0; i < rows; i++) {
+				sql.append(i > 0 ? ",?" : "?") ;
+			}
+		} else {
+			// row value constructor for composite keys
+			String row = "(" + Arrays.stream(columns).map(c -> {
+				return "?" ;
+			}).collect(Collectors.joining(",")) + ")" ;
+			sql.append("(").append(Arrays.stream(columns).map(c -> {
+				return c.getColumn() ;
+			}).collect(Collectors.joining(","))).append(") in (") ;
+			for (int i = 0; i < rows; i++) {
+				sql.append(i > 0 ? "," : "").append(row) ;
+			}
+		}
+		sql.append(")") ;
+		
+		return sql.toString() ;
+	}
+	
 	public static Where generateWhere(BioTable table) {
 		HashMap<Integer, Object> valueMap = new HashMap<Integer, Object>() ;
 		HashMap<Integer, Integer> typeMap = new HashMap<Integer, Integer>() ;
@@ -258,103 +364,159 @@ public class SqlUtility {
 
 	public static int setParameters(PreparedStatement ps, int index, Object value, BioColumn column, BioObjectBinaryParser binaryParser, BioObjectXmlParser xmlParser) throws SQLException {
 		if (value != null) {
-			if (column.isBlob()) {
-				if (value instanceof Byte[]) {
-					setParameter(ps, index, Types.BLOB, value);
-				} else if (column.isCompressed()) {
-					setParameter(ps, index, Types.BLOB, binaryParser.encode(value, true)) ;
+			setParameter(ps, index, getParameterType(value, column), encodeParameter(value, column, binaryParser));
+		} else {
+			setNull(ps, index, column.getSqlType());
+		}
+		return index;
+	}
+	
+	/**
+	 * Returns sql type which encoded value of column is stored as
+	 * @param value
+	 * @param column
+	 * @return
+	 */
+	public static int getParameterType(Object value, BioColumn column) {
+		if (column.isBlob()) {
+			return Types.BLOB ;
+		} else if (column.isJson() || column.isXml() || column.isHex()) {
+			return column.isClob() ? Types.CLOB : Types.VARCHAR ;
+		} else if (column.isArray() || column.isList()) {
+			return Types.VARCHAR ;
+		} else if (value instanceof BioEnum && column.isEnumAsString()) {
+			return Types.VARCHAR ;
+		}
+		return column.getSqlType() ;
+	}
+	
+	/**
+	 * Encodes value of column as it is stored in database, for example bio objects as JSON, XML or bytes and arrays as CSV
+	 * @param value
+	 * @param column
+	 * @param binaryParser
+	 * @return
+	 */
+	public static Object encodeParameter(Object value, BioColumn column, BioObjectBinaryParser binaryParser) {
+		if (column.isBlob()) {
+			if (value instanceof Byte[]) {
+				return value ;
+			} else if (column.isCompressed()) {
+				return binaryParser.encode(value, true) ;
+			} else {
+				return binaryParser.encode(value) ;
+			}
+		} else if (column.isJson()) {
+			if (column.isArray()) {
+				JSONArray jsonArray = new JSONArray();
+				BioObject[] array = (BioObject[]) value;
+				for (int i = 0; i < array.length; i++) {
+					jsonArray.put(((BioObject) array[i]).toJson()) ;
+				}
+				if (column.isCompressed()) {
+					return jsonArray.toString() ;
 				} else {
-					setParameter(ps, index, Types.BLOB, binaryParser.encode(value)) ;
+					return jsonArray.toString(4) ;
 				}
-			} else if (column.isJson()) {
-				if (column.isArray()) {
-					JSONArray jsonArray = new JSONArray();
-					BioObject[] array = (BioObject[]) value;
-					for (int i = 0; i < array.length; i++) {
-						jsonArray.put(((BioObject) array[i]).toJson()) ;
-					}
-					if (column.isCompressed()) {
-						setParameter(ps, index, column.isClob() ? Types.CLOB : Types.VARCHAR, jsonArray.toString());
-					} else {
-						setParameter(ps, index, column.isClob() ? Types.CLOB : Types.VARCHAR, jsonArray.toString(4));
-					}
-				} else if (column.isList()) {	
-					JSONArray jsonArray = new JSONArray();
-					List<BioObject> list = (List<BioObject>) value;
-					for (int i = 0; i < list.size(); i++) {
-						jsonArray.put(list.get(i).toJson()) ;
-					}
-					if (column.isCompressed()) {
-						setParameter(ps, index, column.isClob() ? Types.CLOB : Types.VARCHAR, jsonArray.toString());
-					} else {
-						setParameter(ps, index, column.isClob() ? Types.CLOB : Types.VARCHAR, jsonArray.toString(4));
-					}
+			} else if (column.isList()) {	
+				JSONArray jsonArray = new JSONArray();
+				List<BioObject> list = (List<BioObject>) value;
+				for (int i = 0; i < list.size(); i++) {
+					jsonArray.put(list.get(i).toJson()) ;
+				}
+				if (column.isCompressed()) {
+					return jsonArray.toString() ;
 				} else {
-					if (column.isCompressed()) {
-						setParameter(ps, index, column.isClob() ? Types.CLOB : Types.VARCHAR, ((BioObject) value).toJson().toString());
-					} else {
-						setParameter(ps, index, column.isClob() ? Types.CLOB : Types.VARCHAR, ((BioObject) value).toJson());
-					}
+					return jsonArray.toString(4) ;
 				}
-			} else if (column.isXml()) {
-				String xml = ((BioObject) value).toXml() ;
-				setParameter(ps, index, column.isClob() ? Types.CLOB : Types.VARCHAR, xml);
-			} else if (column.isHex()) {
-				setParameter(ps, index, column.isClob() ? Types.CLOB : Types.VARCHAR, ByteUtility.bytesToHex(binaryParser.encode(value, column.isCompressed(), false, column.isEncrypted())));
-			} else if (column.isArray()) {
-				Object[] array = (Object[]) value;
-				
-				String arrayStr = Arrays.stream(array).map(e -> {
-					if (e instanceof BioEnum && !column.isEnumAsString()) {
-						return String.valueOf(((BioEnum) e).intValue()) ;
-					} else {
-						return e.toString() ;
-					}
-				}).collect(Collectors.joining(",")) ;
-				
-				setParameter(ps, index, Types.VARCHAR, arrayStr);
-			} else if (column.isList()) {
-				List<Object> list = (List<Object>) value;
-				
-				String listStr = list.stream().map(e -> {
-					if (e instanceof BioEnum && !column.isEnumAsString()) {
-						return String.valueOf(((BioEnum) e).intValue()) ;
-					} else {
-						return e.toString() ;
-					}
-				}).collect(Collectors.joining(",")) ;
-				
-				setParameter(ps, index, Types.VARCHAR, listStr);
 			} else {
-				if (value instanceof BioEnum && column.isEnumAsString()) {
-					setParameter(ps, index, Types.VARCHAR, value);
+				return ((BioObject) value).toJson().toString() ;
+			}
+		} else if (column.isXml()) {
+			return ((BioObject) value).toXml() ;
+		} else if (column.isHex()) {
+			return ByteUtility.bytesToHex(binaryParser.encode(value, column.isCompressed(), false, column.isEncrypted())) ;
+		} else if (column.isArray()) {
+			Object[] array = (Object[]) value;
+			
+			return Arrays.stream(array).map(e -> {
+				if (e instanceof BioEnum && !column.isEnumAsString()) {
+					return String.valueOf(((BioEnum) e).intValue()) ;
 				} else {
-					setParameter(ps, index, column.getSqlType(), value);
+					return e.toString() ;
 				}
-			}
-		} else {
-			setNull(ps, index, column.getSqlType());
+			}).collect(Collectors.joining(",")) ;
+		} else if (column.isList()) {
+			List<Object> list = (List<Object>) value;
+			
+			return list.stream().map(e -> {
+				if (e instanceof BioEnum && !column.isEnumAsString()) {
+					return String.valueOf(((BioEnum) e).intValue()) ;
+				} else {
+					return e.toString() ;
+				}
+			}).collect(Collectors.joining(",")) ;
 		}
-		return index;
+		return value ;
+	}
+	
+	/**
+	 * Formats encoded value as text the same way as it would be set by setParameter, used for bulk files
+	 * @param sqlType
+	 * @param value
+	 * @return
+	 */
+	public static String formatParameter(int sqlType, Object value) {
+		switch (sqlType) {
+			case Types.INTEGER:
+				if (value instanceof Number) {
+					return String.valueOf(((Number) value).intValue()) ;
+				} else if (value instanceof Boolean) {
+					return ((Boolean) value).booleanValue() ? "1" : "0" ;
+				} else if (value instanceof BioEnum) {
+					return String.valueOf(((BioEnum) value).intValue()) ;
+				}
+				return String.valueOf(Integer.parseInt(value.toString())) ;
+			case Types.NUMERIC:
+				if (value instanceof Number) {
+					return String.valueOf(((Number) value).longValue()) ;
+				}
+				return String.valueOf(Long.parseLong(value.toString())) ;
+			case Types.TIMESTAMP:
+				if (value instanceof Number) {
+					return new Timestamp(((Number) value).longValue()).toString() ;
+				} else if (value instanceof java.util.Date) {
+					return new Timestamp(((java.util.Date) value).getTime()).toString() ;
+				}
+				return new Timestamp(BioTime.parseString(value.toString())).toString() ;
+			case Types.DATE:
+				if (value instanceof Number) {
+					return new java.sql.Date(((Number) value).longValue()).toString() ;
+				} else if (value instanceof java.util.Date) {
+					return new java.sql.Date(((java.util.Date) value).getTime()).toString() ;
+				}
+				return new java.sql.Date(BioTime.parseString(value.toString())).toString() ;
+			case Types.DOUBLE:
+				if (value instanceof Number) {
+					return String.valueOf(((Number) value).doubleValue()) ;
+				}
+				return String.valueOf(Double.parseDouble(value.toString())) ;
+			case Types.BLOB:
+				if (value instanceof Byte[]) {
+					Byte[] bytes = (Byte[]) value;
+					byte[] array = new byte[bytes.length];
+					for (int i = 0; i < bytes.length; i++)
+						array[i] = bytes[i];
+					return ByteUtility.bytesToHex(array) ;
+				}
+				return ByteUtility.bytesToHex((byte[]) value) ;
+		}
+		return value.toString() ;
 	}
 	
     public static int setWhereParameters(BioObject object, Where where, PreparedStatement ps, int index) throws SQLException {
         if (where != null) {
-        	HashMap<Integer, Object> valueMap = where.getValueMap();
-            for (int i = 0; i < valueMap.size(); i++) {
-                index = index + 1;
-                Object value = valueMap.get(i + 1);
-                
-                if (value instanceof BioExpression) {
-                	value = ((BioExpression) value).getValue(object) ;
-                }
-
-                if (value != null) {
-                	SqlUtility.setParameter(ps, index, where.getType(i + 1), value);
-                } else {
-                	SqlUtility.setNull(ps, index, where.getType(i + 1));
-                }
-            }
+        	index = where.setParameters(object, ps, index) ;
         }
         return index;
     }
@@ -8,10 +8,16 @@
 module com.linkedlogics.bio.sql {
 	exports com.linkedlogics.bio.sql;
 	exports com.linkedlogics.bio.sql.annotation;
+	exports com.linkedlogics.bio.sql.cache;
+	exports com.linkedlogics.bio.sql.dialect;
+	exports com.linkedlogics.bio.sql.processor;
 
 	requires com.linkedlogics.bio;
 	requires io.github.classgraph;
+	requires static java.compiler;
 	requires java.sql;
 	requires java.xml;
 	requires org.json;
+
+	uses com.linkedlogics.bio.sql.processor.BioSqlRegistry;
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+package com.linkedlogics.bio.sql;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.linkedlogics.bio.sql.test.Vehicle;
+
+/**
+ * Tests bulk loading through H2 CSVREAD directly and through staging table
+ * @author rajab
+ *
+ */
+public class BioBulkLoaderTest {
+	@Before
+	public void setUp() throws SQLException {
+		TestDatabase.init();
+		TestDatabase.clear(new BioSql<Vehicle>(Vehicle.class).getTable());
+		TestDatabase.execute("delete from vehicles_stage") ;
+	}
+	
+	@Test
+	public void testLoad() throws SQLException {
+		try (Connection connection = TestDatabase.getConnection(); BioBulkLoader loader = new BioBulkLoader(Vehicle.class)) {
+			loader.setConnection(connection);
+			loader.add(new Vehicle("v1", "Ford", 2019));
+			loader.add(new Vehicle("v2", "Quoted, \"name\"", 2020));
+			Vehicle empty = new Vehicle() ;
+			empty.set(Vehicle.VIN, "v3") ;
+			loader.add(empty);
+			assertEquals(3, loader.load()) ;
+			
+			BioSql<Vehicle> sql = TestDatabase.open(Vehicle.class, connection) ;
+			assertEquals("Quoted, \"name\"", sql.select("v2").get(Vehicle.PRODUCER)) ;
+			assertNull(sql.select("v3").get(Vehicle.PRODUCER)) ;
+			assertNull(sql.select("v3").get(Vehicle.YEAR_OF_PRODUCTION)) ;
+		}
+		assertEquals(3, TestDatabase.count("vehicles")) ;
+	}
+	
+	@Test
+	public void testStagingMergeInvalidatesCache() throws SQLException {
+		try (Connection connection = TestDatabase.getConnection(); BioBulkLoader loader = new BioBulkLoader(Vehicle.class)) {
+			BioSql<Vehicle> sql = TestDatabase.open(Vehicle.class, connection) ;
+			sql.insert(new Vehicle("v1", "Ford", 2019)) ;
+			assertEquals("Ford", sql.select("v1").get(Vehicle.PRODUCER)) ;
+			
+			loader.setConnection(connection);
+			loader.setStagingTable("vehicles_stage");
+			loader.add(new Vehicle("v1", "BMW", 2019));
+			loader.add(new Vehicle("v2", "Ford", 2020));
+			loader.load() ;
+			
+			assertEquals("BMW", sql.select("v1").get(Vehicle.PRODUCER)) ;
+		}
+		assertEquals(2, TestDatabase.count("vehicles")) ;
+		assertEquals(0, TestDatabase.count("vehicles_stage")) ;
+	}
+	
+	@Test
+	public void testLoadedKeysAreAddedToFilter() throws SQLException {
+		try (Connection connection = TestDatabase.getConnection(); BioBulkLoader loader = new BioBulkLoader(Vehicle.class)) {
+			BioSql<Vehicle> sql = TestDatabase.open(Vehicle.class, connection) ;
+			sql.loadKeyFilter() ;
+			
+			loader.setConnection(connection);
+			loader.add(new Vehicle("v1", "Ford", 2019));
+			loader.load() ;
+			
+			assertNotNull(sql.select("v1")) ;
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package com.linkedlogics.bio.sql;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.linkedlogics.bio.sql.dictionary.builder.RegistryReader;
+import com.linkedlogics.bio.sql.object.BioTable;
+import com.linkedlogics.bio.sql.test.Tariff;
+import com.linkedlogics.bio.sql.test.Vehicle;
+
+/**
+ * Tests tables of dictionary built in parallel from package without compile time registry
+ * @author rajab
+ *
+ */
+public class BioDictionaryBuilderTest {
+	@Before
+	public void setUp() throws SQLException {
+		TestDatabase.init();
+	}
+	
+	@Test
+	public void testPackageWithoutRegistryIsScanned() {
+		assertTrue(new RegistryReader(TestDatabase.PACKAGE).getRegistries().isEmpty()) ;
+		
+		BioTable vehicles = new BioSql<Vehicle>(Vehicle.class).getTable() ;
+		assertEquals("vehicles", vehicles.getTable()) ;
+		assertEquals(3, vehicles.getColumns().length) ;
+		assertEquals(1, vehicles.getKeys().length) ;
+		assertEquals(Vehicle.VIN, vehicles.getKeys()[0].getTagName()) ;
+		assertNotNull(vehicles.getCache()) ;
+		assertNotNull(vehicles.getQueryCache()) ;
+		assertNotNull(vehicles.getKeyFilter()) ;
+		
+		BioTable tariffs = new BioSql<Tariff>(Tariff.class).getTable() ;
+		assertEquals("tariffs", tariffs.getTable()) ;
+		assertEquals(3, tariffs.getColumns().length) ;
+	}
+	
+	@Test
+	public void testTablesAreGenerated() {
+		for (Class bioClass : new Class[] {Vehicle.class, Tariff.class}) {
+			BioTable table = new BioSql(bioClass).getTable() ;
+			assertNotNull(table.getInsert()) ;
+			assertNotNull(table.getUpdate()) ;
+			assertNotNull(table.getDelete()) ;
+			assertNotNull(table.getSelect()) ;
+		}
+	}
+	
+	@Test
+	public void testTablesAreRegisteredOnce() {
+		BioTable vehicles = new BioSql<Vehicle>(Vehicle.class).getTable() ;
+		HashMap<Integer, BioTable> tables = BioSqlDictionary.getDictionary(vehicles.getDictionary()).getCodeMap() ;
+		assertSame(vehicles, tables.get(vehicles.getCode())) ;
+		assertSame(vehicles, BioSqlDictionary.getDictionary(vehicles.getDictionary()).getTableByName(vehicles.getObj().getName())) ;
+	}
+}
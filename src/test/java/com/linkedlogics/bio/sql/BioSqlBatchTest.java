@@ -0,0 +1,112 @@
+package com.linkedlogics.bio.sql;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.sql.SQLTransientException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.linkedlogics.bio.sql.test.Vehicle;
+
+/**
+ * Tests bisecting of failed batches and retrying of transient errors
+ * @author rajab
+ *
+ */
+public class BioSqlBatchTest {
+	@Before
+	public void setUp() throws SQLException {
+		TestDatabase.init();
+		TestDatabase.clear(new BioSql<Vehicle>(Vehicle.class).getTable());
+	}
+	
+	@Test
+	public void testBisectIsolatesFailingRow() throws SQLException {
+		TestDatabase.execute("insert into vehicles (vin, producer, year_of_production) values ('v3', 'Ford', 2019)") ;
+		try (Connection connection = TestDatabase.getConnection(); BioSqlBatch batch = new BioSqlBatch(Vehicle.class)) {
+			batch.setConnection(connection);
+			batch.setBatchSize(100);
+			batch.setBisect(true);
+			for (int i = 1; i <= 6; i++) {
+				batch.insert(new Vehicle("v" + i, "Ford", 2020)) ;
+			}
+			batch.flush();
+			
+			assertEquals(5, batch.getSuccess().size()) ;
+			assertEquals(1, batch.getError().size()) ;
+			assertEquals("v3", batch.getError().get(0).get(Vehicle.VIN)) ;
+		}
+		assertEquals(6, TestDatabase.count("vehicles")) ;
+	}
+	
+	@Test
+	public void testTransientErrorIsRetried() throws Exception {
+		TestDatabase.execute("insert into vehicles (vin, producer, year_of_production) values ('v1', 'Ford', 2019)") ;
+		AtomicInteger executions = new AtomicInteger() ;
+		try (Connection connection = TestDatabase.getConnection(); BioSqlBatch batch = new BioSqlBatch(Vehicle.class) {
+			@Override
+			protected PreparedStatement getUpdateStatement() throws SQLException {
+				return failOnce(super.getUpdateStatement(), executions) ;
+			}
+		}) {
+			batch.setConnection(connection);
+			batch.setBatchSize(100);
+			batch.setBisect(true);
+			batch.setMaxRetries(5);
+			batch.setRetryDelay(0);
+			batch.update(new Vehicle("v1", "Toyota", 2019)) ;
+			batch.flush();
+			
+			assertEquals(2, executions.get()) ;
+			assertEquals(1, batch.getSuccess().size()) ;
+			assertEquals(0, batch.getError().size()) ;
+		}
+		try (Connection connection = TestDatabase.getConnection()) {
+			assertEquals("Toyota", TestDatabase.open(Vehicle.class, connection).select("v1").get(Vehicle.PRODUCER)) ;
+		}
+	}
+	
+	@Test
+	public void testTransactionRollbackIsNotTransient() {
+		BioSqlBatch batch = new BioSqlBatch(Vehicle.class) ;
+		assertTrue(batch.isTransactionRollback(new SQLTransactionRollbackException("serialization failure", "40001"))) ;
+		assertTrue(batch.isTransactionRollback(new BatchUpdateException("deadlock", "40001", 1213, new int[0]))) ;
+		assertTrue(batch.isTransactionRollback(new SQLException("deadlock", "HY000", 1213))) ;
+		assertFalse(batch.isTransient(new SQLTransactionRollbackException("serialization failure", "40001"))) ;
+		
+		assertTrue(batch.isTransient(new SQLTransientException("timeout"))) ;
+		assertTrue(batch.isTransient(new SQLException("lock wait timeout", "HY000", 1205))) ;
+		assertFalse(batch.isTransient(new SQLException("duplicate key", "23505"))) ;
+	}
+	/**
+	 * Returns statement whose first batch fails with lock timeout, rest of calls are delegated
+	 * @param ps
+	 * @param executions
+	 * @return
+	 */
+	private static PreparedStatement failOnce(PreparedStatement ps, AtomicInteger executions) {
+		return (PreparedStatement) Proxy.newProxyInstance(BioSqlBatchTest.class.getClassLoader(), new Class[] {PreparedStatement.class}, (proxy, method, args) -> {
+			if (method.getName().equals("executeBatch") && executions.incrementAndGet() == 1) {
+				BatchUpdateException e = new BatchUpdateException("lock timeout", new int[0]) ;
+				e.setNextException(new SQLTransientException("lock timeout"));
+				throw e ;
+			}
+			try {
+				return method.invoke(ps, args) ;
+			} catch (InvocationTargetException e) {
+				throw e.getCause() ;
+			}
+		}) ;
+	}
+}
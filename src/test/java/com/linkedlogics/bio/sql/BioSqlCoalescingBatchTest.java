@@ -0,0 +1,76 @@
+package com.linkedlogics.bio.sql;
+
+import static org.junit.Assert.assertEquals;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.linkedlogics.bio.BioObject;
+import com.linkedlogics.bio.sql.test.Vehicle;
+
+/**
+ * Tests that coalesced operations are written as single batch per flush
+ * @author rajab
+ *
+ */
+public class BioSqlCoalescingBatchTest {
+	@Before
+	public void setUp() throws SQLException {
+		TestDatabase.init();
+		TestDatabase.clear(new BioSql<Vehicle>(Vehicle.class).getTable());
+	}
+	
+	@Test
+	public void testSingleExecutionPerFlush() throws SQLException {
+		try (Connection connection = TestDatabase.getConnection(); BioSqlCoalescingBatch batch = new BioSqlCoalescingBatch(Vehicle.class)) {
+			AtomicInteger executions = new AtomicInteger() ;
+			batch.setConnection(connection);
+			batch.setBatchSize(100);
+			batch.getBatch().setListener(new BioSqlBatchListener() {
+				@Override
+				public void onExecute(List<BioObject> objects, int[] results) {
+					executions.incrementAndGet() ;
+				}
+			});
+			
+			for (int i = 1; i <= 10; i++) {
+				batch.insert(new Vehicle("v" + i, "Ford", 2019)) ;
+			}
+			batch.update(new Vehicle("v1", "BMW", 2019)) ;
+			assertEquals(0, executions.get()) ;
+			
+			batch.flush();
+			assertEquals(1, executions.get()) ;
+			assertEquals(1, batch.getCoalescedCount()) ;
+			assertEquals(10, batch.getBatch().getSuccess().size()) ;
+			assertEquals("BMW", TestDatabase.open(Vehicle.class, connection).select("v1").get(Vehicle.PRODUCER)) ;
+		}
+		assertEquals(10, TestDatabase.count("vehicles")) ;
+	}
+	
+	@Test
+	public void testBatchSizeTriggersFlush() throws SQLException {
+		try (Connection connection = TestDatabase.getConnection(); BioSqlCoalescingBatch batch = new BioSqlCoalescingBatch(Vehicle.class)) {
+			AtomicInteger executions = new AtomicInteger() ;
+			batch.setConnection(connection);
+			batch.setBatchSize(5);
+			batch.getBatch().setListener(new BioSqlBatchListener() {
+				@Override
+				public void onExecute(List<BioObject> objects, int[] results) {
+					executions.incrementAndGet() ;
+				}
+			});
+			
+			for (int i = 1; i <= 10; i++) {
+				batch.insert(new Vehicle("v" + i, "Ford", 2019)) ;
+			}
+			assertEquals(2, executions.get()) ;
+		}
+		assertEquals(10, TestDatabase.count("vehicles")) ;
+	}
+}
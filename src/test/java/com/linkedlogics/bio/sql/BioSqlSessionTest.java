@@ -0,0 +1,121 @@
+package com.linkedlogics.bio.sql;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.linkedlogics.bio.sql.exception.SqlException;
+import com.linkedlogics.bio.sql.test.Invoice;
+import com.linkedlogics.bio.sql.test.InvoiceLine;
+
+/**
+ * Tests ordering, key propagation, rollback and changed column updates of session
+ * @author rajab
+ *
+ */
+public class BioSqlSessionTest {
+	@Before
+	public void setUp() throws SQLException {
+		TestDatabase.init();
+		// related rows are deleted first because of foreign key
+		TestDatabase.clear(new BioSql<InvoiceLine>(InvoiceLine.class).getTable());
+		TestDatabase.clear(new BioSql<Invoice>(Invoice.class).getTable());
+	}
+
+	@Test
+	public void testParentKeysAreCopiedIntoRelatedObjects() throws SQLException {
+		InvoiceLine first = new InvoiceLine(1, "tea", 2) ;
+		InvoiceLine second = new InvoiceLine(2, "milk", 1) ;
+		Invoice invoice = new Invoice("john", 30, new ArrayList<InvoiceLine>(Arrays.asList(first, second))) ;
+
+		try (Connection connection = TestDatabase.getConnection(); BioSqlSession session = new BioSqlSession(connection)) {
+			// lines are added first but they must be inserted after invoice
+			session.insert(first);
+			session.insert(second);
+			session.insert(invoice);
+			session.commit();
+		}
+
+		assertNotNull(invoice.get(Invoice.ID)) ;
+		assertEquals(invoice.get(Invoice.ID), first.get(InvoiceLine.INVOICE_ID)) ;
+		assertEquals(invoice.get(Invoice.ID), second.get(InvoiceLine.INVOICE_ID)) ;
+		assertEquals(1, TestDatabase.count("invoices")) ;
+		assertEquals(2, TestDatabase.count("invoice_lines")) ;
+	}
+
+	@Test
+	public void testRelatedObjectsAreDeletedFirst() throws SQLException {
+		InvoiceLine line = new InvoiceLine(1, "tea", 2) ;
+		Invoice invoice = new Invoice("john", 30, new ArrayList<InvoiceLine>(Arrays.asList(line))) ;
+		try (Connection connection = TestDatabase.getConnection(); BioSqlSession session = new BioSqlSession(connection)) {
+			session.insert(invoice);
+			session.insert(line);
+			session.commit();
+
+			session.delete(invoice);
+			session.delete(line);
+			session.commit();
+		}
+		assertEquals(0, TestDatabase.count("invoices")) ;
+		assertEquals(0, TestDatabase.count("invoice_lines")) ;
+	}
+
+	@Test
+	public void testFailureRollsBackAllTables() throws SQLException {
+		Invoice invoice = new Invoice("john", 30, null) ;
+		try (Connection connection = TestDatabase.getConnection(); BioSqlSession session = new BioSqlSession(connection)) {
+			session.insert(invoice);
+			session.commit();
+
+			int id = (Integer) invoice.get(Invoice.ID) ;
+			session.insert(new Invoice("jane", 10, null));
+			session.insert(new InvoiceLine(id, 1, "tea", 2));
+			// same key is inserted twice
+			session.insert(new InvoiceLine(id, 1, "milk", 1));
+			try {
+				session.commit();
+				fail("duplicate key must fail session") ;
+			} catch (SQLException | SqlException e) {
+
+			}
+		}
+		assertEquals(1, TestDatabase.count("invoices")) ;
+		assertEquals(0, TestDatabase.count("invoice_lines")) ;
+	}
+
+	@Test
+	public void testTrackedObjectUpdatesChangedColumnsOnly() throws SQLException {
+		try (Connection connection = TestDatabase.getConnection(); BioSqlSession session = new BioSqlSession(connection)) {
+			Invoice invoice = new Invoice("john", 30, null) ;
+			session.insert(invoice);
+			session.commit();
+
+			BioSql<Invoice> sql = TestDatabase.open(Invoice.class, connection) ;
+			sql.setTracking(true);
+			Invoice loaded = sql.select(invoice.get(Invoice.ID)) ;
+			Invoice unchanged = sql.select(invoice.get(Invoice.ID)) ;
+			// total is changed by somebody else so it must not be overwritten
+			TestDatabase.execute("update invoices set total = 50") ;
+
+			loaded.set(Invoice.CUSTOMER, "jane") ;
+			session.update(loaded);
+			session.update(unchanged);
+			session.commit();
+
+			Invoice selected = sql.select(invoice.get(Invoice.ID)) ;
+			assertEquals("jane", selected.get(Invoice.CUSTOMER)) ;
+			assertEquals(50, selected.get(Invoice.TOTAL)) ;
+			// snapshot is updated after commit so same change is not written again
+			assertNull(sql.getChanges(loaded, BioSnapshots.get(loaded))) ;
+		}
+	}
+}
@@ -0,0 +1,83 @@
+package com.linkedlogics.bio.sql;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.linkedlogics.bio.sql.exception.SqlException;
+import com.linkedlogics.bio.sql.object.BioTable;
+import com.linkedlogics.bio.sql.test.Vehicle;
+
+/**
+ * Tests compiling of conditions and binding of compiled wheres
+ * @author rajab
+ *
+ */
+public class ConditionTest {
+	private BioTable table ;
+
+	@Before
+	public void setUp() throws SQLException {
+		TestDatabase.init();
+		table = new BioSql<Vehicle>(Vehicle.class).getTable() ;
+		TestDatabase.clear(table);
+	}
+
+	@Test
+	public void testCompile() {
+		Condition c = Condition.eq(Vehicle.PRODUCER, "Toyota").and(Condition.between(Vehicle.YEAR_OF_PRODUCTION, 2010, 2015)) ;
+		CompiledWhere where = c.compile(table) ;
+		assertEquals("(producer = ? and year_of_production between ? and ?)", where.getWhere()) ;
+		assertEquals(3, where.size()) ;
+		assertEquals(Types.VARCHAR, where.getType(1)) ;
+		assertEquals("Toyota", where.getValue(1)) ;
+		assertEquals(2015, where.getValue(3)) ;
+		// same table returns same template
+		assertSame(where, c.compile(table)) ;
+
+		assertEquals("vin in (?,?)", Condition.in(Vehicle.VIN, "v1", "v2").compile(table).getWhere()) ;
+		assertEquals("producer is null", Condition.eq(Vehicle.PRODUCER, null).compile(table).getWhere()) ;
+	}
+
+	@Test(expected = SqlException.class)
+	public void testUnknownTag() {
+		Condition.eq("color", "red").compile(table) ;
+	}
+
+	@Test
+	public void testBind() throws SQLException {
+		try (Connection connection = TestDatabase.getConnection()) {
+			BioSql<Vehicle> sql = TestDatabase.open(Vehicle.class, connection) ;
+			sql.insert(new Vehicle("v1", "Ford", 2012)) ;
+			sql.insert(new Vehicle("v2", "Toyota", 2012)) ;
+			sql.insert(new Vehicle("v3", "Toyota", 2018)) ;
+
+			CompiledWhere where = Condition.eq(Vehicle.PRODUCER, "").and(Condition.ge(Vehicle.YEAR_OF_PRODUCTION, 0)).compile(table) ;
+			CompiledWhere bound = where.bind("Toyota", 2010) ;
+			assertEquals(where.getWhere(), bound.getWhere()) ;
+			assertEquals("", where.getValue(1)) ;
+
+			List<Vehicle> list = sql.select(null, bound) ;
+			assertEquals(2, list.size()) ;
+			assertEquals(1, sql.select(null, where.bind("Toyota", 2015)).size()) ;
+			assertEquals(1, sql.select(null, where.bind("Ford", 2010)).size()) ;
+		}
+	}
+
+	@Test(expected = SqlException.class)
+	public void testBindRequiresAllValues() {
+		Condition.eq(Vehicle.PRODUCER, "Toyota").compile(table).bind("Toyota", 2010) ;
+	}
+
+	@Test(expected = SqlException.class)
+	public void testCompiledWhereCanNotBeChanged() {
+		Condition.eq(Vehicle.PRODUCER, "Toyota").compile(table).setString(1, "Ford") ;
+	}
+}
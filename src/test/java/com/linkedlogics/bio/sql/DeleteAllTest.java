@@ -0,0 +1,92 @@
+package com.linkedlogics.bio.sql;
+
+import static org.junit.Assert.assertEquals;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.linkedlogics.bio.sql.object.BioColumn;
+import com.linkedlogics.bio.sql.test.Invoice;
+import com.linkedlogics.bio.sql.test.InvoiceLine;
+
+/**
+ * Tests chunked deletes by composite primary keys
+ * @author rajab
+ *
+ */
+public class DeleteAllTest {
+	private int invoiceId ;
+
+	@Before
+	public void setUp() throws SQLException {
+		TestDatabase.init();
+		// related rows are deleted first because of foreign key
+		TestDatabase.clear(new BioSql<InvoiceLine>(InvoiceLine.class).getTable());
+		TestDatabase.clear(new BioSql<Invoice>(Invoice.class).getTable());
+		try (Connection connection = TestDatabase.getConnection()) {
+			Invoice invoice = new Invoice("john", 30, null) ;
+			TestDatabase.open(Invoice.class, connection).insert(invoice) ;
+			invoiceId = (Integer) invoice.get(Invoice.ID) ;
+			BioSql<InvoiceLine> sql = TestDatabase.open(InvoiceLine.class, connection) ;
+			for (int i = 1; i <= 7; i++) {
+				sql.insert(new InvoiceLine(invoiceId, i, "tea", i)) ;
+			}
+		}
+	}
+
+	@Test
+	public void testKeysAreDeletedInChunks() throws SQLException {
+		try (Connection connection = TestDatabase.getConnection()) {
+			BioStatementCache cache = BioStatementCache.register(connection) ;
+			try {
+				BioSql<InvoiceLine> sql = TestDatabase.open(InvoiceLine.class, connection) ;
+				sql.setDeleteChunkSize(3);
+				List<Object[]> keys = new ArrayList<Object[]>() ;
+				for (int i = 1; i <= 6; i++) {
+					keys.add(key(sql, i)) ;
+				}
+				// missing key is not counted
+				keys.add(key(sql, 100)) ;
+
+				assertEquals(6, sql.deleteAll(keys)) ;
+				// 7 keys are sent by 3 statements
+				assertEquals(3, cache.getHitCount() + cache.getMissCount()) ;
+			} finally {
+				cache.close();
+			}
+		}
+		assertEquals(1, TestDatabase.count("invoice_lines")) ;
+	}
+
+	@Test
+	public void testObjectsAreDeletedByTheirKeys() throws SQLException {
+		try (Connection connection = TestDatabase.getConnection()) {
+			BioSql<InvoiceLine> sql = TestDatabase.open(InvoiceLine.class, connection) ;
+			sql.setDeleteChunkSize(2);
+			// only keys of objects are used
+			List<InvoiceLine> lines = Arrays.asList(new InvoiceLine(invoiceId, 1, "milk", 0), new InvoiceLine(invoiceId, 2, "milk", 0), new InvoiceLine(invoiceId, 3, "milk", 0)) ;
+			assertEquals(3, sql.deleteAll(lines)) ;
+		}
+		assertEquals(4, TestDatabase.count("invoice_lines")) ;
+	}
+	/**
+	 * Returns key values of line in primary key order of table
+	 * @param sql
+	 * @param line
+	 * @return
+	 */
+	private Object[] key(BioSql<InvoiceLine> sql, int line) {
+		BioColumn[] columns = sql.getTable().getKeys() ;
+		Object[] key = new Object[columns.length] ;
+		for (int i = 0; i < columns.length; i++) {
+			key[i] = columns[i].getTagName().equals(InvoiceLine.LINE) ? line : invoiceId ;
+		}
+		return key ;
+	}
+}
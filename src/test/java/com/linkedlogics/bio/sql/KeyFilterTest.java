@@ -0,0 +1,86 @@
+package com.linkedlogics.bio.sql;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.linkedlogics.bio.sql.cache.BioKeyFilter;
+import com.linkedlogics.bio.sql.test.Vehicle;
+
+/**
+ * Tests that key filter answers selects of missing keys and never hides existing rows
+ * @author rajab
+ *
+ */
+public class KeyFilterTest {
+	@Before
+	public void setUp() throws SQLException {
+		TestDatabase.init();
+		TestDatabase.clear(new BioSql<Vehicle>(Vehicle.class).getTable());
+	}
+	
+	@Test
+	public void testMissingKeyIsAnsweredByFilter() throws SQLException {
+		TestDatabase.execute("insert into vehicles (vin, producer, year_of_production) values ('v1', 'Ford', 2019)") ;
+		try (Connection connection = TestDatabase.getConnection()) {
+			BioSql<Vehicle> sql = TestDatabase.open(Vehicle.class, connection) ;
+			BioKeyFilter filter = sql.loadKeyFilter() ;
+			
+			long negatives = filter.getNegativeCount() ;
+			assertNull(sql.select("missing")) ;
+			assertEquals(negatives + 1, filter.getNegativeCount()) ;
+			assertNotNull(sql.select("v1")) ;
+		}
+	}
+	
+	@Test
+	public void testInsertedKeyIsAdded() throws SQLException {
+		try (Connection connection = TestDatabase.getConnection()) {
+			BioSql<Vehicle> sql = TestDatabase.open(Vehicle.class, connection) ;
+			sql.loadKeyFilter() ;
+			
+			sql.insert(new Vehicle("v1", "Ford", 2019)) ;
+			assertNotNull(sql.select("v1")) ;
+		}
+	}
+	
+	@Test
+	public void testDeleteKeepsKey() throws SQLException {
+		try (Connection connection = TestDatabase.getConnection()) {
+			BioSql<Vehicle> sql = TestDatabase.open(Vehicle.class, connection) ;
+			Vehicle v = new Vehicle("v1", "Ford", 2019) ;
+			sql.insert(v) ;
+			sql.loadKeyFilter() ;
+			
+			sql.delete(v) ;
+			assertNull(sql.select("v1")) ;
+			
+			// row inserted by others after delete must still be found
+			TestDatabase.execute("insert into vehicles (vin, producer, year_of_production) values ('v1', 'Ford', 2019)") ;
+			assertNotNull(sql.select("v1")) ;
+		}
+	}
+	
+	@Test
+	public void testDeleteAllKeepsKeys() throws SQLException {
+		try (Connection connection = TestDatabase.getConnection()) {
+			BioSql<Vehicle> sql = TestDatabase.open(Vehicle.class, connection) ;
+			sql.insert(new Vehicle("v1", "Ford", 2019)) ;
+			sql.loadKeyFilter() ;
+			
+			// keys which didn't exist must not be removed from filter
+			sql.deleteAll(Arrays.asList("v1", "v2", "v3")) ;
+			assertNull(sql.select("v1")) ;
+			
+			TestDatabase.execute("insert into vehicles (vin, producer, year_of_production) values ('v1', 'Ford', 2019)") ;
+			assertNotNull(sql.select("v1")) ;
+		}
+	}
+}
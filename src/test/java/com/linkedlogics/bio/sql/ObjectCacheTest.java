@@ -0,0 +1,106 @@
+package com.linkedlogics.bio.sql;
+
+import static org.junit.Assert.assertEquals;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.linkedlogics.bio.sql.cache.BioObjectCache;
+import com.linkedlogics.bio.sql.test.Vehicle;
+
+/**
+ * Tests read through object cache and its invalidation by writes and transactions
+ * @author rajab
+ *
+ */
+public class ObjectCacheTest {
+	private BioObjectCache cache ;
+	
+	@Before
+	public void setUp() throws SQLException {
+		TestDatabase.init();
+		BioSql<Vehicle> sql = new BioSql<Vehicle>(Vehicle.class) ;
+		TestDatabase.clear(sql.getTable());
+		cache = sql.getTable().getCache() ;
+	}
+	
+	@Test
+	public void testSelectReadsThroughCache() throws SQLException {
+		try (Connection connection = TestDatabase.getConnection()) {
+			BioSql<Vehicle> sql = TestDatabase.open(Vehicle.class, connection) ;
+			sql.insert(new Vehicle("v1", "Ford", 2019)) ;
+			
+			long hits = cache.getHitCount() ;
+			assertEquals("Ford", sql.select("v1").get(Vehicle.PRODUCER)) ;
+			assertEquals("Ford", sql.select("v1").get(Vehicle.PRODUCER)) ;
+			assertEquals(hits + 1, cache.getHitCount()) ;
+		}
+	}
+	
+	@Test
+	public void testCachedValuesAreCopied() throws SQLException {
+		try (Connection connection = TestDatabase.getConnection()) {
+			BioSql<Vehicle> sql = TestDatabase.open(Vehicle.class, connection) ;
+			sql.insert(new Vehicle("v1", "Ford", 2019)) ;
+			
+			sql.select("v1").set(Vehicle.PRODUCER, "Changed") ;
+			sql.select("v1").set(Vehicle.PRODUCER, "Changed") ;
+			assertEquals("Ford", sql.select("v1").get(Vehicle.PRODUCER)) ;
+		}
+	}
+	
+	@Test
+	public void testWriteInvalidatesCache() throws SQLException {
+		try (Connection connection = TestDatabase.getConnection()) {
+			BioSql<Vehicle> sql = TestDatabase.open(Vehicle.class, connection) ;
+			sql.insert(new Vehicle("v1", "Ford", 2019)) ;
+			sql.select("v1") ;
+			
+			sql.update(new Vehicle("v1", "BMW", 2019)) ;
+			assertEquals("BMW", sql.select("v1").get(Vehicle.PRODUCER)) ;
+			
+			sql.delete(new Vehicle("v1", "BMW", 2019)) ;
+			assertEquals(null, sql.select("v1")) ;
+		}
+	}
+	
+	@Test
+	public void testUncommittedChangesAreNotCached() throws SQLException {
+		try (Connection reader = TestDatabase.getConnection(); Connection writer = TestDatabase.getConnection()) {
+			BioSql<Vehicle> readerSql = TestDatabase.open(Vehicle.class, reader) ;
+			readerSql.insert(new Vehicle("v1", "Ford", 2019)) ;
+			readerSql.select("v1") ;
+			
+			writer.setAutoCommit(false);
+			BioSql<Vehicle> writerSql = TestDatabase.open(Vehicle.class, writer) ;
+			writerSql.update(new Vehicle("v1", "BMW", 2019)) ;
+			
+			// writer sees its own change and reader caches committed row meanwhile
+			assertEquals("BMW", writerSql.select("v1").get(Vehicle.PRODUCER)) ;
+			assertEquals("Ford", readerSql.select("v1").get(Vehicle.PRODUCER)) ;
+			
+			BioSql.commit(writer);
+			assertEquals("BMW", readerSql.select("v1").get(Vehicle.PRODUCER)) ;
+		}
+	}
+	
+	@Test
+	public void testRollbackInvalidatesCache() throws SQLException {
+		try (Connection reader = TestDatabase.getConnection(); Connection writer = TestDatabase.getConnection()) {
+			BioSql<Vehicle> readerSql = TestDatabase.open(Vehicle.class, reader) ;
+			readerSql.insert(new Vehicle("v1", "Ford", 2019)) ;
+			
+			writer.setAutoCommit(false);
+			BioSql<Vehicle> writerSql = TestDatabase.open(Vehicle.class, writer) ;
+			writerSql.update(new Vehicle("v1", "BMW", 2019)) ;
+			assertEquals("BMW", writerSql.select("v1").get(Vehicle.PRODUCER)) ;
+			
+			BioSql.rollback(writer);
+			assertEquals("Ford", writerSql.select("v1").get(Vehicle.PRODUCER)) ;
+			assertEquals("Ford", readerSql.select("v1").get(Vehicle.PRODUCER)) ;
+		}
+	}
+}
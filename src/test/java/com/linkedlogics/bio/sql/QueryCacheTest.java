@@ -0,0 +1,71 @@
+package com.linkedlogics.bio.sql;
+
+import static org.junit.Assert.assertEquals;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.linkedlogics.bio.sql.cache.BioQueryCache;
+import com.linkedlogics.bio.sql.test.Vehicle;
+
+/**
+ * Tests caching of query results and their invalidation by writes and transactions
+ * @author rajab
+ *
+ */
+public class QueryCacheTest {
+	private BioQueryCache cache ;
+	
+	@Before
+	public void setUp() throws SQLException {
+		TestDatabase.init();
+		BioSql<Vehicle> sql = new BioSql<Vehicle>(Vehicle.class) ;
+		TestDatabase.clear(sql.getTable());
+		cache = sql.getTable().getQueryCache() ;
+	}
+	
+	@Test
+	public void testResultIsCachedUntilWrite() throws SQLException {
+		try (Connection connection = TestDatabase.getConnection()) {
+			BioSql<Vehicle> sql = TestDatabase.open(Vehicle.class, connection) ;
+			sql.insert(new Vehicle("v1", "Ford", 2019)) ;
+			
+			long hits = cache.getHitCount() ;
+			assertEquals(1, sql.select(ford()).size()) ;
+			assertEquals(1, sql.select(ford()).size()) ;
+			assertEquals(hits + 1, cache.getHitCount()) ;
+			
+			sql.insert(new Vehicle("v2", "Ford", 2020)) ;
+			assertEquals(2, sql.select(ford()).size()) ;
+		}
+	}
+	
+	@Test
+	public void testUncommittedChangesAreNotCached() throws SQLException {
+		try (Connection reader = TestDatabase.getConnection(); Connection writer = TestDatabase.getConnection()) {
+			BioSql<Vehicle> readerSql = TestDatabase.open(Vehicle.class, reader) ;
+			readerSql.insert(new Vehicle("v1", "Ford", 2019)) ;
+			
+			writer.setAutoCommit(false);
+			BioSql<Vehicle> writerSql = TestDatabase.open(Vehicle.class, writer) ;
+			writerSql.insert(new Vehicle("v2", "Ford", 2020)) ;
+			
+			// writer sees its own row and reader caches committed rows meanwhile
+			assertEquals(2, writerSql.select(ford()).size()) ;
+			assertEquals(1, readerSql.select(ford()).size()) ;
+			assertEquals(2, writerSql.select(ford()).size()) ;
+			
+			BioSql.commit(writer);
+			assertEquals(2, readerSql.select(ford()).size()) ;
+		}
+	}
+	
+	private static Vehicle ford() {
+		Vehicle filter = new Vehicle() ;
+		filter.set(Vehicle.PRODUCER, "Ford") ;
+		return filter ;
+	}
+}
@@ -0,0 +1,103 @@
+package com.linkedlogics.bio.sql;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.linkedlogics.bio.sql.object.BioTable;
+import com.linkedlogics.bio.sql.test.Tariff;
+
+/**
+ * Tests selects answered by replicated table and invalidation of replica by local writes
+ * @author rajab
+ *
+ */
+public class ReplicatorTest {
+	private BioTable table ;
+	private BioReplicator replicator ;
+	
+	@Before
+	public void setUp() throws SQLException {
+		TestDatabase.init();
+		table = new BioSql<Tariff>(Tariff.class).getTable() ;
+		TestDatabase.clear(table);
+		TestDatabase.execute("insert into tariffs (code, currency, price) values ('t1', 'EUR', 10)") ;
+		
+		replicator = new BioReplicator(TestDatabase.getDataSource(), Tariff.class) ;
+		replicator.setIndexTags(Tariff.CURRENCY);
+		replicator.setRefreshInterval(60000);
+		replicator.start();
+	}
+	
+	@After
+	public void tearDown() {
+		replicator.close();
+	}
+	
+	@Test
+	public void testSelectsAreAnsweredFromReplica() throws SQLException {
+		// row inserted by another application is not seen until refresh
+		TestDatabase.execute("insert into tariffs (code, currency, price) values ('t2', 'EUR', 20)") ;
+		try (Connection connection = TestDatabase.getConnection()) {
+			BioSql<Tariff> sql = TestDatabase.open(Tariff.class, connection) ;
+			assertNotNull(sql.select("t1")) ;
+			assertNull(sql.select("t2")) ;
+			assertEquals(1, sql.select(eur()).size()) ;
+			
+			replicator.refresh();
+			assertNotNull(sql.select("t2")) ;
+			assertEquals(2, sql.select(eur()).size()) ;
+		}
+	}
+	
+	@Test
+	public void testDeltaTagIsNotSetByDefault() {
+		assertNull(replicator.getDeltaTag()) ;
+	}
+	
+	@Test
+	public void testLocalWriteInvalidatesReplica() throws SQLException {
+		try (Connection connection = TestDatabase.getConnection()) {
+			BioSql<Tariff> sql = TestDatabase.open(Tariff.class, connection) ;
+			sql.insert(new Tariff("t2", "EUR", 20)) ;
+			assertNull(table.getReplica()) ;
+			assertNotNull(sql.select("t2")) ;
+			
+			replicator.refresh();
+			assertNotNull(table.getReplica()) ;
+			assertEquals(2, sql.select(eur()).size()) ;
+		}
+	}
+	
+	@Test
+	public void testCommitInvalidatesReplica() throws SQLException {
+		try (Connection reader = TestDatabase.getConnection(); Connection writer = TestDatabase.getConnection()) {
+			writer.setAutoCommit(false);
+			BioSql<Tariff> writerSql = TestDatabase.open(Tariff.class, writer) ;
+			writerSql.insert(new Tariff("t2", "EUR", 20)) ;
+			assertNotNull(writerSql.select("t2")) ;
+			
+			// replica loaded before commit doesn't contain uncommitted row
+			replicator.refresh();
+			BioSql<Tariff> readerSql = TestDatabase.open(Tariff.class, reader) ;
+			assertNull(readerSql.select("t2")) ;
+			
+			BioSql.commit(writer);
+			assertNull(table.getReplica()) ;
+			assertNotNull(readerSql.select("t2")) ;
+		}
+	}
+	
+	private static Tariff eur() {
+		Tariff filter = new Tariff() ;
+		filter.set(Tariff.CURRENCY, "EUR") ;
+		return filter ;
+	}
+}
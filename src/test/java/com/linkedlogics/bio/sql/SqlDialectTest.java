@@ -0,0 +1,78 @@
+package com.linkedlogics.bio.sql;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.linkedlogics.bio.sql.dialect.H2Dialect;
+import com.linkedlogics.bio.sql.dialect.MySqlDialect;
+import com.linkedlogics.bio.sql.dialect.PostgreSqlDialect;
+import com.linkedlogics.bio.sql.dialect.SqlDialect;
+import com.linkedlogics.bio.sql.exception.SqlException;
+import com.linkedlogics.bio.sql.test.Vehicle;
+
+/**
+ * Tests dialect detection and dialect specific statements executed on H2
+ * @author rajab
+ *
+ */
+public class SqlDialectTest {
+	@Before
+	public void setUp() throws SQLException {
+		TestDatabase.init();
+		TestDatabase.clear(new BioSql<Vehicle>(Vehicle.class).getTable());
+	}
+	
+	@Test
+	public void testDialectIsDetected() throws SQLException {
+		try (Connection connection = TestDatabase.getConnection()) {
+			assertTrue(SqlDialect.getDialect(connection) instanceof H2Dialect) ;
+		}
+		assertTrue(SqlDialect.getDialect("PostgreSQL") instanceof PostgreSqlDialect) ;
+		assertTrue(SqlDialect.getDialect("MariaDB") instanceof MySqlDialect) ;
+	}
+	
+	@Test
+	public void testReturning() {
+		PostgreSqlDialect postgres = new PostgreSqlDialect() ;
+		assertTrue(postgres.isReturning()) ;
+		assertEquals("insert into t (a) values (?) returning id", postgres.returning("insert into t (a) values (?)", new String[] {"id"})) ;
+	}
+	
+	@Test(expected = SqlException.class)
+	public void testReturningIsNotSupportedByH2() {
+		H2Dialect h2 = new H2Dialect() ;
+		assertFalse(h2.isReturning()) ;
+		h2.returning("insert into t (a) values (?)", new String[] {"id"}) ;
+	}
+	
+	@Test
+	public void testUpsert() throws SQLException {
+		try (Connection connection = TestDatabase.getConnection()) {
+			BioSql<Vehicle> sql = TestDatabase.open(Vehicle.class, connection) ;
+			sql.upsert(new Vehicle("v1", "Ford", 2019)) ;
+			sql.upsert(new Vehicle("v1", "BMW", 2019)) ;
+			
+			assertEquals(1, TestDatabase.count("vehicles")) ;
+			assertEquals("BMW", sql.select("v1").get(Vehicle.PRODUCER)) ;
+		}
+	}
+	
+	@Test
+	public void testInsertAllAndLimit() throws SQLException {
+		try (Connection connection = TestDatabase.getConnection()) {
+			BioSql<Vehicle> sql = TestDatabase.open(Vehicle.class, connection) ;
+			sql.insertAll(Arrays.asList(new Vehicle("v1", "Ford", 2019), new Vehicle("v2", "Ford", 2020), new Vehicle("v3", "BMW", 2021))) ;
+			
+			assertEquals(3, TestDatabase.count("vehicles")) ;
+			assertEquals(2, sql.select(null, null, null, 2).size()) ;
+		}
+	}
+}
@@ -0,0 +1,97 @@
+package com.linkedlogics.bio.sql;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.h2.jdbcx.JdbcDataSource;
+
+import com.linkedlogics.bio.BioObject;
+import com.linkedlogics.bio.sql.object.BioTable;
+
+/**
+ * In memory H2 database and dictionary of test tables which are built once per JVM
+ * @author rajab
+ *
+ */
+class TestDatabase {
+	static final String URL = "jdbc:h2:mem:bio;DB_CLOSE_DELAY=-1" ;
+	static final String PACKAGE = "com.linkedlogics.bio.sql.test" ;
+	private static boolean isReady ;
+	
+	/**
+	 * Builds dictionary in parallel and creates tables
+	 * @throws SQLException
+	 */
+	static synchronized void init() throws SQLException {
+		if (isReady) {
+			return ;
+		}
+		new BioDictionaryBuilder().addPackage(PACKAGE).setParallelism(4).build();
+		execute("create table vehicles (vin varchar(64) primary key, producer varchar(64), year_of_production int)") ;
+		execute("create table vehicles_stage (vin varchar(64), producer varchar(64), year_of_production int)") ;
+		execute("create table tariffs (code varchar(64) primary key, currency varchar(3), price int)") ;
+		execute("create table invoices (id int auto_increment primary key, customer varchar(64), total int)") ;
+		execute("create table invoice_lines (invoice_id int references invoices(id), line int, product varchar(64), quantity int, primary key (invoice_id, line))") ;
+		execute("create table accounts (id varchar(64) primary key, owner varchar(64), balance int, version int)") ;
+		isReady = true ;
+	}
+	
+	static Connection getConnection() throws SQLException {
+		return DriverManager.getConnection(URL) ;
+	}
+	
+	/**
+	 * Returns bio sql of class using connection
+	 * @param bioClass
+	 * @param connection
+	 * @return
+	 */
+	static <T extends BioObject> BioSql<T> open(Class<T> bioClass, Connection connection) {
+		BioSql<T> sql = new BioSql<T>(bioClass) ;
+		sql.setConnection(connection);
+		return sql ;
+	}
+	
+	static DataSource getDataSource() {
+		JdbcDataSource dataSource = new JdbcDataSource() ;
+		dataSource.setURL(URL);
+		return dataSource ;
+	}
+	
+	static void execute(String sql) throws SQLException {
+		try (Connection connection = getConnection(); Statement s = connection.createStatement()) {
+			s.execute(sql) ;
+		}
+	}
+	
+	static int count(String table) throws SQLException {
+		try (Connection connection = getConnection(); Statement s = connection.createStatement(); ResultSet rs = s.executeQuery("select count(*) from " + table)) {
+			rs.next() ;
+			return rs.getInt(1) ;
+		}
+	}
+	/**
+	 * Deletes rows of table and clears its caches
+	 * @param table
+	 * @throws SQLException
+	 */
+	static void clear(BioTable table) throws SQLException {
+		execute("delete from " + table.getTable()) ;
+		if (table.getCache() != null) {
+			table.getCache().clear();
+		}
+		if (table.getQueryCache() != null) {
+			table.getQueryCache().invalidate();
+		}
+		if (table.getKeyFilter() != null) {
+			table.getKeyFilter().clear();
+			table.getKeyFilter().setReady(false);
+		}
+		table.invalidateReplica();
+	}
+}
@@ -0,0 +1,97 @@
+package com.linkedlogics.bio.sql;
+
+import static org.junit.Assert.assertEquals;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.linkedlogics.bio.sql.test.Invoice;
+import com.linkedlogics.bio.sql.test.InvoiceLine;
+
+/**
+ * Tests that save() of tracked objects writes only changed columns
+ * @author rajab
+ *
+ */
+public class TrackingTest {
+	@Before
+	public void setUp() throws SQLException {
+		TestDatabase.init();
+		// related rows are deleted first because of foreign key
+		TestDatabase.clear(new BioSql<InvoiceLine>(InvoiceLine.class).getTable());
+		TestDatabase.clear(new BioSql<Invoice>(Invoice.class).getTable());
+	}
+
+	@Test
+	public void testChangedColumnsAreUpdated() throws SQLException {
+		try (Connection connection = TestDatabase.getConnection()) {
+			BioSql<Invoice> sql = TestDatabase.open(Invoice.class, connection) ;
+			sql.setTracking(true);
+			Invoice invoice = new Invoice("john", 30, null) ;
+			sql.insert(invoice) ;
+
+			Invoice loaded = sql.select(invoice.get(Invoice.ID)) ;
+			// total is changed by somebody else so it must not be overwritten
+			TestDatabase.execute("update invoices set total = 50") ;
+			loaded.set(Invoice.CUSTOMER, "jane") ;
+			assertEquals(1, sql.save(loaded)) ;
+
+			Invoice selected = sql.select(invoice.get(Invoice.ID)) ;
+			assertEquals("jane", selected.get(Invoice.CUSTOMER)) ;
+			assertEquals(50, selected.get(Invoice.TOTAL)) ;
+		}
+	}
+
+	@Test
+	public void testUnchangedObjectIsSkipped() throws SQLException {
+		try (Connection connection = TestDatabase.getConnection()) {
+			BioStatementCache cache = BioStatementCache.register(connection) ;
+			try {
+				BioSql<Invoice> sql = TestDatabase.open(Invoice.class, connection) ;
+				sql.setTracking(true);
+				Invoice invoice = new Invoice("john", 30, null) ;
+				sql.insert(invoice) ;
+				Invoice loaded = sql.select(invoice.get(Invoice.ID)) ;
+
+				long statements = cache.getHitCount() + cache.getMissCount() ;
+				assertEquals(BioSql.UNCHANGED, sql.save(loaded)) ;
+				assertEquals(statements, cache.getHitCount() + cache.getMissCount()) ;
+
+				// saved change is not written again
+				loaded.set(Invoice.TOTAL, 40) ;
+				assertEquals(1, sql.save(loaded)) ;
+				assertEquals(BioSql.UNCHANGED, sql.save(loaded)) ;
+			} finally {
+				cache.close();
+			}
+		}
+	}
+
+	@Test
+	public void testRelationsAreSavedWithUnchangedParent() throws SQLException {
+		try (Connection connection = TestDatabase.getConnection()) {
+			BioSql<Invoice> sql = TestDatabase.open(Invoice.class, connection) ;
+			sql.setLazy(false);
+			sql.setTracking(true);
+			Invoice invoice = new Invoice("john", 30, new ArrayList<InvoiceLine>(Arrays.asList(new InvoiceLine(1, "tea", 2)))) ;
+			sql.insert(invoice) ;
+
+			Invoice loaded = sql.select(invoice.get(Invoice.ID)) ;
+			List<InvoiceLine> lines = (List<InvoiceLine>) loaded.get(Invoice.LINES) ;
+			lines.get(0).set(InvoiceLine.QUANTITY, 5) ;
+			assertEquals(BioSql.UNCHANGED, sql.save(loaded)) ;
+
+			InvoiceLine key = new InvoiceLine() ;
+			key.set(InvoiceLine.INVOICE_ID, invoice.get(Invoice.ID)) ;
+			key.set(InvoiceLine.LINE, 1) ;
+			List<InvoiceLine> selected = TestDatabase.open(InvoiceLine.class, connection).select(key) ;
+			assertEquals(5, selected.get(0).get(InvoiceLine.QUANTITY)) ;
+		}
+	}
+}
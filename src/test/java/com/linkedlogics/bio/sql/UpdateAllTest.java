@@ -0,0 +1,78 @@
+package com.linkedlogics.bio.sql;
+
+import static org.junit.Assert.assertEquals;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.linkedlogics.bio.sql.object.BioTable;
+import com.linkedlogics.bio.sql.test.Account;
+
+/**
+ * Tests set based updates, automatic version increment and cache invalidation
+ * @author rajab
+ *
+ */
+public class UpdateAllTest {
+	private BioTable table ;
+
+	@Before
+	public void setUp() throws SQLException {
+		TestDatabase.init();
+		table = new BioSql<Account>(Account.class).getTable() ;
+		TestDatabase.clear(table);
+	}
+
+	@Test
+	public void testMatchingRowsAreUpdated() throws SQLException {
+		try (Connection connection = TestDatabase.getConnection()) {
+			BioSql<Account> sql = TestDatabase.open(Account.class, connection) ;
+			sql.insert(new Account("a1", "john", 100)) ;
+			sql.insert(new Account("a2", "john", 200)) ;
+			sql.insert(new Account("a3", "jane", 300)) ;
+
+			Update update = new Update().add(Account.BALANCE, 10) ;
+			assertEquals(2, sql.updateAll(update, null, Condition.eq(Account.OWNER, "john").compile(table))) ;
+
+			assertEquals(110, sql.select("a1").get(Account.BALANCE)) ;
+			assertEquals(210, sql.select("a2").get(Account.BALANCE)) ;
+			assertEquals(300, sql.select("a3").get(Account.BALANCE)) ;
+		}
+	}
+
+	@Test
+	public void testVersionIsIncremented() throws SQLException {
+		try (Connection connection = TestDatabase.getConnection()) {
+			BioSql<Account> sql = TestDatabase.open(Account.class, connection) ;
+			sql.insert(new Account("a1", "john", 100)) ;
+			Account stale = sql.select("a1") ;
+
+			sql.updateAll(new Update().set(Account.OWNER, "jane"), null, Condition.eq(Account.ID, "a1").compile(table)) ;
+			assertEquals(2, sql.select("a1").get(Account.VERSION)) ;
+			sql.updateAll(new Update().set(Account.OWNER, "joe").withoutVersion(), null, Condition.eq(Account.ID, "a1").compile(table)) ;
+			assertEquals(2, sql.select("a1").get(Account.VERSION)) ;
+
+			// object loaded before set based update must not overwrite it
+			stale.set(Account.BALANCE, 0) ;
+			stale.set(Account.VERSION, 2) ;
+			assertEquals(0, sql.update(stale)) ;
+			assertEquals("joe", sql.select("a1").get(Account.OWNER)) ;
+		}
+	}
+
+	@Test
+	public void testCachedRowsAreInvalidated() throws SQLException {
+		try (Connection connection = TestDatabase.getConnection()) {
+			BioSql<Account> sql = TestDatabase.open(Account.class, connection) ;
+			sql.insert(new Account("a1", "john", 100)) ;
+			assertEquals(100, sql.select("a1").get(Account.BALANCE)) ;
+			assertEquals(1, table.getCache().size()) ;
+
+			sql.updateAll(new Update().subtract(Account.BALANCE, 40), null, Condition.eq(Account.OWNER, "john").compile(table)) ;
+			assertEquals(60, sql.select("a1").get(Account.BALANCE)) ;
+		}
+	}
+}
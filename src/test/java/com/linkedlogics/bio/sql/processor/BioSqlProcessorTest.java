@@ -0,0 +1,140 @@
+package com.linkedlogics.bio.sql.processor;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests registries generated by processor for full, incremental and non constant tag compilations
+ * @author rajab
+ *
+ */
+public class BioSqlProcessorTest {
+	private static final String TABLE = "package p;\n"
+			+ "import com.linkedlogics.bio.BioObject;\n"
+			+ "import com.linkedlogics.bio.annotation.BioObj;\n"
+			+ "import com.linkedlogics.bio.annotation.BioTag;\n"
+			+ "import com.linkedlogics.bio.sql.annotation.BioSql;\n"
+			+ "import com.linkedlogics.bio.sql.annotation.BioSqlTag;\n"
+			+ "@BioObj\n"
+			+ "@BioSql\n"
+			+ "public class %s extends BioObject {\n"
+			+ "	@BioTag(type=\"String\")\n"
+			+ "	@BioSqlTag(isKey=true)\n"
+			+ "	public static final String ID = %s ;\n"
+			+ "}\n" ;
+	
+	private Path root ;
+	
+	@Before
+	public void setUp() throws IOException {
+		root = Files.createTempDirectory("bio-processor") ;
+	}
+	
+	@Test
+	public void testRegistryListsClasses() throws IOException {
+		compile("Car", "Truck") ;
+		
+		String registry = read("generated/p/" + BioSqlProcessor.REGISTRY + ".java") ;
+		assertTrue(registry, registry.contains("CLASSES = \"p.Car,p.Truck\"")) ;
+		assertTrue(registry, registry.contains("registrar.column(p.Car.class, \"id\", \"\", Registrar.KEY)")) ;
+		
+		String services = read("classes/META-INF/services/" + BioSqlRegistry.class.getName()) ;
+		assertTrue(services, services.contains("p." + BioSqlProcessor.REGISTRY)) ;
+	}
+	
+	@Test
+	public void testIncrementalBuildKeepsClasses() throws IOException {
+		compile("Car", "Truck") ;
+		// only one class is recompiled, previous registry is on class path
+		compile("Car") ;
+		
+		String registry = read("generated/p/" + BioSqlProcessor.REGISTRY + ".java") ;
+		assertTrue(registry, registry.contains("CLASSES = \"p.Car,p.Truck\"")) ;
+		assertTrue(registry, registry.contains("registrar.table(p.Truck.class)")) ;
+	}
+	
+	@Test
+	public void testNonConstantTagIsLeftToScanning() throws IOException {
+		write("Car", "\"id\"") ;
+		write("Bus", "new String(\"id\")") ;
+		DiagnosticCollector<JavaFileObject> diagnostics = compile() ;
+		
+		boolean isWarned = false ;
+		for (Diagnostic<? extends JavaFileObject> d : diagnostics.getDiagnostics()) {
+			isWarned = isWarned || (d.getKind() == Diagnostic.Kind.WARNING && d.getMessage(null).contains("p.Bus")) ;
+		}
+		assertTrue(diagnostics.getDiagnostics().toString(), isWarned) ;
+		
+		String registry = read("generated/p/" + BioSqlProcessor.REGISTRY + ".java") ;
+		assertTrue(registry, registry.contains("CLASSES = \"p.Car\"")) ;
+		assertFalse(registry, registry.contains("p.Bus.class")) ;
+	}
+	
+	private DiagnosticCollector<JavaFileObject> compile(String... classes) throws IOException {
+		for (String name : classes) {
+			write(name, "\"id\"") ;
+		}
+		return compile() ;
+	}
+	/**
+	 * Compiles sources written into src directory and removes them, so that next compilation only sees classes of previous one
+	 * @return
+	 * @throws IOException
+	 */
+	private DiagnosticCollector<JavaFileObject> compile() throws IOException {
+		Path classes = Files.createDirectories(root.resolve("classes")) ;
+		Path generated = Files.createDirectories(root.resolve("generated")) ;
+		List<File> files = new ArrayList<File>() ;
+		for (File f : root.resolve("src/p").toFile().listFiles()) {
+			files.add(f) ;
+		}
+		
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler() ;
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>() ;
+		try (StandardJavaFileManager manager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+			List<String> options = Arrays.asList("-classpath", getClassPath() + File.pathSeparator + classes, "-d", classes.toString(),
+					"-s", generated.toString(), "-processor", BioSqlProcessor.class.getName()) ;
+			boolean isCompiled = compiler.getTask(null, manager, diagnostics, options, null, manager.getJavaFileObjectsFromFiles(files)).call() ;
+			assertTrue(diagnostics.getDiagnostics().toString(), isCompiled) ;
+		}
+		for (File f : files) {
+			f.delete() ;
+		}
+		return diagnostics ;
+	}
+	
+	private void write(String name, String id) throws IOException {
+		Path source = Files.createDirectories(root.resolve("src/p")).resolve(name + ".java") ;
+		Files.write(source, String.format(TABLE, name, id).getBytes(StandardCharsets.UTF_8)) ;
+	}
+	
+	private String read(String path) throws IOException {
+		return new String(Files.readAllBytes(root.resolve(path)), StandardCharsets.UTF_8) ;
+	}
+	/**
+	 * Returns class path of tests, surefire may start tests from a manifest only jar
+	 * @return
+	 */
+	private static String getClassPath() {
+		return System.getProperty("surefire.test.class.path", System.getProperty("java.class.path")) ;
+	}
+}
@@ -0,0 +1,40 @@
+package com.linkedlogics.bio.sql.test;
+
+import com.linkedlogics.bio.BioObject;
+import com.linkedlogics.bio.annotation.BioObj;
+import com.linkedlogics.bio.annotation.BioTag;
+import com.linkedlogics.bio.sql.annotation.BioSql;
+import com.linkedlogics.bio.sql.annotation.BioSqlTag;
+
+/**
+ * Versioned table with object cache
+ * @author rajab
+ *
+ */
+@BioObj
+@BioSql(table="accounts", cacheSize = 100)
+public class Account extends BioObject {
+	@BioTag(type="String")
+	@BioSqlTag(isKey=true)
+	public static final String ID = "id" ;
+	@BioTag(type="String")
+	@BioSqlTag
+	public static final String OWNER = "owner" ;
+	@BioTag(type="Integer")
+	@BioSqlTag
+	public static final String BALANCE = "balance" ;
+	@BioTag(type="Integer")
+	@BioSqlTag(isVersion=true)
+	public static final String VERSION = "version" ;
+	
+	public Account() {
+		
+	}
+	
+	public Account(String id, String owner, int balance) {
+		set(ID, id) ;
+		set(OWNER, owner) ;
+		set(BALANCE, balance) ;
+		set(VERSION, 1) ;
+	}
+}
@@ -0,0 +1,44 @@
+package com.linkedlogics.bio.sql.test;
+
+import java.util.List;
+
+import com.linkedlogics.bio.BioObject;
+import com.linkedlogics.bio.annotation.BioObj;
+import com.linkedlogics.bio.annotation.BioTag;
+import com.linkedlogics.bio.sql.annotation.BioSql;
+import com.linkedlogics.bio.sql.annotation.BioSqlRelationTag;
+import com.linkedlogics.bio.sql.annotation.BioSqlTag;
+
+/**
+ * Parent table with database generated key and related lines
+ * @author rajab
+ *
+ */
+@BioObj
+@BioSql(table="invoices")
+public class Invoice extends BioObject {
+	@BioTag(type="Integer")
+	@BioSqlTag(isKey=true, isAuto=true)
+	public static final String ID = "id" ;
+	@BioTag(type="String")
+	@BioSqlTag
+	public static final String CUSTOMER = "customer" ;
+	@BioTag(type="Integer")
+	@BioSqlTag
+	public static final String TOTAL = "total" ;
+	@BioTag(type="InvoiceLine", isList=true)
+	@BioSqlRelationTag(relateColumns="id", toColumns="invoice_id")
+	public static final String LINES = "lines" ;
+	
+	public Invoice() {
+		
+	}
+	
+	public Invoice(String customer, int total, List<InvoiceLine> lines) {
+		set(CUSTOMER, customer) ;
+		set(TOTAL, total) ;
+		if (lines != null) {
+			set(LINES, lines) ;
+		}
+	}
+}
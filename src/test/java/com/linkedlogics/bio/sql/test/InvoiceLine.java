@@ -0,0 +1,44 @@
+package com.linkedlogics.bio.sql.test;
+
+import com.linkedlogics.bio.BioObject;
+import com.linkedlogics.bio.annotation.BioObj;
+import com.linkedlogics.bio.annotation.BioTag;
+import com.linkedlogics.bio.sql.annotation.BioSql;
+import com.linkedlogics.bio.sql.annotation.BioSqlTag;
+
+/**
+ * Related table with composite key
+ * @author rajab
+ *
+ */
+@BioObj
+@BioSql(table="invoice_lines")
+public class InvoiceLine extends BioObject {
+	@BioTag(type="Integer")
+	@BioSqlTag(isKey=true)
+	public static final String INVOICE_ID = "invoice_id" ;
+	@BioTag(type="Integer")
+	@BioSqlTag(isKey=true)
+	public static final String LINE = "line" ;
+	@BioTag(type="String")
+	@BioSqlTag
+	public static final String PRODUCT = "product" ;
+	@BioTag(type="Integer")
+	@BioSqlTag
+	public static final String QUANTITY = "quantity" ;
+	
+	public InvoiceLine() {
+		
+	}
+	
+	public InvoiceLine(int line, String product, int quantity) {
+		set(LINE, line) ;
+		set(PRODUCT, product) ;
+		set(QUANTITY, quantity) ;
+	}
+	
+	public InvoiceLine(int invoiceId, int line, String product, int quantity) {
+		this(line, product, quantity) ;
+		set(INVOICE_ID, invoiceId) ;
+	}
+}
@@ -0,0 +1,36 @@
+package com.linkedlogics.bio.sql.test;
+
+import com.linkedlogics.bio.BioObject;
+import com.linkedlogics.bio.annotation.BioObj;
+import com.linkedlogics.bio.annotation.BioTag;
+import com.linkedlogics.bio.sql.annotation.BioSql;
+import com.linkedlogics.bio.sql.annotation.BioSqlTag;
+
+/**
+ * Reference table which is replicated
+ * @author rajab
+ *
+ */
+@BioObj
+@BioSql(table="tariffs")
+public class Tariff extends BioObject {
+	@BioTag(type="String")
+	@BioSqlTag(isKey=true)
+	public static final String CODE = "code" ;
+	@BioTag(type="String")
+	@BioSqlTag
+	public static final String CURRENCY = "currency" ;
+	@BioTag(type="Integer")
+	@BioSqlTag
+	public static final String PRICE = "price" ;
+	
+	public Tariff() {
+		
+	}
+	
+	public Tariff(String code, String currency, int price) {
+		set(CODE, code) ;
+		set(CURRENCY, currency) ;
+		set(PRICE, price) ;
+	}
+}
@@ -0,0 +1,36 @@
+package com.linkedlogics.bio.sql.test;
+
+import com.linkedlogics.bio.BioObject;
+import com.linkedlogics.bio.annotation.BioObj;
+import com.linkedlogics.bio.annotation.BioTag;
+import com.linkedlogics.bio.sql.annotation.BioSql;
+import com.linkedlogics.bio.sql.annotation.BioSqlTag;
+
+/**
+ * Table with object cache, query cache and key filter
+ * @author rajab
+ *
+ */
+@BioObj
+@BioSql(table="vehicles", cacheSize = 100, queryCacheSize = 10, keyFilterSize = 1000)
+public class Vehicle extends BioObject {
+	@BioTag(type="String")
+	@BioSqlTag(isKey=true)
+	public static final String VIN = "vin" ;
+	@BioTag(type="String")
+	@BioSqlTag
+	public static final String PRODUCER = "producer" ;
+	@BioTag(type="Integer")
+	@BioSqlTag
+	public static final String YEAR_OF_PRODUCTION = "year_of_production" ;
+	
+	public Vehicle() {
+		
+	}
+	
+	public Vehicle(String vin, String producer, int year) {
+		set(VIN, vin) ;
+		set(PRODUCER, producer) ;
+		set(YEAR_OF_PRODUCTION, year) ;
+	}
+}